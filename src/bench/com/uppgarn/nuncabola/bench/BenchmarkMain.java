@@ -0,0 +1,50 @@
+/*
+ * BenchmarkMain.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.bench;
+
+import org.openjdk.jmh.results.format.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Runs the benchmark suite and writes the results in JSON format.
+ * <p>
+ * The benchmarks live in {@code src/bench} and are compiled together
+ * with {@code src/java}, with JMH core and its annotation processor
+ * on the class path. Arguments: an optional result file followed by
+ * optional benchmark name patterns. Levels can be overridden with
+ * JMH's {@code -p level=...} when running through JMH's own main.
+ */
+public final class BenchmarkMain {
+  public static final String DEFAULT_RESULT_FILE = "bench-results.json";
+  
+  public static void main(String[] args) throws RunnerException {
+    ChainedOptionsBuilder builder = new OptionsBuilder()
+      .resultFormat(ResultFormatType.JSON)
+      .result((args.length > 0) ? args[0] : DEFAULT_RESULT_FILE);
+    
+    for (int idx = 1; idx < args.length; idx++) {
+      builder.include(args[idx]);
+    }
+    
+    new Runner(builder.build()).run();
+  }
+  
+  private BenchmarkMain() {
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Fixtures.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.bench;
+
+import com.uppgarn.nuncabola.core.game.*;
+import com.uppgarn.nuncabola.core.level.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Benchmark fixtures.
+ * <p>
+ * Levels are given as specs: {@code synthetic:LUMPS:MOVERS} generates
+ * a level with {@link SyntheticSolid}, anything else is read as the
+ * path of a SOL file (e.g. a real level from the data directory).
+ */
+public final class Fixtures {
+  public static final String SYNTHETIC_PREFIX = "synthetic:";
+  
+  /**
+   * Number of ticks between input changes in scripted games.
+   */
+  private static final int INPUT_INTERVAL = 45;
+  
+  public static SolidBase loadSolidBase(String spec) throws IOException {
+    if (spec.startsWith(SYNTHETIC_PREFIX)) {
+      String[] parts = spec.substring(SYNTHETIC_PREFIX.length()).split(":");
+      
+      int lumpCount  = Integer.parseInt(parts[0]);
+      int moverCount = (parts.length > 1) ? Integer.parseInt(parts[1]) : 0;
+      
+      return SyntheticSolid.create(lumpCount, moverCount, 0);
+    } else {
+      return SolidReadTool.readSolidBase(new File(spec).toPath());
+    }
+  }
+  
+  public static byte[] loadSolidBytes(String spec) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    
+    SolidWriteTool.writeSolidBase(out, loadSolidBase(spec));
+    
+    return out.toByteArray();
+  }
+  
+  public static GameBase createGameBase(SolidBase solBase) {
+    return new GameBase(LevelParser.parse(solBase.meta, "bench"), solBase);
+  }
+  
+  /**
+   * Copies commands by encoding and decoding them, since game servers
+   * reuse command instances across updates.
+   */
+  private static List<Command> copyCommands(List<Command> cmds)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    
+    for (Command cmd: cmds) {
+      CommandWriteTool.writeCommand(out, cmd);
+    }
+    
+    InputStream   in       = new ByteArrayInputStream(out.toByteArray());
+    List<Command> cmdsCopy = new ArrayList<>(cmds.size());
+    
+    for (int idx = 0; idx < cmds.size(); idx++) {
+      cmdsCopy.add(CommandReadTool.readCommand(in));
+    }
+    
+    return cmdsCopy;
+  }
+  
+  /**
+   * Records the commands of a game played with pseudo-random input,
+   * one list per update, for at most the given number of ticks.
+   */
+  public static List<List<Command>> recordUpdates(
+      SolidBase solBase,
+      int       tickCount) throws IOException {
+    List<List<Command>> updates = new ArrayList<>();
+    
+    Level level = LevelParser.parse(solBase.meta, "bench");
+    
+    PlayGameServer server = new PlayGameServer(
+      level,
+      solBase,
+      false,
+      ViewDistance.DEFAULT,
+      Rate.DEFAULT);
+    
+    updates.add(copyCommands(server.getCommands()));
+    
+    Input  input  = new Input();
+    Random random = new Random(0);
+    
+    for (int tick = 0; tick < tickCount; tick++) {
+      if (tick % INPUT_INTERVAL == 0) {
+        input.setX       ((random.nextFloat() * 2.0f - 1.0f) * Input.MAX_TILT);
+        input.setZ       ((random.nextFloat() * 2.0f - 1.0f) * Input.MAX_TILT);
+        input.setRotation(random.nextFloat() * 2.0f - 1.0f);
+      }
+      
+      server.step(input);
+      
+      if (server.getCommands().isEmpty()) {
+        break;
+      }
+      
+      updates.add(copyCommands(server.getCommands()));
+    }
+    
+    return updates;
+  }
+  
+  private Fixtures() {
+  }
+}
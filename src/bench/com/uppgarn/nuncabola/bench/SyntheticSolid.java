@@ -0,0 +1,331 @@
+/*
+ * SyntheticSolid.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.bench;
+
+import com.uppgarn.nuncabola.core.solid.*;
+
+import java.util.*;
+
+/**
+ * Procedurally generated solid bases for benchmarks.
+ * <p>
+ * A level consists of a floor lump and randomly scattered box lumps,
+ * organized in a BSP tree, plus boxes moved back and forth by movers.
+ */
+public final class SyntheticSolid {
+  /**
+   * Side length of the square floor.
+   */
+  private static final float SIZE = 40.0f;
+  
+  /**
+   * Maximum number of lumps in a leaf node.
+   */
+  private static final int LEAF_LUMP_COUNT = 4;
+  
+  public static SolidBase create(int lumpCount, int moverCount, long seed) {
+    return new SyntheticSolid(seed).create(lumpCount, moverCount);
+  }
+  
+  private final Random random;
+  
+  private final List<Vertex>  verts;
+  private final List<Edge>    edges;
+  private final List<Side>    sides;
+  private final List<Lump>    lumps;
+  private final List<Node>    nodes;
+  private final List<Integer> indices;
+  
+  private final List<Lump> orderedLumps;
+  
+  private SyntheticSolid(long seed) {
+    random = new Random(seed);
+    
+    verts   = new ArrayList<>();
+    edges   = new ArrayList<>();
+    sides   = new ArrayList<>();
+    lumps   = new ArrayList<>();
+    nodes   = new ArrayList<>();
+    indices = new ArrayList<>();
+    
+    orderedLumps = new ArrayList<>();
+  }
+  
+  private float random(float min, float max) {
+    return min + random.nextFloat() * (max - min);
+  }
+  
+  private void addBox(
+      float x0,
+      float y0,
+      float z0,
+      float x1,
+      float y1,
+      float z1) {
+    int vert0Idx = verts.size();
+    int edge0Idx = edges.size();
+    int side0Idx = sides.size();
+    
+    for (int idx = 0; idx < 8; idx++) {
+      Vertex vert = new Vertex();
+      vert.p.set(
+        ((idx & 1) == 0) ? x0 : x1,
+        ((idx & 2) == 0) ? y0 : y1,
+        ((idx & 4) == 0) ? z0 : z1);
+      
+      verts.add(vert);
+    }
+    
+    // Connect vertices differing in exactly one coordinate.
+    
+    for (int idx0 = 0; idx0 < 8; idx0++) {
+      for (int bit = 1; bit < 8; bit <<= 1) {
+        if ((idx0 & bit) == 0) {
+          Edge edge = new Edge();
+          edge.vert0Idx = vert0Idx + idx0;
+          edge.vert1Idx = vert0Idx + (idx0 | bit);
+          
+          edges.add(edge);
+        }
+      }
+    }
+    
+    addSide(+1.0f,  0.0f,  0.0f, +x1);
+    addSide(-1.0f,  0.0f,  0.0f, -x0);
+    addSide( 0.0f, +1.0f,  0.0f, +y1);
+    addSide( 0.0f, -1.0f,  0.0f, -y0);
+    addSide( 0.0f,  0.0f, +1.0f, +z1);
+    addSide( 0.0f,  0.0f, -1.0f, -z0);
+    
+    Lump lump = new Lump();
+    
+    lump.vert0Idx  = indices.size();
+    lump.vertCount = 8;
+    addIndices(vert0Idx, 8);
+    
+    lump.edge0Idx  = indices.size();
+    lump.edgeCount = 12;
+    addIndices(edge0Idx, 12);
+    
+    lump.side0Idx  = indices.size();
+    lump.sideCount = 6;
+    addIndices(side0Idx, 6);
+    
+    lumps.add(lump);
+  }
+  
+  private void addSide(float x, float y, float z, float d) {
+    Side side = new Side();
+    side.n.set(x, y, z);
+    side.d = d;
+    
+    sides.add(side);
+  }
+  
+  private void addIndices(int idx0, int count) {
+    for (int idx = idx0; idx < idx0 + count; idx++) {
+      indices.add(idx);
+    }
+  }
+  
+  private float getMin(Lump lump, boolean z) {
+    Vertex vert = verts.get(indices.get(lump.vert0Idx));
+    
+    return z ? vert.p.z : vert.p.x;
+  }
+  
+  private float getMax(Lump lump, boolean z) {
+    Vertex vert = verts.get(indices.get(lump.vert0Idx + 7));
+    
+    return z ? vert.p.z : vert.p.x;
+  }
+  
+  /**
+   * Builds a BSP node over the given lumps, splitting alternately
+   * along the x and z axes at the median lump center.
+   */
+  private int addNode(List<Lump> nodeLumps, int depth) {
+    Node node = new Node();
+    
+    int nodeIdx = nodes.size();
+    
+    nodes.add(node);
+    
+    if (nodeLumps.size() <= LEAF_LUMP_COUNT) {
+      node.lump0Idx  = orderedLumps.size();
+      node.lumpCount = nodeLumps.size();
+      
+      orderedLumps.addAll(nodeLumps);
+      
+      return nodeIdx;
+    }
+    
+    boolean z = (depth % 2) != 0;
+    
+    float[] centers = new float[nodeLumps.size()];
+    
+    for (int idx = 0; idx < centers.length; idx++) {
+      Lump lump = nodeLumps.get(idx);
+      
+      centers[idx] = (getMin(lump, z) + getMax(lump, z)) * 0.5f;
+    }
+    
+    Arrays.sort(centers);
+    
+    float d = centers[centers.length / 2];
+    
+    List<Lump> foreLumps = new ArrayList<>();
+    List<Lump> backLumps = new ArrayList<>();
+    List<Lump> ownLumps  = new ArrayList<>();
+    
+    for (Lump lump: nodeLumps) {
+      if (getMin(lump, z) > d) {
+        foreLumps.add(lump);
+      } else if (getMax(lump, z) < d) {
+        backLumps.add(lump);
+      } else {
+        ownLumps.add(lump);
+      }
+    }
+    
+    node.sideIdx = sides.size();
+    addSide(z ? 0.0f : 1.0f, 0.0f, z ? 1.0f : 0.0f, d);
+    
+    node.lump0Idx  = orderedLumps.size();
+    node.lumpCount = ownLumps.size();
+    
+    orderedLumps.addAll(ownLumps);
+    
+    if (!foreLumps.isEmpty()) {
+      node.node0Idx = addNode(foreLumps, depth + 1);
+    }
+    if (!backLumps.isEmpty()) {
+      node.node1Idx = addNode(backLumps, depth + 1);
+    }
+    
+    return nodeIdx;
+  }
+  
+  private SolidBase create(int lumpCount, int moverCount) {
+    SolidBase solBase = new SolidBase();
+    
+    solBase.meta.put("time", "0");
+    solBase.meta.put("goal", "0");
+    
+    // Static lumps.
+    
+    float half = SIZE * 0.5f;
+    
+    addBox(-half, -1.0f, -half, half, 0.0f, half);
+    
+    for (int idx = 1; idx < lumpCount; idx++) {
+      float x = random(-half + 1.0f, half - 2.5f);
+      float z = random(-half + 1.0f, half - 2.5f);
+      
+      addBox(
+        x,
+        0.0f,
+        z,
+        x + random(0.5f, 1.5f),
+        random(0.2f, 0.7f),
+        z + random(0.5f, 1.5f));
+    }
+    
+    List<Body> bodies = new ArrayList<>();
+    
+    Body body = new Body();
+    body.nodeIdx   = addNode(new ArrayList<>(lumps), 0);
+    body.lump0Idx  = 0;
+    body.lumpCount = lumps.size();
+    
+    bodies.add(body);
+    
+    // Movers.
+    
+    PathBase [] pathBases  = new PathBase [moverCount * 2];
+    MoverBase[] moverBases = new MoverBase[moverCount];
+    
+    for (int idx = 0; idx < moverCount; idx++) {
+      float x = random(-half + 1.0f, half - 2.0f);
+      float z = random(-half + 1.0f, half - 2.0f);
+      
+      addBox(x, 0.0f, z, x + 1.0f, 0.3f, z + 1.0f);
+      
+      Lump lump = lumps.get(lumps.size() - 1);
+      
+      Node node = new Node();
+      node.lump0Idx  = orderedLumps.size();
+      node.lumpCount = 1;
+      
+      orderedLumps.add(lump);
+      
+      PathBase pathBase0 = new PathBase();
+      PathBase pathBase1 = new PathBase();
+      
+      pathBase1.p.set(random(-2.0f, 2.0f), 0.0f, random(-2.0f, 2.0f));
+      
+      pathBase0.tm = 1000 + random.nextInt(2000);
+      pathBase0.t  = pathBase0.tm / 1000.0f;
+      pathBase1.tm = pathBase0.tm;
+      pathBase1.t  = pathBase0.t;
+      
+      pathBase0.pathIdx = idx * 2 + 1;
+      pathBase1.pathIdx = idx * 2;
+      
+      pathBases[idx * 2]     = pathBase0;
+      pathBases[idx * 2 + 1] = pathBase1;
+      
+      moverBases[idx] = new MoverBase();
+      moverBases[idx].pathIdx = idx * 2;
+      
+      Body moverBody = new Body();
+      moverBody.nodeIdx   = nodes.size();
+      moverBody.lump0Idx  = node.lump0Idx;
+      moverBody.lumpCount = 1;
+      moverBody.mover0Idx = idx;
+      moverBody.mover1Idx = idx;
+      
+      nodes .add(node);
+      bodies.add(moverBody);
+    }
+    
+    BallBase ballBase = new BallBase();
+    ballBase.p.set(0.0f, ballBase.r, 0.0f);
+    
+    solBase.verts  = verts       .toArray(new Vertex[verts       .size()]);
+    solBase.edges  = edges       .toArray(new Edge  [edges       .size()]);
+    solBase.sides  = sides       .toArray(new Side  [sides       .size()]);
+    solBase.lumps  = orderedLumps.toArray(new Lump  [orderedLumps.size()]);
+    solBase.nodes  = nodes       .toArray(new Node  [nodes       .size()]);
+    solBase.bodies = bodies      .toArray(new Body  [bodies      .size()]);
+    
+    solBase.indices = new int[indices.size()];
+    
+    for (int idx = 0; idx < solBase.indices.length; idx++) {
+      solBase.indices[idx] = indices.get(idx);
+    }
+    
+    solBase.pathBases  = pathBases;
+    solBase.moverBases = moverBases;
+    solBase.ballBases  = new BallBase[] {ballBase};
+    
+    solBase.pack = new SolidPack(solBase);
+    
+    return solBase;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * CommandBenchmark.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.game;
+
+import com.uppgarn.nuncabola.bench.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of command encoding, using the commands of ten seconds
+ * of scripted play.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+  private static final int TICK_COUNT = 900;
+  
+  @Param({"synthetic:100:0", "synthetic:1000:20"})
+  public String level;
+  
+  private List<Command> cmds;
+  private byte[]        bytes;
+  
+  private ByteArrayOutputStream out;
+  
+  @Setup
+  public void setUp() throws Exception {
+    cmds = new ArrayList<>();
+    
+    for (List<Command> update: Fixtures.recordUpdates(
+        Fixtures.loadSolidBase(level),
+        TICK_COUNT)) {
+      cmds.addAll(update);
+    }
+    
+    out = new ByteArrayOutputStream();
+    
+    writeCommands();
+    
+    bytes = out.toByteArray();
+  }
+  
+  @Benchmark
+  public int writeCommands() throws IOException {
+    out.reset();
+    
+    for (Command cmd: cmds) {
+      CommandWriteTool.writeCommand(out, cmd);
+    }
+    
+    return out.size();
+  }
+  
+  @Benchmark
+  public int readCommands() throws IOException {
+    InputStream in = new ByteArrayInputStream(bytes);
+    
+    int count = 0;
+    
+    while (in.available() > 0) {
+      if (CommandReadTool.readCommand(in) != null) {
+        count++;
+      }
+    }
+    
+    return count;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * GameBenchmark.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.game;
+
+import com.uppgarn.nuncabola.bench.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of game state interpolation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+  private static final int TICK_COUNT = 450;
+  
+  @Param({"synthetic:100:0", "synthetic:1000:20"})
+  public String level;
+  
+  private Game prevGame;
+  private Game currGame;
+  private Game game;
+  
+  @Setup
+  public void setUp() throws Exception {
+    SolidBase solBase = Fixtures.loadSolidBase(level);
+    
+    currGame = new Game(Fixtures.createGameBase(solBase));
+    prevGame = new Game(currGame);
+    game     = new Game(currGame);
+    
+    GameClient client = new GameClient(currGame, null);
+    
+    for (List<Command> update: Fixtures.recordUpdates(solBase, TICK_COUNT)) {
+      prevGame.copyFrom(currGame);
+      
+      for (Command cmd: update) {
+        client.execute(cmd);
+      }
+    }
+  }
+  
+  @Benchmark
+  public Game copyFrom() {
+    game.copyFrom(prevGame, currGame, 0.5f);
+    
+    return game;
+  }
+}
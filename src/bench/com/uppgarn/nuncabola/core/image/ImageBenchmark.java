@@ -0,0 +1,68 @@
+/*
+ * ImageBenchmark.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of image downscaling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageBenchmark {
+  @Param({"256", "1024"})
+  public int size;
+  
+  @Param({"false", "true"})
+  public boolean alpha;
+  
+  private Image image;
+  
+  @Setup
+  public void setUp() {
+    int bytes = alpha ? 4 : 3;
+    
+    byte[] data = new byte[size * size * bytes];
+    
+    new Random(0).nextBytes(data);
+    
+    ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+    buf.put(data);
+    buf.flip();
+    
+    image = new Image(buf, size, size, alpha);
+  }
+  
+  @Benchmark
+  public Image scaledDownByFactor() {
+    return image.scaledDown(2);
+  }
+  
+  @Benchmark
+  public Image scaledDownToSize() {
+    return image.scaledDown(size * 2 / 3, size * 2 / 3);
+  }
+}
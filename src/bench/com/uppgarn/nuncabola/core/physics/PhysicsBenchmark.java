@@ -0,0 +1,122 @@
+/*
+ * PhysicsBenchmark.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.physics;
+
+import com.uppgarn.nuncabola.bench.*;
+import com.uppgarn.nuncabola.core.math.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of the physics hot paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsBenchmark {
+  /**
+   * Simulated ticks per invocation of {@link #simulationStep}.
+   */
+  private static final int TICK_COUNT = 90;
+  
+  private static final float DT = 1.0f / 90.0f;
+  
+  /**
+   * Number of ball states cycled through by {@link #testBodies}.
+   */
+  private static final int BALL_COUNT = 64;
+  
+  @Param({"synthetic:100:0", "synthetic:1000:20"})
+  public String level;
+  
+  private Solid             initSol;
+  private Solid             sol;
+  private Simulation        sim;
+  private CollisionDetector collDetect;
+  private Vector3           g;
+  
+  private Ball[] balls;
+  private int    ballIdx;
+  
+  private final Vector3 t_ = new Vector3();
+  private final Vector3 v_ = new Vector3();
+  
+  @Setup
+  public void setUp() throws Exception {
+    SolidBase solBase = Fixtures.loadSolidBase(level);
+    
+    initSol    = new Solid(solBase);
+    sol        = new Solid(initSol);
+    sim        = new Simulation(sol, null);
+    collDetect = new CollisionDetector(sol);
+    
+    // Slightly tilted gravity keeps the ball rolling.
+    
+    g = new Vector3(1.5f, -9.8f, 1.0f);
+    
+    // Balls scattered above the floor with random velocities.
+    
+    Random random = new Random(0);
+    
+    balls = new Ball[BALL_COUNT];
+    
+    for (int idx = 0; idx < balls.length; idx++) {
+      Ball ball = new Ball(initSol.balls[0]);
+      ball.p.set(
+        random.nextFloat() * 36.0f - 18.0f,
+        ball.r + random.nextFloat(),
+        random.nextFloat() * 36.0f - 18.0f);
+      ball.v.set(
+        random.nextFloat() * 10.0f - 5.0f,
+        random.nextFloat() * 10.0f - 5.0f,
+        random.nextFloat() * 10.0f - 5.0f);
+      
+      balls[idx] = ball;
+    }
+  }
+  
+  /**
+   * Simulates one second of play from the initial state.
+   */
+  @Benchmark
+  public float simulationStep() {
+    sol.copyFrom(initSol);
+    
+    float b = 0.0f;
+    
+    for (int tick = 0; tick < TICK_COUNT; tick++) {
+      b += sim.step(0, g, DT);
+    }
+    
+    return b;
+  }
+  
+  @Benchmark
+  public float testBodies() {
+    ballIdx = (ballIdx + 1) % balls.length;
+    
+    return collDetect.testBodies(t_, v_, balls[ballIdx], DT);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * SolidBenchmark.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.solid;
+
+import com.uppgarn.nuncabola.bench.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of SOL parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolidBenchmark {
+  @Param({"synthetic:100:0", "synthetic:1000:20"})
+  public String level;
+  
+  private byte[] bytes;
+  
+  @Setup
+  public void setUp() throws Exception {
+    bytes = Fixtures.loadSolidBytes(level);
+  }
+  
+  @Benchmark
+  public SolidBase readSolidBase() throws IOException {
+    return SolidReadTool.readSolidBase(new ByteArrayInputStream(bytes));
+  }
+  
+  @Benchmark
+  public SolidBase readSolidBaseBuffer() throws IOException {
+    return SolidReadTool.readSolidBase(ByteBuffer.wrap(bytes));
+  }
+  
+  @Benchmark
+  public Meta readSolidMeta() throws IOException {
+    return SolidReadTool.readSolidMeta(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * ByteBufferInputStream.java
+ *
+ * Copyright (c) 1998-2022 Florian Priester
+ *
+ * CodeLibF is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ */
+
+
+package com.uppgarn.codelibf.io;
+
+import java.io.*;
+import java.nio.*;
+
+public final class ByteBufferInputStream extends InputStream {
+  private final ByteBuffer buf;
+  
+  public ByteBufferInputStream(ByteBuffer buf) {
+    if (buf == null) {
+      throw new IllegalArgumentException();
+    }
+    
+    this.buf = buf.duplicate();
+  }
+  
+  @Override
+  public int read() {
+    if (!buf.hasRemaining()) {
+      return -1;
+    }
+    
+    return buf.get() & 0xFF;
+  }
+  
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    if (!buf.hasRemaining()) {
+      return -1;
+    }
+    
+    len = Math.min(len, buf.remaining());
+    
+    buf.get(b, off, len);
+    
+    return len;
+  }
+  
+  @Override
+  public long skip(long n) {
+    int len = (int) Math.min(Math.max(n, 0), buf.remaining());
+    
+    buf.position(buf.position() + len);
+    
+    return len;
+  }
+  
+  @Override
+  public int available() {
+    return buf.remaining();
+  }
+}
@@ -48,6 +48,10 @@ public final class ZipSource implements Source {
     }
   }
   
+  public ZipEntry getEntry() {
+    return entry;
+  }
+  
   @Override
   public Path getFile() {
     return null;
@@ -17,6 +17,8 @@
 
 package com.uppgarn.nuncabola;
 
+import com.uppgarn.nuncabola.core.audio.*;
+import com.uppgarn.nuncabola.core.replay.*;
 import com.uppgarn.nuncabola.functions.*;
 import com.uppgarn.nuncabola.general.*;
 import com.uppgarn.nuncabola.ui.*;
@@ -26,7 +28,9 @@ import com.uppgarn.codelibf.util.*;
 
 import org.lwjgl.*;
 
+import java.io.*;
 import java.nio.file.*;
+import java.util.*;
 
 public final class Nuncabola {
   public static void main(String[] args) throws Throwable {
@@ -58,8 +62,10 @@ public final class Nuncabola {
     
     // Parse arguments.
     
-    Path dataDir    = null;
-    Path replayFile = null;
+    Path       dataDir     = null;
+    Path       replayFile  = null;
+    List<Path> verifyPaths = new ArrayList<>();
+    Path       bankFile    = null;
     
     for (int idx = 0; idx < args.length; idx++) {
       String arg = args[idx];
@@ -126,6 +132,52 @@ public final class Nuncabola {
         continue;
       }
       
+      // Replays to verify.
+      
+      if (arg.equals("--verify")) {
+        if (idx + 1 == args.length) {
+          System.err.println("Option '" + arg + "' requires an argument.");
+          
+          return 1;
+        }
+        
+        String arg0 = args[++idx];
+        
+        try {
+          verifyPaths.add(Paths.get(arg0));
+        } catch (InvalidPathException ex) {
+          System.err.println(
+            "Invalid argument '" + arg0 + "' for option '" + arg + "'.");
+          
+          return 1;
+        }
+        
+        continue;
+      }
+      
+      // Sound bank to build.
+      
+      if (arg.equals("--build-sound-bank")) {
+        if (idx + 1 == args.length) {
+          System.err.println("Option '" + arg + "' requires an argument.");
+          
+          return 1;
+        }
+        
+        String arg0 = args[++idx];
+        
+        try {
+          bankFile = Paths.get(arg0);
+        } catch (InvalidPathException ex) {
+          System.err.println(
+            "Invalid argument '" + arg0 + "' for option '" + arg + "'.");
+          
+          return 1;
+        }
+        
+        continue;
+      }
+      
       // Assume a single unrecognized argument is a replay name.
       
       if (args.length == 1) {
@@ -139,6 +191,18 @@ public final class Nuncabola {
       }
     }
     
+    // Build sound bank without a display.
+    
+    if (bankFile != null) {
+      return buildSoundBank(dataDir, bankFile);
+    }
+    
+    // Verify replays without a display.
+    
+    if (!verifyPaths.isEmpty()) {
+      return verify(dataDir, verifyPaths);
+    }
+    
     // Set native library paths for LWJGL and JInput.
     
     String path = getNativeLibraryPath();
@@ -220,7 +284,138 @@ public final class Nuncabola {
       + StringTool.LS
       + "  -d, --data <dir>     Use 'dir' as game data directory."
       + StringTool.LS
-      + "  -r, --replay <file>  Play the replay 'file'.";
+      + "  -r, --replay <file>  Play the replay 'file'."
+      + StringTool.LS
+      + "  --verify <path>      Re-simulate the replay 'path' (or all replays"
+      + StringTool.LS
+      + "                       in the directory 'path') without a display"
+      + StringTool.LS
+      + "                       and report whether it matches the recording."
+      + StringTool.LS
+      + "  --build-sound-bank <file>"
+      + StringTool.LS
+      + "                       Pre-decode all sounds into the sound bank"
+      + StringTool.LS
+      + "                       'file'. The game uses a bank placed at"
+      + StringTool.LS
+      + "                       '"
+      + SoundBankWriteTool.BANK_PATH
+      + "' in a data directory.";
+  }
+  
+  private static List<Path> getReplayFiles(List<Path> paths) {
+    List<Path> files = new ArrayList<>();
+    
+    for (Path path: paths) {
+      if (!Files.isDirectory(path)) {
+        files.add(path);
+        
+        continue;
+      }
+      
+      List<Path> dirFiles = new ArrayList<>();
+      
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+          path,
+          "*" + ReplayFileFuncs.EXTENSION)) {
+        for (Path entry: stream) {
+          dirFiles.add(entry);
+        }
+      } catch (IOException ex) {
+      }
+      
+      dirFiles.sort(null);
+      
+      files.addAll(dirFiles);
+    }
+    
+    return files;
+  }
+  
+  private static int verify(Path dataDir, List<Path> paths) {
+    // Initialize base and data functions.
+    
+    try {
+      BaseFuncs.initialize(dataDir);
+    } catch (FuncsException ex) {
+      System.err.println("Failure to establish game data directory.");
+      
+      return 1;
+    }
+    
+    DataFuncs.initialize();
+    
+    // Verify replays.
+    
+    ReplayVerifier verifier = new ReplayVerifier(DataFuncs.getDataFolder());
+    
+    List<ReplayVerification> results = verifier.verify(getReplayFiles(paths));
+    
+    int validCount = 0;
+    
+    for (ReplayVerification result: results) {
+      if (result.getResult() == ReplayVerification.Result.VALID) {
+        validCount++;
+      }
+      
+      System.out.println(
+          result.getFile()
+        + ": "
+        + result.getResult()
+        + " (updates: "
+        + result.getUpdateCount()
+        + ", divergence: "
+        + result.getDivergenceUpdate()
+        + ", max. error: "
+        + result.getMaxError()
+        + ")");
+    }
+    
+    System.out.println(validCount + " of " + results.size() + " valid.");
+    
+    // Deinitialize data and base functions.
+    
+    DataFuncs.deinitialize();
+    BaseFuncs.deinitialize();
+    
+    return (validCount == results.size()) ? 0 : 2;
+  }
+  
+  private static int buildSoundBank(Path dataDir, Path file) {
+    // Initialize base and data functions.
+    
+    try {
+      BaseFuncs.initialize(dataDir);
+    } catch (FuncsException ex) {
+      System.err.println("Failure to establish game data directory.");
+      
+      return 1;
+    }
+    
+    DataFuncs.initialize();
+    
+    // Build sound bank.
+    
+    int returnCode = 0;
+    
+    try {
+      int count = SoundBankWriteTool.writeSoundBank(
+        file,
+        DataFuncs.getDataFolder());
+      
+      System.out.println(count + " sounds written to " + file + ".");
+    } catch (IOException ex) {
+      System.err.println("Failure to write sound bank: " + ex.getMessage());
+      
+      returnCode = 1;
+    }
+    
+    // Deinitialize data and base functions.
+    
+    DataFuncs.deinitialize();
+    BaseFuncs.deinitialize();
+    
+    return returnCode;
   }
   
   private static String getPlatform() {
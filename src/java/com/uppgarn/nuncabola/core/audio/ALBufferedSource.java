@@ -22,10 +22,12 @@ import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
 import org.lwjgl.openal.*;
 
 import static org.lwjgl.openal.AL10.*;
+import static org.lwjgl.openal.AL11.*;
 
 final class ALBufferedSource {
   private Integer source;
   private Integer buffer;
+  private int     frameCount;
   
   private boolean errorOccurred;
   
@@ -35,6 +37,8 @@ final class ALBufferedSource {
     
     errorOccurred = (source == null) || (buffer == null);
     
+    frameCount = data.getBuffer().remaining() / (data.isMono() ? 1 : 2);
+    
     initializeBuffer(data);
   }
   
@@ -95,6 +99,25 @@ final class ALBufferedSource {
     }
   }
   
+  /**
+   * Returns the time in nanoseconds until playback reaches the end.
+   */
+  public long getRemainingTime() {
+    if (errorOccurred) {
+      return 0;
+    }
+    
+    try {
+      int offset = alGetSourcei(source, AL_SAMPLE_OFFSET);
+      
+      return getPlaybackTime(Math.max(frameCount - offset, 0));
+    } catch (OpenALException ex) {
+      errorOccurred = true;
+      
+      return 0;
+    }
+  }
+  
   public void play() {
     if (errorOccurred) {
       return;
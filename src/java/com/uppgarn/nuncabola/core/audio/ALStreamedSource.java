@@ -23,6 +23,7 @@ import org.lwjgl.*;
 import org.lwjgl.openal.*;
 
 import static org.lwjgl.openal.AL10.*;
+import static org.lwjgl.openal.AL11.*;
 
 import java.nio.*;
 
@@ -34,6 +35,7 @@ final class ALStreamedSource {
   
   private boolean buffersInitialized;
   private boolean play;
+  private int     bufferFrameCount;
   
   private boolean errorOccurred;
   
@@ -45,6 +47,7 @@ final class ALStreamedSource {
     
     buffersInitialized = false;
     play               = true;
+    bufferFrameCount   = 0;
     
     errorOccurred = (source == null) || (buffers == null);
   }
@@ -126,6 +129,8 @@ final class ALStreamedSource {
   private void fillBuffer(int buffer) {
     ShortBuffer data = callback.fetchData();
     
+    bufferFrameCount = data.remaining() / 2;
+    
     alBufferData(buffer, AL_FORMAT_STEREO16, data, SAMPLE_RATE);
   }
   
@@ -173,6 +178,29 @@ final class ALStreamedSource {
     }
   }
   
+  /**
+   * Returns the time in nanoseconds until the next buffer needs
+   * to be refilled, assuming that {@link #step} has just been called.
+   */
+  public long getDelay() {
+    if (errorOccurred || !play) {
+      return IDLE_DELAY;
+    }
+    
+    try {
+      // Processed buffers have been unqueued, so the offset is
+      // relative to the buffer being played.
+      
+      int offset = alGetSourcei(source, AL_SAMPLE_OFFSET);
+      
+      return getPlaybackTime(Math.max(bufferFrameCount - offset, 0));
+    } catch (OpenALException ex) {
+      errorOccurred = true;
+      
+      return IDLE_DELAY;
+    }
+  }
+  
   public void deinitialize() {
     if (source != null) {
       try {
@@ -18,19 +18,33 @@
 package com.uppgarn.nuncabola.core.audio;
 
 import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.util.*;
 
 import com.uppgarn.codelibf.util.*;
 
 import org.lwjgl.*;
 import org.lwjgl.openal.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 public final class Audio {
+  /**
+   * Size of the sound cache in bytes.
+   */
+  private static final int SOUND_CACHE_SIZE = 1048576;
+  
+  /**
+   * Number of buffers of music decoded ahead of playback.
+   */
+  private static final int MUSIC_READ_AHEAD = 8;
+  
   private static boolean enabled;
   
   private static Sounds sounds;
   private static Music  music;
   
-  private static TerminableThread thread;
+  private static AudioThread thread;
   
   public static void initialize(Folder dataFolder, int bufferSize) {
     try {
@@ -38,8 +52,10 @@ public final class Audio {
       
       enabled = true;
       
-      sounds = new Sounds(dataFolder, 524288);
-      music  = new Music (dataFolder, bufferSize);
+      int readAhead = bufferSize * MUSIC_READ_AHEAD;
+      
+      sounds = new Sounds(dataFolder, SOUND_CACHE_SIZE);
+      music  = new Music (dataFolder, bufferSize, readAhead);
       
       thread = new AudioThread();
       thread.setPriority(Thread.MAX_PRIORITY);
@@ -81,6 +97,50 @@ public final class Audio {
     synchronized (sounds) {
       sounds.play(path, Math.min(Math.max(amp, 0.0f), 1.0f));
     }
+    
+    thread.wake();
+  }
+  
+  /**
+   * Starts decoding the given sounds in the background, so that
+   * they are ready when they are first played.
+   */
+  public static void prefetchSounds(Collection<String> paths) {
+    if (!enabled) {
+      return;
+    }
+    
+    synchronized (sounds) {
+      sounds.prefetch(paths);
+    }
+  }
+  
+  /**
+   * Returns the counters of the sound cache, or null if audio
+   * is disabled.
+   */
+  public static CacheStats getSoundCacheStats() {
+    if (!enabled) {
+      return null;
+    }
+    
+    synchronized (sounds) {
+      return sounds.getCacheStats();
+    }
+  }
+  
+  /**
+   * Returns the number of times music playback ran out of decoded
+   * samples.
+   */
+  public static int getMusicUnderrunCount() {
+    if (!enabled) {
+      return 0;
+    }
+    
+    synchronized (music) {
+      return music.getUnderrunCount();
+    }
   }
   
   public static void fadeToMusic(String path, float time) {
@@ -91,6 +151,8 @@ public final class Audio {
     synchronized (music) {
       music.fadeTo(path, time);
     }
+    
+    thread.wake();
   }
   
   public static void fadeOutMusic(float time) {
@@ -101,6 +163,8 @@ public final class Audio {
     synchronized (music) {
       music.fadeOut(time);
     }
+    
+    thread.wake();
   }
   
   public static void setSoundsPaused(boolean paused) {
@@ -111,6 +175,8 @@ public final class Audio {
     synchronized (sounds) {
       sounds.setPaused(paused);
     }
+    
+    thread.wake();
   }
   
   public static void setMusicPaused(boolean paused) {
@@ -121,6 +187,8 @@ public final class Audio {
     synchronized (music) {
       music.setPaused(paused);
     }
+    
+    thread.wake();
   }
   
   public static void setPaused(boolean paused) {
@@ -173,19 +241,58 @@ public final class Audio {
   private Audio() {
   }
   
+  /**
+   * Steps sounds and music when needed. Between steps, the thread
+   * sleeps until the earliest time requested by the sounds and the
+   * music, e.g. when the next streaming buffer needs to be refilled,
+   * or until it is woken up by a change.
+   */
   private static final class AudioThread extends TerminableThread {
+    /**
+     * Minimum delay in nanoseconds between steps.
+     */
+    private static final long MIN_DELAY = 1000000L;
+    
+    private final Object signal = new Object();
+    
+    private boolean woken = false;
+    
+    public void wake() {
+      synchronized (signal) {
+        woken = true;
+        
+        signal.notify();
+      }
+    }
+    
+    private void await(long delay) throws InterruptedException {
+      synchronized (signal) {
+        if (!woken) {
+          if (delay == AudioConstants.IDLE_DELAY) {
+            signal.wait();
+          } else {
+            TimeUnit.NANOSECONDS.timedWait(signal, Math.max(delay, MIN_DELAY));
+          }
+        }
+        
+        woken = false;
+      }
+    }
+    
     @Override
     public void run() {
       try {
         while (!Thread.currentThread().isInterrupted()) {
+          long delay;
+          
           synchronized (sounds) {
-            sounds.step();
+            delay = sounds.step();
           }
           synchronized (music) {
-            music .step();
+            delay = Math.min(delay, music.step());
           }
           
-          Thread.sleep(1);
+          await(delay);
         }
       } catch (InterruptedException ex) {
         // Allow thread to exit.
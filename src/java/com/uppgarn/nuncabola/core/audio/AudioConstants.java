@@ -20,6 +20,19 @@ package com.uppgarn.nuncabola.core.audio;
 final class AudioConstants {
   public static final int SAMPLE_RATE = 44100;
   
+  /**
+   * Delay returned by step methods that have nothing to do until
+   * something else changes.
+   */
+  public static final long IDLE_DELAY = Long.MAX_VALUE;
+  
+  /**
+   * Returns the playback time of {@code frames} frames in nanoseconds.
+   */
+  public static long getPlaybackTime(int frames) {
+    return frames * 1000000000L / SAMPLE_RATE;
+  }
+  
   private AudioConstants() {
   }
 }
@@ -36,7 +36,10 @@ final class AudioData {
     return mono;
   }
   
+  /**
+   * Returns the size of the samples in bytes.
+   */
   public int getSize() {
-    return buf.capacity();
+    return buf.capacity() * 2;
   }
 }
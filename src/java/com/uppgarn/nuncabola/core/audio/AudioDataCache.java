@@ -17,86 +17,114 @@
 
 package com.uppgarn.nuncabola.core.audio;
 
+import com.uppgarn.nuncabola.core.util.*;
+
 import java.util.*;
 
+/**
+ * Least-recently-used cache of audio data, bounded by the total size
+ * of the data in bytes.
+ * <p>
+ * Pinned paths, i.e. paths of sounds that are currently playing,
+ * are never evicted. Pins may be placed before the data is added.
+ */
 final class AudioDataCache {
-  private List<Entry> entries;
+  private final int capacity;
   
-  private int free;
+  private Map<String, AudioData> entries;
+  private Map<String, Integer>   pins;
   
-  public AudioDataCache(int size) {
-    entries = new ArrayList<>();
-    
-    free = size;
-  }
+  private int resident;
   
-  private int indexOf(String path) {
-    for (int idx = entries.size() - 1; idx >= 0; idx--) {
-      if (entries.get(idx).path.equals(path)) {
-        return idx;
-      }
-    }
+  private long hits;
+  private long misses;
+  private long evictions;
+  
+  public AudioDataCache(int capacity) {
+    this.capacity = capacity;
+    
+    entries = new LinkedHashMap<>(16, 0.75f, true);
+    pins    = new HashMap<>();
     
-    return -1;
+    resident = 0;
+    
+    hits      = 0;
+    misses    = 0;
+    evictions = 0;
   }
   
   private void freeUp(int needed) {
-    if (needed <= 0) {
-      return;
-    }
-    
-    int total = 0;
+    // Entries are visited least recently used first.
     
-    for (int idx = 0; idx < entries.size(); idx++) {
-      total += entries.get(idx).data.getSize();
+    for (Iterator<Map.Entry<String, AudioData>> it =
+        entries.entrySet().iterator(); (needed > 0) && it.hasNext();) {
+      Map.Entry<String, AudioData> entry = it.next();
       
-      if (total >= needed) {
-        entries.subList(0, idx + 1).clear();
+      if (!pins.containsKey(entry.getKey())) {
+        int size = entry.getValue().getSize();
         
-        free += total;
+        it.remove();
         
-        break;
+        resident  -= size;
+        needed    -= size;
+        evictions++;
       }
     }
   }
   
   public void add(String path, AudioData data) {
-    if (indexOf(path) != -1) {
+    if (entries.containsKey(path)) {
       return;
     }
     
-    freeUp(data.getSize() - free);
+    freeUp(resident + data.getSize() - capacity);
     
-    if (data.getSize() <= free) {
-      entries.add(new Entry(path, data));
+    if (resident + data.getSize() <= capacity) {
+      entries.put(path, data);
       
-      free -= data.getSize();
+      resident += data.getSize();
     }
   }
   
   public AudioData get(String path) {
-    int idx = indexOf(path);
+    AudioData data = entries.get(path);
     
-    if (idx == -1) {
-      return null;
+    if (data != null) {
+      hits++;
+    } else {
+      misses++;
     }
     
-    // A requested entry is moved to the end of the list, making it
-    // less likely to be removed when space needs to be freed up.
-    
-    Entry entry = entries.remove(idx);
-    entries.add(entry);
+    return data;
+  }
+  
+  public void pin(String path) {
+    Integer count = pins.get(path);
     
-    return entry.data;
+    pins.put(path, (count == null) ? 1 : (count + 1));
   }
   
-  private static final class Entry {
-    public final String    path;
-    public final AudioData data;
+  public void unpin(String path) {
+    Integer count = pins.get(path);
     
-    public Entry(String path, AudioData data) {
-      this.path = path;
-      this.data = data;
+    if (count == null) {
+      return;
+    }
+    
+    if (count == 1) {
+      pins.remove(path);
+    } else {
+      pins.put(path, count - 1);
     }
   }
+  
+  public CacheStats getStats() {
+    return new CacheStats(
+      hits,
+      misses,
+      evictions,
+      entries.size(),
+      resident,
+      capacity);
+  }
 }
@@ -18,115 +18,194 @@
 package com.uppgarn.nuncabola.core.audio;
 
 import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.util.*;
 
 import com.uppgarn.codelibf.util.*;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 final class AudioDataManager {
   public static AudioDataManager create(Folder dataFolder, int cacheSize) {
-    AudioDataManager instance = new AudioDataManager(dataFolder, cacheSize);
-    instance.start();
+    return new AudioDataManager(dataFolder, cacheSize);
+  }
+  
+  private static int getThreadCount() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    
+    return Math.min(Math.max(processors - 1, 1), 4);
+  }
+  
+  private static SoundBank loadBank(Folder dataFolder) {
+    SoundBank bank;
     
-    return instance;
+    try {
+      bank = SoundBankReadTool.readSoundBank(
+        dataFolder.getSource(SoundBankWriteTool.BANK_PATH));
+    } catch (IOException ex) {
+      return null;
+    }
+    
+    // Sounds edited or overridden since the bank was built are
+    // decoded instead.
+    
+    bank.removeStale(dataFolder);
+    
+    return bank;
   }
   
-  private final Folder dataFolder;
+  private final Folder    dataFolder;
+  private final SoundBank bank;
   
-  private AudioDataCache cache;
-  private Queue<Request> requests;
+  private AudioDataCache                       cache;
+  private Map<String, FutureHolder<AudioData>> pending;
   
-  private TerminableThread thread;
+  private ExecutorService executor;
   
   private AudioDataManager(Folder dataFolder, int cacheSize) {
     this.dataFolder = dataFolder;
     
-    cache    = new AudioDataCache(cacheSize);
-    requests = new ArrayDeque<>();
+    bank = loadBank(dataFolder);
     
-    thread = new RequestThread();
-  }
-  
-  private void start() {
-    thread.start();
+    cache   = new AudioDataCache(cacheSize);
+    pending = new HashMap<>();
+    
+    executor = Executors.newFixedThreadPool(
+      getThreadCount(),
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "AudioData");
+          thread.setDaemon(true);
+          
+          return thread;
+        }
+      });
   }
   
+  /**
+   * Returns a holder of the data of {@code path}. Sounds in the bank
+   * are ready at once, others are decoded in the background. While
+   * the data is being decoded, all requests for it share a single
+   * holder.
+   */
   public FutureHolder<AudioData> get(String path) {
-    FutureHolder<AudioData> holder = new FutureHolder<>();
+    if (bank != null) {
+      AudioData data = bank.get(path);
+      
+      if (data != null) {
+        return new FutureHolder<>(data);
+      }
+    }
     
-    AudioData data;
+    FutureHolder<AudioData> holder;
     
     synchronized (cache) {
-      data = cache.get(path);
+      AudioData data = cache.get(path);
+      
+      if (data != null) {
+        return new FutureHolder<>(data);
+      }
+      
+      holder = pending.get(path);
+      
+      if (holder != null) {
+        return holder;
+      }
+      
+      holder = new FutureHolder<>();
+      
+      pending.put(path, holder);
     }
     
-    if (data != null) {
-      holder.set(data);
-    } else {
-      synchronized (requests) {
-        requests.add(new Request(holder, path));
-        requests.notify();
+    try {
+      executor.execute(new Request(holder, path));
+    } catch (RejectedExecutionException ex) {
+      // The manager has been deinitialized.
+      
+      synchronized (cache) {
+        pending.remove(path);
       }
+      
+      holder.set(null);
     }
     
     return holder;
   }
   
+  /**
+   * Starts decoding the data of the given paths if it is not cached
+   * or being decoded already.
+   */
+  public void prefetch(Collection<String> paths) {
+    for (String path: paths) {
+      get(path);
+    }
+  }
+  
+  public void pin(String path) {
+    synchronized (cache) {
+      cache.pin(path);
+    }
+  }
+  
+  public void unpin(String path) {
+    synchronized (cache) {
+      cache.unpin(path);
+    }
+  }
+  
+  public CacheStats getStats() {
+    synchronized (cache) {
+      return cache.getStats();
+    }
+  }
+  
   public void deinitialize() {
-    thread.terminate();
+    // Requests that never ran yield no data.
+    
+    for (Runnable request: executor.shutdownNow()) {
+      ((Request) request).holder.set(null);
+    }
+    
+    boolean currentThreadInterrupted = false;
+    
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        currentThreadInterrupted = true;
+      }
+    }
+    
+    if (currentThreadInterrupted) {
+      Thread.currentThread().interrupt();
+    }
   }
   
-  private static final class Request {
-    public final FutureHolder<AudioData> holder;
-    public final String                  path;
+  private final class Request implements Runnable {
+    private final FutureHolder<AudioData> holder;
+    private final String                  path;
     
     public Request(FutureHolder<AudioData> holder, String path) {
       this.holder = holder;
       this.path   = path;
     }
-  }
-  
-  private final class RequestThread extends TerminableThread {
-    private void handle(Request request) {
-      FutureHolder<AudioData> holder = request.holder;
-      String                  path   = request.path;
-      
-      AudioData data;
+    
+    @Override
+    public void run() {
+      AudioData data = AudioDataLoader.load(dataFolder.getSource(path));
       
       synchronized (cache) {
-        data = cache.get(path);
-      }
-      
-      if (data == null) {
-        data = AudioDataLoader.load(dataFolder.getSource(path));
-        
         if (data != null) {
-          synchronized (cache) {
-            cache.add(path, data);
-          }
+          cache.add(path, data);
         }
+        
+        pending.remove(path);
       }
       
       holder.set(data);
     }
-    
-    @Override
-    public void run() {
-      try {
-        while (!Thread.currentThread().isInterrupted()) {
-          Request request;
-          
-          synchronized (requests) {
-            while ((request = requests.poll()) == null) {
-              requests.wait();
-            }
-          }
-          
-          handle(request);
-        }
-      } catch (InterruptedException ex) {
-        // Allow thread to exit.
-      }
-    }
   }
 }
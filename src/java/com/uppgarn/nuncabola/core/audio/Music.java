@@ -19,12 +19,25 @@ package com.uppgarn.nuncabola.core.audio;
 
 import com.uppgarn.nuncabola.core.folder.*;
 
+import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
+
 import org.lwjgl.*;
 
 import java.nio.*;
 
 final class Music {
+  /**
+   * Duration in nanoseconds of the fade before pausing.
+   */
+  private static final long PAUSE_FADE_TIME = 20000000L;
+  
+  /**
+   * Delay in nanoseconds between volume steps of that fade.
+   */
+  private static final long PAUSE_FADE_DELAY = 1000000L;
+  
   private final Folder dataFolder;
+  private final int    readAhead;
   
   private float volume;
   
@@ -32,18 +45,31 @@ final class Music {
   private Track queue;
   
   private boolean paused;
+  private boolean pausing;
+  private long    pauseTime;
   
   private ALStreamedSource source;
   
-  public Music(Folder dataFolder, int bufferSize) {
+  private int underrunCount;
+  
+  /**
+   * Creates a music player that streams buffers of {@code bufferSize}
+   * frames and decodes up to {@code readAhead} frames ahead.
+   */
+  public Music(Folder dataFolder, int bufferSize, int readAhead) {
     this.dataFolder = dataFolder;
+    this.readAhead  = readAhead;
     
     volume = 1.0f;
     
     current = null;
     queue   = null;
     
-    paused = false;
+    paused    = false;
+    pausing   = false;
+    pauseTime = 0;
+    
+    underrunCount = 0;
     
     // Create source.
     
@@ -61,11 +87,30 @@ final class Music {
     source.setVolume(volume);
   }
   
+  private void delete(Track track) {
+    underrunCount += track.getUnderrunCount();
+    
+    track.deinitialize();
+  }
+  
+  /**
+   * Returns the number of times playback ran out of decoded samples.
+   */
+  public int getUnderrunCount() {
+    int count = underrunCount;
+    
+    if (current != null) {
+      count += current.getUnderrunCount();
+    }
+    
+    return count;
+  }
+  
   public void fadeTo(String path, float time) {
     // Delete the queued track, if any.
     
     if (queue != null) {
-      queue.deinitialize();
+      delete(queue);
       
       queue = null;
     }
@@ -73,14 +118,14 @@ final class Music {
     if (current == null) {
       // No current track, create a new one.
       
-      current = new Track(path, dataFolder.getSource(path));
+      current = new Track(path, dataFolder.getSource(path), readAhead);
       current.fadeIn(time);
     } else if (!current.getPath().equals(path)) {
       // Fade out current track and queue a new one.
       
       current.fadeOut(time);
       
-      queue = new Track(path, dataFolder.getSource(path));
+      queue = new Track(path, dataFolder.getSource(path), readAhead);
       queue.fadeIn(time);
     } else {
       // Fade in current track.
@@ -93,7 +138,7 @@ final class Music {
     // Delete the queued track, if any.
     
     if (queue != null) {
-      queue.deinitialize();
+      delete(queue);
       
       queue = null;
     }
@@ -113,46 +158,86 @@ final class Music {
     this.paused = paused;
     
     if (paused) {
-      // Fade before pausing for a nicer transition.
-      
-      final int fade = 20;
+      // Fade before pausing for a nicer transition. The fade
+      // is carried out by step.
       
-      for (int k = fade - 1; k >= 0; k--) {
-        source.setVolume(volume * ((float) k / fade));
-        
-        try {
-          Thread.sleep(1);
-        } catch (InterruptedException ex) {
-          Thread.currentThread().interrupt();
-        }
-      }
+      pausing   = true;
+      pauseTime = System.nanoTime();
+    } else {
+      pausing = false;
       
-      source.pause();
       source.setVolume(volume);
-    } else {
       source.play();
     }
   }
   
   public void stop() {
     if (current != null) {
-      current.deinitialize();
+      delete(current);
       
       current = null;
     }
     if (queue != null) {
-      queue.deinitialize();
+      delete(queue);
       
       queue = null;
     }
     
-    paused = false;
+    paused  = false;
+    pausing = false;
     
+    source.setVolume(volume);
     source.reset();
   }
   
-  public void step() {
+  /**
+   * Returns whether there is nothing audible to stream.
+   */
+  private boolean isIdle() {
+    return (queue == null) && ((current == null) || current.isSilent());
+  }
+  
+  private long stepPause() {
+    long time = System.nanoTime() - pauseTime;
+    
+    if (time < PAUSE_FADE_TIME) {
+      source.setVolume(volume * (1.0f - (float) time / PAUSE_FADE_TIME));
+      
+      return PAUSE_FADE_DELAY;
+    }
+    
+    pausing = false;
+    
+    source.pause();
+    source.setVolume(volume);
+    
+    return IDLE_DELAY;
+  }
+  
+  /**
+   * Steps the music and returns the time in nanoseconds after which
+   * it should be stepped again.
+   */
+  public long step() {
+    if (paused && !pausing) {
+      return IDLE_DELAY;
+    }
+    if (!paused && isIdle()) {
+      // Let the source run dry; it is restarted after the
+      // next change.
+      
+      return IDLE_DELAY;
+    }
+    
     source.step();
+    
+    long delay = source.getDelay();
+    
+    if (pausing) {
+      delay = Math.min(delay, stepPause());
+    }
+    
+    return delay;
   }
   
   public void deinitialize() {
@@ -182,7 +267,7 @@ final class Music {
         // The track has faded out, move to the queued track, if any.
         
         if (queue != null) {
-          current.deinitialize();
+          delete(current);
           
           current = queue;
           queue   = null;
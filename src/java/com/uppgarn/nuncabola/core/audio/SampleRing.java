@@ -0,0 +1,114 @@
+/*
+ * SampleRing.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Bounded lock-free sample ring for one producer and one consumer
+ * thread.
+ * <p>
+ * Read and write positions only ever grow; the array index of
+ * a position is the position modulo the capacity.
+ */
+final class SampleRing {
+  private final short[] array;
+  private final int     mask;
+  
+  /**
+   * Next position to read. Only advanced by the consumer.
+   */
+  private final AtomicLong head;
+  
+  /**
+   * Next position to write. Only advanced by the producer.
+   */
+  private final AtomicLong tail;
+  
+  /**
+   * Creates a ring holding at least {@code capacity} samples.
+   */
+  public SampleRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 1));
+    
+    if (size < capacity) {
+      size <<= 1;
+    }
+    
+    array = new short[size];
+    mask  = size - 1;
+    
+    head = new AtomicLong();
+    tail = new AtomicLong();
+  }
+  
+  public int getCapacity() {
+    return array.length;
+  }
+  
+  /**
+   * Returns the number of samples available to the consumer.
+   */
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+  
+  /**
+   * Returns the number of samples the producer can put.
+   */
+  public int getFree() {
+    return array.length - size();
+  }
+  
+  /**
+   * Puts samples. Must be called by the producer only, with no more
+   * than {@link #getFree} samples.
+   */
+  public void put(short[] b, int off, int len) {
+    assert len <= getFree();
+    
+    long pos  = tail.get();
+    int  idx  = (int) pos & mask;
+    int  len0 = Math.min(len, array.length - idx);
+    
+    System.arraycopy(b, off,        array, idx, len0);
+    System.arraycopy(b, off + len0, array, 0,   len - len0);
+    
+    tail.set(pos + len);
+  }
+  
+  /**
+   * Takes up to {@code len} samples and returns their number.
+   * Must be called by the consumer only.
+   */
+  public int take(short[] b, int off, int len) {
+    long pos = head.get();
+    
+    len = Math.min(len, (int) (tail.get() - pos));
+    
+    int idx  = (int) pos & mask;
+    int len0 = Math.min(len, array.length - idx);
+    
+    System.arraycopy(array, idx, b, off,        len0);
+    System.arraycopy(array, 0,   b, off + len0, len - len0);
+    
+    head.set(pos + len);
+    
+    return len;
+  }
+}
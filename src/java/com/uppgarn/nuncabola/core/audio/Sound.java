@@ -17,9 +17,16 @@
 
 package com.uppgarn.nuncabola.core.audio;
 
+import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
+
 import com.uppgarn.codelibf.util.*;
 
 final class Sound {
+  /**
+   * Delay in nanoseconds between checks for audio data.
+   */
+  private static final long LOAD_POLL_DELAY = 2000000L;
+  
   private final String                  path;
   private final FutureHolder<AudioData> holder;
   
@@ -107,6 +114,23 @@ final class Sound {
     }
   }
   
+  /**
+   * Returns the time in nanoseconds after which the sound should
+   * be stepped again.
+   */
+  public long getDelay() {
+    if (source == null) {
+      // Audio data are not ready, check again shortly.
+      
+      return LOAD_POLL_DELAY;
+    }
+    if (paused) {
+      return IDLE_DELAY;
+    }
+    
+    return source.getRemainingTime();
+  }
+  
   public boolean step() {
     if (source == null) {
       // Check if the audio data are ready.
@@ -0,0 +1,102 @@
+/*
+ * SoundBank.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.level.*;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Pre-decoded sounds, held in a single buffer of samples.
+ */
+final class SoundBank {
+  private final ShortBuffer        samples;
+  private final Map<String, Entry> entries;
+  
+  SoundBank(ShortBuffer samples) {
+    this.samples = samples;
+    
+    entries = new HashMap<>();
+  }
+  
+  void add(
+      String          path,
+      MetaIndex.Stamp stamp,
+      boolean         mono,
+      int             offset,
+      int             length) {
+    entries.put(path, new Entry(stamp, mono, offset, length));
+  }
+  
+  public int getSoundCount() {
+    return entries.size();
+  }
+  
+  /**
+   * Removes the sounds whose file in {@code dataFolder} differs from
+   * the one the bank was built from, so that they are decoded again.
+   */
+  public void removeStale(Folder dataFolder) {
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    
+    while (it.hasNext()) {
+      Map.Entry<String, Entry> mapEntry = it.next();
+      
+      MetaIndex.Stamp stamp = MetaIndex.getStamp(
+        dataFolder.getSource(mapEntry.getKey()));
+      
+      if (!mapEntry.getValue().stamp.equals(stamp)) {
+        it.remove();
+      }
+    }
+  }
+  
+  /**
+   * Returns the data of {@code path} as a view of the bank,
+   * or null if the bank does not contain it.
+   */
+  public AudioData get(String path) {
+    Entry entry = entries.get(path);
+    
+    if (entry == null) {
+      return null;
+    }
+    
+    ShortBuffer buf = samples.duplicate();
+    buf.limit   (entry.offset + entry.length);
+    buf.position(entry.offset);
+    
+    return new AudioData(buf.slice(), entry.mono);
+  }
+  
+  private static final class Entry {
+    public final MetaIndex.Stamp stamp;
+    public final boolean         mono;
+    public final int             offset;
+    public final int             length;
+    
+    public Entry(MetaIndex.Stamp stamp, boolean mono, int offset, int length) {
+      this.stamp  = stamp;
+      this.mono   = mono;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * SoundBankIOTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+final class SoundBankIOTool {
+  public static final int MAGIC   = 0x4B4E4253;
+  public static final int VERSION = 2;
+  
+  public static final int PATH_LENGTH = 64;
+  
+  /**
+   * Size of the fixed part of the header in bytes.
+   */
+  public static final int HEADER_SIZE = 16;
+  
+  /**
+   * Size of an index entry in bytes.
+   */
+  public static final int ENTRY_SIZE = PATH_LENGTH + 28;
+  
+  private SoundBankIOTool() {
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * SoundBankReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+import com.uppgarn.nuncabola.core.level.*;
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
+import static com.uppgarn.nuncabola.core.audio.SoundBankIOTool.*;
+import static com.uppgarn.nuncabola.core.binary.BufferReadTool.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import org.lwjgl.*;
+
+import java.io.*;
+import java.nio.*;
+
+final class SoundBankReadTool {
+  /**
+   * Returns the samples following the index. Mapped data in native
+   * byte order is used in place, anything else is copied once into
+   * a direct buffer, as required by OpenAL.
+   */
+  private static ShortBuffer getSamples(ByteBuffer buf, int count) {
+    buf.position(HEADER_SIZE + count * ENTRY_SIZE);
+    
+    ByteBuffer  data    = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+    ShortBuffer samples = data.asShortBuffer();
+    
+    if (data.isDirect() && (data.order() == ByteOrder.nativeOrder())) {
+      return samples;
+    }
+    
+    ShortBuffer copy = BufferUtils.createShortBuffer(samples.remaining());
+    copy.put(samples).flip();
+    
+    return copy;
+  }
+  
+  public static SoundBank readSoundBank(ByteBuffer buf) throws IOException {
+    int magic      = getInt(buf);
+    int version    = getInt(buf);
+    int sampleRate = getInt(buf);
+    int count      = getInt(buf);
+    
+    if ((magic != MAGIC) || (version != VERSION) || (sampleRate != SAMPLE_RATE)
+        || (count < 0) || (count > (buf.remaining() / ENTRY_SIZE))) {
+      throw new InvalidDataException();
+    }
+    
+    ShortBuffer samples = getSamples(buf.duplicate(), count);
+    SoundBank   bank    = new SoundBank(samples);
+    
+    for (int idx = 0; idx < count; idx++) {
+      String path   = getString(buf, PATH_LENGTH);
+      long   size   = getLong  (buf);
+      long   value  = getLong  (buf);
+      int    mono   = getInt   (buf);
+      int    offset = getInt   (buf);
+      int    length = getInt   (buf);
+      
+      if ((offset < 0) || (length < 0)
+          || (length > samples.capacity() - offset)) {
+        throw new InvalidDataException();
+      }
+      
+      bank.add(
+        path,
+        new MetaIndex.Stamp(size, value),
+        mono != 0,
+        offset,
+        length);
+    }
+    
+    return bank;
+  }
+  
+  public static SoundBank readSoundBank(Source src) throws IOException {
+    return readSoundBank(read(src));
+  }
+  
+  private SoundBankReadTool() {
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * SoundBankWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.level.*;
+
+import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
+import static com.uppgarn.nuncabola.core.audio.SoundBankIOTool.*;
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Pre-decodes sounds into a bank file, which {@link Audio} uses
+ * instead of decoding the sounds at run time.
+ */
+public final class SoundBankWriteTool {
+  /**
+   * Path of the bank in the data folder.
+   */
+  public static final String BANK_PATH = "snd/sounds.bank";
+  
+  private static List<String> getSoundPaths(Folder dataFolder) {
+    Set<String> names = dataFolder.getPaths("snd", false, new PathFilter() {
+      @Override
+      public boolean accepts(String path) {
+        return path.endsWith(".ogg")
+          && (path.getBytes(StandardCharsets.UTF_8).length
+                <= PATH_LENGTH - 4);
+      }
+    });
+    
+    List<String> paths = new ArrayList<>(names.size());
+    
+    for (String name: names) {
+      paths.add("snd/" + name);
+    }
+    
+    paths.sort(null);
+    
+    return paths;
+  }
+  
+  /**
+   * Decodes all sounds in the {@code snd} directory of
+   * {@code dataFolder} and writes them to {@code file}, each with
+   * the stamp of its file. Sounds without a stamp are left out.
+   * Returns the number of sounds written.
+   */
+  public static int writeSoundBank(Path file, Folder dataFolder)
+      throws IOException {
+    List<String>          paths  = new ArrayList<>();
+    List<MetaIndex.Stamp> stamps = new ArrayList<>();
+    List<AudioData>       datas  = new ArrayList<>();
+    
+    for (String path: getSoundPaths(dataFolder)) {
+      Source          src   = dataFolder.getSource(path);
+      MetaIndex.Stamp stamp = MetaIndex.getStamp(src);
+      
+      if (stamp == null) {
+        continue;
+      }
+      
+      AudioData data = AudioDataLoader.load(src);
+      
+      if (data != null) {
+        paths .add(path);
+        stamps.add(stamp);
+        datas .add(data);
+      }
+    }
+    
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(file))) {
+      writeInt(out, MAGIC);
+      writeInt(out, VERSION);
+      writeInt(out, SAMPLE_RATE);
+      writeInt(out, paths.size());
+      
+      int offset = 0;
+      
+      for (int idx = 0; idx < paths.size(); idx++) {
+        MetaIndex.Stamp stamp  = stamps.get(idx);
+        AudioData       data   = datas .get(idx);
+        int             length = data.getBuffer().remaining();
+        
+        writeString(out, paths.get(idx), PATH_LENGTH);
+        writeLong  (out, stamp.getSize ());
+        writeLong  (out, stamp.getValue());
+        writeInt   (out, data.isMono() ? 1 : 0);
+        writeInt   (out, offset);
+        writeInt   (out, length);
+        
+        offset += length;
+      }
+      
+      for (AudioData data: datas) {
+        ShortBuffer buf = data.getBuffer();
+        
+        while (buf.hasRemaining()) {
+          writeShort(out, buf.get());
+        }
+      }
+    }
+    
+    return paths.size();
+  }
+  
+  private SoundBankWriteTool() {
+  }
+}
@@ -18,6 +18,9 @@
 package com.uppgarn.nuncabola.core.audio;
 
 import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.audio.AudioConstants.*;
 
 import java.util.*;
 
@@ -62,6 +65,16 @@ final class Sounds {
     // Otherwise, create a new sound.
     
     sounds.add(new Sound(path, mgr.get(path), volume, amp));
+    
+    mgr.pin(path);
+  }
+  
+  public void prefetch(Collection<String> paths) {
+    mgr.prefetch(paths);
+  }
+  
+  public CacheStats getCacheStats() {
+    return mgr.getStats();
   }
   
   public void setPaused(boolean paused) {
@@ -77,12 +90,20 @@ final class Sounds {
       Sound sound = sounds.get(idx);
       
       sound.deinitialize();
+      
+      mgr.unpin(sound.getPath());
     }
     
     sounds.clear();
   }
   
-  public void step() {
+  /**
+   * Steps all sounds and returns the time in nanoseconds after which
+   * they should be stepped again.
+   */
+  public long step() {
+    long delay = IDLE_DELAY;
+    
     for (int idx = sounds.size() - 1; idx >= 0; idx--) {
       Sound sound = sounds.get(idx);
       
@@ -91,9 +112,15 @@ final class Sounds {
         
         sound.deinitialize();
         
+        mgr.unpin(sound.getPath());
+        
         sounds.remove(idx);
+      } else {
+        delay = Math.min(delay, sound.getDelay());
       }
     }
+    
+    return delay;
   }
   
   public void deinitialize() {
@@ -24,28 +24,51 @@ import com.uppgarn.codelibf.io.*;
 import java.nio.*;
 
 final class Track {
-  private final String path;
-  private final Source src;
+  private final String       path;
+  private final TrackDecoder decoder;
   
   private float amp;
   private float ampStep;
   
-  private AudioStream stream;
+  private boolean started;
+  private int     underrunCount;
   
-  public Track(String path, Source src) {
+  /**
+   * Creates a track and starts decoding it, keeping up to
+   * {@code readAhead} frames ready.
+   */
+  public Track(String path, Source src, int readAhead) {
     this.path = path;
-    this.src  = src;
+    
+    decoder = new TrackDecoder(src, readAhead);
+    decoder.start();
     
     amp     = 0.0f;
     ampStep = 0.0f;
     
-    stream = null;
+    started       = false;
+    underrunCount = 0;
   }
   
   public String getPath() {
     return path;
   }
   
+  /**
+   * Returns the number of steps since the start of playback
+   * for which not enough samples had been decoded.
+   */
+  public int getUnderrunCount() {
+    return underrunCount;
+  }
+  
+  /**
+   * Returns whether the track has faded out completely.
+   */
+  public boolean isSilent() {
+    return (amp == 0.0f) && (ampStep <= 0.0f);
+  }
+  
   private void fade(int dir, float time) {
     ampStep = (1.0f * dir) / (SAMPLE_RATE * time);
   }
@@ -58,13 +81,10 @@ final class Track {
     fade(-1, time);
   }
   
-  private void step(ShortBuffer buf, short[] inBuf, int len, boolean mono) {
+  private void step(ShortBuffer buf, short[] inBuf, int len) {
     for (int idx = 0; idx < len;) {
-      short l =            (short) (amp * inBuf[idx++]);
-      short r = mono ? l : (short) (amp * inBuf[idx++]);
-      
-      buf.put(l);
-      buf.put(r);
+      buf.put((short) (amp * inBuf[idx++]));
+      buf.put((short) (amp * inBuf[idx++]));
       
       amp += ampStep;
       
@@ -77,24 +97,35 @@ final class Track {
   }
   
   public boolean step(ShortBuffer buf, short[] inBuf) {
-    if (stream == null) {
-      stream = new AudioStream(src, true);
-    }
+    int len  = buf.remaining();
+    int read = decoder.take(inBuf, len);
     
-    int read = stream.read(inBuf, buf.remaining() / (stream.isMono() ? 2 : 1));
+    if ((read == 0) && decoder.isEnded()) {
+      // Collect samples put just before the decoder ended.
+      
+      read = decoder.take(inBuf, len);
+      
+      if (read == 0) {
+        return false;
+      }
+    }
     
-    if (read == 0) {
-      return false;
+    if (read > 0) {
+      started = true;
+    }
+    if (started && (read < len) && !decoder.isEnded()) {
+      underrunCount++;
     }
     
-    step(buf, inBuf, read, stream.isMono());
+    step(buf, inBuf, read);
     
     return (amp > 0.0f) || (ampStep >= 0.0f);
   }
   
   public void deinitialize() {
-    if (stream != null) {
-      stream.close();
-    }
+    // The decoder closes the stream on its way out. Not waiting
+    // for it keeps the audio thread from stalling.
+    
+    decoder.interrupt();
   }
 }
@@ -0,0 +1,129 @@
+/*
+ * TrackDecoder.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.audio;
+
+import com.uppgarn.codelibf.io.*;
+import com.uppgarn.codelibf.util.*;
+
+import java.util.concurrent.locks.*;
+
+/**
+ * Decodes a looped track ahead of playback into a {@link SampleRing}
+ * of interleaved stereo samples.
+ * <p>
+ * The thread sleeps while the ring is nearly full; the consumer wakes
+ * it up through {@link #take}.
+ */
+final class TrackDecoder extends TerminableThread {
+  /**
+   * Number of stereo frames decoded at a time.
+   */
+  private static final int CHUNK_SIZE = 4096;
+  
+  private final Source     src;
+  private final SampleRing ring;
+  
+  private volatile boolean ended;
+  
+  private short[] inBuf;
+  private short[] outBuf;
+  
+  /**
+   * Creates a decoder that keeps up to {@code readAhead} frames
+   * ready.
+   */
+  public TrackDecoder(Source src, int readAhead) {
+    super("TrackDecoder");
+    
+    this.src = src;
+    
+    ring = new SampleRing(Math.max(readAhead, CHUNK_SIZE) * 2);
+    
+    ended = false;
+    
+    inBuf  = new short[CHUNK_SIZE * 2];
+    outBuf = new short[CHUNK_SIZE * 2];
+    
+    setDaemon(true);
+  }
+  
+  /**
+   * Returns whether the track has been decoded completely, which
+   * only happens if it cannot be read. Samples may still be left.
+   */
+  public boolean isEnded() {
+    return ended;
+  }
+  
+  /**
+   * Takes up to {@code len} samples and returns their number.
+   * Must be called by a single consumer thread.
+   */
+  public int take(short[] b, int len) {
+    int count = ring.take(b, 0, len);
+    
+    if (count > 0) {
+      LockSupport.unpark(this);
+    }
+    
+    return count;
+  }
+  
+  private int toStereo(int read, boolean mono) {
+    if (!mono) {
+      System.arraycopy(inBuf, 0, outBuf, 0, read);
+      
+      return read;
+    }
+    
+    for (int idx = 0; idx < read; idx++) {
+      outBuf[idx * 2    ] = inBuf[idx];
+      outBuf[idx * 2 + 1] = inBuf[idx];
+    }
+    
+    return read * 2;
+  }
+  
+  @Override
+  public void run() {
+    AudioStream stream = new AudioStream(src, true);
+    
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        if (ring.getFree() < CHUNK_SIZE * 2) {
+          LockSupport.park(this);
+          
+          continue;
+        }
+        
+        int read = stream.read(inBuf, stream.isMono() ? CHUNK_SIZE
+                                                      : CHUNK_SIZE * 2);
+        
+        if (read == 0) {
+          break;
+        }
+        
+        ring.put(outBuf, 0, toStereo(read, stream.isMono()));
+      }
+    } finally {
+      stream.close();
+      
+      ended = true;
+    }
+  }
+}
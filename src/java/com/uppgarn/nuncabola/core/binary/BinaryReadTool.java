@@ -60,6 +60,38 @@ public final class BinaryReadTool {
     return Float.intBitsToFloat(readInt(in));
   }
   
+  public static long readLong(InputStream in) throws IOException {
+    long lo = readInt(in) & 0xFFFFFFFFL;
+    long hi = readInt(in);
+    
+    return lo | (hi << 32);
+  }
+  
+  /**
+   * Reads a zigzag-encoded variable-length integer.
+   */
+  public static int readVarInt(InputStream in) throws IOException {
+    int value = 0;
+    
+    for (int shift = 0;; shift += 7) {
+      int b = readUnsignedByte(in);
+      
+      if (shift == 28) {
+        value |= b << 28;
+        
+        break;
+      }
+      
+      value |= (b & 0x7F) << shift;
+      
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    
+    return (value >>> 1) ^ -(value & 1);
+  }
+  
   public static String readString(InputStream in) throws IOException {
     byte[] bytes = new byte[64];
     int    len   = 0;
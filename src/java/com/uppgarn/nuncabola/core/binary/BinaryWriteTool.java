@@ -39,6 +39,29 @@ public final class BinaryWriteTool {
     writeInt(out, Float.floatToIntBits(value));
   }
   
+  public static void writeLong(OutputStream out, long value)
+      throws IOException {
+    writeInt(out, (int)  value);
+    writeInt(out, (int) (value >>> 32));
+  }
+  
+  /**
+   * Writes a variable-length integer, zigzag-encoded so that
+   * values of small magnitude take one byte.
+   */
+  public static void writeVarInt(OutputStream out, int value)
+      throws IOException {
+    int bits = (value << 1) ^ (value >> 31);
+    
+    while ((bits & ~0x7F) != 0) {
+      out.write((bits & 0x7F) | 0x80);
+      
+      bits >>>= 7;
+    }
+    
+    out.write(bits);
+  }
+  
   public static void writeString(OutputStream out, String str)
       throws IOException {
     out.write(str.getBytes(StandardCharsets.UTF_8));
@@ -0,0 +1,208 @@
+/*
+ * BufferReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.binary;
+
+import com.uppgarn.nuncabola.core.util.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Bulk decoding of little-endian data held in a {@link ByteBuffer}.
+ * Reads past the end of the buffer throw {@link EOFException},
+ * like the stream readers in {@link BinaryReadTool}.
+ */
+public final class BufferReadTool {
+  /**
+   * Files smaller than this are read into the heap rather than
+   * mapped, which costs more than it saves for them.
+   */
+  private static final int MAP_THRESHOLD = 1 << 16;
+  
+  /**
+   * Returns the contents of {@code file}, mapped into memory
+   * if it is large enough.
+   */
+  public static ByteBuffer read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      long size = channel.size();
+      
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large: " + file);
+      }
+      
+      ByteBuffer buf;
+      
+      if (size >= MAP_THRESHOLD) {
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        buf = ByteBuffer.allocate((int) size);
+        
+        while (buf.hasRemaining()) {
+          if (channel.read(buf) == -1) {
+            throw new EOFException();
+          }
+        }
+        
+        buf.flip();
+      }
+      
+      return buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+  
+  /**
+   * Returns the remaining contents of {@code in}, read into the heap
+   * in one pass.
+   */
+  public static ByteBuffer read(InputStream in) throws IOException {
+    byte[] bytes = new byte[8192];
+    int    len   = 0;
+    
+    for (int count; (count = in.read(bytes, len, bytes.length - len)) != -1;) {
+      len += count;
+      
+      if (len == bytes.length) {
+        if (len == Integer.MAX_VALUE) {
+          throw new IOException("Stream too large");
+        }
+        
+        bytes = Arrays.copyOf(bytes, (int) Math.min(
+          2L * len,
+          Integer.MAX_VALUE));
+      }
+    }
+    
+    return ByteBuffer.wrap(bytes, 0, len).order(ByteOrder.LITTLE_ENDIAN);
+  }
+  
+  /**
+   * Returns the contents of {@code src}, in place if it allows so,
+   * from its file if it has one and otherwise from its stream.
+   */
+  public static ByteBuffer read(Source src) throws IOException {
+    if (src instanceof BufferSource) {
+      ByteBuffer buf = ((BufferSource) src).getBuffer();
+      
+      if (buf != null) {
+        return buf.order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    
+    Path file = src.getFile();
+    
+    if (file != null) {
+      return read(file);
+    }
+    
+    try (InputStream in = src.newInputStream()) {
+      return read(in);
+    }
+  }
+  
+  private static int checkLength(ByteBuffer buf, int count, int size)
+      throws IOException {
+    if (count < 0) {
+      throw new InvalidDataException();
+    }
+    
+    if ((long) count * size > buf.remaining()) {
+      throw new EOFException();
+    }
+    
+    return count * size;
+  }
+  
+  public static void skip(ByteBuffer buf, int len) throws IOException {
+    buf.position(buf.position() + checkLength(buf, len, 1));
+  }
+  
+  public static byte[] getBytes(ByteBuffer buf, int len) throws IOException {
+    byte[] bytes = new byte[checkLength(buf, len, 1)];
+    
+    buf.get(bytes);
+    
+    return bytes;
+  }
+  
+  public static int getInt(ByteBuffer buf) throws IOException {
+    checkLength(buf, 1, 4);
+    
+    return buf.getInt();
+  }
+  
+  public static long getLong(ByteBuffer buf) throws IOException {
+    checkLength(buf, 1, 8);
+    
+    return buf.getLong();
+  }
+  
+  public static float getFloat(ByteBuffer buf) throws IOException {
+    checkLength(buf, 1, 4);
+    
+    return buf.getFloat();
+  }
+  
+  /**
+   * Decodes {@code count} ints in one bulk transfer.
+   */
+  public static int[] getInts(ByteBuffer buf, int count) throws IOException {
+    int   len    = checkLength(buf, count, 4);
+    int[] values = new int[count];
+    
+    buf.asIntBuffer().get(values);
+    buf.position(buf.position() + len);
+    
+    return values;
+  }
+  
+  /**
+   * Decodes {@code count} floats in one bulk transfer.
+   */
+  public static float[] getFloats(ByteBuffer buf, int count)
+      throws IOException {
+    int     len    = checkLength(buf, count, 4);
+    float[] values = new float[count];
+    
+    buf.asFloatBuffer().get(values);
+    buf.position(buf.position() + len);
+    
+    return values;
+  }
+  
+  public static String getString(ByteBuffer buf, int padLen)
+      throws IOException {
+    byte[] bytes = getBytes(buf, padLen);
+    int    len   = 0;
+    
+    while ((len < padLen) && (bytes[len] != 0)) {
+      len++;
+    }
+    
+    return new String(bytes, 0, len, StandardCharsets.UTF_8);
+  }
+  
+  private BufferReadTool() {
+  }
+}
@@ -35,7 +35,7 @@ abstract class BranchFolder extends Folder {
   }
   
   @Override
-  public final boolean exists(String path, boolean directory) {
+  public boolean exists(String path, boolean directory) {
     for (Folder child: getChildren()) {
       if (child.exists(path, directory)) {
         return true;
@@ -46,7 +46,20 @@ abstract class BranchFolder extends Folder {
   }
   
   @Override
-  final Source getRawSource(String path) {
+  final Folder resolve(String path, boolean directory) {
+    for (Folder child: getChildren()) {
+      Folder folder = child.resolve(path, directory);
+      
+      if (folder != null) {
+        return folder;
+      }
+    }
+    
+    return null;
+  }
+  
+  @Override
+  Source getRawSource(String path) {
     for (Folder child: getChildren()) {
       Source src = child.getRawSource(path);
       
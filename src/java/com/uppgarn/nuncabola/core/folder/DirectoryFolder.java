@@ -23,11 +23,17 @@ import java.util.*;
 
 final class DirectoryFolder extends BranchFolder {
   private final Path dir;
+  private final Path cacheDir;
   
   private List<Folder> folders;
   
-  public DirectoryFolder(Path dir) {
-    this.dir = dir;
+  /**
+   * Creates a folder for {@code dir}. Indices of zip archives are
+   * cached in {@code cacheDir}, which may be null.
+   */
+  public DirectoryFolder(Path dir, Path cacheDir) {
+    this.dir      = dir;
+    this.cacheDir = cacheDir;
     
     folders = createFolders();
   }
@@ -75,7 +81,7 @@ final class DirectoryFolder extends BranchFolder {
     for (ListIterator<Path> it = files.listIterator(files.size());
         it.hasPrevious();) {
       try {
-        folders.add(new ZipFolder(it.previous()));
+        folders.add(new ZipFolder(it.previous(), cacheDir));
       } catch (IOException ex) {
       }
     }
@@ -109,4 +109,15 @@ final class FileFolder extends Folder {
       return null;
     }
   }
+  
+  @Override
+  Source getResolvedSource(String path) {
+    Path file = getFile(path, false);
+    
+    if (file == null) {
+      return null;
+    }
+    
+    return new FileSource(file);
+  }
 }
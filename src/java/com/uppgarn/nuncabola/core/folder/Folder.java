@@ -51,8 +51,24 @@ public abstract class Folder {
   
   public abstract boolean exists(String path, boolean directory);
   
+  /**
+   * Returns the folder which provides {@code path}, or null if there
+   * is none. Branch folders return one of their leaf descendants.
+   */
+  Folder resolve(String path, boolean directory) {
+    return exists(path, directory) ? this : null;
+  }
+  
   abstract Source getRawSource(String path);
   
+  /**
+   * Returns the source of {@code path}, which was resolved to this
+   * folder by {@link #resolve}.
+   */
+  Source getResolvedSource(String path) {
+    return getRawSource(path);
+  }
+  
   public final Source getSource(String path) {
     Source src = getRawSource(path);
     
@@ -0,0 +1,125 @@
+/*
+ * FolderWatcher.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.folder;
+
+import com.uppgarn.codelibf.util.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+/**
+ * Watches the directory trees of a {@link RootFolder} and clears its
+ * resolution cache on every change. Caching is enabled once all
+ * directories have been registered.
+ */
+final class FolderWatcher extends TerminableThread {
+  private static final WatchEvent.Kind<?>[] KINDS = {
+    StandardWatchEventKinds.ENTRY_CREATE,
+    StandardWatchEventKinds.ENTRY_DELETE,
+    StandardWatchEventKinds.ENTRY_MODIFY};
+  
+  private final RootFolder folder;
+  private final List<Path> dirs;
+  
+  private final Map<WatchKey, Path> keyDirs;
+  
+  public FolderWatcher(RootFolder folder, List<Path> dirs) {
+    super("FolderWatcher");
+    
+    this.folder = folder;
+    this.dirs   = dirs;
+    
+    keyDirs = new HashMap<>();
+    
+    setDaemon(true);
+  }
+  
+  private void register(final WatchService service, Path dir)
+      throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(
+          Path                dir,
+          BasicFileAttributes attrs) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+          return FileVisitResult.TERMINATE;
+        }
+        
+        keyDirs.put(dir.register(service, KINDS), dir);
+        
+        return FileVisitResult.CONTINUE;
+      }
+      
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException ex) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+  
+  private void handle(WatchService service, WatchKey key)
+      throws IOException {
+    Path dir = keyDirs.get(key);
+    
+    for (WatchEvent<?> event: key.pollEvents()) {
+      if ((dir != null)
+          && (event.kind() == StandardWatchEventKinds.ENTRY_CREATE)) {
+        Path file = dir.resolve((Path) event.context());
+        
+        if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+          register(service, file);
+        }
+      }
+    }
+    
+    if (!key.reset()) {
+      keyDirs.remove(key);
+    }
+  }
+  
+  @Override
+  public void run() {
+    try (WatchService service = FileSystems.getDefault().newWatchService()) {
+      for (Path dir: dirs) {
+        if (Files.isDirectory(dir)) {
+          register(service, dir);
+        }
+      }
+      
+      // Changes made while registering are covered by the first
+      // invalidation.
+      
+      folder.setCaching(true);
+      
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = service.take();
+        
+        handle(service, key);
+        
+        folder.invalidate();
+      }
+    } catch (IOException | InterruptedException
+        | ClosedWatchServiceException ex) {
+      // Allow thread to exit.
+    } finally {
+      folder.setCaching(false);
+    }
+  }
+}
@@ -17,21 +17,57 @@
 
 package com.uppgarn.nuncabola.core.folder;
 
+import com.uppgarn.codelibf.io.*;
+
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
+/**
+ * Folder combining data directories in order of precedence.
+ * <p>
+ * Paths are resolved to the folder providing them only once, and
+ * the result, including the absence of a path, is cached until
+ * a change in one of the directories is observed.
+ */
 public final class RootFolder extends BranchFolder {
   private List<DirectoryFolder> folders;
   
+  private final Map<String, Resolution> fileResolutions;
+  private final Map<String, Resolution> dirResolutions;
+  private final AtomicLong              generation;
+  
+  private volatile boolean caching;
+  
+  private FolderWatcher watcher;
+  
   public RootFolder(List<Path> dirs) {
-    folders = createDirectoryFolders(dirs);
+    this(dirs, null);
   }
   
-  private List<DirectoryFolder> createDirectoryFolders(List<Path> dirs) {
+  /**
+   * Creates a folder for {@code dirs}. Indices of zip archives are
+   * cached in {@code cacheDir}, which may be null.
+   */
+  public RootFolder(List<Path> dirs, Path cacheDir) {
+    folders = createDirectoryFolders(dirs, cacheDir);
+    
+    fileResolutions = new ConcurrentHashMap<>();
+    dirResolutions  = new ConcurrentHashMap<>();
+    generation      = new AtomicLong();
+    
+    watcher = new FolderWatcher(this, new ArrayList<>(dirs));
+    watcher.start();
+  }
+  
+  private List<DirectoryFolder> createDirectoryFolders(
+      List<Path> dirs,
+      Path       cacheDir) {
     List<DirectoryFolder> folders = new ArrayList<>(dirs.size());
     
     for (Path dir: dirs) {
-      folders.add(new DirectoryFolder(dir));
+      folders.add(new DirectoryFolder(dir, cacheDir));
     }
     
     return folders;
@@ -41,4 +77,82 @@ public final class RootFolder extends BranchFolder {
   List<? extends Folder> getChildren() {
     return folders;
   }
+  
+  void setCaching(boolean caching) {
+    this.caching = caching;
+    
+    invalidate();
+  }
+  
+  void invalidate() {
+    generation.incrementAndGet();
+    
+    fileResolutions.clear();
+    dirResolutions .clear();
+  }
+  
+  private Folder resolveCached(String path, boolean directory) {
+    if (!caching) {
+      return resolve(path, directory);
+    }
+    
+    Map<String, Resolution> resolutions =
+      directory ? dirResolutions : fileResolutions;
+    
+    long       gen = generation.get();
+    Resolution res = resolutions.get(path);
+    
+    // Resolutions made before an invalidation are ignored, even if
+    // they were stored after it.
+    
+    if ((res != null) && (res.generation == gen)) {
+      return res.folder;
+    }
+    
+    Folder folder = resolve(path, directory);
+    
+    resolutions.put(path, new Resolution(folder, gen));
+    
+    return folder;
+  }
+  
+  @Override
+  public boolean exists(String path, boolean directory) {
+    return resolveCached(path, directory) != null;
+  }
+  
+  @Override
+  Source getRawSource(String path) {
+    Folder folder = resolveCached(path, false);
+    
+    if (folder == null) {
+      return null;
+    }
+    
+    return folder.getResolvedSource(path);
+  }
+  
+  @Override
+  public void close() {
+    if (watcher != null) {
+      watcher.terminate();
+      
+      watcher = null;
+    }
+    
+    super.close();
+  }
+  
+  private static final class Resolution {
+    /**
+     * Folder providing the path, or null if there is none.
+     */
+    public final Folder folder;
+    public final long   generation;
+    
+    public Resolution(Folder folder, long generation) {
+      this.folder     = folder;
+      this.generation = generation;
+    }
+  }
 }
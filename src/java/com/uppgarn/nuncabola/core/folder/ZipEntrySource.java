@@ -0,0 +1,123 @@
+/*
+ * ZipEntrySource.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.folder;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+/**
+ * Source of an entry of a {@link ZipFolder}.
+ */
+public final class ZipEntrySource implements BufferSource {
+  private final ZipFolder      folder;
+  private final ZipIndex.Entry entry;
+  
+  ZipEntrySource(ZipFolder folder, ZipIndex.Entry entry) {
+    this.folder = folder;
+    this.entry  = entry;
+  }
+  
+  public long getSize() {
+    return entry.size;
+  }
+  
+  public long getCrc() {
+    return entry.crc & 0xFFFFFFFFL;
+  }
+  
+  private InputStream newInflaterInputStream(ByteBuffer data) {
+    final Inflater inflater = new Inflater(true);
+    
+    return new InflaterInputStream(
+        new ByteBufferInputStream(data),
+        inflater) {
+      private boolean eof;
+      private boolean closed;
+      
+      @Override
+      protected void fill() throws IOException {
+        if (eof) {
+          throw new EOFException("Unexpected end of entry");
+        }
+        
+        len = in.read(buf, 0, buf.length);
+        
+        // The raw inflater may need a trailing dummy byte.
+        
+        if (len == -1) {
+          buf[0] = 0;
+          len    = 1;
+          eof    = true;
+        }
+        
+        inf.setInput(buf, 0, len);
+      }
+      
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          
+          super.close();
+          
+          inflater.end();
+        }
+      }
+    };
+  }
+  
+  @Override
+  public InputStream newInputStream() throws SourceException {
+    try {
+      if ((entry.method == ZipEntry.STORED)
+          || (entry.method == ZipEntry.DEFLATED)) {
+        ByteBuffer data = folder.getData(entry);
+        
+        if (data != null) {
+          if (entry.method == ZipEntry.STORED) {
+            return new ByteBufferInputStream(data);
+          } else {
+            return newInflaterInputStream(data);
+          }
+        }
+      }
+      
+      return folder.getInputStream(entry);
+    } catch (IOException ex) {
+      throw new SourceException(ex);
+    }
+  }
+  
+  @Override
+  public ByteBuffer getBuffer() throws SourceException {
+    if (entry.method != ZipEntry.STORED) {
+      return null;
+    }
+    
+    return folder.getData(entry);
+  }
+  
+  @Override
+  public Path getFile() {
+    return null;
+  }
+}
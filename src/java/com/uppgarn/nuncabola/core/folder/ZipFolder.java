@@ -20,104 +20,198 @@ package com.uppgarn.nuncabola.core.folder;
 import com.uppgarn.codelibf.io.*;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.zip.*;
 
+/**
+ * Folder backed by a zip archive.
+ * <p>
+ * The entry index is read from the central directory and, if a cache
+ * directory is given, stored there so that later runs need not parse
+ * the archive again. The archive itself is only opened on first access.
+ * Entry data is read from a memory mapping of the archive where
+ * possible, which lets stored entries be used in place and deflated
+ * entries be inflated concurrently. Everything else goes through a
+ * {@link ZipFile}.
+ */
 final class ZipFolder extends Folder {
-  private ZipFile zip;
+  private static final int LOCAL_SIGNATURE = 0x04034B50;
+  private static final int LOCAL_SIZE      = 30;
   
-  private Set<String>           dirPaths;
-  private Map<String, ZipEntry> fileEntries;
+  private final Path     file;
+  private final ZipIndex index;
   
-  public ZipFolder(Path file) throws IOException {
-    zip = new ZipFile(file.toFile());
-    
-    List<ZipEntry> entries = getEntries();
+  private ByteBuffer map;
+  private boolean    mapTried;
+  private ZipFile    zip;
+  
+  public ZipFolder(Path file, Path cacheDir) throws IOException {
+    this.file = file;
     
-    dirPaths    = createDirectoryPaths(entries);
-    fileEntries = createFileEntries   (entries);
+    index = loadIndex(cacheDir);
   }
   
-  private List<ZipEntry> getEntries() {
-    List<ZipEntry> entries = new ArrayList<>(zip.size());
-    
-    for (Enumeration<? extends ZipEntry> en = zip.entries();
-        en.hasMoreElements();) {
-      entries.add(en.nextElement());
-    }
+  private Path getCacheFile(Path cacheDir) {
+    String hash = Integer.toHexString(file.toAbsolutePath().hashCode());
     
-    return entries;
+    return cacheDir.resolve(file.getFileName() + "-" + hash + ".idx");
   }
   
-  private Set<String> createDirectoryPaths(List<ZipEntry> entries) {
-    Set<String> dirPaths = new HashSet<>();
+  private ZipIndex loadIndex(Path cacheDir) throws IOException {
+    long size = Files.size(file);
+    long time = Files.getLastModifiedTime(file).toMillis();
     
-    for (ZipEntry entry: entries) {
-      String name = entry.getName();
-      
-      for (int sepIdx; (sepIdx = name.lastIndexOf('/')) != -1;) {
-        name = name.substring(0, sepIdx);
+    Path cacheFile = (cacheDir == null) ? null : getCacheFile(cacheDir);
+    
+    if ((cacheFile != null) && Files.isRegularFile(cacheFile)) {
+      try {
+        ZipIndex index = ZipIndexReadTool.readZipIndex(cacheFile);
         
-        dirPaths.add(name);
+        if (index.matches(size, time)) {
+          return index;
+        }
+      } catch (IOException ex) {
       }
     }
     
-    return dirPaths;
-  }
-  
-  private Map<String, ZipEntry> createFileEntries(List<ZipEntry> entries) {
-    Map<String, ZipEntry> fileEntries = new HashMap<>();
+    ZipIndex index;
+    
+    try {
+      index = ZipIndexReadTool.readArchive(file, size, time);
+    } catch (IOException ex) {
+      index = ZipIndexReadTool.readZipFile(file, size, time);
+    }
     
-    for (ZipEntry entry: entries) {
-      if (!entry.isDirectory()) {
-        fileEntries.put(entry.getName(), entry);
+    if (cacheFile != null) {
+      try {
+        ZipIndexWriteTool.writeZipIndex(cacheFile, index);
+      } catch (IOException ex) {
       }
     }
     
-    return fileEntries;
+    return index;
   }
   
   @Override
   void collectPaths(Set<String> paths, String parentPath, boolean directory) {
-    String prefix = parentPath.isEmpty() ? "" : parentPath.concat("/");
-    
-    for (String path: (directory ? dirPaths : fileEntries.keySet())) {
-      if (path.startsWith(prefix)) {
-        path = path.substring(prefix.length());
-        
-        if (path.indexOf('/') == -1) {
-          paths.add(path);
-        }
-      }
-    }
+    index.collectPaths(paths, parentPath, directory);
   }
   
   @Override
   public boolean exists(String path, boolean directory) {
     if (directory) {
-      return dirPaths   .contains   (path);
+      return index.hasDirectory(path);
     } else {
-      return fileEntries.containsKey(path);
+      return index.getEntry(path) != null;
     }
   }
   
   @Override
   Source getRawSource(String path) {
-    ZipEntry entry = fileEntries.get(path);
+    ZipIndex.Entry entry = index.getEntry(path);
     
     if (entry != null) {
-      return new ZipSource(zip, entry);
+      return new ZipEntrySource(this, entry);
     } else {
       return null;
     }
   }
   
+  private synchronized ByteBuffer getMap() {
+    if (!mapTried) {
+      mapTried = true;
+      
+      try (FileChannel channel = FileChannel.open(file)) {
+        long size = channel.size();
+        
+        if (size <= Integer.MAX_VALUE) {
+          map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+      } catch (IOException ex) {
+      }
+    }
+    
+    return map;
+  }
+  
+  /**
+   * Returns a read-only view of the raw data of {@code entry},
+   * or null if it cannot be mapped or its local header does not
+   * match, in which case the entry is read through {@link ZipFile}.
+   */
+  ByteBuffer getData(ZipIndex.Entry entry) {
+    if (entry.offset < 0) {
+      return null;
+    }
+    
+    ByteBuffer map = getMap();
+    
+    if (map == null) {
+      return null;
+    }
+    
+    ByteBuffer buf = map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    long       pos = entry.offset;
+    
+    if ((pos + LOCAL_SIZE > buf.limit())
+        || (buf.getInt((int) pos) != LOCAL_SIGNATURE)) {
+      return null;
+    }
+    
+    int nameLen  = buf.getShort((int) pos + 26) & 0xFFFF;
+    int extraLen = buf.getShort((int) pos + 28) & 0xFFFF;
+    
+    long start = pos + LOCAL_SIZE + nameLen + extraLen;
+    long end   = start + entry.compressedSize;
+    
+    if (end > buf.limit()) {
+      return null;
+    }
+    
+    buf.limit   ((int) end);
+    buf.position((int) start);
+    
+    return buf.slice().asReadOnlyBuffer();
+  }
+  
+  /**
+   * Opens {@code entry} through the fallback {@link ZipFile}.
+   */
+  InputStream getInputStream(ZipIndex.Entry entry) throws IOException {
+    ZipFile zip;
+    
+    synchronized (this) {
+      if (this.zip == null) {
+        this.zip = new ZipFile(file.toFile());
+      }
+      
+      zip = this.zip;
+    }
+    
+    ZipEntry zipEntry = zip.getEntry(entry.name);
+    
+    if (zipEntry == null) {
+      throw new FileNotFoundException(entry.name);
+    }
+    
+    return zip.getInputStream(zipEntry);
+  }
+  
   @Override
-  public void close() {
-    try {
-      zip.close();
-    } catch (IOException ex) {
+  public synchronized void close() {
+    if (zip != null) {
+      try {
+        zip.close();
+      } catch (IOException ex) {
+      }
+      
+      zip = null;
     }
+    
+    map      = null;
+    mapTried = false;
   }
 }
@@ -0,0 +1,171 @@
+/*
+ * ZipIndex.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.folder;
+
+import java.util.*;
+
+/**
+ * Entries of a zip archive, arranged as a tree of directories.
+ */
+final class ZipIndex {
+  private final long archiveSize;
+  private final long archiveTime;
+  
+  private final Node        root;
+  private final List<Entry> entries;
+  
+  /**
+   * Creates an empty index of an archive with the given size and
+   * modification time, by which the index is validated.
+   */
+  public ZipIndex(long archiveSize, long archiveTime) {
+    this.archiveSize = archiveSize;
+    this.archiveTime = archiveTime;
+    
+    root    = new Node();
+    entries = new ArrayList<>();
+  }
+  
+  public boolean matches(long archiveSize, long archiveTime) {
+    return (this.archiveSize == archiveSize)
+      && (this.archiveTime == archiveTime);
+  }
+  
+  public long getArchiveSize() {
+    return archiveSize;
+  }
+  
+  public long getArchiveTime() {
+    return archiveTime;
+  }
+  
+  /**
+   * Adds an entry. Directory entries, i.e. entries whose names end
+   * with a slash, only contribute their directories.
+   */
+  public void add(Entry entry) {
+    entries.add(entry);
+    
+    String name     = entry.name;
+    Node   node     = root;
+    int    startIdx = 0;
+    
+    for (int sepIdx; (sepIdx = name.indexOf('/', startIdx)) != -1;) {
+      String dirName = name.substring(startIdx, sepIdx);
+      Node   child   = node.dirs.get(dirName);
+      
+      if (child == null) {
+        child = new Node();
+        
+        node.dirs.put(dirName, child);
+      }
+      
+      node     = child;
+      startIdx = sepIdx + 1;
+    }
+    
+    if (startIdx < name.length()) {
+      node.files.put(name.substring(startIdx), entry);
+    }
+  }
+  
+  public List<Entry> getEntries() {
+    return entries;
+  }
+  
+  private Node getNode(String path) {
+    if (path.isEmpty()) {
+      return root;
+    }
+    
+    Node node     = root;
+    int  startIdx = 0;
+    
+    while (node != null) {
+      int sepIdx = path.indexOf('/', startIdx);
+      
+      if (sepIdx == -1) {
+        return node.dirs.get(path.substring(startIdx));
+      }
+      
+      node     = node.dirs.get(path.substring(startIdx, sepIdx));
+      startIdx = sepIdx + 1;
+    }
+    
+    return null;
+  }
+  
+  public void collectPaths(
+      Set<String> paths,
+      String      parentPath,
+      boolean     directory) {
+    Node node = getNode(parentPath);
+    
+    if (node != null) {
+      paths.addAll(directory ? node.dirs.keySet() : node.files.keySet());
+    }
+  }
+  
+  public boolean hasDirectory(String path) {
+    return !path.isEmpty() && (getNode(path) != null);
+  }
+  
+  public Entry getEntry(String path) {
+    int  sepIdx = path.lastIndexOf('/');
+    Node node   = (sepIdx == -1) ? root : getNode(path.substring(0, sepIdx));
+    
+    if (node == null) {
+      return null;
+    }
+    
+    return node.files.get(path.substring(sepIdx + 1));
+  }
+  
+  private static final class Node {
+    public final Map<String, Node>  dirs  = new HashMap<>();
+    public final Map<String, Entry> files = new HashMap<>();
+  }
+  
+  public static final class Entry {
+    public final String name;
+    public final int    method;
+    public final int    crc;
+    public final long   compressedSize;
+    public final long   size;
+    
+    /**
+     * Offset of the local header in the archive, or -1 if unknown.
+     */
+    public final long offset;
+    
+    public Entry(
+        String name,
+        int    method,
+        int    crc,
+        long   compressedSize,
+        long   size,
+        long   offset) {
+      this.name           = name;
+      this.method         = method;
+      this.crc            = crc;
+      this.compressedSize = compressedSize;
+      this.size           = size;
+      this.offset         = offset;
+    }
+  }
+}
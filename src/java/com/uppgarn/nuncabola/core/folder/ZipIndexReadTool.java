@@ -0,0 +1,222 @@
+/*
+ * ZipIndexReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.folder;
+
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.folder.ZipIndexIOTool.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+final class ZipIndexReadTool {
+  private static final int END_SIGNATURE   = 0x06054B50;
+  private static final int ENTRY_SIGNATURE = 0x02014B50;
+  
+  private static final int END_SIZE   = 22;
+  private static final int ENTRY_SIZE = 46;
+  
+  public static ZipIndex readZipIndex(InputStream in) throws IOException {
+    int magic   = readInt(in);
+    int version = readInt(in);
+    
+    if ((magic != MAGIC) || (version != VERSION)) {
+      throw new InvalidDataException();
+    }
+    
+    long archiveSize = readLong(in);
+    long archiveTime = readLong(in);
+    int  count       = readInt (in);
+    
+    if (count < 0) {
+      throw new InvalidDataException();
+    }
+    
+    ZipIndex index = new ZipIndex(archiveSize, archiveTime);
+    
+    for (int idx = 0; idx < count; idx++) {
+      String name           = readString(in);
+      int    method         = readInt   (in);
+      int    crc            = readInt   (in);
+      long   compressedSize = readLong  (in);
+      long   size           = readLong  (in);
+      long   offset         = readLong  (in);
+      
+      index.add(new ZipIndex.Entry(
+        name,
+        method,
+        crc,
+        compressedSize,
+        size,
+        offset));
+    }
+    
+    return index;
+  }
+  
+  public static ZipIndex readZipIndex(Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      return readZipIndex(in);
+    }
+  }
+  
+  private static ByteBuffer read(FileChannel channel, long pos, int len)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(len);
+    
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, pos + buf.position()) == -1) {
+        throw new EOFException();
+      }
+    }
+    
+    buf.flip();
+    
+    return buf.order(ByteOrder.LITTLE_ENDIAN);
+  }
+  
+  private static int findEnd(ByteBuffer tail) throws IOException {
+    for (int pos = tail.limit() - END_SIZE; pos >= 0; pos--) {
+      if (tail.getInt(pos) == END_SIGNATURE) {
+        return pos;
+      }
+    }
+    
+    throw new ZipException("End of central directory not found");
+  }
+  
+  /**
+   * Reads the index from the central directory of {@code file}.
+   * Data preceding the archive, as in self-extracting archives, is
+   * accounted for in the entry offsets. Archives in the Zip64 format
+   * are not supported.
+   */
+  public static ZipIndex readArchive(
+      Path file,
+      long archiveSize,
+      long archiveTime) throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      long size    = channel.size();
+      int  tailLen = (int) Math.min(size, END_SIZE + 0xFFFF);
+      
+      ByteBuffer tail = read(channel, size - tailLen, tailLen);
+      int        pos  = findEnd(tail);
+      
+      int  count    = tail.getShort(pos + 10) & 0xFFFF;
+      long dirSize  = tail.getInt  (pos + 12) & 0xFFFFFFFFL;
+      long dirStart = tail.getInt  (pos + 16) & 0xFFFFFFFFL;
+      
+      if ((count == 0xFFFF) || (dirSize == 0xFFFFFFFFL)
+          || (dirStart == 0xFFFFFFFFL)) {
+        throw new ZipException("Zip64 archive");
+      }
+      if (dirSize > Integer.MAX_VALUE) {
+        throw new ZipException("Central directory too large");
+      }
+      
+      // The central directory ends where the end record starts, so any
+      // difference to the recorded start is data preceding the archive.
+      
+      long endPos = size - tailLen + pos;
+      long prefix = endPos - dirSize - dirStart;
+      
+      if (prefix < 0) {
+        throw new InvalidDataException();
+      }
+      
+      ByteBuffer dir   = read(channel, prefix + dirStart, (int) dirSize);
+      ZipIndex   index = new ZipIndex(archiveSize, archiveTime);
+      
+      for (int idx = 0; idx < count; idx++) {
+        if ((dir.remaining() < ENTRY_SIZE)
+            || (dir.getInt(dir.position()) != ENTRY_SIGNATURE)) {
+          throw new InvalidDataException();
+        }
+        
+        int  start          = dir.position();
+        int  method         = dir.getShort(start + 10) & 0xFFFF;
+        int  crc            = dir.getInt  (start + 16);
+        long compressedSize = dir.getInt  (start + 20) & 0xFFFFFFFFL;
+        long entrySize      = dir.getInt  (start + 24) & 0xFFFFFFFFL;
+        int  nameLen        = dir.getShort(start + 28) & 0xFFFF;
+        int  extraLen       = dir.getShort(start + 30) & 0xFFFF;
+        int  commentLen     = dir.getShort(start + 32) & 0xFFFF;
+        long offset         = dir.getInt  (start + 42) & 0xFFFFFFFFL;
+        
+        int len = ENTRY_SIZE + nameLen + extraLen + commentLen;
+        
+        if (dir.remaining() < len) {
+          throw new InvalidDataException();
+        }
+        
+        byte[] nameBytes = new byte[nameLen];
+        
+        dir.position(start + ENTRY_SIZE);
+        dir.get(nameBytes);
+        dir.position(start + len);
+        
+        index.add(new ZipIndex.Entry(
+          new String(nameBytes, StandardCharsets.UTF_8),
+          method,
+          crc,
+          compressedSize,
+          entrySize,
+          prefix + offset));
+      }
+      
+      return index;
+    }
+  }
+  
+  /**
+   * Reads the index through {@link ZipFile}, which works for all
+   * archives, but provides no entry offsets.
+   */
+  public static ZipIndex readZipFile(
+      Path file,
+      long archiveSize,
+      long archiveTime) throws IOException {
+    try (ZipFile zip = new ZipFile(file.toFile())) {
+      ZipIndex index = new ZipIndex(archiveSize, archiveTime);
+      
+      for (Enumeration<? extends ZipEntry> en = zip.entries();
+          en.hasMoreElements();) {
+        ZipEntry entry = en.nextElement();
+        
+        index.add(new ZipIndex.Entry(
+          entry.getName(),
+          entry.getMethod(),
+          (int) entry.getCrc(),
+          entry.getCompressedSize(),
+          entry.getSize(),
+          -1));
+      }
+      
+      return index;
+    }
+  }
+  
+  private ZipIndexReadTool() {
+  }
+}
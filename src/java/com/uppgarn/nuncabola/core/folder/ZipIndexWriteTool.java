@@ -0,0 +1,58 @@
+/*
+ * ZipIndexWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.folder;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.core.folder.ZipIndexIOTool.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+final class ZipIndexWriteTool {
+  public static void writeZipIndex(OutputStream out, ZipIndex index)
+      throws IOException {
+    List<ZipIndex.Entry> entries = index.getEntries();
+    
+    writeInt (out, MAGIC);
+    writeInt (out, VERSION);
+    writeLong(out, index.getArchiveSize());
+    writeLong(out, index.getArchiveTime());
+    writeInt (out, entries.size());
+    
+    for (ZipIndex.Entry entry: entries) {
+      writeString(out, entry.name);
+      writeInt   (out, entry.method);
+      writeInt   (out, entry.crc);
+      writeLong  (out, entry.compressedSize);
+      writeLong  (out, entry.size);
+      writeLong  (out, entry.offset);
+    }
+  }
+  
+  public static void writeZipIndex(Path file, ZipIndex index)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(file))) {
+      writeZipIndex(out, index);
+    }
+  }
+  
+  private ZipIndexWriteTool() {
+  }
+}
@@ -152,9 +152,9 @@ public abstract class Command {
   }
   
   public static final class BallPosition extends Command {
-    public final float x;
-    public final float y;
-    public final float z;
+    public float x;
+    public float y;
+    public float z;
     
     public BallPosition(float x, float y, float z) {
       this.x = x;
@@ -166,6 +166,12 @@ public abstract class Command {
       this(p.x, p.y, p.z);
     }
     
+    public void set(Vector3 p) {
+      x = p.x;
+      y = p.y;
+      z = p.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.BALL_POSITION;
@@ -186,12 +192,12 @@ public abstract class Command {
   }
   
   public static final class BallBasis extends Command {
-    public final float xX;
-    public final float xY;
-    public final float xZ;
-    public final float yX;
-    public final float yY;
-    public final float yZ;
+    public float xX;
+    public float xY;
+    public float xZ;
+    public float yX;
+    public float yY;
+    public float yZ;
     
     public BallBasis(
         float xX,
@@ -212,6 +218,15 @@ public abstract class Command {
       this(e.x.x, e.x.y, e.x.z, e.y.x, e.y.y, e.y.z);
     }
     
+    public void set(Basis3 e) {
+      xX = e.x.x;
+      xY = e.x.y;
+      xZ = e.x.z;
+      yX = e.y.x;
+      yY = e.y.y;
+      yZ = e.y.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.BALL_BASIS;
@@ -219,12 +234,12 @@ public abstract class Command {
   }
   
   public static final class BallPendulumBasis extends Command {
-    public final float xX;
-    public final float xY;
-    public final float xZ;
-    public final float yX;
-    public final float yY;
-    public final float yZ;
+    public float xX;
+    public float xY;
+    public float xZ;
+    public float yX;
+    public float yY;
+    public float yZ;
     
     public BallPendulumBasis(
         float xX,
@@ -245,6 +260,15 @@ public abstract class Command {
       this(e_.x.x, e_.x.y, e_.x.z, e_.y.x, e_.y.y, e_.y.z);
     }
     
+    public void set(Basis3 e_) {
+      xX = e_.x.x;
+      xY = e_.x.y;
+      xZ = e_.x.z;
+      yX = e_.y.x;
+      yY = e_.y.y;
+      yZ = e_.y.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.BALL_PENDULUM_BASIS;
@@ -387,14 +411,19 @@ public abstract class Command {
   }
   
   public static final class MoverPath extends Command {
-    public final int moverIdx;
-    public final int pathIdx;
+    public int moverIdx;
+    public int pathIdx;
     
     public MoverPath(int moverIdx, int pathIdx) {
       this.moverIdx = moverIdx;
       this.pathIdx  = pathIdx;
     }
     
+    public void set(int moverIdx, int pathIdx) {
+      this.moverIdx = moverIdx;
+      this.pathIdx  = pathIdx;
+    }
+    
     @Override
     public Type getType() {
       return Type.MOVER_PATH;
@@ -402,14 +431,19 @@ public abstract class Command {
   }
   
   public static final class MoverTime extends Command {
-    public final int   moverIdx;
-    public final float t;
+    public int   moverIdx;
+    public float t;
     
     public MoverTime(int moverIdx, float t) {
       this.moverIdx = moverIdx;
       this.t        = t;
     }
     
+    public void set(int moverIdx, float t) {
+      this.moverIdx = moverIdx;
+      this.t        = t;
+    }
+    
     @Override
     public Type getType() {
       return Type.MOVER_TIME;
@@ -417,14 +451,19 @@ public abstract class Command {
   }
   
   public static final class PathEnable extends Command {
-    public final int     pathIdx;
-    public final boolean enabled;
+    public int     pathIdx;
+    public boolean enabled;
     
     public PathEnable(int pathIdx, boolean enabled) {
       this.pathIdx = pathIdx;
       this.enabled = enabled;
     }
     
+    public void set(int pathIdx, boolean enabled) {
+      this.pathIdx = pathIdx;
+      this.enabled = enabled;
+    }
+    
     @Override
     public Type getType() {
       return Type.PATH_ENABLE;
@@ -445,12 +484,16 @@ public abstract class Command {
   }
   
   public static final class SimulationStep extends Command {
-    public final float dt;
+    public float dt;
     
     public SimulationStep(float dt) {
       this.dt = dt;
     }
     
+    public void set(float dt) {
+      this.dt = dt;
+    }
+    
     @Override
     public Type getType() {
       return Type.SIMULATION_STEP;
@@ -458,14 +501,19 @@ public abstract class Command {
   }
   
   public static final class Sound extends Command {
-    public final String path;
-    public final float  amp;
+    public String path;
+    public float  amp;
     
     public Sound(String path, float amp) {
       this.path = path;
       this.amp  = amp;
     }
     
+    public void set(String path, float amp) {
+      this.path = path;
+      this.amp  = amp;
+    }
+    
     @Override
     public Type getType() {
       return Type.SOUND;
@@ -549,12 +597,12 @@ public abstract class Command {
   }
   
   public static final class TiltAxes extends Command {
-    public final float xX;
-    public final float xY;
-    public final float xZ;
-    public final float zX;
-    public final float zY;
-    public final float zZ;
+    public float xX;
+    public float xY;
+    public float xZ;
+    public float zX;
+    public float zY;
+    public float zZ;
     
     public TiltAxes(
         float xX,
@@ -575,6 +623,15 @@ public abstract class Command {
       this(x.x, x.y, x.z, z.x, z.y, z.z);
     }
     
+    public void set(Vector3 x, Vector3 z) {
+      xX = x.x;
+      xY = x.y;
+      xZ = x.z;
+      zX = z.x;
+      zY = z.y;
+      zZ = z.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.TILT_AXES;
@@ -582,14 +639,19 @@ public abstract class Command {
   }
   
   public static final class TiltAngles extends Command {
-    public final float x;
-    public final float z;
+    public float x;
+    public float z;
     
     public TiltAngles(float x, float z) {
       this.x = x;
       this.z = z;
     }
     
+    public void set(float x, float z) {
+      this.x = x;
+      this.z = z;
+    }
+    
     @Override
     public Type getType() {
       return Type.TILT_ANGLES;
@@ -597,12 +659,16 @@ public abstract class Command {
   }
   
   public static final class Timer extends Command {
-    public final float timer;
+    public float timer;
     
     public Timer(float timer) {
       this.timer = timer;
     }
     
+    public void set(float timer) {
+      this.timer = timer;
+    }
+    
     @Override
     public Type getType() {
       return Type.TIMER;
@@ -610,9 +676,9 @@ public abstract class Command {
   }
   
   public static final class ViewPosition extends Command {
-    public final float x;
-    public final float y;
-    public final float z;
+    public float x;
+    public float y;
+    public float z;
     
     public ViewPosition(float x, float y, float z) {
       this.x = x;
@@ -624,6 +690,12 @@ public abstract class Command {
       this(p.x, p.y, p.z);
     }
     
+    public void set(Vector3 p) {
+      x = p.x;
+      y = p.y;
+      z = p.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.VIEW_POSITION;
@@ -631,9 +703,9 @@ public abstract class Command {
   }
   
   public static final class ViewCenter extends Command {
-    public final float x;
-    public final float y;
-    public final float z;
+    public float x;
+    public float y;
+    public float z;
     
     public ViewCenter(float x, float y, float z) {
       this.x = x;
@@ -645,6 +717,12 @@ public abstract class Command {
       this(c.x, c.y, c.z);
     }
     
+    public void set(Vector3 c) {
+      x = c.x;
+      y = c.y;
+      z = c.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.VIEW_CENTER;
@@ -652,12 +730,12 @@ public abstract class Command {
   }
   
   public static final class ViewBasis extends Command {
-    public final float xX;
-    public final float xY;
-    public final float xZ;
-    public final float yX;
-    public final float yY;
-    public final float yZ;
+    public float xX;
+    public float xY;
+    public float xZ;
+    public float yX;
+    public float yY;
+    public float yZ;
     
     public ViewBasis(
         float xX,
@@ -678,6 +756,15 @@ public abstract class Command {
       this(e.x.x, e.x.y, e.x.z, e.y.x, e.y.y, e.y.z);
     }
     
+    public void set(Basis3 e) {
+      xX = e.x.x;
+      xY = e.x.y;
+      xZ = e.x.z;
+      yX = e.y.x;
+      yY = e.y.y;
+      yZ = e.y.z;
+    }
+    
     @Override
     public Type getType() {
       return Type.VIEW_BASIS;
@@ -0,0 +1,91 @@
+/*
+ * CommandDelta.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.game;
+
+import java.util.*;
+
+/**
+ * Values of the previous per-update commands, against which
+ * the compact command encoding stores differences. Writer and reader
+ * must apply the same commands and resets to stay in sync.
+ */
+public final class CommandDelta {
+  static final int BALL_POSITION       =  0;
+  static final int BALL_BASIS          =  3;
+  static final int BALL_PENDULUM_BASIS =  9;
+  static final int SIMULATION_STEP     = 15;
+  static final int TILT_AXES           = 16;
+  static final int TILT_ANGLES         = 22;
+  static final int TIMER               = 24;
+  static final int VIEW_POSITION       = 25;
+  static final int VIEW_CENTER         = 28;
+  static final int VIEW_BASIS          = 31;
+  
+  private static final int SLOT_COUNT = 37;
+  
+  /**
+   * Float bits or, for quantized fields, quantized values.
+   */
+  final int[] values;
+  
+  /**
+   * The values before those, for extrapolation.
+   */
+  final int[] prevValues;
+  
+  /**
+   * Encoded values of the command being written.
+   */
+  final int[] next;
+  
+  public CommandDelta() {
+    values     = new int[SLOT_COUNT];
+    prevValues = new int[SLOT_COUNT];
+    next       = new int[6];
+  }
+  
+  public CommandDelta(CommandDelta src) {
+    values     = src.values    .clone();
+    prevValues = src.prevValues.clone();
+    next       = new int[6];
+  }
+  
+  public void reset() {
+    Arrays.fill(values,     0);
+    Arrays.fill(prevValues, 0);
+  }
+  
+  public void copyFrom(CommandDelta src) {
+    System.arraycopy(src.values,     0, values,     0, values    .length);
+    System.arraycopy(src.prevValues, 0, prevValues, 0, prevValues.length);
+  }
+  
+  /**
+   * Returns the value predicted for a slot by linear extrapolation.
+   * Smoothly changing state such as the timer or positions
+   * is predicted exactly or nearly so.
+   */
+  int predict(int slot) {
+    return 2 * values[slot] - prevValues[slot];
+  }
+  
+  void update(int slot, int value) {
+    prevValues[slot] = values[slot];
+    values    [slot] = value;
+  }
+}
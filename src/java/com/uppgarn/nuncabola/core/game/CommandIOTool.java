@@ -18,6 +18,13 @@
 package com.uppgarn.nuncabola.core.game;
 
 final class CommandIOTool {
+  /**
+   * Quantization steps per unit of the lossy fields of
+   * the compact encoding, which only affect presentation.
+   */
+  public static final float BASIS_SCALE    = 32768.0f;
+  public static final float POSITION_SCALE = 4096.0f;
+  
   private static final Command.Type[] TYPES = createTypes();
   private static final int         [] IDS   = createIDs();
   
@@ -0,0 +1,173 @@
+/*
+ * CommandPool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.game;
+
+import java.util.*;
+
+/**
+ * Reusable instances of the commands a game server sends every update.
+ * <p>
+ * Instances are handed out in order and become available again
+ * on {@link #reset}, so that steady-state play creates no commands.
+ */
+final class CommandPool {
+  private final List<List<Command>> cmdLists;
+  private final int[]               counts;
+  
+  public CommandPool() {
+    int typeCount = Command.Type.values().length;
+    
+    cmdLists = new ArrayList<>(typeCount);
+    counts   = new int[typeCount];
+    
+    for (int idx = 0; idx < typeCount; idx++) {
+      cmdLists.add(new ArrayList<Command>());
+    }
+  }
+  
+  private static Command create(Command.Type type) {
+    switch (type) {
+      case BALL_POSITION: {
+        return new Command.BallPosition(0.0f, 0.0f, 0.0f);
+      }
+      case BALL_BASIS: {
+        return new Command.BallBasis(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+      }
+      case BALL_PENDULUM_BASIS: {
+        return new Command.BallPendulumBasis(
+          0.0f,
+          0.0f,
+          0.0f,
+          0.0f,
+          0.0f,
+          0.0f);
+      }
+      case MOVER_PATH: {
+        return new Command.MoverPath(0, 0);
+      }
+      case MOVER_TIME: {
+        return new Command.MoverTime(0, 0.0f);
+      }
+      case PATH_ENABLE: {
+        return new Command.PathEnable(0, false);
+      }
+      case SIMULATION_STEP: {
+        return new Command.SimulationStep(0.0f);
+      }
+      case SOUND: {
+        return new Command.Sound(null, 0.0f);
+      }
+      case TILT_AXES: {
+        return new Command.TiltAxes(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+      }
+      case TILT_ANGLES: {
+        return new Command.TiltAngles(0.0f, 0.0f);
+      }
+      case TIMER: {
+        return new Command.Timer(0.0f);
+      }
+      case VIEW_POSITION: {
+        return new Command.ViewPosition(0.0f, 0.0f, 0.0f);
+      }
+      case VIEW_CENTER: {
+        return new Command.ViewCenter(0.0f, 0.0f, 0.0f);
+      }
+      case VIEW_BASIS: {
+        return new Command.ViewBasis(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+      }
+      default: {
+        throw new IllegalArgumentException();
+      }
+    }
+  }
+  
+  private Command get(Command.Type type) {
+    List<Command> cmds = cmdLists.get(type.ordinal());
+    
+    int idx = counts[type.ordinal()]++;
+    
+    if (idx == cmds.size()) {
+      cmds.add(create(type));
+    }
+    
+    return cmds.get(idx);
+  }
+  
+  public Command.BallPosition getBallPosition() {
+    return (Command.BallPosition) get(Command.Type.BALL_POSITION);
+  }
+  
+  public Command.BallBasis getBallBasis() {
+    return (Command.BallBasis) get(Command.Type.BALL_BASIS);
+  }
+  
+  public Command.BallPendulumBasis getBallPendulumBasis() {
+    return (Command.BallPendulumBasis) get(Command.Type.BALL_PENDULUM_BASIS);
+  }
+  
+  public Command.MoverPath getMoverPath() {
+    return (Command.MoverPath) get(Command.Type.MOVER_PATH);
+  }
+  
+  public Command.MoverTime getMoverTime() {
+    return (Command.MoverTime) get(Command.Type.MOVER_TIME);
+  }
+  
+  public Command.PathEnable getPathEnable() {
+    return (Command.PathEnable) get(Command.Type.PATH_ENABLE);
+  }
+  
+  public Command.SimulationStep getSimulationStep() {
+    return (Command.SimulationStep) get(Command.Type.SIMULATION_STEP);
+  }
+  
+  public Command.Sound getSound() {
+    return (Command.Sound) get(Command.Type.SOUND);
+  }
+  
+  public Command.TiltAxes getTiltAxes() {
+    return (Command.TiltAxes) get(Command.Type.TILT_AXES);
+  }
+  
+  public Command.TiltAngles getTiltAngles() {
+    return (Command.TiltAngles) get(Command.Type.TILT_ANGLES);
+  }
+  
+  public Command.Timer getTimer() {
+    return (Command.Timer) get(Command.Type.TIMER);
+  }
+  
+  public Command.ViewPosition getViewPosition() {
+    return (Command.ViewPosition) get(Command.Type.VIEW_POSITION);
+  }
+  
+  public Command.ViewCenter getViewCenter() {
+    return (Command.ViewCenter) get(Command.Type.VIEW_CENTER);
+  }
+  
+  public Command.ViewBasis getViewBasis() {
+    return (Command.ViewBasis) get(Command.Type.VIEW_BASIS);
+  }
+  
+  /**
+   * Makes all instances available again.
+   */
+  public void reset() {
+    Arrays.fill(counts, 0);
+  }
+}
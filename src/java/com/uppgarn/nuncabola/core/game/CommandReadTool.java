@@ -17,6 +17,8 @@
 
 package com.uppgarn.nuncabola.core.game;
 
+import com.uppgarn.nuncabola.core.util.*;
+
 import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
 import static com.uppgarn.nuncabola.core.game.CommandIOTool.*;
 
@@ -258,6 +260,267 @@ public final class CommandReadTool {
     }
   }
   
+  private static float exact(CommandDelta delta, int slot) {
+    return Float.intBitsToFloat(delta.values[slot]);
+  }
+  
+  private static float dequantize(CommandDelta delta, int slot, float scale) {
+    return delta.values[slot] / scale;
+  }
+  
+  /**
+   * Reads which values differ from their predictions, followed by
+   * the differences, and applies them to {@code delta}.
+   */
+  private static void readDeltas(
+      InputStream  in,
+      CommandDelta delta,
+      int          slot,
+      int          count) throws IOException {
+    int flags = readUnsignedByte(in);
+    
+    if ((flags >>> count) != 0) {
+      throw new InvalidDataException();
+    }
+    
+    for (int idx = 0; idx < count; idx++) {
+      int value = delta.predict(slot + idx);
+      
+      if ((flags & (1 << idx)) != 0) {
+        value += readVarInt(in);
+      }
+      
+      delta.update(slot + idx, value);
+    }
+  }
+  
+  /**
+   * Reads a command in the compact encoding written by
+   * {@link CommandWriteTool#writeCompactCommand}.
+   */
+  public static Command readCompactCommand(
+      InputStream  in,
+      CommandDelta delta) throws IOException {
+    int id = readUnsignedByte(in);
+    
+    switch (getType(id)) {
+      case UNKNOWN: {
+        throw new InvalidDataException();
+      }
+      case END_OF_UPDATE: {
+        return Command.EndOfUpdate.INSTANCE;
+      }
+      case BALLS_CLEAR: {
+        return Command.BallsClear.INSTANCE;
+      }
+      case BALL_CREATE: {
+        return Command.BallCreate.INSTANCE;
+      }
+      case BALL_POSITION: {
+        readDeltas(in, delta, CommandDelta.BALL_POSITION, 3);
+        
+        return new Command.BallPosition(
+          exact(delta, CommandDelta.BALL_POSITION),
+          exact(delta, CommandDelta.BALL_POSITION + 1),
+          exact(delta, CommandDelta.BALL_POSITION + 2));
+      }
+      case BALL_RADIUS: {
+        float r = readFloat(in);
+        
+        return new Command.BallRadius(r);
+      }
+      case BALL_BASIS: {
+        readDeltas(in, delta, CommandDelta.BALL_BASIS, 6);
+        
+        return new Command.BallBasis(
+          dequantize(delta, CommandDelta.BALL_BASIS, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_BASIS + 1, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_BASIS + 2, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_BASIS + 3, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_BASIS + 4, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_BASIS + 5, BASIS_SCALE));
+      }
+      case BALL_PENDULUM_BASIS: {
+        readDeltas(in, delta, CommandDelta.BALL_PENDULUM_BASIS, 6);
+        
+        return new Command.BallPendulumBasis(
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS + 1, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS + 2, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS + 3, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS + 4, BASIS_SCALE),
+          dequantize(delta, CommandDelta.BALL_PENDULUM_BASIS + 5, BASIS_SCALE));
+      }
+      case BODY_PATH: {
+        int bodyIdx = readVarInt(in);
+        int pathIdx = readVarInt(in);
+        
+        return new Command.BodyPath(bodyIdx, pathIdx);
+      }
+      case BODY_TIME: {
+        int   bodyIdx = readVarInt(in);
+        float t       = readFloat (in);
+        
+        return new Command.BodyTime(bodyIdx, t);
+      }
+      case COINS: {
+        int coins = readVarInt(in);
+        
+        return new Command.Coins(coins);
+      }
+      case CURRENT_BALL: {
+        int ballIdx = readVarInt(in);
+        
+        return new Command.CurrentBall(ballIdx);
+      }
+      case GOALS_UNLOCK: {
+        return Command.GoalsUnlock.INSTANCE;
+      }
+      case ITEMS_CLEAR: {
+        return Command.ItemsClear.INSTANCE;
+      }
+      case ITEM_CREATE: {
+        float pX    = readFloat (in);
+        float pY    = readFloat (in);
+        float pZ    = readFloat (in);
+        int   type  = readVarInt(in);
+        int   value = readVarInt(in);
+        
+        return new Command.ItemCreate(pX, pY, pZ, type, value);
+      }
+      case ITEM_COLLECT: {
+        int itemIdx = readVarInt(in);
+        
+        return new Command.ItemCollect(itemIdx);
+      }
+      case LEVEL: {
+        String path         = readString(in);
+        int    majorVersion = readVarInt(in);
+        int    minorVersion = readVarInt(in);
+        
+        return new Command.Level(path, majorVersion, minorVersion);
+      }
+      case MOVER_PATH: {
+        int moverIdx = readVarInt(in);
+        int pathIdx  = readVarInt(in);
+        
+        return new Command.MoverPath(moverIdx, pathIdx);
+      }
+      case MOVER_TIME: {
+        int   moverIdx = readVarInt(in);
+        float t        = readFloat (in);
+        
+        return new Command.MoverTime(moverIdx, t);
+      }
+      case PATH_ENABLE: {
+        int     pathIdx = readVarInt(in);
+        boolean enabled = readVarInt(in) != 0;
+        
+        return new Command.PathEnable(pathIdx, enabled);
+      }
+      case RATE: {
+        int ups = readVarInt(in);
+        
+        return new Command.Rate(ups);
+      }
+      case SIMULATION_STEP: {
+        readDeltas(in, delta, CommandDelta.SIMULATION_STEP, 1);
+        
+        float dt = exact(delta, CommandDelta.SIMULATION_STEP);
+        
+        return new Command.SimulationStep(dt);
+      }
+      case SOUND: {
+        String path = readString(in);
+        float  amp  = readFloat (in);
+        
+        return new Command.Sound(path, amp);
+      }
+      case STATUS: {
+        Status status = getStatus(readVarInt(in));
+        
+        return new Command.Status(status);
+      }
+      case SWITCH_ENTER: {
+        int switchIdx = readVarInt(in);
+        
+        return new Command.SwitchEnter(switchIdx);
+      }
+      case SWITCH_EXIT: {
+        int switchIdx = readVarInt(in);
+        
+        return new Command.SwitchExit(switchIdx);
+      }
+      case SWITCH_TOGGLE: {
+        int switchIdx = readVarInt(in);
+        
+        return new Command.SwitchToggle(switchIdx);
+      }
+      case TELEPORTER_ENTER: {
+        return Command.TeleporterEnter.INSTANCE;
+      }
+      case TELEPORTER_EXIT: {
+        return Command.TeleporterExit.INSTANCE;
+      }
+      case TILT_AXES: {
+        readDeltas(in, delta, CommandDelta.TILT_AXES, 6);
+        
+        return new Command.TiltAxes(
+          exact(delta, CommandDelta.TILT_AXES),
+          exact(delta, CommandDelta.TILT_AXES + 1),
+          exact(delta, CommandDelta.TILT_AXES + 2),
+          exact(delta, CommandDelta.TILT_AXES + 3),
+          exact(delta, CommandDelta.TILT_AXES + 4),
+          exact(delta, CommandDelta.TILT_AXES + 5));
+      }
+      case TILT_ANGLES: {
+        readDeltas(in, delta, CommandDelta.TILT_ANGLES, 2);
+        
+        return new Command.TiltAngles(
+          exact(delta, CommandDelta.TILT_ANGLES),
+          exact(delta, CommandDelta.TILT_ANGLES + 1));
+      }
+      case TIMER: {
+        readDeltas(in, delta, CommandDelta.TIMER, 1);
+        
+        float timer = exact(delta, CommandDelta.TIMER);
+        
+        return new Command.Timer(timer);
+      }
+      case VIEW_POSITION: {
+        readDeltas(in, delta, CommandDelta.VIEW_POSITION, 3);
+        
+        return new Command.ViewPosition(
+          dequantize(delta, CommandDelta.VIEW_POSITION, POSITION_SCALE),
+          dequantize(delta, CommandDelta.VIEW_POSITION + 1, POSITION_SCALE),
+          dequantize(delta, CommandDelta.VIEW_POSITION + 2, POSITION_SCALE));
+      }
+      case VIEW_CENTER: {
+        readDeltas(in, delta, CommandDelta.VIEW_CENTER, 3);
+        
+        return new Command.ViewCenter(
+          dequantize(delta, CommandDelta.VIEW_CENTER, POSITION_SCALE),
+          dequantize(delta, CommandDelta.VIEW_CENTER + 1, POSITION_SCALE),
+          dequantize(delta, CommandDelta.VIEW_CENTER + 2, POSITION_SCALE));
+      }
+      case VIEW_BASIS: {
+        readDeltas(in, delta, CommandDelta.VIEW_BASIS, 6);
+        
+        return new Command.ViewBasis(
+          exact(delta, CommandDelta.VIEW_BASIS),
+          exact(delta, CommandDelta.VIEW_BASIS + 1),
+          exact(delta, CommandDelta.VIEW_BASIS + 2),
+          exact(delta, CommandDelta.VIEW_BASIS + 3),
+          exact(delta, CommandDelta.VIEW_BASIS + 4),
+          exact(delta, CommandDelta.VIEW_BASIS + 5));
+      }
+      
+      default: {
+        throw new AssertionError();
+      }
+    }
+  }
+  
   private CommandReadTool() {
   }
 }
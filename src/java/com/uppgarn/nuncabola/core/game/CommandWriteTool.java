@@ -355,6 +355,337 @@ public final class CommandWriteTool {
     }
   }
   
+  private static int exact(float value) {
+    return Float.floatToRawIntBits(value);
+  }
+  
+  private static int quantize(float value, float scale) {
+    return Math.round(value * scale);
+  }
+  
+  /**
+   * Writes which of the encoded values in {@code delta.next} differ
+   * from their predictions, followed by the differences.
+   */
+  private static void writeDeltas(
+      OutputStream out,
+      CommandDelta delta,
+      int          slot,
+      int          count) throws IOException {
+    int[] next = delta.next;
+    
+    int flags = 0;
+    
+    for (int idx = 0; idx < count; idx++) {
+      if (next[idx] != delta.predict(slot + idx)) {
+        flags |= 1 << idx;
+      }
+    }
+    
+    out.write(flags);
+    
+    for (int idx = 0; idx < count; idx++) {
+      if ((flags & (1 << idx)) != 0) {
+        writeVarInt(out, next[idx] - delta.predict(slot + idx));
+      }
+      
+      delta.update(slot + idx, next[idx]);
+    }
+  }
+  
+  /**
+   * Writes a command in the compact encoding: the ID without
+   * a length, integers as variable-length integers and per-update
+   * state as differences against {@code delta}.
+   */
+  public static void writeCompactCommand(
+      OutputStream out,
+      Command      cmd,
+      CommandDelta delta) throws IOException {
+    if (cmd.getType() != Command.Type.UNKNOWN) {
+      out.write(getID(cmd.getType()));
+    }
+    
+    switch (cmd.getType()) {
+      case UNKNOWN: {
+        break;
+      }
+      case END_OF_UPDATE:
+      case BALLS_CLEAR:
+      case BALL_CREATE:
+      case GOALS_UNLOCK:
+      case ITEMS_CLEAR:
+      case TELEPORTER_ENTER:
+      case TELEPORTER_EXIT: {
+        break;
+      }
+      case BALL_POSITION: {
+        Command.BallPosition myCmd = (Command.BallPosition) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = exact(myCmd.x);
+        next[1] = exact(myCmd.y);
+        next[2] = exact(myCmd.z);
+        
+        writeDeltas(out, delta, CommandDelta.BALL_POSITION, 3);
+        
+        break;
+      }
+      case BALL_RADIUS: {
+        Command.BallRadius myCmd = (Command.BallRadius) cmd;
+        
+        writeFloat(out, myCmd.r);
+        
+        break;
+      }
+      case BALL_BASIS: {
+        Command.BallBasis myCmd = (Command.BallBasis) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = quantize(myCmd.xX, BASIS_SCALE);
+        next[1] = quantize(myCmd.xY, BASIS_SCALE);
+        next[2] = quantize(myCmd.xZ, BASIS_SCALE);
+        next[3] = quantize(myCmd.yX, BASIS_SCALE);
+        next[4] = quantize(myCmd.yY, BASIS_SCALE);
+        next[5] = quantize(myCmd.yZ, BASIS_SCALE);
+        
+        writeDeltas(out, delta, CommandDelta.BALL_BASIS, 6);
+        
+        break;
+      }
+      case BALL_PENDULUM_BASIS: {
+        Command.BallPendulumBasis myCmd = (Command.BallPendulumBasis) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = quantize(myCmd.xX, BASIS_SCALE);
+        next[1] = quantize(myCmd.xY, BASIS_SCALE);
+        next[2] = quantize(myCmd.xZ, BASIS_SCALE);
+        next[3] = quantize(myCmd.yX, BASIS_SCALE);
+        next[4] = quantize(myCmd.yY, BASIS_SCALE);
+        next[5] = quantize(myCmd.yZ, BASIS_SCALE);
+        
+        writeDeltas(out, delta, CommandDelta.BALL_PENDULUM_BASIS, 6);
+        
+        break;
+      }
+      case BODY_PATH: {
+        Command.BodyPath myCmd = (Command.BodyPath) cmd;
+        
+        writeVarInt(out, myCmd.bodyIdx);
+        writeVarInt(out, myCmd.pathIdx);
+        
+        break;
+      }
+      case BODY_TIME: {
+        Command.BodyTime myCmd = (Command.BodyTime) cmd;
+        
+        writeVarInt(out, myCmd.bodyIdx);
+        writeFloat (out, myCmd.t);
+        
+        break;
+      }
+      case COINS: {
+        Command.Coins myCmd = (Command.Coins) cmd;
+        
+        writeVarInt(out, myCmd.coins);
+        
+        break;
+      }
+      case CURRENT_BALL: {
+        Command.CurrentBall myCmd = (Command.CurrentBall) cmd;
+        
+        writeVarInt(out, myCmd.ballIdx);
+        
+        break;
+      }
+      case ITEM_CREATE: {
+        Command.ItemCreate myCmd = (Command.ItemCreate) cmd;
+        
+        writeFloat (out, myCmd.pX);
+        writeFloat (out, myCmd.pY);
+        writeFloat (out, myCmd.pZ);
+        writeVarInt(out, myCmd.type);
+        writeVarInt(out, myCmd.value);
+        
+        break;
+      }
+      case ITEM_COLLECT: {
+        Command.ItemCollect myCmd = (Command.ItemCollect) cmd;
+        
+        writeVarInt(out, myCmd.itemIdx);
+        
+        break;
+      }
+      case LEVEL: {
+        Command.Level myCmd = (Command.Level) cmd;
+        
+        writeString(out, myCmd.path);
+        writeVarInt(out, myCmd.majorVersion);
+        writeVarInt(out, myCmd.minorVersion);
+        
+        break;
+      }
+      case MOVER_PATH: {
+        Command.MoverPath myCmd = (Command.MoverPath) cmd;
+        
+        writeVarInt(out, myCmd.moverIdx);
+        writeVarInt(out, myCmd.pathIdx);
+        
+        break;
+      }
+      case MOVER_TIME: {
+        Command.MoverTime myCmd = (Command.MoverTime) cmd;
+        
+        writeVarInt(out, myCmd.moverIdx);
+        writeFloat (out, myCmd.t);
+        
+        break;
+      }
+      case PATH_ENABLE: {
+        Command.PathEnable myCmd = (Command.PathEnable) cmd;
+        
+        writeVarInt(out, myCmd.pathIdx);
+        writeVarInt(out, myCmd.enabled ? 1 : 0);
+        
+        break;
+      }
+      case RATE: {
+        Command.Rate myCmd = (Command.Rate) cmd;
+        
+        writeVarInt(out, myCmd.ups);
+        
+        break;
+      }
+      case SIMULATION_STEP: {
+        Command.SimulationStep myCmd = (Command.SimulationStep) cmd;
+        
+        delta.next[0] = exact(myCmd.dt);
+        
+        writeDeltas(out, delta, CommandDelta.SIMULATION_STEP, 1);
+        
+        break;
+      }
+      case SOUND: {
+        Command.Sound myCmd = (Command.Sound) cmd;
+        
+        writeString(out, myCmd.path);
+        writeFloat (out, myCmd.amp);
+        
+        break;
+      }
+      case STATUS: {
+        Command.Status myCmd = (Command.Status) cmd;
+        
+        writeVarInt(out, getStatusInt(myCmd.status));
+        
+        break;
+      }
+      case SWITCH_ENTER: {
+        Command.SwitchEnter myCmd = (Command.SwitchEnter) cmd;
+        
+        writeVarInt(out, myCmd.switchIdx);
+        
+        break;
+      }
+      case SWITCH_EXIT: {
+        Command.SwitchExit myCmd = (Command.SwitchExit) cmd;
+        
+        writeVarInt(out, myCmd.switchIdx);
+        
+        break;
+      }
+      case SWITCH_TOGGLE: {
+        Command.SwitchToggle myCmd = (Command.SwitchToggle) cmd;
+        
+        writeVarInt(out, myCmd.switchIdx);
+        
+        break;
+      }
+      case TILT_AXES: {
+        Command.TiltAxes myCmd = (Command.TiltAxes) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = exact(myCmd.xX);
+        next[1] = exact(myCmd.xY);
+        next[2] = exact(myCmd.xZ);
+        next[3] = exact(myCmd.zX);
+        next[4] = exact(myCmd.zY);
+        next[5] = exact(myCmd.zZ);
+        
+        writeDeltas(out, delta, CommandDelta.TILT_AXES, 6);
+        
+        break;
+      }
+      case TILT_ANGLES: {
+        Command.TiltAngles myCmd = (Command.TiltAngles) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = exact(myCmd.x);
+        next[1] = exact(myCmd.z);
+        
+        writeDeltas(out, delta, CommandDelta.TILT_ANGLES, 2);
+        
+        break;
+      }
+      case TIMER: {
+        Command.Timer myCmd = (Command.Timer) cmd;
+        
+        delta.next[0] = exact(myCmd.timer);
+        
+        writeDeltas(out, delta, CommandDelta.TIMER, 1);
+        
+        break;
+      }
+      case VIEW_POSITION: {
+        Command.ViewPosition myCmd = (Command.ViewPosition) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = quantize(myCmd.x, POSITION_SCALE);
+        next[1] = quantize(myCmd.y, POSITION_SCALE);
+        next[2] = quantize(myCmd.z, POSITION_SCALE);
+        
+        writeDeltas(out, delta, CommandDelta.VIEW_POSITION, 3);
+        
+        break;
+      }
+      case VIEW_CENTER: {
+        Command.ViewCenter myCmd = (Command.ViewCenter) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = quantize(myCmd.x, POSITION_SCALE);
+        next[1] = quantize(myCmd.y, POSITION_SCALE);
+        next[2] = quantize(myCmd.z, POSITION_SCALE);
+        
+        writeDeltas(out, delta, CommandDelta.VIEW_CENTER, 3);
+        
+        break;
+      }
+      case VIEW_BASIS: {
+        Command.ViewBasis myCmd = (Command.ViewBasis) cmd;
+        
+        int[] next = delta.next;
+        
+        next[0] = exact(myCmd.xX);
+        next[1] = exact(myCmd.xY);
+        next[2] = exact(myCmd.xZ);
+        next[3] = exact(myCmd.yX);
+        next[4] = exact(myCmd.yY);
+        next[5] = exact(myCmd.yZ);
+        
+        writeDeltas(out, delta, CommandDelta.VIEW_BASIS, 6);
+        
+        break;
+      }
+    }
+  }
+  
   private CommandWriteTool() {
   }
 }
@@ -40,6 +40,8 @@ public final class GameClient {
   private boolean tiltAxesSet;
   private boolean viewSet;
   
+  private Gravity gravity;
+  
   public GameClient(Game game, GameClientListener listener) {
     this.game     = game;
     this.listener = listener;
@@ -56,6 +58,32 @@ public final class GameClient {
     teleJustEntered   = false;
     tiltAxesSet       = false;
     viewSet           = false;
+    
+    gravity = new Gravity();
+  }
+  
+  public Rate getRate() {
+    return rate;
+  }
+  
+  public int getCurrentBallIndex() {
+    return currBallIdx;
+  }
+  
+  /**
+   * Restores the client state as of the end of an update,
+   * for seeking. The game state is restored separately.
+   */
+  public void restore(Rate rate, int currBallIdx) {
+    this.rate        = rate;
+    this.currBallIdx = currBallIdx;
+    
+    firstUpdate       = false;
+    levelVersionSet   = false;
+    goalsJustUnlocked = false;
+    teleJustEntered   = false;
+    tiltAxesSet       = false;
+    viewSet           = false;
   }
   
   public void execute(Command cmd) {
@@ -95,9 +123,9 @@ public final class GameClient {
           
           // Compute gravity for particles.
           
-          Vector3 g = new Vector3();
+          Vector3 g = execute_g;
           
-          Gravity.get(g, game.status == Status.GOAL, game.tilt);
+          gravity.get(g, game.status == Status.GOAL, game.tilt);
           
           // Step particles.
           
@@ -504,4 +532,8 @@ public final class GameClient {
       }
     }
   }
+  
+  // Storage for reusable objects to minimize object creation.
+  
+  private final Vector3 execute_g = new Vector3();
 }
@@ -36,6 +36,13 @@ public abstract class GameServer {
     return rate;
   }
   
+  /**
+   * Returns the commands of the last update.
+   * <p>
+   * Command instances may be reused by later updates. Consumers
+   * that keep commands beyond the next update must encode or copy
+   * them first.
+   */
   public final List<Command> getCommands() {
     return cmdsR;
   }
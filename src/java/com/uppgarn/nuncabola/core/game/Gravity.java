@@ -23,10 +23,10 @@ final class Gravity {
   private static final Vector3 NORMAL   = new Vector3(0.0f, -9.8f, 0.0f);
   private static final Vector3 INVERTED = new Vector3(0.0f, +9.8f, 0.0f);
   
-  public static void get(Vector3 g, boolean inverted, Tilt tilt) {
-    Matrix4 x_ = new Matrix4();
-    Matrix4 z_ = new Matrix4();
-    Matrix4 m_ = new Matrix4();
+  public void get(Vector3 g, boolean inverted, Tilt tilt) {
+    Matrix4 x_ = get_x_;
+    Matrix4 z_ = get_z_;
+    Matrix4 m_ = get_m_;
     
     z_.rotate  (tilt.z, (float) Math.toRadians(tilt.rz));
     x_.rotate  (tilt.x, (float) Math.toRadians(tilt.rx));
@@ -35,6 +35,9 @@ final class Gravity {
     g.transform(inverted ? INVERTED : NORMAL, m_);
   }
   
-  private Gravity() {
-  }
+  // Storage for reusable objects to minimize object creation.
+  
+  private final Matrix4 get_x_ = new Matrix4();
+  private final Matrix4 get_z_ = new Matrix4();
+  private final Matrix4 get_m_ = new Matrix4();
 }
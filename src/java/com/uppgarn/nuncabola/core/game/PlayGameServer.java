@@ -23,6 +23,8 @@ import com.uppgarn.nuncabola.core.physics.*;
 import com.uppgarn.nuncabola.core.solid.*;
 import com.uppgarn.nuncabola.core.util.*;
 
+import java.util.*;
+
 public final class PlayGameServer extends GameServer {
   private static final String SOUND_BUMP_SMALL  = "snd/bumplil.ogg";
   private static final String SOUND_BUMP_NORMAL = "snd/bump.ogg";
@@ -38,6 +40,45 @@ public final class PlayGameServer extends GameServer {
   private static final String SOUND_FALL_OUT    = "snd/fall.ogg";
   private static final String SOUND_TIME_OUT    = "snd/time.ogg";
   
+  /**
+   * Returns the paths of all sounds that a game on {@code solBase}
+   * can request.
+   */
+  public static Set<String> getSoundPaths(SolidBase solBase) {
+    Set<String> paths = new LinkedHashSet<>();
+    
+    paths.add(SOUND_BUMP_SMALL);
+    paths.add(SOUND_BUMP_NORMAL);
+    paths.add(SOUND_BUMP_BIG);
+    paths.add(SOUND_FALL_OUT);
+    paths.add(SOUND_TIME_OUT);
+    
+    for (ItemBase itemBase: solBase.itemBases) {
+      paths.add(SOUND_ITEM);
+      
+      if (itemBase.type == ItemBase.GROW) {
+        paths.add(SOUND_GROW);
+      } else if (itemBase.type == ItemBase.SHRINK) {
+        paths.add(SOUND_SHRINK);
+      } else if (itemBase.type == ItemBase.CLOCK) {
+        paths.add(SOUND_CLOCK);
+      }
+    }
+    
+    if (solBase.switchBases.length > 0) {
+      paths.add(SOUND_SWITCH);
+    }
+    if (solBase.teles.length > 0) {
+      paths.add(SOUND_TELEPORTER);
+    }
+    if (solBase.goals.length > 0) {
+      paths.add(SOUND_UNLOCK);
+      paths.add(SOUND_GOAL);
+    }
+    
+    return paths;
+  }
+  
   private final Level        level;
   private final SolidBase    solBase;
   private final boolean      unlockGoals;
@@ -81,6 +122,14 @@ public final class PlayGameServer extends GameServer {
   private Simulation     sim;
   private PathEnabler    pathEnabler;
   private EntityDetector entDetect;
+  private Gravity        gravity;
+  
+  private EntityGrid itemGrid;
+  private EntityGrid switchGrid;
+  private EntityGrid teleGrid;
+  private EntityGrid goalGrid;
+  
+  private CommandPool cmdPool;
   
   public PlayGameServer(
       Level        level,
@@ -133,10 +182,74 @@ public final class PlayGameServer extends GameServer {
     sim         = new Simulation (sol, createSimulationListener());
     pathEnabler = new PathEnabler(sol, createPathEnablerListener());
     entDetect   = new EntityDetector();
+    gravity     = new Gravity();
+    
+    itemGrid   = createItemGrid();
+    switchGrid = createSwitchGrid();
+    teleGrid   = createTeleporterGrid();
+    goalGrid   = createGoalGrid();
+    
+    cmdPool = new CommandPool();
     
     start();
   }
   
+  private EntityGrid createItemGrid() {
+    Vector3[] ps = new Vector3[sol.items.length];
+    float[]   rs = new float  [sol.items.length];
+    
+    for (int idx = 0; idx < ps.length; idx++) {
+      ps[idx] = sol.items[idx].p;
+      rs[idx] = ItemBase.RADIUS;
+    }
+    
+    EntityGrid grid = new EntityGrid(ps, rs);
+    
+    for (int idx = 0; idx < ps.length; idx++) {
+      if (sol.items[idx].type == ItemBase.NONE) {
+        grid.remove(idx);
+      }
+    }
+    
+    return grid;
+  }
+  
+  private EntityGrid createSwitchGrid() {
+    Vector3[] ps = new Vector3[sol.switches.length];
+    float[]   rs = new float  [sol.switches.length];
+    
+    for (int idx = 0; idx < ps.length; idx++) {
+      ps[idx] = sol.switches[idx].base.p;
+      rs[idx] = sol.switches[idx].base.r;
+    }
+    
+    return new EntityGrid(ps, rs);
+  }
+  
+  private EntityGrid createTeleporterGrid() {
+    Vector3[] ps = new Vector3[sol.base.teles.length];
+    float[]   rs = new float  [sol.base.teles.length];
+    
+    for (int idx = 0; idx < ps.length; idx++) {
+      ps[idx] = sol.base.teles[idx].p;
+      rs[idx] = sol.base.teles[idx].r;
+    }
+    
+    return new EntityGrid(ps, rs);
+  }
+  
+  private EntityGrid createGoalGrid() {
+    Vector3[] ps = new Vector3[sol.base.goals.length];
+    float[]   rs = new float  [sol.base.goals.length];
+    
+    for (int idx = 0; idx < ps.length; idx++) {
+      ps[idx] = sol.base.goals[idx].p;
+      rs[idx] = sol.base.goals[idx].r;
+    }
+    
+    return new EntityGrid(ps, rs);
+  }
+  
   private SimulationListener createSimulationListener() {
     return new SimulationListener() {
       @Override
@@ -184,7 +297,10 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void sendBallPositionCommand() {
-    sendCommand(new Command.BallPosition(ball.p));
+    Command.BallPosition cmd = cmdPool.getBallPosition();
+    cmd.set(ball.p);
+    
+    sendCommand(cmd);
   }
   
   private void sendBallRadiusCommand() {
@@ -192,11 +308,17 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void sendBallBasisCommand() {
-    sendCommand(new Command.BallBasis(ball.e));
+    Command.BallBasis cmd = cmdPool.getBallBasis();
+    cmd.set(ball.e);
+    
+    sendCommand(cmd);
   }
   
   private void sendBallPendulumBasisCommand() {
-    sendCommand(new Command.BallPendulumBasis(ball.e_));
+    Command.BallPendulumBasis cmd = cmdPool.getBallPendulumBasis();
+    cmd.set(ball.e_);
+    
+    sendCommand(cmd);
   }
   
   private void sendCoinsCommand() {
@@ -227,15 +349,24 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void sendMoverPathCommand(int moverIdx, int pathIdx) {
-    sendCommand(new Command.MoverPath(moverIdx, pathIdx));
+    Command.MoverPath cmd = cmdPool.getMoverPath();
+    cmd.set(moverIdx, pathIdx);
+    
+    sendCommand(cmd);
   }
   
   private void sendMoverTimeCommand(int moverIdx, float t) {
-    sendCommand(new Command.MoverTime(moverIdx, t));
+    Command.MoverTime cmd = cmdPool.getMoverTime();
+    cmd.set(moverIdx, t);
+    
+    sendCommand(cmd);
   }
   
   private void sendPathEnableCommand(int pathIdx, boolean enabled) {
-    sendCommand(new Command.PathEnable(pathIdx, enabled));
+    Command.PathEnable cmd = cmdPool.getPathEnable();
+    cmd.set(pathIdx, enabled);
+    
+    sendCommand(cmd);
   }
   
   private void sendRateCommand() {
@@ -243,11 +374,17 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void sendSimulationStepCommand(float dt) {
-    sendCommand(new Command.SimulationStep(dt));
+    Command.SimulationStep cmd = cmdPool.getSimulationStep();
+    cmd.set(dt);
+    
+    sendCommand(cmd);
   }
   
   private void sendSoundCommand(String path, float amp) {
-    sendCommand(new Command.Sound(path, amp));
+    Command.Sound cmd = cmdPool.getSound();
+    cmd.set(path, amp);
+    
+    sendCommand(cmd);
   }
   
   private void sendStatusCommand() {
@@ -275,27 +412,45 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void sendTiltAxesCommand() {
-    sendCommand(new Command.TiltAxes(tilt.x, tilt.z));
+    Command.TiltAxes cmd = cmdPool.getTiltAxes();
+    cmd.set(tilt.x, tilt.z);
+    
+    sendCommand(cmd);
   }
   
   private void sendTiltAnglesCommand() {
-    sendCommand(new Command.TiltAngles(tilt.rx, tilt.rz));
+    Command.TiltAngles cmd = cmdPool.getTiltAngles();
+    cmd.set(tilt.rx, tilt.rz);
+    
+    sendCommand(cmd);
   }
   
   private void sendTimerCommand() {
-    sendCommand(new Command.Timer(timer));
+    Command.Timer cmd = cmdPool.getTimer();
+    cmd.set(timer);
+    
+    sendCommand(cmd);
   }
   
   private void sendViewPositionCommand() {
-    sendCommand(new Command.ViewPosition(view.p));
+    Command.ViewPosition cmd = cmdPool.getViewPosition();
+    cmd.set(view.p);
+    
+    sendCommand(cmd);
   }
   
   private void sendViewCenterCommand() {
-    sendCommand(new Command.ViewCenter(view.c));
+    Command.ViewCenter cmd = cmdPool.getViewCenter();
+    cmd.set(view.c);
+    
+    sendCommand(cmd);
   }
   
   private void sendViewBasisCommand() {
-    sendCommand(new Command.ViewBasis(view.e));
+    Command.ViewBasis cmd = cmdPool.getViewBasis();
+    cmd.set(view.e);
+    
+    sendCommand(cmd);
   }
   
   private void start() {
@@ -364,6 +519,13 @@ public final class PlayGameServer extends GameServer {
     sendTiltAnglesCommand();
   }
   
+  private void stepTilt(Tilt src) {
+    tilt.copyFrom(src);
+    
+    sendTiltAxesCommand();
+    sendTiltAnglesCommand();
+  }
+  
   private void stepResizing() {
     if (!resizeInProgress) {
       return;
@@ -409,9 +571,9 @@ public final class PlayGameServer extends GameServer {
       return;
     }
     
-    Vector3 g = new Vector3();
+    Vector3 g = stepSimulation_g;
     
-    Gravity.get(g, status == Status.GOAL, tilt);
+    gravity.get(g, status == Status.GOAL, tilt);
     
     float b = sim.step(0, g, rate.getTime());
     
@@ -440,7 +602,7 @@ public final class PlayGameServer extends GameServer {
       if (!teleJumpDone) {
         teleJumpDone = true;
         
-        Vector3 dp = new Vector3();
+        Vector3 dp = stepTeleportation_dp;
         
         dp    .subtract(teleP, ball.p);
         view.p.add     (view.p, dp);
@@ -490,9 +652,10 @@ public final class PlayGameServer extends GameServer {
     float da = input.getRotation() * rate.getTime() * 90.0f;
     
     if (da != 0.0f) {
-      Matrix4 m_ = new Matrix4();
-      Vector3 y_ = new Vector3(0.0f, 1.0f, 0.0f);
+      Matrix4 m_ = stepViewBasis_m_;
+      Vector3 y_ = stepViewBasis_y_;
       
+      y_      .set      (0.0f, 1.0f, 0.0f);
       m_      .rotate   (y_, (float) Math.toRadians(da));
       view.e.z.transform(view.e.z, m_);
     }
@@ -512,7 +675,7 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void updateViewPosition() {
-    Vector3 v = new Vector3();
+    Vector3 v = updateViewPosition_v;
     
     v.scale    (   view.e.y, viewDist.py * viewK);
     v.addScaled(v, view.e.z, viewDist.pz * viewK);
@@ -527,7 +690,7 @@ public final class PlayGameServer extends GameServer {
   }
   
   private void stepView() {
-    Vector3 v = new Vector3();
+    Vector3 v = stepView_v;
     
     v.negate(ball.v);
     v.y = 0.0f;
@@ -640,6 +803,8 @@ public final class PlayGameServer extends GameServer {
     
     item.type = ItemBase.NONE;
     
+    itemGrid.remove(itemIdx);
+    
     sendSoundCommand(SOUND_ITEM, 1.0f);
   }
   
@@ -648,8 +813,11 @@ public final class PlayGameServer extends GameServer {
       return;
     }
     
-    for (int itemIdx = 0; itemIdx < sol.items.length; itemIdx++) {
-      Item item = sol.items[itemIdx];
+    int count = itemGrid.find(ball.p, ball.r);
+    
+    for (int entry = 0; entry < count; entry++) {
+      int  itemIdx = itemGrid.getFound(entry);
+      Item item    = sol.items[itemIdx];
       
       if ((item.type != ItemBase.NONE) && entDetect.testItem(item, ball)) {
         handleItem(itemIdx, item);
@@ -667,6 +835,10 @@ public final class PlayGameServer extends GameServer {
       
       zwitch.ballInside = true;
       
+      // Keep visiting the switch until the ball exits.
+      
+      switchGrid.setPinned(switchIdx, true);
+      
       sendSwitchEnterCommand(switchIdx);
     }
     
@@ -705,6 +877,8 @@ public final class PlayGameServer extends GameServer {
       
       zwitch.ballInside = false;
       
+      switchGrid.setPinned(switchIdx, false);
+      
       sendSwitchExitCommand(switchIdx);
     }
   }
@@ -716,8 +890,11 @@ public final class PlayGameServer extends GameServer {
     
     boolean visibleSwitchToggled = false;
     
-    for (int switchIdx = 0; switchIdx < sol.switches.length; switchIdx++) {
-      Switch zwitch = sol.switches[switchIdx];
+    int count = switchGrid.find(ball.p, ball.r);
+    
+    for (int entry = 0; entry < count; entry++) {
+      int    switchIdx = switchGrid.getFound(entry);
+      Switch zwitch    = sol.switches[switchIdx];
       
       HaloTest result = entDetect.testSwitch(zwitch.base, ball);
       
@@ -759,8 +936,12 @@ public final class PlayGameServer extends GameServer {
       return;
     }
     
+    int count = teleGrid.find(ball.p, ball.r);
+    
     if (teleEnabled) {
-      for (Teleporter tele: sol.base.teles) {
+      for (int entry = 0; entry < count; entry++) {
+        Teleporter tele = sol.base.teles[teleGrid.getFound(entry)];
+        
         if (entDetect.testTeleporter(tele, ball) == HaloTest.INSIDE) {
           handleTeleporterInside(tele);
           
@@ -770,7 +951,9 @@ public final class PlayGameServer extends GameServer {
     } else {
       boolean outside = true;
       
-      for (Teleporter tele: sol.base.teles) {
+      for (int entry = 0; entry < count; entry++) {
+        Teleporter tele = sol.base.teles[teleGrid.getFound(entry)];
+        
         if (entDetect.testTeleporter(tele, ball) != HaloTest.OUTSIDE) {
           outside = false;
           
@@ -797,7 +980,11 @@ public final class PlayGameServer extends GameServer {
       return;
     }
     
-    for (Goal goal: sol.base.goals) {
+    int count = goalGrid.find(ball.p, ball.r);
+    
+    for (int entry = 0; entry < count; entry++) {
+      Goal goal = sol.base.goals[goalGrid.getFound(entry)];
+      
       if (entDetect.testGoal(goal, ball)) {
         handleStatus(Status.GOAL, SOUND_GOAL);
         
@@ -826,9 +1013,11 @@ public final class PlayGameServer extends GameServer {
     }
   }
   
-  private void step() {
+  private void update(Tilt srcTilt) {
     clearCommands();
     
+    cmdPool.reset();
+    
     if (!isUpdateAvailable()) {
       return;
     }
@@ -837,7 +1026,12 @@ public final class PlayGameServer extends GameServer {
       extraTime += rate.getTime();
     }
     
-    stepTilt();
+    if (srcTilt == null) {
+      stepTilt();
+    } else {
+      stepTilt(srcTilt);
+    }
+    
     stepResizing();
     stepSimulation();
     stepTeleportation();
@@ -859,6 +1053,62 @@ public final class PlayGameServer extends GameServer {
       this.input.copyFrom(input);
     }
     
-    step();
+    update(null);
+  }
+  
+  /**
+   * Steps the game with the given floor tilt instead of the one
+   * derived from input and view.
+   * <p>
+   * This is used to re-simulate recorded replays, which contain
+   * the resulting tilt but not the original input.
+   */
+  public void step(Tilt tilt) {
+    update(tilt);
+  }
+  
+  /**
+   * Steps the game back to back for at most {@code tickCount} ticks,
+   * taking the input of each tick from {@code src}.
+   * <p>
+   * Unlike regular play, this does not wait for real time to pass,
+   * so hours of play can be simulated in seconds. Stops early once
+   * the game is over and no more updates are produced.
+   */
+  public RunReport run(InputSource src, int tickCount) {
+    Input srcInput = run_input;
+    
+    long time0 = System.nanoTime();
+    int  tick  = 0;
+    
+    while ((tick < tickCount) && isUpdateAvailable()) {
+      src.getInput(tick, srcInput);
+      
+      step(srcInput);
+      
+      tick++;
+    }
+    
+    long time1 = System.nanoTime();
+    
+    return new RunReport(tick, time1 - time0, rate, status, coins);
   }
+  
+  public Status getStatus() {
+    return status;
+  }
+  
+  public int getCoins() {
+    return coins;
+  }
+  
+  // Storage for reusable objects to minimize object creation.
+  
+  private final Vector3 stepSimulation_g     = new Vector3();
+  private final Vector3 stepTeleportation_dp = new Vector3();
+  private final Matrix4 stepViewBasis_m_     = new Matrix4();
+  private final Vector3 stepViewBasis_y_     = new Vector3();
+  private final Vector3 updateViewPosition_v = new Vector3();
+  private final Vector3 stepView_v           = new Vector3();
+  private final Input   run_input            = new Input();
 }
@@ -0,0 +1,67 @@
+/*
+ * RunReport.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.game;
+
+public final class RunReport {
+  private final int    tickCount;
+  private final long   nanoTime;
+  private final Rate   rate;
+  private final Status status;
+  private final int    coins;
+  
+  RunReport(int tickCount, long nanoTime, Rate rate, Status status, int coins) {
+    this.tickCount = tickCount;
+    this.nanoTime  = nanoTime;
+    this.rate      = rate;
+    this.status    = status;
+    this.coins     = coins;
+  }
+  
+  /**
+   * Returns the number of ticks that have been simulated.
+   */
+  public int getTickCount() {
+    return tickCount;
+  }
+  
+  /**
+   * Returns the elapsed real time (nanoseconds).
+   */
+  public long getNanoTime() {
+    return nanoTime;
+  }
+  
+  /**
+   * Returns the simulated game time (seconds).
+   */
+  public float getGameTime() {
+    return tickCount * rate.getTime();
+  }
+  
+  public float getTicksPerSecond() {
+    return (nanoTime > 0) ? tickCount * 1.0E9f / nanoTime : 0.0f;
+  }
+  
+  public Status getStatus() {
+    return status;
+  }
+  
+  public int getCoins() {
+    return coins;
+  }
+}
@@ -256,7 +256,16 @@ public final class Gfx {
     glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
     glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
     
-    if (allowMipmap
+    boolean precomputed = allowMipmap
+                       && mipmap
+                       && (textureImg.getNextLevel() != null);
+    
+    if (precomputed) {
+      glTexParameteri(
+        GL_TEXTURE_2D,
+        GL_TEXTURE_MIN_FILTER,
+        GL_LINEAR_MIPMAP_LINEAR);
+    } else if (allowMipmap
         && mipmap
         && GLContext.getCapabilities().GL_SGIS_generate_mipmap) {
       glTexParameteri(
@@ -274,20 +283,32 @@ public final class Gfx {
       glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_ANISOTROPY_EXT, aniso);
     }
     
-    // Copy the image to the texture.
+    // Copy the image to the texture, along with its precomputed
+    // reductions, if they are used as mipmap levels.
     
     int format = textureImg.hasAlpha() ? GL_RGBA : GL_RGB;
+    int level  = 0;
     
-    glTexImage2D(
-      GL_TEXTURE_2D,
-      0,
-      format,
-      textureImg.getWidth (),
-      textureImg.getHeight(),
-      0,
-      format,
-      GL_UNSIGNED_BYTE,
-      textureImg.getBuffer());
+    for (Image levelImg = textureImg;
+        levelImg != null;
+        levelImg = precomputed ? levelImg.getNextLevel() : null) {
+      glTexImage2D(
+        GL_TEXTURE_2D,
+        level,
+        format,
+        levelImg.getWidth (),
+        levelImg.getHeight(),
+        0,
+        format,
+        GL_UNSIGNED_BYTE,
+        levelImg.getBuffer());
+      
+      level++;
+    }
+    
+    if (precomputed) {
+      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, level - 1);
+    }
     
     return texture;
   }
@@ -20,12 +20,14 @@ package com.uppgarn.nuncabola.core.gui;
 import com.uppgarn.nuncabola.core.folder.*;
 import com.uppgarn.nuncabola.core.graphics.*;
 import com.uppgarn.nuncabola.core.image.*;
+import com.uppgarn.nuncabola.core.util.*;
 
 import java.io.*;
 import java.util.*;
 
 public final class GUIHome {
-  private static Folder dataFolder;
+  private static Folder       dataFolder;
+  private static TextureCache texCache;
   
   private static int refHeight;
   private static int padding;
@@ -34,10 +36,15 @@ public final class GUIHome {
   private static LookManager lookMgr;
   
   private static Map<Font, TextImagizer> textImagizers;
+  private static Map<Font, GlyphAtlas  > glyphAtlases;
   private static Map<Font, Digit[]     > digitArrays;
   
-  public static void initialize(Folder dataFolder, String themeDir) {
+  public static void initialize(
+      Folder       dataFolder,
+      TextureCache texCache,
+      String       themeDir) {
     GUIHome.dataFolder = dataFolder;
+    GUIHome.texCache   = texCache;
     
     refHeight = createReferenceHeight();
     padding   = createPadding();
@@ -46,6 +53,7 @@ public final class GUIHome {
     lookMgr = new LookManager();
     
     textImagizers = createTextImagizers();
+    glyphAtlases  = createGlyphAtlases();
     digitArrays   = createDigitArrays();
   }
   
@@ -74,6 +82,16 @@ public final class GUIHome {
     return textImagizers;
   }
   
+  private static Map<Font, GlyphAtlas> createGlyphAtlases() {
+    Map<Font, GlyphAtlas> glyphAtlases = new EnumMap<>(Font.class);
+    
+    for (Font font: Font.values()) {
+      glyphAtlases.put(font, new GlyphAtlas(textImagizers.get(font)));
+    }
+    
+    return glyphAtlases;
+  }
+  
   private static Map<Font, Digit[]> createDigitArrays() {
     Map<Font, Digit[]> digitArrays = new EnumMap<>(Font.class);
     
@@ -110,18 +128,26 @@ public final class GUIHome {
     return textImagizers.get(font);
   }
   
+  static GlyphAtlas getGlyphAtlas(Font font) {
+    return glyphAtlases.get(font);
+  }
+  
   static Digit getDigit(Font font, int d) {
     return digitArrays.get(font)[d];
   }
   
   static Image loadImage(String path) {
     try {
-      return ImageLoader.load(dataFolder.getSource(path), false);
+      return texCache.load(path, dataFolder.getSource(path), false);
     } catch (IOException ex) {
       return null;
     }
   }
   
+  public static CacheStats getTextCacheStats(Font font) {
+    return textImagizers.get(font).getCacheStats();
+  }
+  
   public static boolean canDisplay(Font font, char ch) {
     return textImagizers.get(font).canDisplay(ch);
   }
@@ -133,6 +159,10 @@ public final class GUIHome {
       }
     }
     
+    for (GlyphAtlas atlas: glyphAtlases.values()) {
+      atlas.deinitialize();
+    }
+    
     lookMgr.deinitialize();
     theme  .deinitialize();
     
@@ -140,6 +170,7 @@ public final class GUIHome {
     theme         = null;
     lookMgr       = null;
     textImagizers = null;
+    glyphAtlases  = null;
     digitArrays   = null;
   }
   
@@ -0,0 +1,189 @@
+/*
+ * GlyphAtlas.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.gui;
+
+import com.uppgarn.nuncabola.core.image.*;
+
+import org.lwjgl.*;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+
+import java.util.*;
+
+/**
+ * Glyphs of a font, rasterized on first use and packed into shared
+ * texture pages.
+ */
+final class GlyphAtlas {
+  private static final int PAGE_SIZE = 1024;
+  
+  private final TextImagizer imagizer;
+  private final int          pageSize;
+  
+  private final List<Page>           pages;
+  private final Map<Integer, Entry> entries;
+  
+  public GlyphAtlas(TextImagizer imagizer) {
+    this.imagizer = imagizer;
+    
+    pageSize = Math.min(PAGE_SIZE, glGetInteger(GL_MAX_TEXTURE_SIZE));
+    pages    = new ArrayList<>();
+    entries  = new HashMap<>();
+  }
+  
+  public TextImagizer getImagizer() {
+    return imagizer;
+  }
+  
+  public Entry getEntry(int codePoint) {
+    Entry entry = entries.get(codePoint);
+    
+    if (entry == null) {
+      entry = createEntry(imagizer.getGlyph(codePoint));
+      
+      entries.put(codePoint, entry);
+    }
+    
+    return entry;
+  }
+  
+  private Entry createEntry(Glyph glyph) {
+    Image img = glyph.getImage();
+    
+    if ((img == null)
+        || (img.getWidth () > pageSize)
+        || (img.getHeight() > pageSize)) {
+      return new Entry(glyph, -1, 0.0f, 0.0f, 0.0f, 0.0f);
+    }
+    
+    for (int pageIdx = 0;; pageIdx++) {
+      if (pageIdx == pages.size()) {
+        pages.add(new Page(pageSize));
+      }
+      
+      Page                   page = pages.get(pageIdx);
+      SkylinePacker.Position pos  = page.packer.pack(
+        img.getWidth (),
+        img.getHeight());
+      
+      if (pos != null) {
+        page.upload(img, pos.x, pos.y);
+        
+        float k = 1.0f / pageSize;
+        
+        return new Entry(
+          glyph,
+          pageIdx,
+          k * pos.x,
+          k * pos.y,
+          k * (pos.x + img.getWidth ()),
+          k * (pos.y + img.getHeight()));
+      }
+    }
+  }
+  
+  public int getTexture(int pageIdx) {
+    return pages.get(pageIdx).texture;
+  }
+  
+  public void deinitialize() {
+    for (Page page: pages) {
+      glDeleteTextures(page.texture);
+    }
+    
+    pages  .clear();
+    entries.clear();
+  }
+  
+  private static final class Page {
+    public final SkylinePacker packer;
+    public final int           texture;
+    
+    public Page(int size) {
+      packer  = new SkylinePacker(size, size);
+      texture = glGenTextures();
+      
+      glBindTexture(GL_TEXTURE_2D, texture);
+      
+      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+      
+      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+      glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+      
+      // Start out fully transparent, so that filtering at glyph
+      // edges does not pick up undefined texels.
+      
+      glTexImage2D(
+        GL_TEXTURE_2D,
+        0,
+        GL_RGBA,
+        size,
+        size,
+        0,
+        GL_RGBA,
+        GL_UNSIGNED_BYTE,
+        BufferUtils.createByteBuffer(size * size * 4));
+    }
+    
+    public void upload(Image img, int x, int y) {
+      glBindTexture(GL_TEXTURE_2D, texture);
+      
+      glTexSubImage2D(
+        GL_TEXTURE_2D,
+        0,
+        x,
+        y,
+        img.getWidth (),
+        img.getHeight(),
+        GL_RGBA,
+        GL_UNSIGNED_BYTE,
+        img.getBuffer());
+    }
+  }
+  
+  public static final class Entry {
+    public final Glyph glyph;
+    
+    /**
+     * Index of the page holding the glyph, or -1 if it is not drawn.
+     */
+    public final int page;
+    
+    public final float s0;
+    public final float t0;
+    public final float s1;
+    public final float t1;
+    
+    public Entry(
+        Glyph glyph,
+        int   page,
+        float s0,
+        float t0,
+        float s1,
+        float t1) {
+      this.glyph = glyph;
+      this.page  = page;
+      this.s0    = s0;
+      this.t0    = t0;
+      this.s1    = s1;
+      this.t1    = t1;
+    }
+  }
+}
@@ -74,9 +74,8 @@ final class LookManager {
     throw new AssertionError();
   }
   
-  public void enableDrawing(boolean colorEnabled) {
-    glBindBufferARB(GL_ARRAY_BUFFER_ARB,         vbo);
-    glBindBufferARB(GL_ELEMENT_ARRAY_BUFFER_ARB, ebo);
+  private void setPointers(int vbo, boolean colorEnabled) {
+    glBindBufferARB(GL_ARRAY_BUFFER_ARB, vbo);
     
     if (colorEnabled) {
       glEnableClientState(GL_COLOR_ARRAY);
@@ -90,6 +89,24 @@ final class LookManager {
     glVertexPointer    (2, GL_SHORT, Look.VBO_ENTRY, Look.VBO_OFF2);
   }
   
+  public void enableDrawing(boolean colorEnabled) {
+    glBindBufferARB(GL_ELEMENT_ARRAY_BUFFER_ARB, ebo);
+    
+    setPointers(vbo, colorEnabled);
+  }
+  
+  /**
+   * Points the vertex arrays to {@code vbo}, which must use the vertex
+   * layout of looks, while drawing with colors enabled.
+   */
+  public void enableRunDrawing(int vbo) {
+    setPointers(vbo, true);
+  }
+  
+  public void disableRunDrawing() {
+    setPointers(vbo, true);
+  }
+  
   public void disableDrawing() {
     glBindBufferARB(GL_ARRAY_BUFFER_ARB,         0);
     glBindBufferARB(GL_ELEMENT_ARRAY_BUFFER_ARB, 0);
@@ -0,0 +1,160 @@
+/*
+ * SkylinePacker.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.gui;
+
+import java.util.*;
+
+/**
+ * Packs rectangles into an area by keeping track of its skyline,
+ * the upper outline of everything packed so far. Each rectangle is
+ * placed as low as possible, and further left on ties.
+ */
+final class SkylinePacker {
+  private final int width;
+  private final int height;
+  
+  private final List<Segment> segments;
+  
+  public SkylinePacker(int width, int height) {
+    this.width  = width;
+    this.height = height;
+    
+    segments = new ArrayList<>();
+    segments.add(new Segment(0, 0, width));
+  }
+  
+  /**
+   * Returns the lowest position at which a rectangle of the given
+   * width starting at segment {@code idx} can be placed, or -1 if
+   * it extends beyond the right edge.
+   */
+  private int getY(int idx, int rectWidth) {
+    int x = segments.get(idx).x;
+    
+    if (x + rectWidth > width) {
+      return -1;
+    }
+    
+    int y = 0;
+    
+    for (int end = x + rectWidth; x < end; idx++) {
+      Segment segment = segments.get(idx);
+      
+      y  = Math.max(y, segment.y);
+      x += segment.width;
+    }
+    
+    return y;
+  }
+  
+  /**
+   * Packs a rectangle and returns its position, or null if there
+   * is not enough space left.
+   */
+  public Position pack(int rectWidth, int rectHeight) {
+    int bestIdx = -1;
+    int bestY   = Integer.MAX_VALUE;
+    
+    for (int idx = 0; idx < segments.size(); idx++) {
+      int y = getY(idx, rectWidth);
+      
+      if ((y != -1) && (y + rectHeight <= height) && (y < bestY)) {
+        bestIdx = idx;
+        bestY   = y;
+      }
+    }
+    
+    if (bestIdx == -1) {
+      return null;
+    }
+    
+    int x = segments.get(bestIdx).x;
+    
+    raise(bestIdx, x, bestY + rectHeight, rectWidth);
+    
+    return new Position(x, bestY);
+  }
+  
+  private void raise(int idx, int x, int y, int rectWidth) {
+    int end = x + rectWidth;
+    
+    // Remove or shorten the segments covered by the rectangle.
+    
+    while (idx < segments.size()) {
+      Segment segment    = segments.get(idx);
+      int     segmentEnd = segment.x + segment.width;
+      
+      if (segment.x >= end) {
+        break;
+      }
+      
+      if (segmentEnd <= end) {
+        segments.remove(idx);
+      } else {
+        segments.set(idx, new Segment(end, segment.y, segmentEnd - end));
+        
+        break;
+      }
+    }
+    
+    segments.add(idx, new Segment(x, y, rectWidth));
+    
+    // Merge neighbors of equal height.
+    
+    for (int idx2 = Math.max(idx - 1, 0); idx2 < segments.size() - 1;) {
+      Segment segment0 = segments.get(idx2);
+      Segment segment1 = segments.get(idx2 + 1);
+      
+      if (segment1.x > end) {
+        break;
+      }
+      
+      if (segment0.y == segment1.y) {
+        segments.set(idx2, new Segment(
+          segment0.x,
+          segment0.y,
+          segment0.width + segment1.width));
+        segments.remove(idx2 + 1);
+      } else {
+        idx2++;
+      }
+    }
+  }
+  
+  private static final class Segment {
+    public final int x;
+    public final int y;
+    public final int width;
+    
+    public Segment(int x, int y, int width) {
+      this.x     = x;
+      this.y     = y;
+      this.width = width;
+    }
+  }
+  
+  public static final class Position {
+    public final int x;
+    public final int y;
+    
+    public Position(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+}
@@ -17,11 +17,8 @@
 
 package com.uppgarn.nuncabola.core.gui;
 
-import com.uppgarn.nuncabola.core.graphics.*;
 import com.uppgarn.nuncabola.core.image.*;
 
-import com.uppgarn.codelibf.util.*;
-
 import static org.lwjgl.opengl.GL11.*;
 
 import java.util.*;
@@ -36,8 +33,9 @@ public class TextLabel extends Label {
   private Color      color1;
   
   private boolean   widgetSizeSet;
-  private boolean   textureCreated;
-  private int       texture;
+  private boolean   runCreated;
+  private TextRun   run;
+  private String    runText;
   private Dimension textSize;
   
   TextLabel(
@@ -57,9 +55,10 @@ public class TextLabel extends Label {
     color0     = null;
     color1     = null;
     
-    widgetSizeSet  = false;
-    textureCreated = false;
-    texture        = 0;
+    widgetSizeSet = false;
+    runCreated    = false;
+    run           = null;
+    runText       = null;
   }
   
   @Override
@@ -72,10 +71,10 @@ public class TextLabel extends Label {
       size = getLayoutTextsSize();
     } else {
       // Report desired size based on the text size measured
-      // while creating the texture for the untruncated text.
+      // while laying out the untruncated text.
       
-      updateTexture();
-      updateLookTextData();
+      updateRunText();
+      updateRunData();
       
       size = textSize;
     }
@@ -104,9 +103,9 @@ public class TextLabel extends Label {
     
     widgetSizeSet = true;
     
-    if (!textureCreated) {
-      updateTexture();
-      updateLookTextData();
+    if (!runCreated) {
+      updateRunText();
+      updateRunData();
     }
   }
   
@@ -123,8 +122,7 @@ public class TextLabel extends Label {
       glTranslatef(getCenterX(), getCenterY(), 0.0f);
       glScalef(k, k, k);
       
-      glBindTexture(GL_TEXTURE_2D, texture);
-      getLook().drawText();
+      run.draw();
     }
     glPopMatrix();
   }
@@ -140,9 +138,9 @@ public class TextLabel extends Label {
     
     this.truncation = truncation;
     
-    if (textureCreated) {
-      updateTexture();
-      updateLookTextData();
+    if (runCreated) {
+      updateRunText();
+      updateRunData();
     }
   }
   
@@ -157,9 +155,9 @@ public class TextLabel extends Label {
     
     this.text = text;
     
-    if (textureCreated) {
-      updateTexture();
-      updateLookTextData();
+    if (runCreated) {
+      updateRunText();
+      updateRunData();
     }
   }
   
@@ -184,8 +182,8 @@ public class TextLabel extends Label {
     this.color0 = color0;
     this.color1 = color1;
     
-    if (textureCreated) {
-      updateLookTextData();
+    if (runCreated) {
+      updateRunData();
     }
   }
   
@@ -211,34 +209,28 @@ public class TextLabel extends Label {
     return new Dimension(width, height);
   }
   
-  private void updateTexture() {
-    // Delete existing texture, if any.
-    
-    deleteTexture();
-    
-    // Create new texture.
-    
+  private void updateRunText() {
     TextImagizer imagizer = GUIHome.getTextImagizer(font);
     
-    String str;
-    
     if (!widgetSizeSet) {
-      str = text;
+      runText = text;
     } else {
       int availWidth = getWidth() - GUIHome.getPadding();
       
-      str = truncation.getText(text, availWidth, imagizer);
+      runText = truncation.getText(text, availWidth, imagizer);
     }
     
-    Holder<Dimension> origSize = new Holder<>();
-    
-    texture        = Gfx.createTexture(imagizer.getImage(str, origSize), false);
-    textSize       = origSize.get();
-    textureCreated = true;
+    textSize   = imagizer.getSize(runText);
+    runCreated = true;
   }
   
-  private void updateLookTextData() {
-    getLook().setTextData(
+  private void updateRunData() {
+    if (run == null) {
+      run = new TextRun(GUIHome.getGlyphAtlas(font));
+    }
+    
+    run.setData(
+      runText,
       -textSize.getWidth () / 2,
       -textSize.getHeight() / 2,
       textSize.getWidth (),
@@ -247,13 +239,11 @@ public class TextLabel extends Label {
       (color1 != null) ? color1 : getDefaultColor1());
   }
   
-  private void deleteTexture() {
-    glDeleteTextures(texture);
-  }
-  
   @Override
   final void deinitialize() {
-    deleteTexture();
+    if (run != null) {
+      run.deinitialize();
+    }
     
     super.deinitialize();
   }
@@ -0,0 +1,245 @@
+/*
+ * TextRun.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.gui;
+
+import com.uppgarn.nuncabola.core.image.*;
+
+import org.lwjgl.*;
+
+import static org.lwjgl.opengl.ARBVertexBufferObject.*;
+import static org.lwjgl.opengl.GL11.*;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * String laid out as quads of glyphs from a {@link GlyphAtlas}.
+ * Changing the string only rewrites the vertex buffer.
+ */
+final class TextRun {
+  private static final int QUAD_SIZE = 4 * Look.VBO_ENTRY;
+  
+  private final GlyphAtlas atlas;
+  
+  private final int vbo;
+  
+  private ByteBuffer buf;
+  private int[]      batchPages;
+  private int[]      batchCounts;
+  private int        batchCount;
+  
+  public TextRun(GlyphAtlas atlas) {
+    this.atlas = atlas;
+    
+    vbo = glGenBuffersARB();
+    
+    buf         = BufferUtils.createByteBuffer(64 * QUAD_SIZE);
+    batchPages  = new int[0];
+    batchCounts = new int[0];
+    batchCount  = 0;
+  }
+  
+  private void ensureCapacity(int quadCount) {
+    if (buf.capacity() < quadCount * QUAD_SIZE) {
+      int capacity = Math.max(buf.capacity() * 2, quadCount * QUAD_SIZE);
+      
+      buf = BufferUtils.createByteBuffer(capacity);
+    }
+  }
+  
+  private void putVertex(int x, int y, float s, float t, Color color) {
+    buf.put     ((byte) color.getR());
+    buf.put     ((byte) color.getG());
+    buf.put     ((byte) color.getB());
+    buf.put     ((byte) color.getA());
+    buf.putFloat(s);
+    buf.putFloat(t);
+    buf.putShort((short) x);
+    buf.putShort((short) y);
+  }
+  
+  private static Color getColor(
+      int   y,
+      int   y0,
+      int   height,
+      Color color0,
+      Color color1) {
+    if (color0.equals(color1)) {
+      return color0;
+    }
+    
+    float k = Math.max(0.0f, Math.min(1.0f, (float) (y - y0) / height));
+    
+    return new Color(
+      Math.round(color1.getR() + k * (color0.getR() - color1.getR())),
+      Math.round(color1.getG() + k * (color0.getG() - color1.getG())),
+      Math.round(color1.getB() + k * (color0.getB() - color1.getB())),
+      Math.round(color1.getA() + k * (color0.getA() - color1.getA())));
+  }
+  
+  private void putQuad(
+      GlyphAtlas.Entry entry,
+      int              x,
+      int              y,
+      int              d,
+      int              boxY,
+      int              boxHeight,
+      Color            color0,
+      Color            color1) {
+    Image img = entry.glyph.getImage();
+    
+    int x0 = x + entry.glyph.getX();
+    int y1 = y - entry.glyph.getY();
+    int x1 = x0 + img.getWidth ();
+    int y0 = y1 - img.getHeight();
+    
+    Color c0;
+    Color c1;
+    
+    if (d != 0) {
+      c0 = Color.SHADOW;
+      c1 = Color.SHADOW;
+    } else {
+      c0 = getColor(y1, boxY, boxHeight, color0, color1);
+      c1 = getColor(y0, boxY, boxHeight, color0, color1);
+    }
+    
+    putVertex(x0 + d, y1 - d, entry.s0, entry.t0, c0);
+    putVertex(x0 + d, y0 - d, entry.s0, entry.t1, c1);
+    putVertex(x1 + d, y0 - d, entry.s1, entry.t1, c1);
+    putVertex(x1 + d, y1 - d, entry.s1, entry.t0, c0);
+  }
+  
+  /**
+   * Lays out {@code str} centered in the given box, with a vertical
+   * gradient from {@code color0} at the top to {@code color1} at the
+   * bottom and a shadow as drawn for look texts.
+   */
+  public void setData(
+      String str,
+      int    x,
+      int    y,
+      int    width,
+      int    height,
+      Color  color0,
+      Color  color1) {
+    // Look up glyphs.
+    
+    List<GlyphAtlas.Entry> entries = new ArrayList<>(str.length());
+    
+    int advance = 0;
+    
+    for (int idx = 0; idx < str.length();) {
+      int codePoint = str.codePointAt(idx);
+      
+      GlyphAtlas.Entry entry = atlas.getEntry(codePoint);
+      
+      entries.add(entry);
+      
+      advance += entry.glyph.getAdvance();
+      idx     += Character.charCount(codePoint);
+    }
+    
+    // Collect pages in order of first use.
+    
+    List<Integer> pages = new ArrayList<>();
+    int           count = 0;
+    
+    for (GlyphAtlas.Entry entry: entries) {
+      if (entry.page != -1) {
+        if (!pages.contains(entry.page)) {
+          pages.add(entry.page);
+        }
+        
+        count++;
+      }
+    }
+    
+    // Write quads, all shadows before all glyphs, grouped by page.
+    
+    ensureCapacity(2 * count);
+    
+    buf.clear();
+    
+    batchPages  = new int[2 * pages.size()];
+    batchCounts = new int[2 * pages.size()];
+    batchCount  = 0;
+    
+    int penX0 = x + (width - advance) / 2;
+    int baseY = y + height - atlas.getImagizer().getAscent();
+    int d     = height / 16;
+    
+    for (int pass = 0; pass < 2; pass++) {
+      for (int page: pages) {
+        int penX      = penX0;
+        int quadCount = 0;
+        
+        for (GlyphAtlas.Entry entry: entries) {
+          if (entry.page == page) {
+            putQuad(
+              entry,
+              penX,
+              baseY,
+              (pass == 0) ? d : 0,
+              y,
+              height,
+              color0,
+              color1);
+            
+            quadCount++;
+          }
+          
+          penX += entry.glyph.getAdvance();
+        }
+        
+        batchPages [batchCount] = page;
+        batchCounts[batchCount] = 4 * quadCount;
+        batchCount++;
+      }
+    }
+    
+    buf.flip();
+    
+    glBindBufferARB(GL_ARRAY_BUFFER_ARB, vbo);
+    glBufferDataARB(GL_ARRAY_BUFFER_ARB, buf, GL_DYNAMIC_DRAW_ARB);
+    glBindBufferARB(GL_ARRAY_BUFFER_ARB, 0);
+  }
+  
+  public void draw() {
+    if (batchCount == 0) {
+      return;
+    }
+    
+    LookManager lookMgr = GUIHome.getLookManager();
+    
+    lookMgr.enableRunDrawing(vbo);
+    
+    for (int idx = 0, first = 0; idx < batchCount; idx++) {
+      glBindTexture(GL_TEXTURE_2D, atlas.getTexture(batchPages[idx]));
+      glDrawArrays (GL_QUADS, first, batchCounts[idx]);
+      
+      first += batchCounts[idx];
+    }
+    
+    lookMgr.disableRunDrawing();
+  }
+  
+  public void deinitialize() {
+    glDeleteBuffersARB(vbo);
+  }
+}
@@ -20,9 +20,23 @@ package com.uppgarn.nuncabola.core.image;
 import java.awt.color.*;
 import java.awt.image.*;
 import java.nio.*;
+import java.util.concurrent.*;
 
 final class BufferedImageTool {
-  public static Image getImage(BufferedImage bufImg, boolean topDown) {
+  /**
+   * Minimum number of pixels for which the conversion is split
+   * into bands of rows, converted in parallel.
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 18;
+  
+  /**
+   * Number of rows below which a band is not split further.
+   */
+  private static final int BAND_HEIGHT = 64;
+  
+  private static RowConverter createConverter(
+      BufferedImage bufImg,
+      boolean       topDown) {
     Raster     raster  = bufImg.getRaster();
     DataBuffer dataBuf = raster.getDataBuffer();
     ColorModel model   = bufImg.getColorModel();
@@ -31,6 +45,74 @@ final class BufferedImageTool {
     int        height  = bufImg.getHeight();
     boolean    alpha   = model .hasAlpha();
     
+    switch (bufImg.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR: {
+        return new ByteBGRConverter(
+          width,
+          height,
+          topDown,
+          ((DataBufferByte) dataBuf).getData());
+      }
+      case BufferedImage.TYPE_4BYTE_ABGR: {
+        return new ByteABGRConverter(
+          width,
+          height,
+          topDown,
+          ((DataBufferByte) dataBuf).getData());
+      }
+      case BufferedImage.TYPE_BYTE_GRAY: {
+        return new ByteGrayConverter(
+          width,
+          height,
+          topDown,
+          ((DataBufferByte) dataBuf).getData());
+      }
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB: {
+        return new IntRGBConverter(
+          width,
+          height,
+          topDown,
+          alpha,
+          ((DataBufferInt) dataBuf).getData());
+      }
+    }
+    
+    if (((raster.getNumBands() == 3)
+          && (model.getPixelSize() == 24)
+          && !alpha)
+        || ((raster.getNumBands() == 4)
+          && (model.getPixelSize() == 32)
+          && alpha
+          && !model.isAlphaPremultiplied())) {
+      // Standard RGB or RGBA.
+      
+      return new SampleConverter(width, height, topDown, alpha, raster);
+    }
+    if ((space.getType() == ColorSpace.TYPE_GRAY)
+        && (((raster.getNumBands() == 1)
+            && (model.getPixelSize() == 8)
+            && !alpha)
+          || ((raster.getNumBands() == 2)
+            && (model.getPixelSize() == 16)
+            && alpha
+            && !model.isAlphaPremultiplied()))) {
+      // Standard grayscale, with or without alpha.
+      
+      return new SampleConverter(width, height, topDown, alpha, raster);
+    }
+    
+    // Other image type. Retrieve the pixel data using
+    // format-independent code (which is slower).
+    
+    return new GenericConverter(width, height, topDown, alpha, bufImg);
+  }
+  
+  public static Image getImage(BufferedImage bufImg, boolean topDown) {
+    int     width  = bufImg.getWidth ();
+    int     height = bufImg.getHeight();
+    boolean alpha  = bufImg.getColorModel().hasAlpha();
+    
     // Create byte buffer.
     
     ByteBuffer buf = ByteBuffer.allocateDirect(
@@ -38,188 +120,355 @@ final class BufferedImageTool {
     
     // Fill byte buffer.
     
-    int y0;
-    int y1;
-    int yStep;
+    RowConverter converter = createConverter(bufImg, topDown);
     
-    if (topDown) {
-      y0    = 0;
-      y1    = height;
-      yStep = +1;
+    if ((long) width * height >= PARALLEL_THRESHOLD) {
+      ForkJoinPool.commonPool().invoke(
+        new BandTask(converter, buf, 0, height));
     } else {
-      y0    = height - 1;
-      y1    = -1;
-      yStep = -1;
+      converter.convert(buf, 0, height);
     }
     
-    if (bufImg.getType() == BufferedImage.TYPE_3BYTE_BGR) {
-      // TYPE_3BYTE_BGR.
+    return new Image(buf, width, height, alpha);
+  }
+  
+  /**
+   * Currently, this method supports bottom-up RGBA images only.
+   */
+  public static BufferedImage getBufferedImage(Image img) {
+    assert img.hasAlpha();
+    
+    ByteBuffer buf    = img.getBuffer();
+    int        width  = img.getWidth ();
+    int        height = img.getHeight();
+    
+    // Create buffered image.
+    
+    BufferedImage bufImg = new BufferedImage(
+      width,
+      height,
+      BufferedImage.TYPE_3BYTE_BGR);
+    
+    // Fill buffered image.
+    
+    DataBuffer dataBuf = bufImg.getRaster().getDataBuffer();
+    byte[]     data    = ((DataBufferByte) dataBuf).getData();
+    
+    for (int y = height - 1; y >= 0; y--) {
+      for (int x = width, idx = y * width * 3; x != 0; x--, idx += 3) {
+        data[idx + 2] = buf.get();
+        data[idx + 1] = buf.get();
+        data[idx]     = buf.get();
+        
+        buf.get();
+      }
+    }
+    
+    return bufImg;
+  }
+  
+  private static final class BandTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    
+    private final RowConverter converter;
+    private final ByteBuffer   buf;
+    private final int          y0;
+    private final int          y1;
+    
+    public BandTask(RowConverter converter, ByteBuffer buf, int y0, int y1) {
+      this.converter = converter;
+      this.buf       = buf;
+      this.y0        = y0;
+      this.y1        = y1;
+    }
+    
+    @Override
+    protected void compute() {
+      if (y1 - y0 <= BAND_HEIGHT) {
+        converter.convert(buf, y0, y1);
+      } else {
+        int y = (y0 + y1) >>> 1;
+        
+        invokeAll(
+          new BandTask(converter, buf, y0, y),
+          new BandTask(converter, buf, y,  y1));
+      }
+    }
+  }
+  
+  /**
+   * Converts source rows to destination rows, which are 8-bit RGB
+   * or RGBA. Instances may convert distinct rows concurrently.
+   */
+  private abstract static class RowConverter {
+    final int     width;
+    final int     height;
+    final boolean topDown;
+    final int     rowSize;
+    
+    RowConverter(int width, int height, boolean topDown, boolean alpha) {
+      this.width   = width;
+      this.height  = height;
+      this.topDown = topDown;
       
-      byte[] data = ((DataBufferByte) dataBuf).getData();
+      rowSize = width * (alpha ? 4 : 3);
+    }
+    
+    /**
+     * Returns a view of the destination row of source row {@code y}.
+     */
+    final ByteBuffer getRow(ByteBuffer buf, int y) {
+      int dstY = topDown ? y : (height - 1 - y);
+      int off  = dstY * rowSize;
       
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = width, idx = y * width * 3; x != 0; x--, idx += 3) {
-          buf.put(data[idx + 2]);
-          buf.put(data[idx + 1]);
-          buf.put(data[idx]);
-        }
-      }
-    } else if (bufImg.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
-      // TYPE_4BYTE_ABGR.
+      ByteBuffer row = buf.duplicate();
       
-      byte[] data = ((DataBufferByte) dataBuf).getData();
+      row.limit(off + rowSize).position(off);
       
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = width, idx = y * width * 4; x != 0; x--, idx += 4) {
-          buf.put(data[idx + 3]);
-          buf.put(data[idx + 2]);
-          buf.put(data[idx + 1]);
-          buf.put(data[idx]);
-        }
-      }
-    } else if (bufImg.getType() == BufferedImage.TYPE_BYTE_GRAY) {
-      // TYPE_BYTE_GRAY.
+      return row;
+    }
+    
+    abstract void convert(ByteBuffer buf, int y0, int y1);
+  }
+  
+  private static final class ByteBGRConverter extends RowConverter {
+    private final byte[] data;
+    
+    public ByteBGRConverter(
+        int     width,
+        int     height,
+        boolean topDown,
+        byte[]  data) {
+      super(width, height, topDown, false);
       
-      byte[] data = ((DataBufferByte) dataBuf).getData();
+      this.data = data;
+    }
+    
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      byte[] row = new byte[rowSize];
       
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = width, idx = y * width; x != 0; x--, idx++) {
-          byte b = data[idx];
-          
-          buf.put(b);
-          buf.put(b);
-          buf.put(b);
+      for (int y = y0; y < y1; y++) {
+        for (int idx = 0, srcIdx = y * rowSize; idx < rowSize; idx += 3) {
+          row[idx]     = data[srcIdx + idx + 2];
+          row[idx + 1] = data[srcIdx + idx + 1];
+          row[idx + 2] = data[srcIdx + idx];
         }
+        
+        getRow(buf, y).put(row);
       }
-    } else if ((raster.getNumBands() == 3)
-        && (model.getPixelSize() == 24)
-        && !alpha) {
-      // Standard RGB.
+    }
+  }
+  
+  private static final class ByteABGRConverter extends RowConverter {
+    private final IntBuffer data;
+    
+    public ByteABGRConverter(
+        int     width,
+        int     height,
+        boolean topDown,
+        byte[]  data) {
+      super(width, height, topDown, true);
       
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = 0; x < width; x++) {
-          buf.put((byte) raster.getSample(x, y, 0));
-          buf.put((byte) raster.getSample(x, y, 1));
-          buf.put((byte) raster.getSample(x, y, 2));
-        }
-      }
-    } else if ((raster.getNumBands() == 4)
-        && (model.getPixelSize() == 32)
-        && alpha
-        && !model.isAlphaPremultiplied()) {
-      // Standard RGBA.
+      this.data = ByteBuffer.wrap(data).asIntBuffer();
+    }
+    
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      IntBuffer src = data.duplicate();
+      int[]     row = new int[width];
       
-      for (int y = y0; y != y1; y += yStep) {
+      for (int y = y0; y < y1; y++) {
+        src.position(y * width);
+        src.get(row);
+        
+        // Read as big-endian words, ABGR becomes RGBA when reversed.
+        
         for (int x = 0; x < width; x++) {
-          buf.put((byte) raster.getSample(x, y, 0));
-          buf.put((byte) raster.getSample(x, y, 1));
-          buf.put((byte) raster.getSample(x, y, 2));
-          buf.put((byte) raster.getSample(x, y, 3));
+          row[x] = Integer.reverseBytes(row[x]);
         }
+        
+        getRow(buf, y).asIntBuffer().put(row);
       }
-    } else if ((space.getType() == ColorSpace.TYPE_GRAY)
-        && (raster.getNumBands() == 1)
-        && (model.getPixelSize() == 8)
-        && !alpha) {
-      // Standard grayscale.
+    }
+  }
+  
+  private static final class ByteGrayConverter extends RowConverter {
+    private final byte[] data;
+    
+    public ByteGrayConverter(
+        int     width,
+        int     height,
+        boolean topDown,
+        byte[]  data) {
+      super(width, height, topDown, false);
       
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = 0; x < width; x++) {
-          byte b = (byte) raster.getSample(x, y, 0);
-          
-          buf.put(b);
-          buf.put(b);
-          buf.put(b);
-        }
-      }
-    } else if ((space.getType() == ColorSpace.TYPE_GRAY)
-        && (raster.getNumBands() == 2)
-        && (model.getPixelSize() == 16)
-        && alpha
-        && !model.isAlphaPremultiplied()) {
-      // Standard grayscale with alpha.
-      
-      for (int y = y0; y != y1; y += yStep) {
-        for (int x = 0; x < width; x++) {
-          byte b0 = (byte) raster.getSample(x, y, 0);
-          byte b1 = (byte) raster.getSample(x, y, 1);
+      this.data = data;
+    }
+    
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      byte[] row = new byte[rowSize];
+      
+      for (int y = y0; y < y1; y++) {
+        for (int x = 0, idx = 0, srcIdx = y * width; x < width; x++) {
+          byte b = data[srcIdx + x];
           
-          buf.put(b0);
-          buf.put(b0);
-          buf.put(b0);
-          buf.put(b1);
+          row[idx++] = b;
+          row[idx++] = b;
+          row[idx++] = b;
         }
+        
+        getRow(buf, y).put(row);
       }
-    } else {
-      // Other image type. Retrieve the pixel data using
-      // format-independent code (which is slower).
-      
-      Object data = null;
+    }
+  }
+  
+  private static final class IntRGBConverter extends RowConverter {
+    private final boolean alpha;
+    private final int[]   data;
+    
+    public IntRGBConverter(
+        int     width,
+        int     height,
+        boolean topDown,
+        boolean alpha,
+        int[]   data) {
+      super(width, height, topDown, alpha);
       
-      if (!alpha) {
-        // No alpha.
+      this.alpha = alpha;
+      this.data  = data;
+    }
+    
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      if (alpha) {
+        int[] row = new int[width];
         
-        for (int y = y0; y != y1; y += yStep) {
+        for (int y = y0; y < y1; y++) {
+          int srcIdx = y * width;
+          
+          // Rotate ARGB words into RGBA.
+          
           for (int x = 0; x < width; x++) {
-            data = raster.getDataElements(x, y, data);
+            int argb = data[srcIdx + x];
             
-            buf.put((byte) model.getRed  (data));
-            buf.put((byte) model.getGreen(data));
-            buf.put((byte) model.getBlue (data));
+            row[x] = (argb << 8) | (argb >>> 24);
           }
+          
+          getRow(buf, y).asIntBuffer().put(row);
         }
       } else {
-        // Alpha.
+        byte[] row = new byte[rowSize];
         
-        for (int y = y0; y != y1; y += yStep) {
-          for (int x = 0; x < width; x++) {
-            data = raster.getDataElements(x, y, data);
+        for (int y = y0; y < y1; y++) {
+          for (int x = 0, idx = 0, srcIdx = y * width; x < width; x++) {
+            int rgb = data[srcIdx + x];
             
-            buf.put((byte) model.getRed  (data));
-            buf.put((byte) model.getGreen(data));
-            buf.put((byte) model.getBlue (data));
-            buf.put((byte) model.getAlpha(data));
+            row[idx++] = (byte) (rgb >> 16);
+            row[idx++] = (byte) (rgb >>  8);
+            row[idx++] = (byte)  rgb;
           }
+          
+          getRow(buf, y).put(row);
         }
       }
     }
-    
-    return new Image(buf, width, height, alpha);
   }
   
   /**
-   * Currently, this method supports bottom-up RGBA images only.
+   * Converts standard RGB, RGBA, grayscale or grayscale with alpha
+   * rasters with 8-bit samples.
    */
-  public static BufferedImage getBufferedImage(Image img) {
-    assert img.hasAlpha();
-    
-    ByteBuffer buf    = img.getBuffer();
-    int        width  = img.getWidth ();
-    int        height = img.getHeight();
+  private static final class SampleConverter extends RowConverter {
+    private final Raster raster;
+    private final int    bands;
     
-    // Create buffered image.
-    
-    BufferedImage bufImg = new BufferedImage(
-      width,
-      height,
-      BufferedImage.TYPE_3BYTE_BGR);
+    public SampleConverter(
+        int     width,
+        int     height,
+        boolean topDown,
+        boolean alpha,
+        Raster  raster) {
+      super(width, height, topDown, alpha);
+      
+      this.raster = raster;
+      
+      bands = raster.getNumBands();
+    }
     
-    // Fill buffered image.
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      int [] samples = new int [width * bands];
+      byte[] row     = new byte[rowSize];
+      
+      for (int y = y0; y < y1; y++) {
+        raster.getPixels(0, y, width, 1, samples);
+        
+        if (bands >= 3) {
+          for (int idx = 0; idx < rowSize; idx++) {
+            row[idx] = (byte) samples[idx];
+          }
+        } else {
+          for (int x = 0, idx = 0, srcIdx = 0; x < width; x++) {
+            byte b = (byte) samples[srcIdx++];
+            
+            row[idx++] = b;
+            row[idx++] = b;
+            row[idx++] = b;
+            
+            if (bands == 2) {
+              row[idx++] = (byte) samples[srcIdx++];
+            }
+          }
+        }
+        
+        getRow(buf, y).put(row);
+      }
+    }
+  }
+  
+  private static final class GenericConverter extends RowConverter {
+    private final boolean       alpha;
+    private final BufferedImage bufImg;
     
-    DataBuffer dataBuf = bufImg.getRaster().getDataBuffer();
-    byte[]     data    = ((DataBufferByte) dataBuf).getData();
+    public GenericConverter(
+        int           width,
+        int           height,
+        boolean       topDown,
+        boolean       alpha,
+        BufferedImage bufImg) {
+      super(width, height, topDown, alpha);
+      
+      this.alpha  = alpha;
+      this.bufImg = bufImg;
+    }
     
-    for (int y = height - 1; y >= 0; y--) {
-      for (int x = width, idx = y * width * 3; x != 0; x--, idx += 3) {
-        data[idx + 2] = buf.get();
-        data[idx + 1] = buf.get();
-        data[idx]     = buf.get();
+    @Override
+    void convert(ByteBuffer buf, int y0, int y1) {
+      int [] argbs = new int [width];
+      byte[] row   = new byte[rowSize];
+      
+      for (int y = y0; y < y1; y++) {
+        // Non-premultiplied sRGB, as from the color model per pixel.
         
-        buf.get();
+        bufImg.getRGB(0, y, width, 1, argbs, 0, width);
+        
+        for (int x = 0, idx = 0; x < width; x++) {
+          int argb = argbs[x];
+          
+          row[idx++] = (byte) (argb >> 16);
+          row[idx++] = (byte) (argb >>  8);
+          row[idx++] = (byte)  argb;
+          
+          if (alpha) {
+            row[idx++] = (byte) (argb >>> 24);
+          }
+        }
+        
+        getRow(buf, y).put(row);
       }
     }
-    
-    return bufImg;
   }
   
   private BufferedImageTool() {
@@ -0,0 +1,61 @@
+/*
+ * Glyph.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+/**
+ * Rasterized glyph of a {@link TextImagizer}.
+ */
+public final class Glyph {
+  private final Image img;
+  private final int   x;
+  private final int   y;
+  private final int   advance;
+  
+  public Glyph(Image img, int x, int y, int advance) {
+    this.img     = img;
+    this.x       = x;
+    this.y       = y;
+    this.advance = advance;
+  }
+  
+  /**
+   * Returns the image, or null if the glyph has no visible pixels.
+   */
+  public Image getImage() {
+    return img;
+  }
+  
+  /**
+   * Returns the horizontal offset of the image from the pen position.
+   */
+  public int getX() {
+    return x;
+  }
+  
+  /**
+   * Returns the vertical offset of the image from the baseline,
+   * pointing downward.
+   */
+  public int getY() {
+    return y;
+  }
+  
+  public int getAdvance() {
+    return advance;
+  }
+}
@@ -26,12 +26,22 @@ public final class Image {
   private final int        width;
   private final int        height;
   private final boolean    alpha;
+  private final Image      next;
   
   public Image(ByteBuffer buf, int width, int height, boolean alpha) {
+    this(buf, width, height, alpha, null);
+  }
+  
+  /**
+   * Creates an image followed by a precomputed chain of reductions,
+   * each half the size of its predecessor, down to 1x1.
+   */
+  Image(ByteBuffer buf, int width, int height, boolean alpha, Image next) {
     this.buf    = (ByteBuffer) buf.duplicate().rewind();
     this.width  = width;
     this.height = height;
     this.alpha  = alpha;
+    this.next   = next;
   }
   
   public ByteBuffer getBuffer() {
@@ -50,9 +60,59 @@ public final class Image {
     return alpha;
   }
   
+  /**
+   * Returns the precomputed reduction to half the size, or null
+   * if there is none.
+   */
+  public Image getNextLevel() {
+    return next;
+  }
+  
+  /**
+   * Returns the reduction to half the size, suitable as the next
+   * mipmap level. Sizes are rounded down, but never below one.
+   */
+  public Image getHalved() {
+    if (next != null) {
+      return next;
+    }
+    
+    if ((width >= 2) && (height >= 2)) {
+      return scaledDown(2);
+    } else {
+      return scaledDown(Math.max(width / 2, 1), Math.max(height / 2, 1));
+    }
+  }
+  
+  /**
+   * Returns this image with its whole chain of reductions, which
+   * is computed unless already present.
+   */
+  Image withReductions() {
+    if ((next != null) || ((width == 1) && (height == 1))) {
+      return this;
+    }
+    
+    return new Image(buf, width, height, alpha, getHalved().withReductions());
+  }
+  
   public Image scaledDown(int factor) {
     assert factor >= 1;
     
+    // Use precomputed reductions, if available.
+    
+    Image img = this;
+    int   rem = factor;
+    
+    while ((rem % 2 == 0) && (img.next != null)) {
+      img  = img.next;
+      rem /= 2;
+    }
+    
+    if (rem == 1) {
+      return img;
+    }
+    
     int newWidth  = width  / factor;
     int newHeight = height / factor;
     int bytes     = alpha ? 4 : 3;
@@ -0,0 +1,107 @@
+/*
+ * TextCache.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+import com.uppgarn.nuncabola.core.util.*;
+
+import java.util.*;
+
+/**
+ * Least-recently-used cache of measured strings, bounded by the
+ * estimated total size of the entries in bytes.
+ */
+final class TextCache {
+  /**
+   * Estimated size of an entry without its string.
+   */
+  private static final int ENTRY_OVERHEAD = 64;
+  
+  private static int getSize(String str) {
+    return ENTRY_OVERHEAD + 2 * str.length();
+  }
+  
+  private final int capacity;
+  
+  private Map<String, Dimension> entries;
+  
+  private int resident;
+  
+  private long hits;
+  private long misses;
+  private long evictions;
+  
+  public TextCache(int capacity) {
+    this.capacity = capacity;
+    
+    entries = new LinkedHashMap<>(16, 0.75f, true);
+    
+    resident = 0;
+    
+    hits      = 0;
+    misses    = 0;
+    evictions = 0;
+  }
+  
+  /**
+   * Returns the size of {@code str}, or null if it is not cached.
+   */
+  public Dimension get(String str) {
+    Dimension size = entries.get(str);
+    
+    if (size != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    
+    return size;
+  }
+  
+  public void put(String str, Dimension size) {
+    if (entries.put(str, size) == null) {
+      resident += getSize(str);
+    }
+    
+    // Entries are visited least recently used first. The new entry
+    // comes last and is never evicted.
+    
+    for (Iterator<String> it = entries.keySet().iterator();
+        (resident > capacity) && it.hasNext();) {
+      String key = it.next();
+      
+      if (key.equals(str)) {
+        break;
+      }
+      
+      it.remove();
+      
+      resident -= getSize(key);
+      evictions++;
+    }
+  }
+  
+  public CacheStats getStats() {
+    return new CacheStats(
+      hits,
+      misses,
+      evictions,
+      entries.size(),
+      resident,
+      capacity);
+  }
+}
@@ -26,16 +26,36 @@ import java.awt.font.*;
 import java.awt.geom.*;
 import java.awt.image.*;
 import java.nio.*;
+import java.util.*;
 
 public final class TextImagizer {
+  /**
+   * Capacity of the text cache in bytes.
+   */
+  public static final int CACHE_SIZE = 262144;
+  
+  /**
+   * Transparent border around glyph images, which keeps glyphs
+   * from bleeding into each other when packed together.
+   */
+  private static final int GLYPH_PADDING = 1;
+  
   private final Font font;
   
   private FontRenderContext renderContext;
+  private int               ascent;
+  private TextCache         cache;
+  
+  private Map<Integer, Integer> advances;
   
   TextImagizer(Font font) {
     this.font = font;
     
     renderContext = createRenderContext();
+    ascent        = (int) Math.round(-getBounds(" ").getY());
+    cache         = new TextCache(CACHE_SIZE);
+    
+    advances = new HashMap<>();
   }
   
   private FontRenderContext createRenderContext() {
@@ -63,6 +83,18 @@ public final class TextImagizer {
   }
   
   public Dimension getSize(String str) {
+    Dimension size = cache.get(str);
+    
+    if (size == null) {
+      size = measure(str);
+      
+      cache.put(str, size);
+    }
+    
+    return size;
+  }
+  
+  private Dimension measure(String str) {
     int width;
     int height;
     
@@ -74,24 +106,56 @@ public final class TextImagizer {
       width  = 0;
       height = (int) Math.round(bounds.getHeight());
     } else {
-      // Non-empty string.
+      // Non-empty string. Measure the width as the sum of the
+      // advances text runs are laid out with.
       
       Rectangle2D bounds = getBounds(str);
       
-      width  = (int) Math.round(bounds.getWidth ());
+      width  = 0;
       height = (int) Math.round(bounds.getHeight());
+      
+      for (int idx = 0; idx < str.length();) {
+        int codePoint = str.codePointAt(idx);
+        
+        width += getAdvance(codePoint);
+        idx   += Character.charCount(codePoint);
+      }
     }
     
     return new Dimension(width, height);
   }
   
+  private GlyphVector createGlyphVector(int codePoint) {
+    return font.createGlyphVector(
+      renderContext,
+      new String(Character.toChars(codePoint)));
+  }
+  
+  /**
+   * Returns the advance of a glyph rounded to whole pixels.
+   */
+  private int getAdvance(int codePoint) {
+    Integer advance = advances.get(codePoint);
+    
+    if (advance == null) {
+      GlyphVector vector = createGlyphVector(codePoint);
+      
+      advance = (int) Math.round(
+        vector.getGlyphPosition(vector.getNumGlyphs()).getX());
+      
+      advances.put(codePoint, advance);
+    }
+    
+    return advance;
+  }
+  
   private BufferedImage getBufferedImage(
       String            str,
       Holder<Dimension> origSize) {
     // Special case for an empty string.
     
     if (str.isEmpty()) {
-      origSize.set(getSize(str));
+      origSize.set(measure(str));
       
       return null;
     }
@@ -179,6 +243,56 @@ public final class TextImagizer {
     return getImage(bufImg);
   }
   
+  public CacheStats getCacheStats() {
+    return cache.getStats();
+  }
+  
+  /**
+   * Returns the distance from the top of a line to its baseline.
+   */
+  public int getAscent() {
+    return ascent;
+  }
+  
+  public Glyph getGlyph(int codePoint) {
+    GlyphVector vector  = createGlyphVector(codePoint);
+    int         advance = getAdvance(codePoint);
+    
+    Rectangle bounds = vector.getPixelBounds(renderContext, 0.0f, 0.0f);
+    
+    if (bounds.isEmpty()) {
+      return new Glyph(null, 0, 0, advance);
+    }
+    
+    // Create buffered image.
+    
+    BufferedImage bufImg = new BufferedImage(
+      bounds.width  + 2 * GLYPH_PADDING,
+      bounds.height + 2 * GLYPH_PADDING,
+      BufferedImage.TYPE_4BYTE_ABGR);
+    
+    // Draw glyph.
+    
+    Graphics2D g = bufImg.createGraphics();
+    
+    g.setRenderingHint(
+      RenderingHints.KEY_TEXT_ANTIALIASING,
+      RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g.setColor(Color.WHITE);
+    
+    g.drawGlyphVector(
+      vector,
+      GLYPH_PADDING - bounds.x,
+      GLYPH_PADDING - bounds.y);
+    g.dispose();
+    
+    return new Glyph(
+      getImage(bufImg),
+      bounds.x - GLYPH_PADDING,
+      bounds.y - GLYPH_PADDING,
+      advance);
+  }
+  
   public boolean canDisplay(char ch) {
     return font.canDisplay(ch);
   }
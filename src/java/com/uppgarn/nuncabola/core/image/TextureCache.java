@@ -0,0 +1,148 @@
+/*
+ * TextureCache.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+import com.uppgarn.nuncabola.core.level.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+
+/**
+ * Disk cache of decoded images.
+ * <p>
+ * Each image is stored as raw pixel data together with its chain
+ * of reductions, which serve both as mipmap levels and for lower
+ * texture quality settings. Entries are keyed by data path and
+ * validated by the stamp of the source. Cached images are read
+ * through a memory mapping, without decoding. Instances are safe
+ * for use by multiple threads.
+ */
+public final class TextureCache {
+  private final java.nio.file.Path dir;
+  
+  public TextureCache(java.nio.file.Path dir) {
+    this.dir = dir;
+  }
+  
+  private java.nio.file.Path getFile(String path, boolean topDown) {
+    byte[] digest;
+    
+    try {
+      digest = MessageDigest.getInstance("SHA-1").digest(
+        path.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new AssertionError();
+    }
+    
+    StringBuilder sb = new StringBuilder(digest.length * 2 + 6);
+    
+    for (byte b: digest) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+      sb.append(Character.forDigit( b       & 0xF, 16));
+    }
+    
+    sb.append(topDown ? "-t" : "-b").append(".tex");
+    
+    return dir.resolve(sb.toString());
+  }
+  
+  /**
+   * Loads the image of {@code src}, which has the data path
+   * {@code path}, from the cache if possible.
+   */
+  public Image load(String path, Source src, boolean topDown)
+      throws IOException {
+    MetaIndex.Stamp stamp = MetaIndex.getStamp(src);
+    
+    if ((stamp == null)
+        || (path.getBytes(StandardCharsets.UTF_8).length
+          >= TextureCacheIOTool.PATH_LENGTH)) {
+      return ImageLoader.load(src, topDown);
+    }
+    
+    java.nio.file.Path file = getFile(path, topDown);
+    
+    if (Files.isRegularFile(file)) {
+      try {
+        Image img = TextureCacheReadTool.readTexture(
+          file,
+          path,
+          stamp,
+          topDown);
+        
+        if (img != null) {
+          return img;
+        }
+      } catch (IOException ex) {
+      }
+    }
+    
+    Image img = ImageLoader.load(src, topDown);
+    
+    if (img == null) {
+      return null;
+    }
+    
+    img = img.withReductions();
+    
+    save(file, path, stamp, topDown, img);
+    
+    return img;
+  }
+  
+  private void save(
+      java.nio.file.Path file,
+      String             path,
+      MetaIndex.Stamp    stamp,
+      boolean            topDown,
+      Image              img) {
+    // Write to a temporary file first, so that readers never see
+    // a partially written entry.
+    
+    java.nio.file.Path tmpFile = null;
+    
+    try {
+      Files.createDirectories(dir);
+      
+      tmpFile = Files.createTempFile(dir, "tex", ".tmp");
+      
+      TextureCacheWriteTool.writeTexture(tmpFile, path, stamp, topDown, img);
+      
+      try {
+        Files.move(
+          tmpFile,
+          file,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException ex) {
+      if (tmpFile != null) {
+        try {
+          Files.deleteIfExists(tmpFile);
+        } catch (IOException ex2) {
+        }
+      }
+    }
+  }
+}
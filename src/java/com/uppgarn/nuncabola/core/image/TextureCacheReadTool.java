@@ -0,0 +1,153 @@
+/*
+ * TextureCacheReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+import com.uppgarn.nuncabola.core.level.*;
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.binary.BufferReadTool.*;
+import static com.uppgarn.nuncabola.core.image.TextureCacheIOTool.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class TextureCacheReadTool {
+  /**
+   * Returns the number of levels of an image of the given size
+   * with its whole chain of reductions.
+   */
+  private static int getLevelCount(int width, int height) {
+    int count = 1;
+    
+    for (int w = width, h = height; (w > 1) || (h > 1); count++) {
+      w = Math.max(w / 2, 1);
+      h = Math.max(h / 2, 1);
+    }
+    
+    return count;
+  }
+  
+  /**
+   * Maps {@code file} and returns its image, whose pixel data and
+   * reductions remain in the mapping. Returns null if the file was
+   * written for another path or version of the source.
+   */
+  public static Image readTexture(
+      java.nio.file.Path file,
+      String             path,
+      MetaIndex.Stamp    stamp,
+      boolean            topDown) throws IOException {
+    ByteBuffer buf;
+    
+    try (FileChannel channel = FileChannel.open(file)) {
+      long size = channel.size();
+      
+      if (size > Integer.MAX_VALUE) {
+        throw new InvalidDataException();
+      }
+      
+      buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+    
+    int magic   = getInt(buf);
+    int version = getInt(buf);
+    
+    if ((magic != MAGIC) || (version != VERSION)) {
+      throw new InvalidDataException();
+    }
+    
+    String fPath  = getString(buf, PATH_LENGTH);
+    long   fSize  = getLong  (buf);
+    long   fValue = getLong  (buf);
+    int    flags  = getInt   (buf);
+    
+    if (!fPath.equals(path)
+        || (fSize  != stamp.getSize ())
+        || (fValue != stamp.getValue())
+        || (((flags & TOP_DOWN) != 0) != topDown)) {
+      return null;
+    }
+    
+    boolean alpha      = (flags & ALPHA) != 0;
+    int     width      = getInt(buf);
+    int     height     = getInt(buf);
+    int     levelCount = getInt(buf);
+    
+    if ((width <= 0) || (height <= 0)
+        || (levelCount != getLevelCount(width, height))) {
+      throw new InvalidDataException();
+    }
+    
+    // The levels must fill the rest of the file exactly.
+    
+    int   bytes = alpha ? 4 : 3;
+    int[] lens  = new int[levelCount];
+    long  total = 0;
+    
+    for (int idx = 0, w = width, h = height; idx < levelCount; idx++) {
+      long len = (long) w * h * bytes;
+      
+      if (len > buf.remaining() - total) {
+        throw new InvalidDataException();
+      }
+      
+      lens[idx] = (int) len;
+      total    += len;
+      
+      w = Math.max(w / 2, 1);
+      h = Math.max(h / 2, 1);
+    }
+    
+    if (total != buf.remaining()) {
+      throw new InvalidDataException();
+    }
+    
+    // Slice all levels first, then chain them from the smallest up.
+    
+    ByteBuffer[] levelBufs = new ByteBuffer[levelCount];
+    
+    for (int idx = 0; idx < levelCount; idx++) {
+      ByteBuffer levelBuf = buf.slice();
+      
+      levelBuf.limit(lens[idx]);
+      skip(buf, lens[idx]);
+      
+      levelBufs[idx] = levelBuf;
+    }
+    
+    Image img = null;
+    
+    for (int idx = levelCount - 1; idx >= 0; idx--) {
+      img = new Image(
+        levelBufs[idx],
+        Math.max(width  >> idx, 1),
+        Math.max(height >> idx, 1),
+        alpha,
+        img);
+    }
+    
+    return img;
+  }
+  
+  private TextureCacheReadTool() {
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * TextureCacheWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.image;
+
+import com.uppgarn.nuncabola.core.level.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.core.image.TextureCacheIOTool.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class TextureCacheWriteTool {
+  /**
+   * Writes {@code img} and its chain of reductions, which must be
+   * complete, see {@link Image#withReductions()}.
+   */
+  public static void writeTexture(
+      java.nio.file.Path file,
+      String             path,
+      MetaIndex.Stamp    stamp,
+      boolean            topDown,
+      Image              img) throws IOException {
+    int levelCount = 0;
+    
+    for (Image level = img; level != null; level = level.getNextLevel()) {
+      levelCount++;
+    }
+    
+    ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE);
+    
+    writeInt   (out, MAGIC);
+    writeInt   (out, VERSION);
+    writeString(out, path, PATH_LENGTH);
+    writeLong  (out, stamp.getSize ());
+    writeLong  (out, stamp.getValue());
+    writeInt   (out, (topDown ? TOP_DOWN : 0) | (img.hasAlpha() ? ALPHA : 0));
+    writeInt   (out, img.getWidth ());
+    writeInt   (out, img.getHeight());
+    writeInt   (out, levelCount);
+    
+    try (FileChannel channel = FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      write(channel, ByteBuffer.wrap(out.toByteArray()));
+      
+      for (Image level = img; level != null; level = level.getNextLevel()) {
+        write(channel, level.getBuffer());
+      }
+    }
+  }
+  
+  private static void write(FileChannel channel, ByteBuffer buf)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+  
+  private TextureCacheWriteTool() {
+  }
+}
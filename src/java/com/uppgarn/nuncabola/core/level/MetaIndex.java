@@ -0,0 +1,198 @@
+/*
+ * MetaIndex.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.level;
+
+import com.uppgarn.nuncabola.core.folder.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * Data derived from data files, such as level metadata, stored
+ * by path together with a stamp of the file it was derived from.
+ * Lookups only succeed while the file is unchanged, so unchanged
+ * files need not be read again.
+ * <p>
+ * Instances are safe for use by multiple threads. Only the most
+ * recently used entries are kept.
+ */
+public final class MetaIndex {
+  public static final int MAX_ENTRY_COUNT = 4096;
+  
+  /**
+   * Upper limit of the data length of an entry. Longer data is not
+   * stored.
+   */
+  public static final int MAX_DATA_LENGTH = 1 << 20;
+  
+  /**
+   * Returns the stamp of the file behind {@code src}, or null
+   * if it cannot be determined.
+   */
+  public static Stamp getStamp(Source src) {
+    if (src instanceof ZipEntrySource) {
+      ZipEntrySource zipSrc = (ZipEntrySource) src;
+      
+      return new Stamp(zipSrc.getSize(), zipSrc.getCrc());
+    }
+    
+    if (src instanceof ZipSource) {
+      ZipEntry entry = ((ZipSource) src).getEntry();
+      
+      if ((entry.getSize() == -1) || (entry.getCrc() == -1)) {
+        return null;
+      }
+      
+      return new Stamp(entry.getSize(), entry.getCrc());
+    }
+    
+    java.nio.file.Path file = src.getFile();
+    
+    if (file == null) {
+      return null;
+    }
+    
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(
+        file,
+        BasicFileAttributes.class);
+      
+      return new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis());
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+  
+  private final Map<String, Entry> entries;
+  
+  private boolean dirty;
+  
+  public MetaIndex() {
+    entries = new LinkedHashMap<String, MetaIndex.Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<String, MetaIndex.Entry> eldest) {
+        return size() > MAX_ENTRY_COUNT;
+      }
+    };
+    
+    dirty = false;
+  }
+  
+  /**
+   * Returns the data stored for {@code path} if it was stored
+   * with the given stamp, otherwise null.
+   */
+  public synchronized byte[] get(String path, Stamp stamp) {
+    Entry entry = entries.get(path);
+    
+    if ((entry == null) || !entry.stamp.equals(stamp)) {
+      return null;
+    }
+    
+    return entry.data;
+  }
+  
+  public synchronized void put(String path, Stamp stamp, byte[] data) {
+    if (data.length > MAX_DATA_LENGTH) {
+      return;
+    }
+    
+    entries.put(path, new Entry(path, stamp, data));
+    
+    dirty = true;
+  }
+  
+  /**
+   * Returns whether entries were added since creation or since
+   * the last call to {@link #setClean()}.
+   */
+  public synchronized boolean isDirty() {
+    return dirty;
+  }
+  
+  public synchronized void setClean() {
+    dirty = false;
+  }
+  
+  /**
+   * Returns the entries, least recently used first.
+   */
+  synchronized List<Entry> getEntries() {
+    return new ArrayList<>(entries.values());
+  }
+  
+  synchronized void add(Entry entry) {
+    entries.put(entry.path, entry);
+  }
+  
+  /**
+   * Size of a file and a value that changes whenever its contents do,
+   * e.g. its modification time.
+   */
+  public static final class Stamp {
+    final long size;
+    final long value;
+    
+    public Stamp(long size, long value) {
+      this.size  = size;
+      this.value = value;
+    }
+    
+    public long getSize() {
+      return size;
+    }
+    
+    public long getValue() {
+      return value;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Stamp)) {
+        return false;
+      }
+      
+      Stamp stamp = (Stamp) obj;
+      
+      return (size == stamp.size) && (value == stamp.value);
+    }
+    
+    @Override
+    public int hashCode() {
+      return Long.hashCode(size) * 31 + Long.hashCode(value);
+    }
+  }
+  
+  static final class Entry {
+    final String path;
+    final Stamp  stamp;
+    final byte[] data;
+    
+    public Entry(String path, Stamp stamp, byte[] data) {
+      this.path  = path;
+      this.stamp = stamp;
+      this.data  = data;
+    }
+  }
+}
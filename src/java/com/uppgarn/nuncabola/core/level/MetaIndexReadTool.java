@@ -0,0 +1,77 @@
+/*
+ * MetaIndexReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.level;
+
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.level.MetaIndexIOTool.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+public final class MetaIndexReadTool {
+  public static MetaIndex readMetaIndex(InputStream in) throws IOException {
+    int magic   = readInt(in);
+    int version = readInt(in);
+    
+    if ((magic != MAGIC) || (version != VERSION)) {
+      throw new InvalidDataException();
+    }
+    
+    int count = readInt(in);
+    
+    if ((count < 0) || (count > MetaIndex.MAX_ENTRY_COUNT)) {
+      throw new InvalidDataException();
+    }
+    
+    MetaIndex index = new MetaIndex();
+    
+    for (int idx = 0; idx < count; idx++) {
+      String path  = readString(in);
+      long   size  = readLong  (in);
+      long   value = readLong  (in);
+      int    len   = readInt   (in);
+      
+      if ((len < 0) || (len > MetaIndex.MAX_DATA_LENGTH)) {
+        throw new InvalidDataException();
+      }
+      
+      byte[] data = InputStreamTool.readBytes(in, len);
+      
+      index.add(new MetaIndex.Entry(
+        path,
+        new MetaIndex.Stamp(size, value),
+        data));
+    }
+    
+    return index;
+  }
+  
+  public static MetaIndex readMetaIndex(java.nio.file.Path file)
+      throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      return readMetaIndex(in);
+    }
+  }
+  
+  private MetaIndexReadTool() {
+  }
+}
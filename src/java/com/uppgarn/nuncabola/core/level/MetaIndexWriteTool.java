@@ -0,0 +1,56 @@
+/*
+ * MetaIndexWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.level;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.core.level.MetaIndexIOTool.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public final class MetaIndexWriteTool {
+  public static void writeMetaIndex(OutputStream out, MetaIndex index)
+      throws IOException {
+    List<MetaIndex.Entry> entries = index.getEntries();
+    
+    writeInt(out, MAGIC);
+    writeInt(out, VERSION);
+    writeInt(out, entries.size());
+    
+    for (MetaIndex.Entry entry: entries) {
+      writeString(out, entry.path);
+      writeLong  (out, entry.stamp.size);
+      writeLong  (out, entry.stamp.value);
+      writeInt   (out, entry.data.length);
+      
+      out.write(entry.data);
+    }
+  }
+  
+  public static void writeMetaIndex(java.nio.file.Path file, MetaIndex index)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(file))) {
+      writeMetaIndex(out, index);
+    }
+  }
+  
+  private MetaIndexWriteTool() {
+  }
+}
@@ -18,8 +18,10 @@
 package com.uppgarn.nuncabola.core.math;
 
 import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.binary.BufferReadTool.*;
 
 import java.io.*;
+import java.nio.*;
 
 public final class MathReadTool {
   public static void readVector3(Vector3 v, InputStream in) throws IOException {
@@ -43,6 +45,28 @@ public final class MathReadTool {
     c.a = readFloat(in);
   }
   
+  public static void readVector3(Vector3 v, ByteBuffer buf)
+      throws IOException {
+    v.x = getFloat(buf);
+    v.y = getFloat(buf);
+    v.z = getFloat(buf);
+  }
+  
+  public static void readQuaternion(Quaternion q, ByteBuffer buf)
+      throws IOException {
+    q.w = getFloat(buf);
+    q.x = getFloat(buf);
+    q.y = getFloat(buf);
+    q.z = getFloat(buf);
+  }
+  
+  public static void readColor4(Color4 c, ByteBuffer buf) throws IOException {
+    c.r = getFloat(buf);
+    c.g = getFloat(buf);
+    c.b = getFloat(buf);
+    c.a = getFloat(buf);
+  }
+  
   private MathReadTool() {
   }
 }
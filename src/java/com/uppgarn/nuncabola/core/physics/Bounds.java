@@ -0,0 +1,143 @@
+/*
+ * Bounds.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.physics;
+
+import com.uppgarn.nuncabola.core.math.*;
+
+/**
+ * Axis-aligned bounding box used for broad-phase collision culling.
+ */
+final class Bounds {
+  public final Vector3 min;
+  public final Vector3 max;
+  
+  /**
+   * Creates an empty box.
+   */
+  public Bounds() {
+    min = new Vector3();
+    max = new Vector3();
+    
+    setEmpty();
+  }
+  
+  public boolean isEmpty() {
+    return (min.x > max.x) || (min.y > max.y) || (min.z > max.z);
+  }
+  
+  public void setEmpty() {
+    min.set(Float.POSITIVE_INFINITY,
+            Float.POSITIVE_INFINITY,
+            Float.POSITIVE_INFINITY);
+    max.set(Float.NEGATIVE_INFINITY,
+            Float.NEGATIVE_INFINITY,
+            Float.NEGATIVE_INFINITY);
+  }
+  
+  public void setInfinite() {
+    min.set(Float.NEGATIVE_INFINITY,
+            Float.NEGATIVE_INFINITY,
+            Float.NEGATIVE_INFINITY);
+    max.set(Float.POSITIVE_INFINITY,
+            Float.POSITIVE_INFINITY,
+            Float.POSITIVE_INFINITY);
+  }
+  
+  public void include(Vector3 p) {
+    min.x = Math.min(min.x, p.x);
+    min.y = Math.min(min.y, p.y);
+    min.z = Math.min(min.z, p.z);
+    max.x = Math.max(max.x, p.x);
+    max.y = Math.max(max.y, p.y);
+    max.z = Math.max(max.z, p.z);
+  }
+  
+  public void include(Bounds b) {
+    if (b.isEmpty()) {
+      return;
+    }
+    
+    include(b.min);
+    include(b.max);
+  }
+  
+  /**
+   * Sets this box to the Minkowski sum of the given boxes.
+   */
+  public void sum(Bounds b0, Bounds b1) {
+    if (b0.isEmpty() || b1.isEmpty()) {
+      setEmpty();
+    } else {
+      min.add(b0.min, b1.min);
+      max.add(b0.max, b1.max);
+    }
+  }
+  
+  /**
+   * Determines if the segment from {@code p} to {@code p + d} might
+   * come within distance {@code r} of the box.
+   * <p>
+   * The test is conservative: it passes for NaN input.
+   */
+  public boolean testSegment(Vector3 p, Vector3 d, float r) {
+    if (isEmpty()) {
+      return false;
+    }
+    
+    float t0 = Math.max(
+        Math.max(enter(p.x, d.x, min.x - r, max.x + r),
+                 enter(p.y, d.y, min.y - r, max.y + r)),
+        Math.max(enter(p.z, d.z, min.z - r, max.z + r), 0.0f));
+    float t1 = Math.min(
+        Math.min(exit(p.x, d.x, min.x - r, max.x + r),
+                 exit(p.y, d.y, min.y - r, max.y + r)),
+        Math.min(exit(p.z, d.z, min.z - r, max.z + r), 1.0f));
+    
+    return !(t0 > t1);
+  }
+  
+  /**
+   * Computes the parameter at which a line enters a slab.
+   */
+  private static float enter(float p, float d, float a, float b) {
+    // Testing for equality against zero is acceptable.
+    
+    if (d == 0.0f) {
+      return ((p < a) || (p > b))
+          ? Float.POSITIVE_INFINITY
+          : Float.NEGATIVE_INFINITY;
+    }
+    
+    return Math.min((a - p) / d, (b - p) / d);
+  }
+  
+  /**
+   * Computes the parameter at which a line exits a slab.
+   */
+  private static float exit(float p, float d, float a, float b) {
+    // Testing for equality against zero is acceptable.
+    
+    if (d == 0.0f) {
+      return ((p < a) || (p > b))
+          ? Float.NEGATIVE_INFINITY
+          : Float.POSITIVE_INFINITY;
+    }
+    
+    return Math.max((a - p) / d, (b - p) / d);
+  }
+}
@@ -24,14 +24,220 @@ final class CollisionDetector {
   private static final float SMALL = 1.0E-3f;
   private static final float LARGE = 1.0E+5f;
   
+  /**
+   * Tolerance added to the ball radius in bounds tests.
+   */
+  private static final float MARGIN = 1.0E-2f;
+  
+  /**
+   * Time (seconds) a mover may overshoot the end of its path.
+   */
+  private static final float OVERSHOOT = 5.0E-2f;
+  
   private final Solid sol;
   
   private Motion motion;
   
+  private final SolidPack pack;
+  
+  /**
+   * Local bounds of the solid lumps of each node subtree.
+   */
+  private final Bounds[] nodeBounds;
+  
+  /**
+   * World bounds swept by each body along its paths.
+   */
+  private final Bounds[] bodyBounds;
+  
+  /**
+   * Paths covered by the swept bounds of each body's movers.
+   */
+  private final boolean[][] bodyPaths0;
+  private final boolean[][] bodyPaths1;
+  
   public CollisionDetector(Solid sol) {
     this.sol = sol;
     
     motion = new Motion(sol);
+    
+    pack = (sol.base.pack != null) ? sol.base.pack : new SolidPack(sol.base);
+    
+    nodeBounds = new Bounds[sol.base.nodes.length];
+    
+    for (int idx = 0; idx < nodeBounds.length; idx++) {
+      getNodeBounds(idx);
+    }
+    
+    bodyBounds = new Bounds   [sol.base.bodies.length];
+    bodyPaths0 = new boolean[sol.base.bodies.length][];
+    bodyPaths1 = new boolean[sol.base.bodies.length][];
+    
+    for (int idx = 0; idx < bodyBounds.length; idx++) {
+      Body body = sol.base.bodies[idx];
+      
+      bodyPaths0[idx] = getReachablePaths(body.mover0Idx);
+      bodyPaths1[idx] = getReachablePaths(body.mover1Idx);
+      bodyBounds[idx] = createBodyBounds(
+        body,
+        bodyPaths0[idx],
+        bodyPaths1[idx]);
+    }
+  }
+  
+  private Bounds getNodeBounds(int nodeIdx) {
+    if (nodeBounds[nodeIdx] != null) {
+      return nodeBounds[nodeIdx];
+    }
+    
+    // Register first to stay finite on malformed (cyclic) trees.
+    
+    Bounds bounds = new Bounds();
+    
+    nodeBounds[nodeIdx] = bounds;
+    
+    Node node = sol.base.nodes[nodeIdx];
+    
+    for (int idx = 0; idx < node.lumpCount; idx++) {
+      Lump lump = sol.base.lumps[node.lump0Idx + idx];
+      
+      if ((lump.flags & Lump.DETAIL) != 0) {
+        continue;
+      }
+      
+      if ((lump.vertCount == 0) && (lump.sideCount > 0)) {
+        // Unbounded lump.
+        
+        bounds.setInfinite();
+      }
+      
+      for (int idx0 = 0; idx0 < lump.vertCount; idx0++) {
+        Vertex vert = sol.base.verts[sol.base.indices[lump.vert0Idx + idx0]];
+        
+        bounds.include(vert.p);
+      }
+    }
+    
+    if (node.node0Idx >= 0) {
+      bounds.include(getNodeBounds(node.node0Idx));
+    }
+    if (node.node1Idx >= 0) {
+      bounds.include(getNodeBounds(node.node1Idx));
+    }
+    
+    return bounds;
+  }
+  
+  /**
+   * Returns the paths a mover can follow, or {@code null}.
+   */
+  private boolean[] getReachablePaths(int moverIdx) {
+    if (moverIdx < 0) {
+      return null;
+    }
+    
+    PathBase[] pathBases = sol.base.pathBases;
+    boolean[]  paths     = new boolean[pathBases.length];
+    
+    for (int pathIdx = sol.movers[moverIdx].base.pathIdx;
+        (pathIdx >= 0) && (pathIdx < paths.length) && !paths[pathIdx];
+        pathIdx = pathBases[pathIdx].pathIdx) {
+      paths[pathIdx] = true;
+    }
+    
+    return paths;
+  }
+  
+  private Bounds createBodyBounds(
+      Body      body,
+      boolean[] paths0,
+      boolean[] paths1) {
+    Bounds bounds = new Bounds();
+    Bounds moves  = new Bounds();
+    
+    bounds.include(getNodeBounds(body.nodeIdx));
+    
+    if (bounds.isEmpty()) {
+      return bounds;
+    }
+    
+    // Give up on rotating bodies.
+    
+    if (paths1 != null) {
+      for (int idx = 0; idx < paths1.length; idx++) {
+        if (paths1[idx] && isPathOriented(idx)) {
+          bounds.setInfinite();
+          
+          return bounds;
+        }
+      }
+    }
+    
+    // Sweep along all segments of the linear path chain.
+    
+    if (paths0 == null) {
+      moves.include(new Vector3());
+    } else {
+      for (int idx = 0; idx < paths0.length; idx++) {
+        if (paths0[idx] && !includePathSweep(moves, idx)) {
+          bounds.setInfinite();
+          
+          return bounds;
+        }
+      }
+    }
+    
+    bounds.sum(bounds, moves);
+    
+    return bounds;
+  }
+  
+  private boolean isPathOriented(int pathIdx) {
+    PathBase pathBase0 = sol.base.pathBases[pathIdx];
+    
+    if ((pathBase0.flags & PathBase.ORIENTED) != 0) {
+      return true;
+    }
+    
+    int pathIdx1 = pathBase0.pathIdx;
+    
+    return (pathIdx1 < 0)
+        || (pathIdx1 >= sol.base.pathBases.length)
+        || ((sol.base.pathBases[pathIdx1].flags & PathBase.ORIENTED) != 0);
+  }
+  
+  /**
+   * Includes the positions along a path segment, allowing for
+   * overshoot. Returns {@code false} if the sweep is unbounded.
+   */
+  private boolean includePathSweep(Bounds bounds, int pathIdx) {
+    PathBase pathBase0 = sol.base.pathBases[pathIdx];
+    
+    if ((pathBase0.pathIdx < 0)
+        || (pathBase0.pathIdx >= sol.base.pathBases.length)) {
+      return false;
+    }
+    
+    float e = OVERSHOOT / pathBase0.t;
+    
+    if (!((e > 0.0f) && (e <= 0.5f))) {
+      return false;
+    }
+    
+    PathBase pathBase1 = sol.base.pathBases[pathBase0.pathIdx];
+    
+    Vector3 p = new Vector3();
+    
+    bounds.include(pathBase0.p);
+    bounds.include(pathBase1.p);
+    
+    p.copyFrom(pathBase0.p, pathBase1.p, -e);
+    bounds.include(p);
+    
+    p.copyFrom(pathBase0.p, pathBase1.p, 1.0f + e);
+    bounds.include(p);
+    
+    return true;
   }
   
   /**
@@ -257,47 +463,75 @@ final class CollisionDetector {
   
   private float testVertex(
       Vector3 t_,
-      Vertex  vert,
+      int     vertIdx,
       Vector3 o,
       Vector3 w,
       Ball    ball) {
-    return intersectVertex(t_, o, vert.p, w, ball.p, ball.v, ball.r);
+    Vector3 q = testVertex_q;
+    
+    float[] verts = pack.verts;
+    int     i     = vertIdx * 3;
+    
+    q.set(verts[i], verts[i + 1], verts[i + 2]);
+    
+    return intersectVertex(t_, o, q, w, ball.p, ball.v, ball.r);
   }
   
   private float testEdge(
       Vector3 t_,
-      Edge    edge,
+      int     edgeIdx,
       Vector3 o,
       Vector3 w,
       Ball    ball) {
+    Vector3 q = testEdge_q;
     Vector3 u = testEdge_u;
     
-    Vertex vert0 = sol.base.verts[edge.vert0Idx];
-    Vertex vert1 = sol.base.verts[edge.vert1Idx];
+    float[] edges = pack.edges;
+    int     i     = edgeIdx * 6;
+    
+    q.set(edges[i],     edges[i + 1], edges[i + 2]);
+    u.set(edges[i + 3], edges[i + 4], edges[i + 5]);
     
-    u.subtract(vert1.p, vert0.p);
+    return intersectEdge(t_, o, q, u, w, ball.p, ball.v, ball.r);
+  }
+  
+  /**
+   * Computes the dot product of a vector and a packed side normal.
+   */
+  private float dotSide(Vector3 v, int sideIdx) {
+    float[] sides = pack.sides;
+    int     i     = sideIdx * 4;
     
-    return intersectEdge(t_, o, vert0.p, u, w, ball.p, ball.v, ball.r);
+    return v.x * sides[i] + v.y * sides[i + 1] + v.z * sides[i + 2];
   }
   
   private float testSide(
       Vector3 t_,
-      Side    side,
-      Lump    lump,
+      int     sideIdx,
+      int     side0Idx,
+      int     sideCount,
       Vector3 o,
       Vector3 w,
       Ball    ball,
       float   dt) {
-    float t = intersectSide(t_, o, w, side.n, side.d, ball.p, ball.v, ball.r);
+    Vector3 n = testSide_n;
+    
+    float[] sides = pack.sides;
+    int     i     = sideIdx * 4;
+    
+    n.set(sides[i], sides[i + 1], sides[i + 2]);
+    
+    float d = sides[i + 3];
+    float t = intersectSide(t_, o, w, n, d, ball.p, ball.v, ball.r);
     
     if (t < dt) {
-      for (int idx = 0; idx < lump.sideCount; idx++) {
-        Side side0 = sol.base.sides[sol.base.indices[lump.side0Idx + idx]];
-        
-        if ((side != side0)
-            && (t_.dot(side0.n) -
-                o .dot(side0.n) -
-                w .dot(side0.n) * t > side0.d)) {
+      int[] sideIdxs = pack.sideIdxs;
+      
+      for (int idx = side0Idx; idx < side0Idx + sideCount; idx++) {
+        if ((sideIdxs[idx] != sideIdxs[sideIdx])
+            && (dotSide(t_, idx) -
+                dotSide(o,  idx) -
+                dotSide(w,  idx) * t > sides[idx * 4 + 3])) {
           return LARGE;
         }
       }
@@ -308,11 +542,13 @@ final class CollisionDetector {
   
   private float testLump(
       Vector3 t_,
-      Lump    lump,
+      int     lumpIdx,
       Vector3 o,
       Vector3 w,
       Ball    ball,
       float   dt) {
+    Lump lump = sol.base.lumps[lumpIdx];
+    
     // Short circuit a non-solid lump.
     
     if ((lump.flags & Lump.DETAIL) != 0) {
@@ -328,10 +564,10 @@ final class CollisionDetector {
     if (ball.r > 0.0f) {
       // Test all vertices.
       
-      for (int idx = 0; idx < lump.vertCount; idx++) {
-        Vertex vert = sol.base.verts[sol.base.indices[lump.vert0Idx + idx]];
-        
-        float u = testVertex(u_, vert, o, w, ball);
+      int vert0Idx = pack.lumpVert0Idxs[lumpIdx];
+      
+      for (int idx = vert0Idx; idx < vert0Idx + lump.vertCount; idx++) {
+        float u = testVertex(u_, idx, o, w, ball);
         
         if (u < t) {
           t_.copyFrom(u_);
@@ -342,10 +578,10 @@ final class CollisionDetector {
       
       // Test all edges.
       
-      for (int idx = 0; idx < lump.edgeCount; idx++) {
-        Edge edge = sol.base.edges[sol.base.indices[lump.edge0Idx + idx]];
-        
-        float u = testEdge(u_, edge, o, w, ball);
+      int edge0Idx = pack.lumpEdge0Idxs[lumpIdx];
+      
+      for (int idx = edge0Idx; idx < edge0Idx + lump.edgeCount; idx++) {
+        float u = testEdge(u_, idx, o, w, ball);
         
         if (u < t) {
           t_.copyFrom(u_);
@@ -357,10 +593,10 @@ final class CollisionDetector {
     
     // Test all sides.
     
-    for (int idx = 0; idx < lump.sideCount; idx++) {
-      Side side = sol.base.sides[sol.base.indices[lump.side0Idx + idx]];
-      
-      float u = testSide(u_, side, lump, o, w, ball, t);
+    int side0Idx = pack.lumpSide0Idxs[lumpIdx];
+    
+    for (int idx = side0Idx; idx < side0Idx + lump.sideCount; idx++) {
+      float u = testSide(u_, idx, side0Idx, lump.sideCount, o, w, ball, t);
       
       if (u < t) {
         t_.copyFrom(u_);
@@ -438,13 +674,38 @@ final class CollisionDetector {
     return false;
   }
   
+  /**
+   * Determines if the ball might reach the lumps of a node subtree.
+   */
+  private boolean testNodeBounds(
+      int     nodeIdx,
+      Vector3 o,
+      Vector3 w,
+      Ball    ball,
+      float   dt) {
+    Vector3 p = testNodeBounds_p;
+    Vector3 d = testNodeBounds_d;
+    
+    p.subtract(ball.p, o);
+    d.subtract(ball.v, w);
+    d.scale   (d, dt);
+    
+    return nodeBounds[nodeIdx].testSegment(p, d, ball.r + MARGIN);
+  }
+  
   private float testNode(
       Vector3 t_,
-      Node    node,
+      int     nodeIdx,
       Vector3 o,
       Vector3 w,
       Ball    ball,
       float   dt) {
+    if (!testNodeBounds(nodeIdx, o, w, ball, dt)) {
+      return dt;
+    }
+    
+    Node node = sol.base.nodes[nodeIdx];
+    
     Vector3 u_ = testNode_u_.push();
     
     float t = dt;
@@ -452,9 +713,7 @@ final class CollisionDetector {
     // Test all lumps.
     
     for (int idx = 0; idx < node.lumpCount; idx++) {
-      Lump lump = sol.base.lumps[node.lump0Idx + idx];
-      
-      float u = testLump(u_, lump, o, w, ball, t);
+      float u = testLump(u_, node.lump0Idx + idx, o, w, ball, t);
       
       if (u < t) {
         t_.copyFrom(u_);
@@ -467,9 +726,7 @@ final class CollisionDetector {
     
     if ((node.node0Idx >= 0)
         && testFore(sol.base.sides[node.sideIdx], o, w, ball, t)) {
-      Node node0 = sol.base.nodes[node.node0Idx];
-      
-      float u = testNode(u_, node0, o, w, ball, t);
+      float u = testNode(u_, node.node0Idx, o, w, ball, t);
       
       if (u < t) {
         t_.copyFrom(u_);
@@ -482,9 +739,7 @@ final class CollisionDetector {
     
     if ((node.node1Idx >= 0)
         && testBack(sol.base.sides[node.sideIdx], o, w, ball, t)) {
-      Node node1 = sol.base.nodes[node.node1Idx];
-      
-      float u = testNode(u_, node1, o, w, ball, t);
+      float u = testNode(u_, node.node1Idx, o, w, ball, t);
       
       if (u < t) {
         t_.copyFrom(u_);
@@ -509,8 +764,6 @@ final class CollisionDetector {
     Quaternion e_ = testBody_e_;
     Vector3    w_ = testBody_w_;
     
-    Node node = sol.base.nodes[body.nodeIdx];
-    
     motion.getBodyPosition   (o_, body, 0.0f);
     motion.getBodyVelocity   (w_, body, dt);
     motion.getBodyOrientation(e_, body, 0.0f);
@@ -558,7 +811,7 @@ final class CollisionDetector {
       ball0.v.subtract(p1, p0);
       ball0.v.scale   (ball0.v, 1.0f / dt);
       
-      float u = testNode(u_, node, z, z, ball0, dt);
+      float u = testNode(u_, body.nodeIdx, z, z, ball0, dt);
       
       if (u < dt) {
         // Compute the final orientation.
@@ -582,7 +835,7 @@ final class CollisionDetector {
         return u;
       }
     } else {
-      float u = testNode(u_, node, o_, w_, ball, dt);
+      float u = testNode(u_, body.nodeIdx, o_, w_, ball, dt);
       
       if (u < dt) {
         t_.copyFrom(u_);
@@ -595,13 +848,44 @@ final class CollisionDetector {
     return dt;
   }
   
+  private boolean isPathCovered(boolean[] paths, int moverIdx) {
+    return (paths == null) || paths[sol.movers[moverIdx].pathIdx];
+  }
+  
+  /**
+   * Determines if the ball might reach a body. Bodies whose movers
+   * left the paths covered by their swept bounds always pass.
+   */
+  private boolean testBodyBounds(int bodyIdx, Ball ball, float dt) {
+    Body body = sol.base.bodies[bodyIdx];
+    
+    if (!isPathCovered(bodyPaths0[bodyIdx], body.mover0Idx)
+        || !isPathCovered(bodyPaths1[bodyIdx], body.mover1Idx)) {
+      return true;
+    }
+    
+    Vector3 d = testBodyBounds_d;
+    
+    d.scale(ball.v, dt);
+    
+    return bodyBounds[bodyIdx].testSegment(ball.p, d, ball.r + MARGIN);
+  }
+  
   public float testBodies(Vector3 t_, Vector3 v_, Ball ball, float dt) {
     Vector3 u_ = testBodies_u_;
     Vector3 w_ = testBodies_w_;
     
     float t = dt;
     
-    for (Body body: sol.base.bodies) {
+    for (int idx = 0; idx < sol.base.bodies.length; idx++) {
+      // Broad phase: skip bodies the ball cannot reach.
+      
+      if (!testBodyBounds(idx, ball, t)) {
+        continue;
+      }
+      
+      Body body = sol.base.bodies[idx];
+      
       float u = testBody(u_, w_, body, ball, t);
       
       if (u < t) {
@@ -624,10 +908,15 @@ final class CollisionDetector {
   private final Vector3      intersectEdge_e    = new Vector3();
   private final Vector3      intersectEdge_p_   = new Vector3();
   private final Vector3      intersectEdge_v_   = new Vector3();
+  private final Vector3      testVertex_q       = new Vector3();
+  private final Vector3      testEdge_q         = new Vector3();
   private final Vector3      testEdge_u         = new Vector3();
+  private final Vector3      testSide_n         = new Vector3();
   private final Vector3      testLump_u_        = new Vector3();
   private final Vector3      testFore_q         = new Vector3();
   private final Vector3      testBack_q         = new Vector3();
+  private final Vector3      testNodeBounds_p   = new Vector3();
+  private final Vector3      testNodeBounds_d   = new Vector3();
   private final Vector3Stack testNode_u_        = new Vector3Stack(16);
   private final Vector3      testBody_u_        = new Vector3();
   private final Vector3      testBody_o_        = new Vector3();
@@ -638,6 +927,7 @@ final class CollisionDetector {
   private final Vector3      testBody_p0        = new Vector3();
   private final Vector3      testBody_p1        = new Vector3();
   private final Vector3      testBody_z         = new Vector3();
+  private final Vector3      testBodyBounds_d   = new Vector3();
   private final Vector3      testBodies_u_      = new Vector3();
   private final Vector3      testBodies_w_      = new Vector3();
 }
@@ -0,0 +1,314 @@
+/*
+ * EntityGrid.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.physics;
+
+import com.uppgarn.nuncabola.core.math.*;
+
+import java.util.*;
+
+/**
+ * A uniform grid over the horizontal plane, indexing entities
+ * by the square around their position that they can be reached in.
+ * <p>
+ * Queries return the entities whose cells overlap the square around
+ * a ball, in ascending order, so that callers see them in the same
+ * order as when scanning all entities. Removed entities are no longer
+ * returned. Pinned entities are returned regardless of where they are,
+ * which lets callers keep visiting entities whose state depends on
+ * the ball having been close before.
+ */
+public final class EntityGrid {
+  private static final float MIN_CELL_SIZE = 1.0f;
+  
+  private static final int MAX_AXIS_CELL_COUNT = 256;
+  
+  /**
+   * Extra extent of query squares, which absorbs rounding errors
+   * in the exact tests.
+   */
+  private static final float MARGIN = 0.01f;
+  
+  private final float x0;
+  private final float z0;
+  private final float cellSizeInv;
+  private final int   colCount;
+  private final int   rowCount;
+  
+  private final int[][] cells;
+  private final int[]   cellEntityCounts;
+  
+  /**
+   * Column and row ranges of each entity, four values per entity.
+   */
+  private final int[] ranges;
+  
+  private final boolean[] present;
+  private final boolean[] pinned;
+  
+  private final int[] pinnedIdxs;
+  private       int   pinnedCount;
+  
+  private final int[] marks;
+  private       int   mark;
+  
+  private final int[] found;
+  private       int   foundCount;
+  
+  /**
+   * Indexes entities at the given positions, reachable within
+   * the given horizontal distances.
+   */
+  public EntityGrid(Vector3[] ps, float[] rs) {
+    int count = ps.length;
+    
+    // Bounds.
+    
+    float minX = Float.POSITIVE_INFINITY;
+    float minZ = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY;
+    float maxZ = Float.NEGATIVE_INFINITY;
+    
+    for (int idx = 0; idx < count; idx++) {
+      minX = Math.min(minX, ps[idx].x - rs[idx]);
+      minZ = Math.min(minZ, ps[idx].z - rs[idx]);
+      maxX = Math.max(maxX, ps[idx].x + rs[idx]);
+      maxZ = Math.max(maxZ, ps[idx].z + rs[idx]);
+    }
+    
+    // Cell size. Aim for about one entity per cell.
+    
+    float width = 0.0f;
+    float depth = 0.0f;
+    
+    if (count > 0) {
+      width = maxX - minX;
+      depth = maxZ - minZ;
+    } else {
+      minX = 0.0f;
+      minZ = 0.0f;
+    }
+    
+    float cellSize = Math.max(
+      MIN_CELL_SIZE,
+      (float) Math.sqrt(width * depth / Math.max(count, 1)));
+    
+    cellSize = Math.max(cellSize, width / MAX_AXIS_CELL_COUNT);
+    cellSize = Math.max(cellSize, depth / MAX_AXIS_CELL_COUNT);
+    
+    x0          = minX;
+    z0          = minZ;
+    cellSizeInv = 1.0f / cellSize;
+    colCount    = getAxisCellCount(width, cellSize);
+    rowCount    = getAxisCellCount(depth, cellSize);
+    
+    // Cell ranges.
+    
+    ranges = new int[count * 4];
+    
+    int[] cellEntityCounts = new int[colCount * rowCount];
+    
+    for (int idx = 0; idx < count; idx++) {
+      int off = idx * 4;
+      
+      ranges[off]     = getCol(ps[idx].x - rs[idx]);
+      ranges[off + 1] = getCol(ps[idx].x + rs[idx]);
+      ranges[off + 2] = getRow(ps[idx].z - rs[idx]);
+      ranges[off + 3] = getRow(ps[idx].z + rs[idx]);
+      
+      for (int row = ranges[off + 2]; row <= ranges[off + 3]; row++) {
+        for (int col = ranges[off]; col <= ranges[off + 1]; col++) {
+          cellEntityCounts[row * colCount + col]++;
+        }
+      }
+    }
+    
+    // Cells.
+    
+    cells = new int[cellEntityCounts.length][];
+    
+    for (int cellIdx = 0; cellIdx < cells.length; cellIdx++) {
+      cells[cellIdx] = new int[cellEntityCounts[cellIdx]];
+    }
+    
+    this.cellEntityCounts = new int[cells.length];
+    
+    for (int idx = 0; idx < count; idx++) {
+      int off = idx * 4;
+      
+      for (int row = ranges[off + 2]; row <= ranges[off + 3]; row++) {
+        for (int col = ranges[off]; col <= ranges[off + 1]; col++) {
+          int cellIdx = row * colCount + col;
+          
+          cells[cellIdx][this.cellEntityCounts[cellIdx]++] = idx;
+        }
+      }
+    }
+    
+    present = new boolean[count];
+    pinned  = new boolean[count];
+    
+    Arrays.fill(present, true);
+    
+    pinnedIdxs  = new int[count];
+    pinnedCount = 0;
+    
+    marks = new int[count];
+    mark  = 0;
+    
+    found      = new int[count];
+    foundCount = 0;
+  }
+  
+  private static int getAxisCellCount(float extent, float cellSize) {
+    float count = (float) Math.ceil(extent / cellSize);
+    
+    if (!(count >= 1.0f)) {
+      return 1;
+    }
+    
+    return (int) Math.min(count, MAX_AXIS_CELL_COUNT);
+  }
+  
+  private static int clamp(int idx, int count) {
+    return Math.max(0, Math.min(idx, count - 1));
+  }
+  
+  private int getCol(float x) {
+    return clamp((int) Math.floor((x - x0) * cellSizeInv), colCount);
+  }
+  
+  private int getRow(float z) {
+    return clamp((int) Math.floor((z - z0) * cellSizeInv), rowCount);
+  }
+  
+  public int getEntityCount() {
+    return present.length;
+  }
+  
+  /**
+   * Stops returning the entity from queries.
+   */
+  public void remove(int idx) {
+    if (!present[idx]) {
+      return;
+    }
+    
+    present[idx] = false;
+    
+    int off = idx * 4;
+    
+    for (int row = ranges[off + 2]; row <= ranges[off + 3]; row++) {
+      for (int col = ranges[off]; col <= ranges[off + 1]; col++) {
+        int   cellIdx = row * colCount + col;
+        int[] cell    = cells[cellIdx];
+        int   last    = --cellEntityCounts[cellIdx];
+        
+        for (int entry = 0; entry < last; entry++) {
+          if (cell[entry] == idx) {
+            cell[entry] = cell[last];
+            
+            break;
+          }
+        }
+      }
+    }
+    
+    setPinned(idx, false);
+  }
+  
+  public boolean isPinned(int idx) {
+    return pinned[idx];
+  }
+  
+  /**
+   * Sets whether the entity is returned by all queries.
+   */
+  public void setPinned(int idx, boolean pinned) {
+    if (this.pinned[idx] == pinned) {
+      return;
+    }
+    
+    this.pinned[idx] = pinned;
+    
+    if (pinned) {
+      pinnedIdxs[pinnedCount++] = idx;
+    } else {
+      for (int entry = 0; entry < pinnedCount; entry++) {
+        if (pinnedIdxs[entry] == idx) {
+          pinnedIdxs[entry] = pinnedIdxs[--pinnedCount];
+          
+          break;
+        }
+      }
+    }
+  }
+  
+  private void addFound(int idx) {
+    if (marks[idx] != mark) {
+      marks[idx] = mark;
+      
+      found[foundCount++] = idx;
+    }
+  }
+  
+  /**
+   * Finds the entities which may be within reach of a ball
+   * at {@code p} with radius {@code r}, plus all pinned entities.
+   * Returns their number. They can be retrieved in ascending order
+   * with {@link #getFound(int)} until the next query.
+   */
+  public int find(Vector3 p, float r) {
+    if (++mark == 0) {
+      Arrays.fill(marks, 0);
+      
+      mark = 1;
+    }
+    
+    foundCount = 0;
+    
+    float ext = r + MARGIN;
+    
+    int col0 = getCol(p.x - ext);
+    int col1 = getCol(p.x + ext);
+    int row0 = getRow(p.z - ext);
+    int row1 = getRow(p.z + ext);
+    
+    for (int row = row0; row <= row1; row++) {
+      for (int col = col0; col <= col1; col++) {
+        int   cellIdx = row * colCount + col;
+        int[] cell    = cells[cellIdx];
+        
+        for (int entry = 0; entry < cellEntityCounts[cellIdx]; entry++) {
+          addFound(cell[entry]);
+        }
+      }
+    }
+    
+    for (int entry = 0; entry < pinnedCount; entry++) {
+      addFound(pinnedIdxs[entry]);
+    }
+    
+    Arrays.sort(found, 0, foundCount);
+    
+    return foundCount;
+  }
+  
+  public int getFound(int idx) {
+    return found[idx];
+  }
+}
@@ -54,6 +54,14 @@ final class Asset {
   private int texture;
   
   public Asset(Material mtrl, boolean shadowedEnabled) {
+    this(mtrl, shadowedEnabled, loadImage(mtrl));
+  }
+  
+  /**
+   * Creates an asset from {@code img}, which must have been loaded
+   * by {@link #loadImage(Material)}.
+   */
+  public Asset(Material mtrl, boolean shadowedEnabled, Image img) {
     this.mtrl = mtrl;
     
     flags = shadowedEnabled ? mtrl.flags : mtrl.flags & ~Material.SHADOWED;
@@ -64,10 +72,10 @@ final class Asset {
     eInt = toInt (mtrl.e);
     hInt = toByte(mtrl.h);
     
-    texture = createTexture();
+    texture = createTexture(img);
   }
   
-  private Image getImage(String path) {
+  private static Image loadImage(String path) {
     if (!path.isEmpty()) {
       for (int idx0 = 0; idx0 < 2; idx0++) {
         String path0 = (idx0 == 0) ? "textures/".concat(path) : path;
@@ -95,16 +103,23 @@ final class Asset {
     return null;
   }
   
-  private Image getImage() {
-    if (mtrl.d.a == 0.0f) {
+  static boolean hasImage(Material mtrl) {
+    return (mtrl.d.a != 0.0f) && !mtrl.path.isEmpty();
+  }
+  
+  /**
+   * Loads the image of {@code mtrl}. May be called from any thread.
+   */
+  static Image loadImage(Material mtrl) {
+    if (!hasImage(mtrl)) {
       return null;
     }
     
-    return getImage(mtrl.path);
+    return loadImage(mtrl.path);
   }
   
-  private int createTexture() {
-    int texture = Gfx.createTexture(getImage(), true);
+  private int createTexture(Image img) {
+    int texture = Gfx.createTexture(img, true);
     
     if (texture != 0) {
       // Set the texture to clamp or repeat based on material type.
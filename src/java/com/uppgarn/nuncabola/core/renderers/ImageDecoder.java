@@ -0,0 +1,137 @@
+/*
+ * ImageDecoder.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.renderers;
+
+import com.uppgarn.nuncabola.core.image.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Decodes material images on a pool of worker threads, so that the
+ * rendering thread only needs to upload them.
+ */
+final class ImageDecoder {
+  private static int getThreadCount() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    
+    return Math.min(Math.max(processors, 1), 8);
+  }
+  
+  private final ExecutorService executor;
+  
+  private Map<String, Future<Image>> prefetched;
+  
+  public ImageDecoder() {
+    executor = Executors.newFixedThreadPool(
+      getThreadCount(),
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "ImageDecoder");
+          thread.setDaemon(true);
+          
+          return thread;
+        }
+      });
+    
+    prefetched = new HashMap<>();
+  }
+  
+  private Future<Image> submit(final Material mtrl) {
+    return executor.submit(new Callable<Image>() {
+      @Override
+      public Image call() {
+        return Asset.loadImage(mtrl);
+      }
+    });
+  }
+  
+  /**
+   * Starts decoding the images of {@code mtrls}. Images prefetched
+   * earlier, but not needed by {@code mtrls}, are discarded.
+   */
+  public synchronized void prefetch(Material[] mtrls) {
+    Map<String, Future<Image>> futures = new HashMap<>();
+    
+    for (Material mtrl: mtrls) {
+      if (Asset.hasImage(mtrl) && !futures.containsKey(mtrl.path)) {
+        Future<Image> future = prefetched.remove(mtrl.path);
+        
+        futures.put(mtrl.path, (future != null) ? future : submit(mtrl));
+      }
+    }
+    
+    for (Future<Image> future: prefetched.values()) {
+      future.cancel(true);
+    }
+    
+    prefetched = futures;
+  }
+  
+  private static Image getResult(Future<Image> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException | CancellationException ex) {
+      return null;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      
+      return null;
+    }
+  }
+  
+  /**
+   * Returns the images of {@code mtrls}, as {@link Asset#loadImage}
+   * would, decoding them concurrently unless prefetched.
+   */
+  public Image[] decode(Material[] mtrls) {
+    Map<String, Future<Image>> futures = new HashMap<>();
+    
+    synchronized (this) {
+      for (Material mtrl: mtrls) {
+        if (Asset.hasImage(mtrl) && !futures.containsKey(mtrl.path)) {
+          Future<Image> future = prefetched.remove(mtrl.path);
+          
+          futures.put(
+            mtrl.path,
+            (future != null) ? future : submit(mtrl));
+        }
+      }
+    }
+    
+    Image[] imgs = new Image[mtrls.length];
+    
+    for (int idx = 0; idx < mtrls.length; idx++) {
+      Future<Image> future = futures.get(mtrls[idx].path);
+      
+      if (Asset.hasImage(mtrls[idx]) && (future != null)) {
+        imgs[idx] = getResult(future);
+      }
+    }
+    
+    return imgs;
+  }
+  
+  public synchronized void deinitialize() {
+    executor.shutdownNow();
+    
+    prefetched.clear();
+  }
+}
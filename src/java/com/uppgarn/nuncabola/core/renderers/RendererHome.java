@@ -24,13 +24,16 @@ import com.uppgarn.nuncabola.core.solid.*;
 import java.io.*;
 
 public final class RendererHome {
-  private static Folder  dataFolder;
-  private static boolean background;
-  private static boolean shadow;
-  private static float   fov;
+  private static Folder       dataFolder;
+  private static TextureCache texCache;
+  private static boolean      background;
+  private static boolean      shadow;
+  private static float        fov;
   
   private static String ballPath;
   
+  private static ImageDecoder imgDecoder;
+  
   private static BillboardRenderer billRend;
   private static HaloRenderer      haloRend;
   private static ItemRenderer      itemRend;
@@ -41,18 +44,22 @@ public final class RendererHome {
   private static BallRenderer ballRend;
   
   public static void initialize(
-      Folder  dataFolder,
-      boolean background,
-      boolean shadow,
-      float   fov,
-      String  ballPath) {
+      Folder       dataFolder,
+      TextureCache texCache,
+      boolean      background,
+      boolean      shadow,
+      float        fov,
+      String       ballPath) {
     RendererHome.dataFolder = dataFolder;
+    RendererHome.texCache   = texCache;
     RendererHome.background = background;
     RendererHome.shadow     = shadow;
     RendererHome.fov        = fov;
     
     RendererHome.ballPath = ballPath;
     
+    imgDecoder = new ImageDecoder();
+    
     billRend   = new BillboardRenderer();
     haloRend   = new HaloRenderer();
     itemRend   = new ItemRenderer();
@@ -89,12 +96,24 @@ public final class RendererHome {
   
   static Image loadImage(String path) {
     try {
-      return ImageLoader.load(dataFolder.getSource(path), false);
+      return texCache.load(path, dataFolder.getSource(path), false);
     } catch (IOException ex) {
       return null;
     }
   }
   
+  /**
+   * Starts decoding the material images of {@code base} in the
+   * background, ahead of creating a renderer for it.
+   */
+  public static void prefetchImages(SolidBase base) {
+    imgDecoder.prefetch(base.mtrls);
+  }
+  
+  static Image[] decodeImages(Material[] mtrls) {
+    return imgDecoder.decode(mtrls);
+  }
+  
   static BillboardRenderer getBillboardRenderer() {
     return billRend;
   }
@@ -153,8 +172,11 @@ public final class RendererHome {
     
     ballRend.deinitialize();
     
+    imgDecoder.deinitialize();
+    
     dataFolder = null;
     ballPath   = null;
+    imgDecoder = null;
     billRend   = null;
     haloRend   = null;
     itemRend   = null;
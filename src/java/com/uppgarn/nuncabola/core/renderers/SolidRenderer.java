@@ -18,6 +18,7 @@
 package com.uppgarn.nuncabola.core.renderers;
 
 import com.uppgarn.nuncabola.core.graphics.*;
+import com.uppgarn.nuncabola.core.image.*;
 import com.uppgarn.nuncabola.core.math.*;
 import com.uppgarn.nuncabola.core.physics.*;
 import com.uppgarn.nuncabola.core.solid.*;
@@ -53,10 +54,15 @@ final class SolidRenderer {
   }
   
   private Asset[] createAssets() {
-    Asset[] assets = new Asset[sol.base.mtrls.length];
+    Material[] mtrls = sol.base.mtrls;
     
-    for (int idx = 0; idx < sol.base.mtrls.length; idx++) {
-      assets[idx] = new Asset(sol.base.mtrls[idx], shadowedEnabled);
+    // Decode all images up front, so that only uploads remain.
+    
+    Image[] imgs   = RendererHome.decodeImages(mtrls);
+    Asset[] assets = new Asset[mtrls.length];
+    
+    for (int idx = 0; idx < mtrls.length; idx++) {
+      assets[idx] = new Asset(mtrls[idx], shadowedEnabled, imgs[idx]);
     }
     
     return assets;
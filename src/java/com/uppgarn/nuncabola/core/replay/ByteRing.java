@@ -0,0 +1,123 @@
+/*
+ * ByteRing.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Bounded lock-free byte ring for one producer and one consumer thread.
+ * <p>
+ * Read and write positions only ever grow; the array index of
+ * a position is the position modulo the capacity.
+ */
+final class ByteRing {
+  private final byte[] array;
+  private final int    mask;
+  
+  /**
+   * Next position to read. Only advanced by the consumer.
+   */
+  private final AtomicLong head;
+  
+  /**
+   * Next position to write. Only advanced by the producer.
+   */
+  private final AtomicLong tail;
+  
+  /**
+   * Creates a ring holding at least {@code capacity} bytes.
+   */
+  public ByteRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 1));
+    
+    if (size < capacity) {
+      size <<= 1;
+    }
+    
+    array = new byte[size];
+    mask  = size - 1;
+    
+    head = new AtomicLong();
+    tail = new AtomicLong();
+  }
+  
+  /**
+   * Returns the number of bytes available to the consumer.
+   */
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+  
+  /**
+   * Returns the number of bytes the producer can put.
+   */
+  public int getFree() {
+    return array.length - size();
+  }
+  
+  /**
+   * Puts bytes. Must be called by the producer only, with no more
+   * than {@link #getFree} bytes.
+   */
+  public void put(byte[] b, int off, int len) {
+    assert len <= getFree();
+    
+    long pos  = tail.get();
+    int  idx  = (int) pos & mask;
+    int  len0 = Math.min(len, array.length - idx);
+    
+    System.arraycopy(b, off,        array, idx, len0);
+    System.arraycopy(b, off + len0, array, 0,   len - len0);
+    
+    tail.set(pos + len);
+  }
+  
+  /**
+   * Writes all available bytes to {@code out} and returns their
+   * number. Must be called by the consumer only.
+   */
+  public int drainTo(OutputStream out) throws IOException {
+    long pos = head.get();
+    int  len = (int) (tail.get() - pos);
+    
+    if (len == 0) {
+      return 0;
+    }
+    
+    int idx  = (int) pos & mask;
+    int len0 = Math.min(len, array.length - idx);
+    
+    out.write(array, idx, len0);
+    
+    if (len0 < len) {
+      out.write(array, 0, len - len0);
+    }
+    
+    head.set(pos + len);
+    
+    return len;
+  }
+  
+  /**
+   * Discards all available bytes. Must be called by the consumer only.
+   */
+  public void clear() {
+    head.set(tail.get());
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * ReplayFormat.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+public enum ReplayFormat {
+  /**
+   * The format shared with Neverball.
+   */
+  STANDARD(9, false, false),
+  
+  /**
+   * Compact command encoding.
+   */
+  COMPACT(10, true, false),
+  
+  /**
+   * Compact command encoding, deflated after the header.
+   * Trades seeking speed for size.
+   */
+  COMPACT_DEFLATED(11, true, true);
+  
+  private static final ReplayFormat[] ARRAY = values();
+  
+  public static ReplayFormat get(int version) {
+    for (ReplayFormat format: ARRAY) {
+      if (format.version == version) {
+        return format;
+      }
+    }
+    
+    return null;
+  }
+  
+  private final int     version;
+  private final boolean compact;
+  private final boolean deflated;
+  
+  ReplayFormat(int version, boolean compact, boolean deflated) {
+    this.version  = version;
+    this.compact  = compact;
+    this.deflated = deflated;
+  }
+  
+  public int getVersion() {
+    return version;
+  }
+  
+  public boolean isCompact() {
+    return compact;
+  }
+  
+  public boolean isDeflated() {
+    return deflated;
+  }
+}
@@ -19,14 +19,42 @@ package com.uppgarn.nuncabola.core.replay;
 
 import com.uppgarn.nuncabola.core.game.*;
 
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.replay.ReplayKeyframeIOTool.*;
+
 import com.uppgarn.codelibf.io.*;
 
 import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
 
 public final class ReplayGameServer extends GameServer {
   private final Source src;
   
-  private InputStream in;
+  private ReplayFormat format;
+  private long         headerLen;
+  
+  /**
+   * Positioned relative to the end of the header.
+   */
+  private PositionInputStream in;
+  
+  /**
+   * Context of the compact command encoding.
+   */
+  private final CommandDelta delta;
+  
+  /**
+   * Seek targets. Filled from the index at the end of the replay
+   * if there is one, and otherwise built up lazily during playback.
+   */
+  private final ReplayIndex index;
+  
+  /**
+   * Index of the current update.
+   */
+  private int updateIdx;
   
   private boolean errorOccurred;
   private boolean closed;
@@ -36,39 +64,151 @@ public final class ReplayGameServer extends GameServer {
     
     // Open replay.
     
-    InputStream in;
+    PositionInputStream in;
     
     try {
-      in = new BufferedInputStream(src.newInputStream());
+      // Read header.
       
-      // Skip header.
-      
-      try {
-        ReplayInfoReadTool.readReplayInfo(in);
-      } catch (IOException ex) {
-        // An error occurred, close replay.
-        
-        try {
-          in.close();
-        } catch (IOException ex0) {
-        }
-        
-        in = null;
+      try (PositionInputStream headerIn = new PositionInputStream(
+          new BufferedInputStream(src.newInputStream()),
+          0)) {
+        format    = ReplayInfoReadTool.readReplayInfo(headerIn).getFormat();
+        headerLen = headerIn.getPosition();
       }
-    } catch (SourceException ex) {
+      
+      in = open(0);
+    } catch (IOException ex) {
       // Replay opening failed.
       
+      format    = ReplayFormat.STANDARD;
+      headerLen = 0;
+      
       in = null;
     }
     
     this.in = in;
     
+    delta = new CommandDelta();
+    
+    index = (in == null) ? new ReplayIndex() : loadIndex();
+    
+    updateIdx = -1;
+    
     errorOccurred = this.in == null;
     closed        = false;
     
     readUpdate();
   }
   
+  private ReplayIndex loadIndex() {
+    Path file = src.getFile();
+    
+    if ((file != null) && !format.isDeflated()) {
+      try {
+        ReplayIndex index = ReplayKeyframeReadTool.readIndex(file);
+        
+        if (index != null) {
+          return index;
+        }
+      } catch (IOException ex) {
+      }
+    }
+    
+    return new ReplayIndex();
+  }
+  
+  private static void skipFully(InputStream in, long len) throws IOException {
+    for (long count = 0; count < len;) {
+      long skipped = in.skip(len - count);
+      
+      if (skipped > 0) {
+        count += skipped;
+      } else if (in.read() != -1) {
+        count++;
+      } else {
+        throw new EOFException();
+      }
+    }
+  }
+  
+  /**
+   * Opens the replay at the given offset from the end of the header.
+   */
+  private PositionInputStream open(long offset) throws IOException {
+    Path file = src.getFile();
+    
+    if ((file != null) && !format.isDeflated()) {
+      SeekableByteChannel channel = Files.newByteChannel(file);
+      
+      try {
+        channel.position(headerLen + offset);
+      } catch (IOException ex) {
+        channel.close();
+        
+        throw ex;
+      }
+      
+      return new PositionInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel)),
+        offset);
+    }
+    
+    InputStream in = new BufferedInputStream(src.newInputStream());
+    
+    try {
+      skipFully(in, headerLen);
+      
+      if (format.isDeflated()) {
+        in = new BufferedInputStream(new InflatingInputStream(in));
+      }
+      
+      skipFully(in, offset);
+    } catch (IOException ex) {
+      in.close();
+      
+      throw ex;
+    }
+    
+    return new PositionInputStream(in, offset);
+  }
+  
+  /**
+   * Skips keyframe and index commands, remembering keyframes
+   * not yet indexed.
+   */
+  private void skipKeyframes() throws IOException {
+    while (true) {
+      long pos = in.getPosition();
+      
+      in.mark(1);
+      
+      int id = in.read();
+      
+      in.reset();
+      
+      if (id == KEYFRAME_ID) {
+        readUnsignedByte(in);
+        
+        int len    = readUnsignedShort(in);
+        int update = readInt(in);
+        
+        InputStreamTool.skip(in, len - 4);
+        
+        index.add(new ReplayIndex.Entry(update, pos));
+        
+        // Updates following a keyframe are encoded from scratch.
+        
+        delta.reset();
+      } else if (id == INDEX_ID) {
+        readUnsignedByte(in);
+        
+        InputStreamTool.skip(in, readUnsignedShort(in));
+      } else {
+        break;
+      }
+    }
+  }
+  
   private void readUpdate() {
     if (errorOccurred) {
       return;
@@ -78,10 +218,18 @@ public final class ReplayGameServer extends GameServer {
       Command cmd;
       
       do {
-        cmd = CommandReadTool.readCommand(in);
+        skipKeyframes();
+        
+        if (format.isCompact()) {
+          cmd = CommandReadTool.readCompactCommand(in, delta);
+        } else {
+          cmd = CommandReadTool.readCommand(in);
+        }
         
         sendCommand(cmd);
       } while (cmd.getType() != Command.Type.END_OF_UPDATE);
+      
+      updateIdx++;
     } catch (IOException ex) {
       errorOccurred = true;
     }
@@ -95,6 +243,104 @@ public final class ReplayGameServer extends GameServer {
     readUpdate();
   }
   
+  /**
+   * Returns the index of the current update.
+   */
+  public int getUpdateIndex() {
+    return updateIdx;
+  }
+  
+  /**
+   * Remembers the state at the end of the current update as
+   * a seek target, if no target lies within the last keyframe
+   * interval. This lets replays without keyframes seek backward.
+   */
+  public void indexState(Game game, GameClient client) {
+    assert !closed;
+    
+    if (errorOccurred || getCommands().isEmpty()) {
+      return;
+    }
+    
+    ReplayIndex.Entry last = index.find(updateIdx);
+    
+    if ((last == null) || (updateIdx - last.update >= INTERVAL)) {
+      index.add(new ReplayIndex.Entry(
+        updateIdx,
+        in.getPosition(),
+        new Game(game),
+        client.getRate(),
+        client.getCurrentBallIndex(),
+        new CommandDelta(delta)));
+    }
+  }
+  
+  /**
+   * Moves to the end of the given update, or to the end of
+   * the replay if it is shorter. The state is restored into
+   * {@code game} and {@code client} from the nearest seek target
+   * before it, and any remaining updates are executed through
+   * {@code client}. The current commands have already been executed
+   * and are only kept to indicate whether the replay is over.
+   */
+  public void seek(int update, Game game, GameClient client) {
+    assert !closed;
+    
+    ReplayIndex.Entry entry = index.find(update);
+    
+    if ((entry != null)
+        && ((update < updateIdx) || (entry.update > updateIdx))) {
+      // Restart from the seek target.
+      
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException ex) {
+        }
+      }
+      
+      try {
+        in = open(entry.offset);
+        
+        if (entry.game == null) {
+          ReplayKeyframeReadTool.readKeyframe(in, game, client);
+          
+          delta.reset();
+        } else {
+          game.copyFrom(entry.game);
+          
+          client.restore(entry.rate, entry.currBallIdx);
+          
+          delta.copyFrom(entry.delta);
+        }
+        
+        errorOccurred = false;
+      } catch (IOException ex) {
+        errorOccurred = true;
+      }
+      
+      updateIdx = entry.update;
+      
+      clearCommands();
+      
+      if (!errorOccurred) {
+        sendCommand(Command.EndOfUpdate.INSTANCE);
+      }
+    }
+    
+    // Play forward.
+    
+    while ((updateIdx < update) && !getCommands().isEmpty()) {
+      step();
+      
+      for (Command cmd: getCommands()) {
+        client.execute(cmd);
+      }
+      
+      indexState(game, client);
+    }
+  }
+  
   public void close() {
     if (closed) {
       return;
@@ -111,4 +357,88 @@ public final class ReplayGameServer extends GameServer {
     
     closed = true;
   }
+  
+  /**
+   * Ends its inflater when closed.
+   */
+  private static final class InflatingInputStream
+      extends InflaterInputStream {
+    public InflatingInputStream(InputStream in) {
+      super(in, new Inflater());
+    }
+    
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        inf.end();
+      }
+    }
+  }
+  
+  /**
+   * Keeps track of the stream position, including across
+   * mark and reset.
+   */
+  private static final class PositionInputStream extends FilterInputStream {
+    private long pos;
+    private long markPos;
+    
+    public PositionInputStream(InputStream in, long pos) {
+      super(in);
+      
+      this.pos = pos;
+      markPos  = pos;
+    }
+    
+    public long getPosition() {
+      return pos;
+    }
+    
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      
+      if (b != -1) {
+        pos++;
+      }
+      
+      return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      
+      if (count > 0) {
+        pos += count;
+      }
+      
+      return count;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+      long count = super.skip(n);
+      
+      pos += count;
+      
+      return count;
+    }
+    
+    @Override
+    public void mark(int readLimit) {
+      super.mark(readLimit);
+      
+      markPos = pos;
+    }
+    
+    @Override
+    public void reset() throws IOException {
+      super.reset();
+      
+      pos = markPos;
+    }
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * ReplayIndex.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.nuncabola.core.game.*;
+
+import java.util.*;
+
+/**
+ * Seek targets of a replay, sorted by update.
+ */
+final class ReplayIndex {
+  private final List<Entry> entries;
+  
+  public ReplayIndex() {
+    entries = new ArrayList<>();
+  }
+  
+  public int getEntryCount() {
+    return entries.size();
+  }
+  
+  public Entry getEntry(int idx) {
+    return entries.get(idx);
+  }
+  
+  /**
+   * Returns the index of the last entry at or before
+   * {@code update}, or -1.
+   */
+  private int search(int update) {
+    int lo = 0;
+    int hi = entries.size() - 1;
+    
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      
+      if (entries.get(mid).update <= update) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    
+    return hi;
+  }
+  
+  /**
+   * Returns the last entry at or before {@code update}, or null.
+   */
+  public Entry find(int update) {
+    int idx = search(update);
+    
+    return (idx == -1) ? null : entries.get(idx);
+  }
+  
+  /**
+   * Adds an entry, unless there already is one for its update.
+   */
+  public void add(Entry entry) {
+    int idx = search(entry.update);
+    
+    if ((idx == -1) || (entries.get(idx).update != entry.update)) {
+      entries.add(idx + 1, entry);
+    }
+  }
+  
+  public static final class Entry {
+    /**
+     * Index of the update at whose end the state is captured.
+     */
+    public final int update;
+    
+    /**
+     * Offset from the end of the header of the keyframe command or,
+     * for in-memory entries, of the next update.
+     */
+    public final long offset;
+    
+    /**
+     * In-memory state, or null if it is stored as a keyframe.
+     */
+    public final Game         game;
+    public final Rate         rate;
+    public final int          currBallIdx;
+    public final CommandDelta delta;
+    
+    public Entry(int update, long offset) {
+      this(update, offset, null, null, 0, null);
+    }
+    
+    public Entry(
+        int          update,
+        long         offset,
+        Game         game,
+        Rate         rate,
+        int          currBallIdx,
+        CommandDelta delta) {
+      this.update      = update;
+      this.offset      = offset;
+      this.game        = game;
+      this.rate        = rate;
+      this.currBallIdx = currBallIdx;
+      this.delta       = delta;
+    }
+  }
+}
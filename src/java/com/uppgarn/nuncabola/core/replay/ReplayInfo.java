@@ -23,6 +23,8 @@ import com.uppgarn.nuncabola.core.series.*;
 import java.time.*;
 
 public final class ReplayInfo {
+  private ReplayFormat format;
+  
   private SeriesMode mode;
   
   private String player;
@@ -40,6 +42,8 @@ public final class ReplayInfo {
   private int     coins;
   
   public ReplayInfo() {
+    format = ReplayFormat.STANDARD;
+    
     mode = SeriesMode.NORMAL;
     
     player     = "";
@@ -58,6 +62,8 @@ public final class ReplayInfo {
   }
   
   public ReplayInfo(Series series) {
+    format = ReplayFormat.STANDARD;
+    
     mode = series.getMode();
     
     player     = series.getPlayer();
@@ -75,6 +81,14 @@ public final class ReplayInfo {
     coins         = series.getCoins();
   }
   
+  public ReplayFormat getFormat() {
+    return format;
+  }
+  
+  public void setFormat(ReplayFormat format) {
+    this.format = format;
+  }
+  
   public SeriesMode getMode() {
     return mode;
   }
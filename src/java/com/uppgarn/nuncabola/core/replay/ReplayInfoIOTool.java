@@ -21,8 +21,7 @@ import java.time.*;
 import java.time.format.*;
 
 final class ReplayInfoIOTool {
-  public static final int MAGIC   = 0x52424EAF;
-  public static final int VERSION = 9;
+  public static final int MAGIC = 0x52424EAF;
   
   public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter
     .ofPattern("yyyy-MM-dd'T'HH:mm:ss")
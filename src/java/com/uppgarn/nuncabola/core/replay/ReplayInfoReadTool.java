@@ -61,15 +61,17 @@ public final class ReplayInfoReadTool {
   }
   
   public static ReplayInfo readReplayInfo(InputStream in) throws IOException {
-    int magic   = readInt(in);
-    int version = readInt(in);
+    int          magic  = readInt(in);
+    ReplayFormat format = ReplayFormat.get(readInt(in));
     
-    if ((magic != MAGIC) || (version != VERSION)) {
+    if ((magic != MAGIC) || (format == null)) {
       throw new InvalidDataException();
     }
     
     ReplayInfo info = new ReplayInfo();
     
+    info.setFormat(format);
+    
     info.setTime  (readInt(in));
     info.setCoins (readInt(in));
     info.setStatus(getStatus(readInt(in)));
@@ -0,0 +1,44 @@
+/*
+ * ReplayKeyframeIOTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+/**
+ * Keyframes and the keyframe index are stored as commands with IDs
+ * unknown to the command protocol, which readers skip.
+ */
+final class ReplayKeyframeIOTool {
+  public static final int KEYFRAME_ID = 0xF0;
+  public static final int INDEX_ID    = 0xF1;
+  
+  public static final int INDEX_MAGIC = 0x58444E49;
+  
+  /**
+   * Command ID and length.
+   */
+  public static final int HEADER_LENGTH = 3;
+  
+  public static final int MAX_LENGTH = 0xFFFF;
+  
+  /**
+   * Number of updates between keyframes.
+   */
+  public static final int INTERVAL = 450;
+  
+  private ReplayKeyframeIOTool() {
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * ReplayKeyframeReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.nuncabola.core.game.*;
+import com.uppgarn.nuncabola.core.math.*;
+import com.uppgarn.nuncabola.core.solid.*;
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.replay.ReplayKeyframeIOTool.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class ReplayKeyframeReadTool {
+  private static Status getStatus(int value) {
+    switch (value) {
+      case 0: {
+        return Status.NONE;
+      }
+      case 1: {
+        return Status.TIME_OUT;
+      }
+      case 2: {
+        return Status.GOAL;
+      }
+      case 3: {
+        return Status.FALL_OUT;
+      }
+      
+      default: {
+        return Status.NONE;
+      }
+    }
+  }
+  
+  private static boolean readBoolean(InputStream in) throws IOException {
+    return readInt(in) != 0;
+  }
+  
+  private static void readVector3(InputStream in, Vector3 v)
+      throws IOException {
+    v.x = readFloat(in);
+    v.y = readFloat(in);
+    v.z = readFloat(in);
+  }
+  
+  private static void readBasis3(InputStream in, Basis3 e)
+      throws IOException {
+    readVector3(in, e.x);
+    readVector3(in, e.y);
+    readVector3(in, e.z);
+  }
+  
+  private static int readCount(InputStream in, int expected)
+      throws IOException {
+    int count = readInt(in);
+    
+    if ((count < 0) || ((expected >= 0) && (count != expected))) {
+      throw new InvalidDataException();
+    }
+    
+    return count;
+  }
+  
+  /**
+   * Reads a keyframe command into {@code game} and {@code client}
+   * and returns the update it was captured at. Particles are
+   * not part of keyframes and are left alone.
+   */
+  public static int readKeyframe(
+      InputStream in,
+      Game        game,
+      GameClient  client) throws IOException {
+    if (readUnsignedByte(in) != KEYFRAME_ID) {
+      throw new InvalidDataException();
+    }
+    
+    readUnsignedShort(in);
+    
+    int update = readInt(in);
+    
+    game.levelOverride.setMajorVersion(readInt(in));
+    game.levelOverride.setMinorVersion(readInt(in));
+    
+    int ups         = readInt(in);
+    int currBallIdx = readInt(in);
+    
+    if (ups <= 0) {
+      throw new InvalidDataException();
+    }
+    
+    game.goalsUnlocked = readBoolean(in);
+    game.goalFactor    = readFloat  (in);
+    
+    game.teleEnabled    = readBoolean(in);
+    game.teleInProgress = readBoolean(in);
+    game.teleT          = readFloat  (in);
+    
+    readVector3(in, game.tilt.x);
+    game.tilt.rx = readFloat(in);
+    readVector3(in, game.tilt.z);
+    game.tilt.rz = readFloat(in);
+    
+    readVector3(in, game.view.p);
+    readVector3(in, game.view.c);
+    readBasis3 (in, game.view.e);
+    
+    game.status     = getStatus(readInt(in));
+    game.time       = readInt(in);
+    game.gainedTime = readInt(in);
+    game.coins      = readInt(in);
+    
+    Solid sol = game.sol;
+    
+    readCount(in, sol.paths.length);
+    
+    for (int idx = 0; idx < sol.paths.length; idx++) {
+      sol.paths[idx].enabled = readBoolean(in);
+    }
+    
+    readCount(in, sol.movers.length);
+    
+    for (Mover mover: sol.movers) {
+      int pathIdx = readInt(in);
+      
+      if ((pathIdx < 0) || (pathIdx >= sol.paths.length)) {
+        throw new InvalidDataException();
+      }
+      
+      mover.pathIdx = pathIdx;
+      mover.t       = readFloat(in);
+    }
+    
+    readCount(in, sol.switches.length);
+    
+    for (Switch zwitch: sol.switches) {
+      zwitch.enabled    = readBoolean(in);
+      zwitch.ballInside = readBoolean(in);
+    }
+    
+    Item[] items = new Item[readCount(in, -1)];
+    
+    for (int idx = 0; idx < items.length; idx++) {
+      Item item = new Item();
+      
+      readVector3(in, item.p);
+      item.type  = readInt(in);
+      item.value = readInt(in);
+      
+      items[idx] = item;
+    }
+    
+    Ball[] balls = new Ball[readCount(in, -1)];
+    
+    for (int idx = 0; idx < balls.length; idx++) {
+      Ball ball = new Ball();
+      
+      readVector3(in, ball.p);
+      ball.r = readFloat(in);
+      readBasis3(in, ball.e);
+      readBasis3(in, ball.e_);
+      
+      balls[idx] = ball;
+    }
+    
+    sol.items = items;
+    sol.balls = balls;
+    
+    client.restore(new Rate(ups), currBallIdx);
+    
+    return update;
+  }
+  
+  /**
+   * Reads the keyframe index at the end of a replay file.
+   * Returns null if there is none.
+   */
+  public static ReplayIndex readIndex(java.nio.file.Path file)
+      throws IOException {
+    try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+      long size = channel.size();
+      
+      if (size < HEADER_LENGTH + 8) {
+        return null;
+      }
+      
+      byte[] tail = new byte[8];
+      
+      readFully(channel, size - 8, tail);
+      
+      InputStream tailIn = new ByteArrayInputStream(tail);
+      
+      int count = readInt(tailIn);
+      int magic = readInt(tailIn);
+      
+      if ((magic != INDEX_MAGIC)
+          || (count < 0)
+          || (count > (MAX_LENGTH - 8) / 8)) {
+        return null;
+      }
+      
+      int  len   = count * 8 + 8;
+      long start = size - len - HEADER_LENGTH;
+      
+      if (start < 0) {
+        return null;
+      }
+      
+      byte[] bytes = new byte[HEADER_LENGTH + len];
+      
+      readFully(channel, start, bytes);
+      
+      InputStream in = new ByteArrayInputStream(bytes);
+      
+      if ((readUnsignedByte(in) != INDEX_ID)
+          || (readUnsignedShort(in) != len)) {
+        return null;
+      }
+      
+      ReplayIndex index = new ReplayIndex();
+      
+      for (int idx = 0; idx < count; idx++) {
+        int update = readInt(in);
+        int offset = readInt(in);
+        
+        if ((update < 0) || (offset < 0) || (offset >= start)) {
+          throw new InvalidDataException();
+        }
+        
+        index.add(new ReplayIndex.Entry(update, offset));
+      }
+      
+      return index;
+    }
+  }
+  
+  private static void readFully(
+      SeekableByteChannel channel,
+      long                pos,
+      byte[]              bytes) throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(bytes);
+    
+    channel.position(pos);
+    
+    while (buf.hasRemaining()) {
+      if (channel.read(buf) == -1) {
+        throw new EOFException();
+      }
+    }
+  }
+  
+  private ReplayKeyframeReadTool() {
+  }
+}
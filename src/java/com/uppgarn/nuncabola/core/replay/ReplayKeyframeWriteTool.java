@@ -0,0 +1,196 @@
+/*
+ * ReplayKeyframeWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.nuncabola.core.game.*;
+import com.uppgarn.nuncabola.core.math.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.core.replay.ReplayKeyframeIOTool.*;
+
+import java.io.*;
+
+final class ReplayKeyframeWriteTool {
+  private static int getStatusInt(Status status) {
+    switch (status) {
+      case NONE: {
+        return 0;
+      }
+      case GOAL: {
+        return 2;
+      }
+      case FALL_OUT: {
+        return 3;
+      }
+      case TIME_OUT: {
+        return 1;
+      }
+      
+      default: {
+        throw new AssertionError();
+      }
+    }
+  }
+  
+  private static int getKeyframeLength(Game game) {
+    Solid sol = game.sol;
+    
+    return 148
+      + 4 + sol.paths   .length * 4
+      + 4 + sol.movers  .length * 8
+      + 4 + sol.switches.length * 8
+      + 4 + sol.items   .length * 20
+      + 4 + sol.balls   .length * 88;
+  }
+  
+  private static void writeBoolean(OutputStream out, boolean value)
+      throws IOException {
+    writeInt(out, value ? 1 : 0);
+  }
+  
+  private static void writeVector3(OutputStream out, Vector3 v)
+      throws IOException {
+    writeFloat(out, v.x);
+    writeFloat(out, v.y);
+    writeFloat(out, v.z);
+  }
+  
+  private static void writeBasis3(OutputStream out, Basis3 e)
+      throws IOException {
+    writeVector3(out, e.x);
+    writeVector3(out, e.y);
+    writeVector3(out, e.z);
+  }
+  
+  /**
+   * Writes a keyframe of the state at the end of {@code update}.
+   * Returns false without writing anything if the state is too large
+   * to fit into a command.
+   */
+  public static boolean writeKeyframe(
+      OutputStream out,
+      int          update,
+      Game         game,
+      GameClient   client) throws IOException {
+    int len = getKeyframeLength(game);
+    
+    if (len > MAX_LENGTH) {
+      return false;
+    }
+    
+    out.write(KEYFRAME_ID);
+    writeShort(out, len);
+    
+    writeInt(out, update);
+    
+    writeInt(out, game.levelOverride.getMajorVersion());
+    writeInt(out, game.levelOverride.getMinorVersion());
+    
+    writeInt(out, client.getRate().getUPS());
+    writeInt(out, client.getCurrentBallIndex());
+    
+    writeBoolean(out, game.goalsUnlocked);
+    writeFloat  (out, game.goalFactor);
+    
+    writeBoolean(out, game.teleEnabled);
+    writeBoolean(out, game.teleInProgress);
+    writeFloat  (out, game.teleT);
+    
+    writeVector3(out, game.tilt.x);
+    writeFloat  (out, game.tilt.rx);
+    writeVector3(out, game.tilt.z);
+    writeFloat  (out, game.tilt.rz);
+    
+    writeVector3(out, game.view.p);
+    writeVector3(out, game.view.c);
+    writeBasis3 (out, game.view.e);
+    
+    writeInt(out, getStatusInt(game.status));
+    writeInt(out, game.time);
+    writeInt(out, game.gainedTime);
+    writeInt(out, game.coins);
+    
+    Solid sol = game.sol;
+    
+    writeInt(out, sol.paths.length);
+    
+    for (Path path: sol.paths) {
+      writeBoolean(out, path.enabled);
+    }
+    
+    writeInt(out, sol.movers.length);
+    
+    for (Mover mover: sol.movers) {
+      writeInt  (out, mover.pathIdx);
+      writeFloat(out, mover.t);
+    }
+    
+    writeInt(out, sol.switches.length);
+    
+    for (Switch zwitch: sol.switches) {
+      writeBoolean(out, zwitch.enabled);
+      writeBoolean(out, zwitch.ballInside);
+    }
+    
+    writeInt(out, sol.items.length);
+    
+    for (Item item: sol.items) {
+      writeVector3(out, item.p);
+      writeInt    (out, item.type);
+      writeInt    (out, item.value);
+    }
+    
+    writeInt(out, sol.balls.length);
+    
+    for (Ball ball: sol.balls) {
+      writeVector3(out, ball.p);
+      writeFloat  (out, ball.r);
+      writeBasis3 (out, ball.e);
+      writeBasis3 (out, ball.e_);
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Writes the keyframe index. It ends with the entry count and
+   * a magic number, so it can be found from the end of the stream.
+   * Entries beyond what fits into a command are left out.
+   */
+  public static void writeIndex(OutputStream out, ReplayIndex index)
+      throws IOException {
+    int count = Math.min(index.getEntryCount(), (MAX_LENGTH - 8) / 8);
+    
+    out.write(INDEX_ID);
+    writeShort(out, count * 8 + 8);
+    
+    for (int idx = 0; idx < count; idx++) {
+      ReplayIndex.Entry entry = index.getEntry(idx);
+      
+      writeInt(out, entry.update);
+      writeInt(out, (int) entry.offset);
+    }
+    
+    writeInt(out, count);
+    writeInt(out, INDEX_MAGIC);
+  }
+  
+  private ReplayKeyframeWriteTool() {
+  }
+}
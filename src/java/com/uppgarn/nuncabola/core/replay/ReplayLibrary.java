@@ -0,0 +1,180 @@
+/*
+ * ReplayLibrary.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+/**
+ * Headers of the replay files in a directory, stored by file name
+ * together with the size and modification time of the file they
+ * were read from.
+ * <p>
+ * Instances are safe for use by multiple threads.
+ */
+public final class ReplayLibrary {
+  private final Map<String, Entry> entries;
+  
+  private boolean dirty;
+  private long    revision;
+  
+  public ReplayLibrary() {
+    entries  = new HashMap<>();
+    dirty    = false;
+    revision = 0;
+  }
+  
+  /**
+   * Returns the entry stored for the given file name, which may be
+   * outdated, or null.
+   */
+  public synchronized Entry get(String name) {
+    return entries.get(name);
+  }
+  
+  public synchronized void put(Entry entry) {
+    entries.put(entry.getName(), entry);
+    
+    dirty = true;
+    revision++;
+  }
+  
+  public synchronized void remove(String name) {
+    if (entries.remove(name) != null) {
+      dirty = true;
+      revision++;
+    }
+  }
+  
+  /**
+   * Removes all entries whose names are not contained
+   * in {@code names}.
+   */
+  public synchronized void retain(Collection<String> names) {
+    if (entries.keySet().retainAll(names)) {
+      dirty = true;
+      revision++;
+    }
+  }
+  
+  /**
+   * Returns an up-to-date entry for {@code file}, reading its header
+   * if the stored entry is missing or outdated. Returns null if the
+   * file no longer exists.
+   */
+  public Entry refresh(java.nio.file.Path file) {
+    String name = file.getFileName().toString();
+    
+    BasicFileAttributes attrs;
+    
+    try {
+      attrs = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException ex) {
+      remove(name);
+      
+      return null;
+    }
+    
+    long size = attrs.size();
+    long time = attrs.lastModifiedTime().toMillis();
+    
+    Entry entry = get(name);
+    
+    if ((entry != null) && entry.matches(size, time)) {
+      return entry;
+    }
+    
+    ReplayInfo info;
+    
+    try {
+      info = ReplayInfoReadTool.readReplayInfo(file);
+    } catch (IOException ex) {
+      // An interrupted read says nothing about the file.
+      
+      if (Thread.currentThread().isInterrupted()) {
+        return null;
+      }
+      
+      info = null;
+    }
+    
+    entry = new Entry(name, size, time, info);
+    
+    put(entry);
+    
+    return entry;
+  }
+  
+  /**
+   * Returns a number that changes whenever entries change.
+   */
+  public synchronized long getRevision() {
+    return revision;
+  }
+  
+  public synchronized boolean isDirty() {
+    return dirty;
+  }
+  
+  public synchronized void setClean() {
+    dirty = false;
+  }
+  
+  synchronized List<Entry> getEntries() {
+    return new ArrayList<>(entries.values());
+  }
+  
+  public static final class Entry {
+    private final String     name;
+    private final long       size;
+    private final long       time;
+    private final ReplayInfo info;
+    
+    public Entry(String name, long size, long time, ReplayInfo info) {
+      this.name = name;
+      this.size = size;
+      this.time = time;
+      this.info = info;
+    }
+    
+    public String getName() {
+      return name;
+    }
+    
+    public long getSize() {
+      return size;
+    }
+    
+    public long getTime() {
+      return time;
+    }
+    
+    /**
+     * Returns the header, or null if the file is not a valid replay.
+     */
+    public ReplayInfo getInfo() {
+      return info;
+    }
+    
+    public boolean matches(long size, long time) {
+      return (this.size == size) && (this.time == time);
+    }
+  }
+}
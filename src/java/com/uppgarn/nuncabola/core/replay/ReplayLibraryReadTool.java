@@ -0,0 +1,71 @@
+/*
+ * ReplayLibraryReadTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.nuncabola.core.util.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.replay.ReplayLibraryIOTool.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+public final class ReplayLibraryReadTool {
+  public static ReplayLibrary readReplayLibrary(InputStream in)
+      throws IOException {
+    int magic   = readInt(in);
+    int version = readInt(in);
+    
+    if ((magic != MAGIC) || (version != VERSION)) {
+      throw new InvalidDataException();
+    }
+    
+    int count = readInt(in);
+    
+    if (count < 0) {
+      throw new InvalidDataException();
+    }
+    
+    ReplayLibrary lib = new ReplayLibrary();
+    
+    for (int idx = 0; idx < count; idx++) {
+      String name  = readString      (in);
+      long   size  = readLong        (in);
+      long   time  = readLong        (in);
+      int    valid = readUnsignedByte(in);
+      
+      ReplayInfo info = (valid != 0) ? ReplayInfoReadTool.readReplayInfo(in)
+                                     : null;
+      
+      lib.put(new ReplayLibrary.Entry(name, size, time, info));
+    }
+    
+    lib.setClean();
+    
+    return lib;
+  }
+  
+  public static ReplayLibrary readReplayLibrary(Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+      return readReplayLibrary(in);
+    }
+  }
+  
+  private ReplayLibraryReadTool() {
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * ReplayLibraryScanner.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.codelibf.util.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps a {@link ReplayLibrary} up to date in the background.
+ * <p>
+ * The thread first refreshes the entries of all replay files in the
+ * directory, then follows changes to the directory. The library is
+ * saved whenever changes have settled.
+ */
+public final class ReplayLibraryScanner extends TerminableThread {
+  /**
+   * Time in seconds without further changes after which the library
+   * is saved.
+   */
+  private static final int SAVE_DELAY = 2;
+  
+  private final ReplayLibrary      lib;
+  private final java.nio.file.Path dir;
+  private final String             extension;
+  private final java.nio.file.Path libFile;
+  
+  public ReplayLibraryScanner(
+      ReplayLibrary      lib,
+      java.nio.file.Path dir,
+      String             extension,
+      java.nio.file.Path libFile) {
+    super("ReplayLibraryScanner");
+    
+    this.lib       = lib;
+    this.dir       = dir;
+    this.extension = extension;
+    this.libFile   = libFile;
+    
+    setDaemon(true);
+  }
+  
+  private boolean isReplayFile(java.nio.file.Path file) {
+    return file.getFileName().toString().endsWith(extension);
+  }
+  
+  private void save() {
+    if (lib.isDirty()) {
+      lib.setClean();
+      
+      try {
+        ReplayLibraryWriteTool.writeReplayLibrary(libFile, lib);
+      } catch (IOException ex) {
+      }
+    }
+  }
+  
+  private void scan() {
+    Set<String> names = new HashSet<>();
+    
+    try (DirectoryStream<java.nio.file.Path> stream =
+        Files.newDirectoryStream(dir)) {
+      for (java.nio.file.Path file: stream) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        if (isReplayFile(file) && Files.isRegularFile(file)) {
+          names.add(file.getFileName().toString());
+          
+          lib.refresh(file);
+        }
+      }
+    } catch (IOException | DirectoryIteratorException ex) {
+      return;
+    }
+    
+    lib.retain(names);
+  }
+  
+  private void handle(WatchEvent<?> event) {
+    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+      scan();
+      
+      return;
+    }
+    
+    java.nio.file.Path file = dir.resolve((java.nio.file.Path) event.context());
+    
+    if (isReplayFile(file)) {
+      lib.refresh(file);
+    }
+  }
+  
+  private void watch(WatchService service) throws InterruptedException {
+    while (!Thread.currentThread().isInterrupted()) {
+      WatchKey key = service.poll(SAVE_DELAY, TimeUnit.SECONDS);
+      
+      if (key == null) {
+        save();
+        
+        key = service.take();
+      }
+      
+      for (WatchEvent<?> event: key.pollEvents()) {
+        handle(event);
+      }
+      
+      if (!key.reset()) {
+        break;
+      }
+    }
+  }
+  
+  @Override
+  public void run() {
+    try (WatchService service = dir.getFileSystem().newWatchService()) {
+      // Register before scanning so that no change is missed.
+      
+      dir.register(
+        service,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+      
+      scan();
+      save();
+      
+      watch(service);
+    } catch (IOException ex) {
+      // Without a watch service, a single scan must do.
+      
+      scan();
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      // Allow thread to exit.
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * ReplayLibraryWriteTool.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.core.replay.ReplayLibraryIOTool.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public final class ReplayLibraryWriteTool {
+  public static void writeReplayLibrary(OutputStream out, ReplayLibrary lib)
+      throws IOException {
+    List<ReplayLibrary.Entry> entries = lib.getEntries();
+    
+    writeInt(out, MAGIC);
+    writeInt(out, VERSION);
+    writeInt(out, entries.size());
+    
+    for (ReplayLibrary.Entry entry: entries) {
+      writeString(out, entry.getName());
+      writeLong  (out, entry.getSize());
+      writeLong  (out, entry.getTime());
+      
+      if (entry.getInfo() != null) {
+        out.write(1);
+        
+        ReplayInfoWriteTool.writeReplayInfo(out, entry.getInfo());
+      } else {
+        out.write(0);
+      }
+    }
+  }
+  
+  public static void writeReplayLibrary(Path file, ReplayLibrary lib)
+      throws IOException {
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(file))) {
+      writeReplayLibrary(out, lib);
+    }
+  }
+  
+  private ReplayLibraryWriteTool() {
+  }
+}
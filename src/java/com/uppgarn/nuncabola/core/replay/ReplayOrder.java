@@ -0,0 +1,65 @@
+/*
+ * ReplayOrder.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import java.util.*;
+
+public enum ReplayOrder {
+  NAME {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return 0;
+    }
+  },
+  PLAYER {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return info1.getPlayer().compareToIgnoreCase(info2.getPlayer());
+    }
+  },
+  LEVEL {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return info1.getLevelPath().compareTo(info2.getLevelPath());
+    }
+  },
+  STATUS {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return info1.getStatus().compareTo(info2.getStatus());
+    }
+  },
+  TIME {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return Integer.compare(info1.getTime(), info2.getTime());
+    }
+  },
+  DATE {
+    @Override
+    public int compare(ReplayInfo info1, ReplayInfo info2) {
+      return info2.getDate().compareTo(info1.getDate());
+    }
+  };
+  
+  /**
+   * Compares the headers of two replays. Replays that compare equal
+   * are expected to be kept in file-name order.
+   */
+  public abstract int compare(ReplayInfo info1, ReplayInfo info2);
+}
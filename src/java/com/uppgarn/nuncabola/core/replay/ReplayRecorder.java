@@ -25,21 +25,62 @@ import com.uppgarn.codelibf.util.*;
 import java.io.*;
 import java.nio.channels.*;
 import java.nio.file.*;
-import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
 
 public final class ReplayRecorder {
-  private final Path   file;
-  private final Series series;
+  /**
+   * What to do with an update that does not fit into the queue
+   * of the command thread.
+   */
+  public enum Backpressure {
+    /**
+     * Wait for the command thread to make room.
+     */
+    BLOCK,
+    
+    /**
+     * Drop the update and all following ones. The replay ends
+     * with the last complete update that was queued.
+     */
+    DROP
+  }
+  
+  /**
+   * Default queue capacity in bytes, enough for about a minute
+   * of typical play.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+  
+  private final Path         file;
+  private final Series       series;
+  private final ReplayFormat format;
   
   private SeekableByteChannel channel;
   private OutputStream        out;
+  private Deflater            deflater;
+  private OutputStream        bodyOut;
   private CommandRecorder     cmdRecorder;
   
   private boolean closed;
   
   public ReplayRecorder(Path file, Series series) {
+    this(file, series, ReplayFormat.STANDARD);
+  }
+  
+  public ReplayRecorder(Path file, Series series, ReplayFormat format) {
+    this(file, series, format, Backpressure.BLOCK, DEFAULT_CAPACITY);
+  }
+  
+  public ReplayRecorder(
+      Path         file,
+      Series       series,
+      ReplayFormat format,
+      Backpressure backpressure,
+      int          capacity) {
     this.file   = file;
     this.series = series;
+    this.format = format;
     
     // Create replay.
     
@@ -57,7 +98,7 @@ public final class ReplayRecorder {
       // Write header.
       
       try {
-        ReplayInfoWriteTool.writeReplayInfo(out, new ReplayInfo(series));
+        ReplayInfoWriteTool.writeReplayInfo(out, createInfo());
         
         out.flush();
       } catch (IOException ex) {
@@ -81,17 +122,69 @@ public final class ReplayRecorder {
     this.channel = channel;
     this.out     = out;
     
+    // Set up the stream following the header.
+    
+    if ((this.channel != null) && format.isDeflated()) {
+      deflater = new Deflater(Deflater.BEST_COMPRESSION);
+      bodyOut  = new DeflaterOutputStream(this.out, deflater);
+    } else {
+      deflater = null;
+      bodyOut  = this.out;
+    }
+    
     // Create command recorder.
     
     if (this.channel == null) {
       cmdRecorder = null;
     } else {
-      cmdRecorder = CommandRecorder.create(this.out);
+      cmdRecorder = CommandRecorder.create(
+        bodyOut,
+        format.isCompact(),
+        backpressure,
+        capacity);
     }
     
     closed = false;
   }
   
+  private ReplayInfo createInfo() {
+    ReplayInfo info = new ReplayInfo(series);
+    info.setFormat(format);
+    
+    return info;
+  }
+  
+  /**
+   * Returns the number of bytes waiting to be written.
+   */
+  public int getQueuedBytes() {
+    return (cmdRecorder == null) ? 0 : cmdRecorder.ring.size();
+  }
+  
+  /**
+   * Returns the highest number of bytes that were waiting
+   * to be written at once.
+   */
+  public int getPeakQueuedBytes() {
+    return (cmdRecorder == null) ? 0 : cmdRecorder.peakQueuedBytes;
+  }
+  
+  /**
+   * Returns the number of updates that were not recorded because
+   * the queue was full.
+   */
+  public int getDroppedUpdateCount() {
+    return (cmdRecorder == null) ? 0 : cmdRecorder.droppedUpdateCount;
+  }
+  
+  /**
+   * Returns the number of times recording had to wait for room
+   * in the queue.
+   */
+  public int getBlockCount() {
+    return (cmdRecorder == null) ? 0 : cmdRecorder.blockCount;
+  }
+  
   public void record(Command cmd) {
     assert !closed;
     
@@ -102,6 +195,19 @@ public final class ReplayRecorder {
     }
   }
   
+  /**
+   * Records a keyframe of the client-side state if one is due.
+   * To be called after each complete update has been recorded
+   * and executed on {@code game} by {@code client}.
+   */
+  public void recordKeyframe(Game game, GameClient client) {
+    assert !closed;
+    
+    if (channel != null) {
+      cmdRecorder.recordKeyframe(game, client);
+    }
+  }
+  
   public void close() {
     if (closed) {
       return;
@@ -112,6 +218,27 @@ public final class ReplayRecorder {
       
       cmdRecorder.close();
       
+      // Append keyframe index. It cannot be found from the end of
+      // a deflated replay, where keyframes are found during playback.
+      
+      if ((cmdRecorder.index.getEntryCount() > 0) && (deflater == null)) {
+        try {
+          ReplayKeyframeWriteTool.writeIndex(out, cmdRecorder.index);
+        } catch (IOException ex) {
+        }
+      }
+      
+      // Finish deflating.
+      
+      if (deflater != null) {
+        try {
+          ((DeflaterOutputStream) bodyOut).finish();
+        } catch (IOException ex) {
+        }
+        
+        deflater.end();
+      }
+      
       // Rewrite header with updated data (status, time, coins).
       // This both assumes and requires that the header has
       // the same length it had when it was first written.
@@ -122,7 +249,7 @@ public final class ReplayRecorder {
         
         channel.position(0);
         
-        ReplayInfoWriteTool.writeReplayInfo(out, new ReplayInfo(series));
+        ReplayInfoWriteTool.writeReplayInfo(out, createInfo());
         
         out.flush();
       } catch (IOException ex) {
@@ -149,25 +276,104 @@ public final class ReplayRecorder {
   }
   
   private static final class CommandRecorder {
-    public static CommandRecorder create(OutputStream out) {
-      CommandRecorder instance = new CommandRecorder(out);
+    public static CommandRecorder create(
+        OutputStream out,
+        boolean      compact,
+        Backpressure backpressure,
+        int          capacity) {
+      CommandRecorder instance =
+        new CommandRecorder(out, compact, backpressure, capacity);
       instance.start();
       
       return instance;
     }
     
     private final OutputStream out;
+    private final Backpressure backpressure;
+    
+    /**
+     * Context of the compact command encoding, or null.
+     */
+    private final CommandDelta delta;
+    
+    /**
+     * Commands are encoded as soon as they are recorded, because
+     * game servers reuse command instances across updates.
+     * Each update is collected here and queued as a whole
+     * once it is complete.
+     */
+    private final UpdateBuffer updateBuf;
     
-    private Queue<Command> cmds;
+    /**
+     * Queue between the recording thread (producer) and
+     * the command thread (consumer).
+     */
+    private final ByteRing ring;
     
-    private TerminableThread thread;
+    private final CommandThread thread;
     
-    private CommandRecorder(OutputStream out) {
-      this.out = out;
+    /**
+     * Whether the command thread is about to park or parked.
+     */
+    private volatile boolean writerWaiting;
+    
+    /**
+     * The recording thread, while it waits for room in the queue.
+     */
+    private volatile Thread waitingProducer;
+    
+    /**
+     * Whether an update has been dropped, in which case all
+     * following updates are dropped as well.
+     */
+    private boolean dropping;
+    
+    /**
+     * Number of bytes queued so far. Keyframe offsets count from
+     * the end of the header, so that they survive header changes.
+     */
+    private long queuedByteCount;
+    
+    /**
+     * Number of updates recorded so far.
+     */
+    private int updateCount;
+    
+    /**
+     * Keyframes queued so far.
+     */
+    private final ReplayIndex index;
+    
+    private volatile int peakQueuedBytes;
+    private volatile int droppedUpdateCount;
+    private volatile int blockCount;
+    
+    private CommandRecorder(
+        OutputStream out,
+        boolean      compact,
+        Backpressure backpressure,
+        int          capacity) {
+      this.out          = out;
+      this.backpressure = backpressure;
+      
+      delta = compact ? new CommandDelta() : null;
       
-      cmds = new ArrayDeque<>();
+      updateBuf = new UpdateBuffer();
+      ring      = new ByteRing(capacity);
       
       thread = new CommandThread();
+      
+      writerWaiting   = false;
+      waitingProducer = null;
+      dropping        = false;
+      
+      queuedByteCount = 0;
+      updateCount     = 0;
+      index           = new ReplayIndex();
+      
+      peakQueuedBytes    = 0;
+      droppedUpdateCount = 0;
+      blockCount         = 0;
     }
     
     private void start() {
@@ -175,68 +381,217 @@ public final class ReplayRecorder {
     }
     
     public void record(Command cmd) {
-      synchronized (cmds) {
-        cmds.add(cmd);
-        cmds.notify();
+      try {
+        if (delta == null) {
+          CommandWriteTool.writeCommand(updateBuf, cmd);
+        } else {
+          CommandWriteTool.writeCompactCommand(updateBuf, cmd, delta);
+        }
+      } catch (IOException ex) {
+        // Not thrown by in-memory streams.
+      }
+      
+      if (cmd.getType() == Command.Type.END_OF_UPDATE) {
+        if (!queue()) {
+          droppedUpdateCount++;
+        }
+        
+        updateBuf.reset();
+        
+        updateCount++;
       }
     }
     
+    public void recordKeyframe(Game game, GameClient client) {
+      int update = updateCount - 1;
+      
+      if ((update <= 0) || (update % ReplayKeyframeIOTool.INTERVAL != 0)) {
+        return;
+      }
+      
+      ReplayIndex.Entry last = index.find(update);
+      
+      if (dropping || ((last != null) && (last.update == update))) {
+        return;
+      }
+      
+      long pos = queuedByteCount;
+      
+      if (pos > Integer.MAX_VALUE) {
+        return;
+      }
+      
+      assert updateBuf.size() == 0;
+      
+      try {
+        if (ReplayKeyframeWriteTool.writeKeyframe(
+            updateBuf,
+            update,
+            game,
+            client)) {
+          if (queue()) {
+            index.add(new ReplayIndex.Entry(update, pos));
+          }
+          
+          // Decoding may start here, so encode the following
+          // updates from scratch.
+          
+          if (delta != null) {
+            delta.reset();
+          }
+        }
+      } catch (IOException ex) {
+        // Not thrown by in-memory streams.
+      }
+      
+      updateBuf.reset();
+    }
+    
+    /**
+     * Queues the contents of the update buffer. Returns false
+     * if they were dropped.
+     */
+    private boolean queue() {
+      byte[] b   = updateBuf.getArray();
+      int    len = updateBuf.size();
+      
+      if (dropping) {
+        return false;
+      }
+      
+      if (len <= ring.getFree()) {
+        ring.put(b, 0, len);
+      } else if (backpressure == Backpressure.DROP) {
+        dropping = true;
+        
+        return false;
+      } else {
+        // Queue as much as fits at a time, waiting for the rest.
+        
+        blockCount++;
+        
+        int off = 0;
+        
+        while (off < len) {
+          int free = ring.getFree();
+          
+          if (free == 0) {
+            waitForRoom();
+          } else {
+            int count = Math.min(free, len - off);
+            
+            ring.put(b, off, count);
+            off += count;
+            
+            wakeWriter();
+          }
+        }
+      }
+      
+      int size = ring.size();
+      
+      if (size > peakQueuedBytes) {
+        peakQueuedBytes = size;
+      }
+      
+      queuedByteCount += len;
+      
+      // Wake up the command thread once per update.
+      
+      wakeWriter();
+      
+      return true;
+    }
+    
+    private void wakeWriter() {
+      if (writerWaiting) {
+        LockSupport.unpark(thread);
+      }
+    }
+    
+    private void waitForRoom() {
+      waitingProducer = Thread.currentThread();
+      
+      if (ring.getFree() == 0) {
+        LockSupport.park(this);
+      }
+      
+      waitingProducer = null;
+    }
+    
     public void close() {
       thread.terminate();
     }
     
+    private static final class UpdateBuffer extends ByteArrayOutputStream {
+      public byte[] getArray() {
+        return buf;
+      }
+    }
+    
     private final class CommandThread extends TerminableThread {
       private boolean errorOccurred = false;
       
-      private void handle(Command cmd) {
-        if (errorOccurred) {
-          return;
+      /**
+       * Writes all queued bytes and returns whether there were any.
+       */
+      private boolean drain() {
+        if (ring.size() == 0) {
+          return false;
         }
         
-        synchronized (getInterruptionLock()) {
-          boolean wasInterrupted = Thread.interrupted();
-          
-          // Write command.
+        if (errorOccurred) {
+          // Keep consuming so the recording thread never waits.
           
-          try {
-            CommandWriteTool.writeCommand(out, cmd);
+          ring.clear();
+        } else {
+          synchronized (getInterruptionLock()) {
+            boolean wasInterrupted = Thread.interrupted();
+            
+            // Write commands.
             
-            if (cmd.getType() == Command.Type.END_OF_UPDATE) {
+            try {
+              ring.drainTo(out);
+              
               out.flush();
+            } catch (IOException ex) {
+              errorOccurred = true;
+              
+              ring.clear();
+            }
+            
+            if (wasInterrupted) {
+              Thread.currentThread().interrupt();
             }
-          } catch (IOException ex) {
-            errorOccurred = true;
-          }
-          
-          if (wasInterrupted) {
-            Thread.currentThread().interrupt();
           }
         }
+        
+        // Wake up the recording thread if it waits for room.
+        
+        Thread producer = waitingProducer;
+        
+        if (producer != null) {
+          LockSupport.unpark(producer);
+        }
+        
+        return true;
       }
       
       @Override
       public void run() {
-        try {
-          while (!Thread.currentThread().isInterrupted()) {
-            Command cmd;
+        while (!Thread.currentThread().isInterrupted()) {
+          if (!drain()) {
+            writerWaiting = true;
             
-            synchronized (cmds) {
-              while ((cmd = cmds.poll()) == null) {
-                cmds.wait();
-              }
+            if (ring.size() == 0) {
+              LockSupport.park(CommandRecorder.this);
             }
             
-            handle(cmd);
+            writerWaiting = false;
           }
-        } catch (InterruptedException ex) {
-          // Allow thread to exit.
         }
         
-        synchronized (cmds) {
-          for (Command cmd; (cmd = cmds.poll()) != null;) {
-            handle(cmd);
-          }
-        }
+        drain();
       }
     }
   }
@@ -0,0 +1,83 @@
+/*
+ * ReplayVerification.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import java.nio.file.*;
+
+public final class ReplayVerification {
+  private final Path   file;
+  private final Result result;
+  private final int    updateCount;
+  private final int    divergenceUpdate;
+  private final float  maxError;
+  
+  ReplayVerification(
+      Path   file,
+      Result result,
+      int    updateCount,
+      int    divergenceUpdate,
+      float  maxError) {
+    this.file             = file;
+    this.result           = result;
+    this.updateCount      = updateCount;
+    this.divergenceUpdate = divergenceUpdate;
+    this.maxError         = maxError;
+  }
+  
+  ReplayVerification(Path file, Result result) {
+    this(file, result, 0, -1, 0.0f);
+  }
+  
+  public Path getFile() {
+    return file;
+  }
+  
+  public Result getResult() {
+    return result;
+  }
+  
+  /**
+   * Returns the number of updates that have been re-simulated.
+   */
+  public int getUpdateCount() {
+    return updateCount;
+  }
+  
+  /**
+   * Returns the index of the first update whose ball position
+   * differs from the recorded one, or -1 if there is none.
+   */
+  public int getDivergenceUpdate() {
+    return divergenceUpdate;
+  }
+  
+  /**
+   * Returns the largest distance between a re-simulated and
+   * a recorded ball position.
+   */
+  public float getMaxError() {
+    return maxError;
+  }
+  
+  public enum Result {
+    VALID,
+    DIVERGED,
+    UNREADABLE,
+    LEVEL_UNAVAILABLE
+  }
+}
@@ -0,0 +1,473 @@
+/*
+ * ReplayVerifier.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.replay;
+
+import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.game.*;
+import com.uppgarn.nuncabola.core.level.*;
+import com.uppgarn.nuncabola.core.math.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Re-simulates recorded replays without a display and compares
+ * the resulting ball trajectories with the recorded ones.
+ * <p>
+ * Replays are verified concurrently. Every replay gets its own
+ * game server and thus its own simulation, which stays confined
+ * to the worker thread running it. Solid bases are loaded once
+ * per level and shared, as they are never modified during play.
+ */
+public final class ReplayVerifier {
+  public static final float DEFAULT_TOLERANCE = 1.0E-3f;
+  
+  private final Folder dataFolder;
+  private final float  tolerance;
+  private final int    parallelism;
+  
+  public ReplayVerifier(Folder dataFolder) {
+    this(
+      dataFolder,
+      DEFAULT_TOLERANCE,
+      Runtime.getRuntime().availableProcessors());
+  }
+  
+  public ReplayVerifier(Folder dataFolder, float tolerance, int parallelism) {
+    this.dataFolder  = dataFolder;
+    this.tolerance   = tolerance;
+    this.parallelism = parallelism;
+  }
+  
+  private static <T> List<T> invokeAll(
+      ExecutorService   executor,
+      List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>(tasks.size());
+    
+    try {
+      for (Future<T> future: executor.invokeAll(tasks)) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException ex) {
+          // Unexpected failure of a single task.
+          
+          results.add(null);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    
+    // Tasks that did not complete yield no result.
+    
+    while (results.size() < tasks.size()) {
+      results.add(null);
+    }
+    
+    return results;
+  }
+  
+  private ReplayInfo loadReplayInfo(java.nio.file.Path file) {
+    try {
+      return ReplayInfoReadTool.readReplayInfo(file);
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+  
+  private SolidBase loadSolidBase(String path) {
+    try {
+      SolidBase solBase = SolidReadTool.readSolidBase(
+        dataFolder.getSource(path));
+      
+      if (solBase.ballBases.length == 0) {
+        return null;
+      }
+      
+      return solBase;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+  
+  private List<ReplayInfo> loadReplayInfos(
+      ExecutorService          executor,
+      List<java.nio.file.Path> files) {
+    List<Callable<ReplayInfo>> tasks = new ArrayList<>(files.size());
+    
+    for (java.nio.file.Path file: files) {
+      tasks.add(new Callable<ReplayInfo>() {
+        @Override
+        public ReplayInfo call() {
+          return loadReplayInfo(file);
+        }
+      });
+    }
+    
+    return invokeAll(executor, tasks);
+  }
+  
+  private Map<String, SolidBase> loadSolidBases(
+      ExecutorService  executor,
+      List<ReplayInfo> infos) {
+    Set<String> pathSet = new LinkedHashSet<>();
+    
+    for (ReplayInfo info: infos) {
+      if (info != null) {
+        pathSet.add(info.getLevelPath());
+      }
+    }
+    
+    List<String> paths = new ArrayList<>(pathSet);
+    
+    List<Callable<SolidBase>> tasks = new ArrayList<>(paths.size());
+    
+    for (String path: paths) {
+      tasks.add(new Callable<SolidBase>() {
+        @Override
+        public SolidBase call() {
+          return loadSolidBase(path);
+        }
+      });
+    }
+    
+    List<SolidBase> solBases = invokeAll(executor, tasks);
+    
+    Map<String, SolidBase> map = new HashMap<>();
+    
+    for (int idx = 0; idx < paths.size(); idx++) {
+      map.put(paths.get(idx), solBases.get(idx));
+    }
+    
+    return map;
+  }
+  
+  private ReplayVerification verify(
+      java.nio.file.Path file,
+      ReplayInfo         info,
+      SolidBase          solBase) {
+    if (info == null) {
+      return new ReplayVerification(file, ReplayVerification.Result.UNREADABLE);
+    }
+    if (solBase == null) {
+      return new ReplayVerification(
+        file,
+        ReplayVerification.Result.LEVEL_UNAVAILABLE);
+    }
+    
+    ReplayGameServer replayServer = new ReplayGameServer(new FileSource(file));
+    
+    try {
+      return new Resimulation(file, info, solBase, replayServer).run();
+    } finally {
+      replayServer.close();
+    }
+  }
+  
+  public List<ReplayVerification> verify(List<java.nio.file.Path> files) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    
+    try {
+      // Read all headers first so that each level is loaded only once.
+      
+      List<ReplayInfo>       infos    = loadReplayInfos(pool, files);
+      Map<String, SolidBase> solBases = loadSolidBases (pool, infos);
+      
+      List<Callable<ReplayVerification>> tasks = new ArrayList<>(files.size());
+      
+      for (int idx = 0; idx < files.size(); idx++) {
+        java.nio.file.Path file = files.get(idx);
+        ReplayInfo         info = infos.get(idx);
+        
+        SolidBase solBase = (info == null)
+                            ? null : solBases.get(info.getLevelPath());
+        
+        tasks.add(new Callable<ReplayVerification>() {
+          @Override
+          public ReplayVerification call() {
+            return verify(file, info, solBase);
+          }
+        });
+      }
+      
+      List<ReplayVerification> results = invokeAll(pool, tasks);
+      
+      for (int idx = 0; idx < results.size(); idx++) {
+        if (results.get(idx) == null) {
+          results.set(idx, new ReplayVerification(
+            files.get(idx),
+            ReplayVerification.Result.UNREADABLE));
+        }
+      }
+      
+      return results;
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  public ReplayVerification verify(java.nio.file.Path file) {
+    return verify(Collections.singletonList(file)).get(0);
+  }
+  
+  private final class Resimulation {
+    private final java.nio.file.Path file;
+    private final ReplayInfo         info;
+    private final SolidBase          solBase;
+    private final ReplayGameServer   replayServer;
+    
+    private Tilt    tilt;
+    private Basis3  viewBasis;
+    private boolean tiltAxesSet;
+    private boolean goalsUnlocked;
+    
+    private Vector3 recordedP;
+    private boolean recordedPSet;
+    private Vector3 simulatedP;
+    private boolean simulatedPSet;
+    
+    private int   updateCount;
+    private int   divergenceUpdate;
+    private float maxError;
+    
+    public Resimulation(
+        java.nio.file.Path file,
+        ReplayInfo         info,
+        SolidBase          solBase,
+        ReplayGameServer   replayServer) {
+      this.file         = file;
+      this.info         = info;
+      this.solBase      = solBase;
+      this.replayServer = replayServer;
+      
+      tilt          = new Tilt();
+      viewBasis     = new Basis3();
+      tiltAxesSet   = false;
+      goalsUnlocked = false;
+      
+      recordedP     = new Vector3();
+      recordedPSet  = false;
+      simulatedP    = new Vector3();
+      simulatedPSet = false;
+      
+      updateCount      = 0;
+      divergenceUpdate = -1;
+      maxError         = 0.0f;
+    }
+    
+    private Level createLevel() {
+      Level level = LevelParser.parse(solBase.meta, info.getLevelPath());
+      
+      // Use the values the replay was recorded with.
+      
+      level.setTime(info.getLevelTime());
+      level.setGoal(info.getLevelGoal());
+      
+      return level;
+    }
+    
+    private void readRecordedUpdate(List<Command> cmds) {
+      recordedPSet = false;
+      
+      for (Command cmd: cmds) {
+        switch (cmd.getType()) {
+          case END_OF_UPDATE: {
+            tiltAxesSet = false;
+            
+            break;
+          }
+          case BALL_POSITION: {
+            Command.BallPosition myCmd = (Command.BallPosition) cmd;
+            
+            recordedP.set(myCmd.x, myCmd.y, myCmd.z);
+            
+            recordedPSet = true;
+            
+            break;
+          }
+          case GOALS_UNLOCK: {
+            goalsUnlocked = true;
+            
+            break;
+          }
+          case TILT_AXES: {
+            Command.TiltAxes myCmd = (Command.TiltAxes) cmd;
+            
+            tilt.x.set(myCmd.xX, myCmd.xY, myCmd.xZ);
+            tilt.z.set(myCmd.zX, myCmd.zY, myCmd.zZ);
+            
+            tiltAxesSet = true;
+            
+            break;
+          }
+          case TILT_ANGLES: {
+            Command.TiltAngles myCmd = (Command.TiltAngles) cmd;
+            
+            tilt.rx = myCmd.x;
+            tilt.rz = myCmd.z;
+            
+            // Same compatibility handling as in GameClient.
+            
+            if (!tiltAxesSet) {
+              tilt.x.copyFrom(viewBasis.x);
+              tilt.z.copyFrom(viewBasis.z);
+            }
+            
+            break;
+          }
+          case VIEW_BASIS: {
+            Command.ViewBasis myCmd = (Command.ViewBasis) cmd;
+            
+            viewBasis.set(
+              myCmd.xX,
+              myCmd.xY,
+              myCmd.xZ,
+              myCmd.yX,
+              myCmd.yY,
+              myCmd.yZ);
+            
+            break;
+          }
+          
+          default: {
+            break;
+          }
+        }
+      }
+    }
+    
+    private void readSimulatedUpdate(List<Command> cmds) {
+      simulatedPSet = false;
+      
+      for (Command cmd: cmds) {
+        if (cmd.getType() == Command.Type.BALL_POSITION) {
+          Command.BallPosition myCmd = (Command.BallPosition) cmd;
+          
+          simulatedP.set(myCmd.x, myCmd.y, myCmd.z);
+          
+          simulatedPSet = true;
+        }
+      }
+    }
+    
+    /**
+     * Compares the ball positions of the current update and
+     * returns whether they match.
+     */
+    private boolean compareUpdate() {
+      boolean match;
+      
+      if (recordedPSet && simulatedPSet) {
+        Vector3 d = compareUpdate_d;
+        
+        d.subtract(simulatedP, recordedP);
+        
+        float error = d.length();
+        
+        maxError = Math.max(maxError, error);
+        
+        match = error <= tolerance;
+      } else {
+        match = recordedPSet == simulatedPSet;
+      }
+      
+      if (!match) {
+        divergenceUpdate = updateCount;
+      }
+      
+      updateCount++;
+      
+      return match;
+    }
+    
+    private ReplayVerification createVerification() {
+      return new ReplayVerification(
+        file,
+        (divergenceUpdate < 0)
+          ? ReplayVerification.Result.VALID
+          : ReplayVerification.Result.DIVERGED,
+        updateCount,
+        divergenceUpdate,
+        maxError);
+    }
+    
+    public ReplayVerification run() {
+      if (replayServer.getCommands().isEmpty()) {
+        return new ReplayVerification(
+          file,
+          ReplayVerification.Result.UNREADABLE);
+      }
+      
+      // First update.
+      
+      readRecordedUpdate(replayServer.getCommands());
+      
+      PlayGameServer gameServer = new PlayGameServer(
+        createLevel(),
+        solBase,
+        goalsUnlocked,
+        ViewDistance.DEFAULT,
+        replayServer.getRate());
+      
+      readSimulatedUpdate(gameServer.getCommands());
+      
+      if (!compareUpdate()) {
+        return createVerification();
+      }
+      
+      // Remaining updates. Stop at the first divergence,
+      // as everything after it is meaningless.
+      
+      while (true) {
+        replayServer.step();
+        
+        if (replayServer.getCommands().isEmpty()) {
+          break;
+        }
+        
+        readRecordedUpdate(replayServer.getCommands());
+        
+        gameServer.step(tilt);
+        
+        if (gameServer.getCommands().isEmpty()) {
+          // The game ended before the replay did.
+          
+          divergenceUpdate = updateCount;
+          
+          break;
+        }
+        
+        readSimulatedUpdate(gameServer.getCommands());
+        
+        if (!compareUpdate()) {
+          break;
+        }
+      }
+      
+      return createVerification();
+    }
+    
+    // Storage for reusable objects to minimize object creation.
+    
+    private final Vector3 compareUpdate_d = new Vector3();
+  }
+}
@@ -43,6 +43,11 @@ public final class SolidBase {
   public ItemBase  [] itemBases;
   public BallBase  [] ballBases;
   
+  /**
+   * Packed collision geometry, or {@code null}.
+   */
+  public SolidPack pack;
+  
   public SolidBase() {
     meta = new Meta();
     
@@ -68,5 +73,7 @@ public final class SolidBase {
     switchBases = new SwitchBase[0];
     itemBases   = new ItemBase  [0];
     ballBases   = new BallBase  [0];
+    
+    pack = null;
   }
 }
@@ -0,0 +1,127 @@
+/*
+ * SolidPack.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.solid;
+
+/**
+ * Packed collision geometry of a solid base.
+ * <p>
+ * The vertices, edges and sides of each lump are resolved through
+ * the index array once and stored contiguously, lump by lump, in flat
+ * arrays, so that collision loops avoid chasing object references.
+ */
+public final class SolidPack {
+  /**
+   * Vertex positions (x, y, z).
+   */
+  public final float[] verts;
+  
+  /**
+   * Edge origins and extents (x, y, z, u.x, u.y, u.z).
+   */
+  public final float[] edges;
+  
+  /**
+   * Side normals and distances (n.x, n.y, n.z, d).
+   */
+  public final float[] sides;
+  
+  /**
+   * Indices of packed sides in the side array.
+   */
+  public final int[] sideIdxs;
+  
+  /**
+   * Packed index of first vertex of each lump.
+   */
+  public final int[] lumpVert0Idxs;
+  
+  /**
+   * Packed index of first edge of each lump.
+   */
+  public final int[] lumpEdge0Idxs;
+  
+  /**
+   * Packed index of first side of each lump.
+   */
+  public final int[] lumpSide0Idxs;
+  
+  public SolidPack(SolidBase base) {
+    int vertCount = 0;
+    int edgeCount = 0;
+    int sideCount = 0;
+    
+    for (Lump lump: base.lumps) {
+      vertCount += lump.vertCount;
+      edgeCount += lump.edgeCount;
+      sideCount += lump.sideCount;
+    }
+    
+    verts    = new float[vertCount * 3];
+    edges    = new float[edgeCount * 6];
+    sides    = new float[sideCount * 4];
+    sideIdxs = new int  [sideCount];
+    
+    lumpVert0Idxs = new int[base.lumps.length];
+    lumpEdge0Idxs = new int[base.lumps.length];
+    lumpSide0Idxs = new int[base.lumps.length];
+    
+    int vertIdx = 0;
+    int edgeIdx = 0;
+    int sideIdx = 0;
+    
+    for (int lumpIdx = 0; lumpIdx < base.lumps.length; lumpIdx++) {
+      Lump lump = base.lumps[lumpIdx];
+      
+      lumpVert0Idxs[lumpIdx] = vertIdx;
+      lumpEdge0Idxs[lumpIdx] = edgeIdx;
+      lumpSide0Idxs[lumpIdx] = sideIdx;
+      
+      for (int idx = 0; idx < lump.vertCount; idx++, vertIdx++) {
+        Vertex vert = base.verts[base.indices[lump.vert0Idx + idx]];
+        
+        verts[vertIdx * 3    ] = vert.p.x;
+        verts[vertIdx * 3 + 1] = vert.p.y;
+        verts[vertIdx * 3 + 2] = vert.p.z;
+      }
+      
+      for (int idx = 0; idx < lump.edgeCount; idx++, edgeIdx++) {
+        Edge   edge  = base.edges[base.indices[lump.edge0Idx + idx]];
+        Vertex vert0 = base.verts[edge.vert0Idx];
+        Vertex vert1 = base.verts[edge.vert1Idx];
+        
+        edges[edgeIdx * 6    ] = vert0.p.x;
+        edges[edgeIdx * 6 + 1] = vert0.p.y;
+        edges[edgeIdx * 6 + 2] = vert0.p.z;
+        edges[edgeIdx * 6 + 3] = vert1.p.x - vert0.p.x;
+        edges[edgeIdx * 6 + 4] = vert1.p.y - vert0.p.y;
+        edges[edgeIdx * 6 + 5] = vert1.p.z - vert0.p.z;
+      }
+      
+      for (int idx = 0; idx < lump.sideCount; idx++, sideIdx++) {
+        sideIdxs[sideIdx] = base.indices[lump.side0Idx + idx];
+        
+        Side side = base.sides[sideIdxs[sideIdx]];
+        
+        sides[sideIdx * 4    ] = side.n.x;
+        sides[sideIdx * 4 + 1] = side.n.y;
+        sides[sideIdx * 4 + 2] = side.n.z;
+        sides[sideIdx * 4 + 3] = side.d;
+      }
+    }
+  }
+}
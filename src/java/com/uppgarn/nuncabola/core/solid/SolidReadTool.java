@@ -17,20 +17,56 @@
 
 package com.uppgarn.nuncabola.core.solid;
 
+import com.uppgarn.nuncabola.core.binary.*;
 import com.uppgarn.nuncabola.core.util.*;
 
-import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.binary.BufferReadTool.*;
 import static com.uppgarn.nuncabola.core.math.MathReadTool.*;
 import static com.uppgarn.nuncabola.core.solid.SolidIOTool.*;
 
 import com.uppgarn.codelibf.io.*;
 
 import java.io.*;
+import java.nio.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
 
 public final class SolidReadTool {
+  /**
+   * Length of the element counts in the header, by version.
+   */
+  private static int getCountsLength(int version) {
+    return (version >= VERSION_1_6) ? 76 : 72;
+  }
+  
+  /**
+   * Returns {@code count * stride}, rejecting negative counts
+   * and counts too large to fit in any file.
+   */
+  private static int getLength(int count, int stride) throws IOException {
+    if ((count < 0) || (count > Integer.MAX_VALUE / stride)) {
+      throw new InvalidDataException();
+    }
+    
+    return count * stride;
+  }
+  
+  private static int checkIndex(int idx, int count) throws IOException {
+    if ((idx < 0) || (idx >= count)) {
+      throw new InvalidDataException();
+    }
+    
+    return idx;
+  }
+  
+  private static void checkRange(int off, int count, int length)
+      throws IOException {
+    if ((off < 0) || (count < 0) || (count > length - off)) {
+      throw new InvalidDataException();
+    }
+  }
+  
   private static String getString(byte[] bytes, int off) throws IOException {
     if ((off < 0) || (off > bytes.length)) {
       throw new InvalidDataException();
@@ -45,16 +81,17 @@ public final class SolidReadTool {
     return new String(bytes, off, len, StandardCharsets.UTF_8);
   }
   
-  private static Meta readMeta(InputStream in, int byteCount, int entryCount)
+  private static Meta readMeta(ByteBuffer buf, int byteCount, int entryCount)
       throws IOException {
-    Meta meta = new Meta(entryCount);
+    Meta meta = new Meta(getLength(entryCount, 1));
     
     if (byteCount > 0) {
-      byte[] bytes = InputStreamTool.readBytes(in, byteCount);
+      byte[] bytes = getBytes(buf, byteCount);
+      int[]  offs  = getInts (buf, getLength(entryCount, 2));
       
       for (int idx = 0; idx < entryCount; idx++) {
-        String key   = getString(bytes, readInt(in));
-        String value = getString(bytes, readInt(in));
+        String key   = getString(bytes, offs[2 * idx]);
+        String value = getString(bytes, offs[2 * idx + 1]);
         
         meta.put(key, value);
       }
@@ -63,23 +100,23 @@ public final class SolidReadTool {
     return meta;
   }
   
-  private static Material readMaterial(InputStream in, int version)
+  private static Material readMaterial(ByteBuffer buf, int version)
       throws IOException {
     Material mtrl = new Material();
     
-    readColor4(mtrl.d, in);
-    readColor4(mtrl.a, in);
-    readColor4(mtrl.s, in);
-    readColor4(mtrl.e, in);
+    readColor4(mtrl.d, buf);
+    readColor4(mtrl.a, buf);
+    readColor4(mtrl.s, buf);
+    readColor4(mtrl.e, buf);
     
-    mtrl.h     = readFloat (in);
-    mtrl.flags = readInt   (in);
-    mtrl.path  = readString(in, 64);
+    mtrl.h     = getFloat(buf);
+    mtrl.flags = getInt  (buf);
+    mtrl.path  = BufferReadTool.getString(buf, 64);
     
     if (version >= VERSION_1_6) {
       if ((mtrl.flags & Material.ALPHA_TEST) != 0) {
-        mtrl.alphaFunc = readInt  (in);
-        mtrl.alphaRef  = readFloat(in);
+        mtrl.alphaFunc = getInt  (buf);
+        mtrl.alphaRef  = getFloat(buf);
       }
     } else {
       if (mtrl.flags == 0) {
@@ -133,278 +170,451 @@ public final class SolidReadTool {
     return mtrl;
   }
   
-  private static Vertex readVertex(InputStream in) throws IOException {
-    Vertex vert = new Vertex();
-    
-    readVector3(vert.p, in);
+  private static void readVertices(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Vertex[] verts = solBase.verts;
+    float[]  data  = getFloats(buf, getLength(verts.length, 3));
     
-    return vert;
+    for (int idx = 0, off = 0; idx < verts.length; idx++, off += 3) {
+      Vertex vert = new Vertex();
+      
+      vert.p.set(data[off], data[off + 1], data[off + 2]);
+      
+      verts[idx] = vert;
+    }
   }
   
-  private static Edge readEdge(InputStream in) throws IOException {
-    Edge edge = new Edge();
-    
-    edge.vert0Idx = readInt(in);
-    edge.vert1Idx = readInt(in);
+  private static void readEdges(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Edge[] edges = solBase.edges;
+    int[]  data  = getInts(buf, getLength(edges.length, 2));
     
-    return edge;
+    for (int idx = 0, off = 0; idx < edges.length; idx++, off += 2) {
+      Edge edge = new Edge();
+      
+      edge.vert0Idx = data[off];
+      edge.vert1Idx = data[off + 1];
+      
+      edges[idx] = edge;
+    }
   }
   
-  private static Side readSide(InputStream in) throws IOException {
-    Side side = new Side();
-    
-    readVector3(side.n, in);
-    
-    side.d = readFloat(in);
+  private static void readSides(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Side[]  sides = solBase.sides;
+    float[] data  = getFloats(buf, getLength(sides.length, 4));
     
-    return side;
+    for (int idx = 0, off = 0; idx < sides.length; idx++, off += 4) {
+      Side side = new Side();
+      
+      side.n.set(data[off], data[off + 1], data[off + 2]);
+      
+      side.d = data[off + 3];
+      
+      sides[idx] = side;
+    }
   }
   
-  private static Texc readTexc(InputStream in) throws IOException {
-    Texc texc = new Texc();
-    
-    texc.s = readFloat(in);
-    texc.t = readFloat(in);
+  private static void readTexcs(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Texc[]  texcs = solBase.texcs;
+    float[] data  = getFloats(buf, getLength(texcs.length, 2));
     
-    return texc;
+    for (int idx = 0, off = 0; idx < texcs.length; idx++, off += 2) {
+      Texc texc = new Texc();
+      
+      texc.s = data[off];
+      texc.t = data[off + 1];
+      
+      texcs[idx] = texc;
+    }
   }
   
-  private static Offset readOffset(InputStream in) throws IOException {
+  private static Offset createOffset(int[] data, int off) {
     Offset offset = new Offset();
     
-    offset.texcIdx = readInt(in);
-    offset.sideIdx = readInt(in);
-    offset.vertIdx = readInt(in);
+    offset.texcIdx = data[off];
+    offset.sideIdx = data[off + 1];
+    offset.vertIdx = data[off + 2];
     
     return offset;
   }
   
-  private static Geom readGeom(
-      SolidBase   solBase,
-      int[]       currOffsetCount,
-      InputStream in,
-      int         version) throws IOException {
-    Geom geom = new Geom();
+  private static void readOffsets(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Offset[] offsets = solBase.offsets;
+    int[]    data    = getInts(buf, getLength(offsets.length, 3));
     
-    geom.mtrlIdx = readInt(in);
+    for (int idx = 0, off = 0; idx < offsets.length; idx++, off += 3) {
+      offsets[idx] = createOffset(data, off);
+    }
+  }
+  
+  private static void readGeoms(SolidBase solBase, ByteBuffer buf, int version)
+      throws IOException {
+    Geom[] geoms = solBase.geoms;
     
     if (version >= VERSION_1_6) {
-      geom.offset0Idx = readInt(in);
-      geom.offset1Idx = readInt(in);
-      geom.offset2Idx = readInt(in);
-    } else {
-      if (solBase.mtrls[geom.mtrlIdx].d.a == 0.0f) {
-        geom.mtrlIdx = -1;
+      int[] data = getInts(buf, getLength(geoms.length, 4));
+      
+      for (int idx = 0, off = 0; idx < geoms.length; idx++, off += 4) {
+        Geom geom = new Geom();
+        
+        geom.mtrlIdx    = data[off];
+        geom.offset0Idx = data[off + 1];
+        geom.offset1Idx = data[off + 2];
+        geom.offset2Idx = data[off + 3];
+        
+        geoms[idx] = geom;
       }
+    } else {
+      // Offsets are stored inline.
       
-      geom.offset0Idx = currOffsetCount[0]++;
-      geom.offset1Idx = currOffsetCount[0]++;
-      geom.offset2Idx = currOffsetCount[0]++;
+      int[] data = getInts(buf, getLength(geoms.length, 10));
       
-      solBase.offsets[geom.offset0Idx] = readOffset(in);
-      solBase.offsets[geom.offset1Idx] = readOffset(in);
-      solBase.offsets[geom.offset2Idx] = readOffset(in);
+      for (int idx = 0, off = 0; idx < geoms.length; idx++, off += 10) {
+        Geom geom = new Geom();
+        
+        geom.mtrlIdx = checkIndex(data[off], solBase.mtrls.length);
+        
+        if (solBase.mtrls[geom.mtrlIdx].d.a == 0.0f) {
+          geom.mtrlIdx = -1;
+        }
+        
+        geom.offset0Idx = 3 * idx;
+        geom.offset1Idx = 3 * idx + 1;
+        geom.offset2Idx = 3 * idx + 2;
+        
+        solBase.offsets[geom.offset0Idx] = createOffset(data, off + 1);
+        solBase.offsets[geom.offset1Idx] = createOffset(data, off + 4);
+        solBase.offsets[geom.offset2Idx] = createOffset(data, off + 7);
+        
+        geoms[idx] = geom;
+      }
     }
-    
-    return geom;
   }
   
-  private static Lump readLump(InputStream in) throws IOException {
-    Lump lump = new Lump();
-    
-    lump.flags     = readInt(in);
-    lump.vert0Idx  = readInt(in);
-    lump.vertCount = readInt(in);
-    lump.edge0Idx  = readInt(in);
-    lump.edgeCount = readInt(in);
-    lump.geom0Idx  = readInt(in);
-    lump.geomCount = readInt(in);
-    lump.side0Idx  = readInt(in);
-    lump.sideCount = readInt(in);
+  private static void readLumps(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Lump[] lumps = solBase.lumps;
+    int[]  data  = getInts(buf, getLength(lumps.length, 9));
     
-    return lump;
+    for (int idx = 0, off = 0; idx < lumps.length; idx++, off += 9) {
+      Lump lump = new Lump();
+      
+      lump.flags     = data[off];
+      lump.vert0Idx  = data[off + 1];
+      lump.vertCount = data[off + 2];
+      lump.edge0Idx  = data[off + 3];
+      lump.edgeCount = data[off + 4];
+      lump.geom0Idx  = data[off + 5];
+      lump.geomCount = data[off + 6];
+      lump.side0Idx  = data[off + 7];
+      lump.sideCount = data[off + 8];
+      
+      lumps[idx] = lump;
+    }
   }
   
-  private static Node readNode(InputStream in) throws IOException {
-    Node node = new Node();
-    
-    node.sideIdx   = readInt(in);
-    node.node0Idx  = readInt(in);
-    node.node1Idx  = readInt(in);
-    node.lump0Idx  = readInt(in);
-    node.lumpCount = readInt(in);
+  private static void readNodes(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Node[] nodes = solBase.nodes;
+    int[]  data  = getInts(buf, getLength(nodes.length, 5));
     
-    return node;
+    for (int idx = 0, off = 0; idx < nodes.length; idx++, off += 5) {
+      Node node = new Node();
+      
+      node.sideIdx   = data[off];
+      node.node0Idx  = data[off + 1];
+      node.node1Idx  = data[off + 2];
+      node.lump0Idx  = data[off + 3];
+      node.lumpCount = data[off + 4];
+      
+      nodes[idx] = node;
+    }
   }
   
-  private static PathBase readPathBase(InputStream in, int version)
+  private static PathBase readPathBase(ByteBuffer buf, int version)
       throws IOException {
     PathBase pathBase = new PathBase();
     
-    readVector3(pathBase.p, in);
+    readVector3(pathBase.p, buf);
     
-    pathBase.tm      = Util.secondsToMilliseconds(readFloat(in));
+    pathBase.tm      = Util.secondsToMilliseconds(getFloat(buf));
     pathBase.t       = Util.millisecondsToSeconds(pathBase.tm);
-    pathBase.pathIdx = readInt(in);
-    pathBase.enabled = readInt(in) != 0;
-    pathBase.smooth  = readInt(in) != 0;
+    pathBase.pathIdx = getInt(buf);
+    pathBase.enabled = getInt(buf) != 0;
+    pathBase.smooth  = getInt(buf) != 0;
     
     if (version >= VERSION_1_6) {
-      pathBase.flags = readInt(in);
+      pathBase.flags = getInt(buf);
       
       if ((pathBase.flags & PathBase.ORIENTED) != 0) {
-        readQuaternion(pathBase.e, in);
+        readQuaternion(pathBase.e, buf);
       }
     }
     
     return pathBase;
   }
   
-  private static Body readBody(
-      InputStream      in,
-      int              version,
-      MoverBaseCreator moverBaseCreator) throws IOException {
-    Body body = new Body();
-    
-    int path0Idx = readInt(in);
-    int path1Idx = (version >= VERSION_1_6) ? readInt(in) : -1;
+  private static void readBodies(SolidBase solBase, ByteBuffer buf, int version)
+      throws IOException {
+    Body[] bodies = solBase.bodies;
+    int    stride = (version >= VERSION_1_6) ? 7 : 6;
+    int[]  data   = getInts(buf, getLength(bodies.length, stride));
     
-    body.mover0Idx = (path0Idx >= 0)
-                     ? moverBaseCreator.add(path0Idx) : -1;
-    body.mover1Idx = ((path1Idx >= 0) && (path1Idx != path0Idx))
-                     ? moverBaseCreator.add(path1Idx) : body.mover0Idx;
+    MoverBaseCreator moverBaseCreator = new MoverBaseCreator();
     
-    body.nodeIdx   = readInt(in);
-    body.lump0Idx  = readInt(in);
-    body.lumpCount = readInt(in);
-    body.geom0Idx  = readInt(in);
-    body.geomCount = readInt(in);
+    for (int idx = 0, off = 0; idx < bodies.length; idx++, off += stride) {
+      Body body = new Body();
+      
+      int path0Idx = data[off];
+      int path1Idx = (version >= VERSION_1_6) ? data[off + 1] : -1;
+      
+      body.mover0Idx = (path0Idx >= 0)
+                       ? moverBaseCreator.add(path0Idx) : -1;
+      body.mover1Idx = ((path1Idx >= 0) && (path1Idx != path0Idx))
+                       ? moverBaseCreator.add(path1Idx) : body.mover0Idx;
+      
+      int base = off + stride - 5;
+      
+      body.nodeIdx   = data[base];
+      body.lump0Idx  = data[base + 1];
+      body.lumpCount = data[base + 2];
+      body.geom0Idx  = data[base + 3];
+      body.geomCount = data[base + 4];
+      
+      bodies[idx] = body;
+    }
     
-    return body;
+    solBase.moverBases = moverBaseCreator.create();
   }
   
-  private static ItemBase readItemBase(InputStream in) throws IOException {
-    ItemBase itemBase = new ItemBase();
-    
-    readVector3(itemBase.p, in);
-    
-    itemBase.type  = readInt(in);
-    itemBase.value = readInt(in);
+  private static void readItemBases(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    ItemBase[] itemBases = solBase.itemBases;
+    int[]      data      = getInts(buf, getLength(itemBases.length, 5));
     
-    return itemBase;
+    for (int idx = 0, off = 0; idx < itemBases.length; idx++, off += 5) {
+      ItemBase itemBase = new ItemBase();
+      
+      itemBase.p.set(
+        Float.intBitsToFloat(data[off]),
+        Float.intBitsToFloat(data[off + 1]),
+        Float.intBitsToFloat(data[off + 2]));
+      
+      itemBase.type  = data[off + 3];
+      itemBase.value = data[off + 4];
+      
+      itemBases[idx] = itemBase;
+    }
   }
   
-  private static Goal readGoal(InputStream in) throws IOException {
-    Goal goal = new Goal();
-    
-    readVector3(goal.p, in);
-    
-    goal.r = readFloat(in);
+  private static void readGoals(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Goal[]  goals = solBase.goals;
+    float[] data  = getFloats(buf, getLength(goals.length, 4));
     
-    return goal;
+    for (int idx = 0, off = 0; idx < goals.length; idx++, off += 4) {
+      Goal goal = new Goal();
+      
+      goal.p.set(data[off], data[off + 1], data[off + 2]);
+      
+      goal.r = data[off + 3];
+      
+      goals[idx] = goal;
+    }
   }
   
-  private static Teleporter readTeleporter(InputStream in) throws IOException {
-    Teleporter tele = new Teleporter();
-    
-    readVector3(tele.p, in);
-    readVector3(tele.q, in);
-    
-    tele.r = readFloat(in);
+  private static void readTeleporters(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Teleporter[] teles = solBase.teles;
+    float[]      data  = getFloats(buf, getLength(teles.length, 7));
     
-    return tele;
+    for (int idx = 0, off = 0; idx < teles.length; idx++, off += 7) {
+      Teleporter tele = new Teleporter();
+      
+      tele.p.set(data[off],     data[off + 1], data[off + 2]);
+      tele.q.set(data[off + 3], data[off + 4], data[off + 5]);
+      
+      tele.r = data[off + 6];
+      
+      teles[idx] = tele;
+    }
   }
   
-  private static SwitchBase readSwitchBase(InputStream in) throws IOException {
-    SwitchBase switchBase = new SwitchBase();
-    
-    readVector3(switchBase.p, in);
-    
-    switchBase.r         = readFloat(in);
-    switchBase.pathIdx   = readInt  (in);
-    switchBase.tm        = Util.secondsToMilliseconds(readFloat(in));
-    switchBase.t         = Util.millisecondsToSeconds(switchBase.tm);
-    
-    readFloat(in);
-    
-    switchBase.enabled   = readInt(in) != 0;
-    
-    readInt  (in);
-    
-    switchBase.invisible = readInt(in) != 0;
+  private static void readSwitchBases(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    SwitchBase[] switchBases = solBase.switchBases;
+    int[]        data        = getInts(buf, getLength(switchBases.length, 10));
     
-    return switchBase;
+    for (int idx = 0, off = 0; idx < switchBases.length; idx++, off += 10) {
+      SwitchBase switchBase = new SwitchBase();
+      
+      switchBase.p.set(
+        Float.intBitsToFloat(data[off]),
+        Float.intBitsToFloat(data[off + 1]),
+        Float.intBitsToFloat(data[off + 2]));
+      
+      switchBase.r         = Float.intBitsToFloat(data[off + 3]);
+      switchBase.pathIdx   = data[off + 4];
+      switchBase.tm        = Util.secondsToMilliseconds(
+                               Float.intBitsToFloat(data[off + 5]));
+      switchBase.t         = Util.millisecondsToSeconds(switchBase.tm);
+      switchBase.enabled   = data[off + 7] != 0;
+      switchBase.invisible = data[off + 9] != 0;
+      
+      switchBases[idx] = switchBase;
+    }
   }
   
-  private static Billboard readBillboard(InputStream in) throws IOException {
-    Billboard bill = new Billboard();
-    
-    bill.flags   = readInt  (in);
-    bill.mtrlIdx = readInt  (in);
-    bill.t       = readFloat(in);
-    bill.d       = readFloat(in);
-    bill.w0      = readFloat(in);
-    bill.w1      = readFloat(in);
-    bill.w2      = readFloat(in);
-    bill.h0      = readFloat(in);
-    bill.h1      = readFloat(in);
-    bill.h2      = readFloat(in);
-    bill.rx0     = readFloat(in);
-    bill.rx1     = readFloat(in);
-    bill.rx2     = readFloat(in);
-    bill.ry0     = readFloat(in);
-    bill.ry1     = readFloat(in);
-    bill.ry2     = readFloat(in);
-    bill.rz0     = readFloat(in);
-    bill.rz1     = readFloat(in);
-    bill.rz2     = readFloat(in);
-    
-    readVector3(bill.p, in);
+  private static void readBillboards(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Billboard[] bills = solBase.bills;
+    int[]       data  = getInts(buf, getLength(bills.length, 22));
     
-    return bill;
+    for (int idx = 0, off = 0; idx < bills.length; idx++, off += 22) {
+      Billboard bill = new Billboard();
+      
+      bill.flags   = data[off];
+      bill.mtrlIdx = data[off + 1];
+      bill.t       = Float.intBitsToFloat(data[off + 2]);
+      bill.d       = Float.intBitsToFloat(data[off + 3]);
+      bill.w0      = Float.intBitsToFloat(data[off + 4]);
+      bill.w1      = Float.intBitsToFloat(data[off + 5]);
+      bill.w2      = Float.intBitsToFloat(data[off + 6]);
+      bill.h0      = Float.intBitsToFloat(data[off + 7]);
+      bill.h1      = Float.intBitsToFloat(data[off + 8]);
+      bill.h2      = Float.intBitsToFloat(data[off + 9]);
+      bill.rx0     = Float.intBitsToFloat(data[off + 10]);
+      bill.rx1     = Float.intBitsToFloat(data[off + 11]);
+      bill.rx2     = Float.intBitsToFloat(data[off + 12]);
+      bill.ry0     = Float.intBitsToFloat(data[off + 13]);
+      bill.ry1     = Float.intBitsToFloat(data[off + 14]);
+      bill.ry2     = Float.intBitsToFloat(data[off + 15]);
+      bill.rz0     = Float.intBitsToFloat(data[off + 16]);
+      bill.rz1     = Float.intBitsToFloat(data[off + 17]);
+      bill.rz2     = Float.intBitsToFloat(data[off + 18]);
+      
+      bill.p.set(
+        Float.intBitsToFloat(data[off + 19]),
+        Float.intBitsToFloat(data[off + 20]),
+        Float.intBitsToFloat(data[off + 21]));
+      
+      bills[idx] = bill;
+    }
   }
   
-  private static BallBase readBallBase(InputStream in) throws IOException {
-    BallBase ballBase = new BallBase();
-    
-    readVector3(ballBase.p, in);
-    
-    ballBase.r = readFloat(in);
+  private static void readBallBases(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    BallBase[] ballBases = solBase.ballBases;
+    float[]    data      = getFloats(buf, getLength(ballBases.length, 4));
     
-    return ballBase;
+    for (int idx = 0, off = 0; idx < ballBases.length; idx++, off += 4) {
+      BallBase ballBase = new BallBase();
+      
+      ballBase.p.set(data[off], data[off + 1], data[off + 2]);
+      
+      ballBase.r = data[off + 3];
+      
+      ballBases[idx] = ballBase;
+    }
   }
   
-  private static Vista readVista(InputStream in) throws IOException {
-    Vista vista = new Vista();
-    
-    readVector3(vista.p, in);
-    readVector3(vista.q, in);
+  private static void readVistas(SolidBase solBase, ByteBuffer buf)
+      throws IOException {
+    Vista[] vistas = solBase.vistas;
+    float[] data   = getFloats(buf, getLength(vistas.length, 6));
     
-    return vista;
+    for (int idx = 0, off = 0; idx < vistas.length; idx++, off += 6) {
+      Vista vista = new Vista();
+      
+      vista.p.set(data[off],     data[off + 1], data[off + 2]);
+      vista.q.set(data[off + 3], data[off + 4], data[off + 5]);
+      
+      vistas[idx] = vista;
+    }
   }
   
-  public static Meta readSolidMeta(InputStream in) throws IOException {
-    int magic   = readInt(in);
-    int version = readInt(in);
-    
+  private static void checkHeader(int magic, int version) throws IOException {
     if ((magic != MAGIC)
         || (version < VERSION_MINIMUM)
         || (version > VERSION_CURRENT)) {
       throw new InvalidDataException();
     }
+  }
+  
+  /**
+   * Reads the meta section, reading the stream in three bulk
+   * transfers rather than value by value.
+   */
+  public static Meta readSolidMeta(InputStream in) throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(InputStreamTool.readBytes(in, 16))
+                     .order(ByteOrder.LITTLE_ENDIAN);
+    
+    int magic   = buf.getInt();
+    int version = buf.getInt();
+    
+    checkHeader(magic, version);
     
     // Element counts.
     
-    int dictByteCount  = readInt(in);
-    int dictEntryCount = readInt(in);
+    int dictByteCount  = buf.getInt();
+    int dictEntryCount = buf.getInt();
     
     // Skip irrelevant data.
     
-    InputStreamTool.skip(in, (version >= VERSION_1_6) ? 76 : 72);
+    InputStreamTool.readBytes(in, getCountsLength(version));
     
     // Meta.
     
-    return readMeta(in, dictByteCount, dictEntryCount);
+    if (dictByteCount <= 0) {
+      return new Meta(getLength(dictEntryCount, 1));
+    }
+    
+    int len = getLength(dictEntryCount, 8);
+    
+    if (dictByteCount > Integer.MAX_VALUE - len) {
+      throw new InvalidDataException();
+    }
+    
+    buf = ByteBuffer.wrap(readDeclaredBytes(in, dictByteCount + len))
+          .order(ByteOrder.LITTLE_ENDIAN);
+    
+    return readMeta(buf, dictByteCount, dictEntryCount);
+  }
+  
+  /**
+   * Reads {@code len} bytes whose count comes from the data itself.
+   * The bytes are read in bounded chunks, so that a corrupt count
+   * fails once the stream ends instead of allocating its full size.
+   */
+  private static byte[] readDeclaredBytes(InputStream in, int len)
+      throws IOException {
+    final int chunkLen = 65536;
+    
+    if (len <= chunkLen) {
+      try {
+        return InputStreamTool.readBytes(in, len);
+      } catch (EOFException ex) {
+        throw new InvalidDataException();
+      }
+    }
+    
+    ByteArrayOutputStream out   = new ByteArrayOutputStream(chunkLen);
+    byte[]                chunk = new byte[chunkLen];
+    
+    while (out.size() < len) {
+      int read = in.read(chunk, 0, Math.min(chunkLen, len - out.size()));
+      
+      if (read == -1) {
+        throw new InvalidDataException();
+      }
+      
+      out.write(chunk, 0, read);
+    }
+    
+    return out.toByteArray();
   }
   
   public static Meta readSolidMeta(java.nio.file.Path file) throws IOException {
@@ -421,15 +631,12 @@ public final class SolidReadTool {
     }
   }
   
-  public static SolidBase readSolidBase(InputStream in) throws IOException {
-    int magic   = readInt(in);
-    int version = readInt(in);
+  private static SolidBase decodeSolidBase(ByteBuffer buf)
+      throws IOException {
+    int magic   = getInt(buf);
+    int version = getInt(buf);
     
-    if ((magic != MAGIC)
-        || (version < VERSION_MINIMUM)
-        || (version > VERSION_CURRENT)) {
-      throw new InvalidDataException();
-    }
+    checkHeader(magic, version);
     
     // Solid base.
     
@@ -437,42 +644,57 @@ public final class SolidReadTool {
     
     // Element counts.
     
-    int dictByteCount  = readInt(in);
-    int dictEntryCount = readInt(in);
-    
-    int mtrlCount   = readInt(in);
-    int vertCount   = readInt(in);
-    int edgeCount   = readInt(in);
-    int sideCount   = readInt(in);
-    int texcCount   = readInt(in);
-    int offsetCount = (version >= VERSION_1_6) ? readInt(in) : 0;
-    int geomCount   = readInt(in);
-    int lumpCount   = readInt(in);
-    int nodeCount   = readInt(in);
-    int pathCount   = readInt(in);
-    int bodyCount   = readInt(in);
-    int itemCount   = readInt(in);
-    int goalCount   = readInt(in);
-    int teleCount   = readInt(in);
-    int switchCount = readInt(in);
-    int billCount   = readInt(in);
-    int ballCount   = readInt(in);
-    int vistaCount  = readInt(in);
-    
-    int indexCount = readInt(in);
+    int dictByteCount  = getInt(buf);
+    int dictEntryCount = getInt(buf);
+    
+    int mtrlCount   = getInt(buf);
+    int vertCount   = getInt(buf);
+    int edgeCount   = getInt(buf);
+    int sideCount   = getInt(buf);
+    int texcCount   = getInt(buf);
+    int offsetCount = (version >= VERSION_1_6) ? getInt(buf) : 0;
+    int geomCount   = getInt(buf);
+    int lumpCount   = getInt(buf);
+    int nodeCount   = getInt(buf);
+    int pathCount   = getInt(buf);
+    int bodyCount   = getInt(buf);
+    int itemCount   = getInt(buf);
+    int goalCount   = getInt(buf);
+    int teleCount   = getInt(buf);
+    int switchCount = getInt(buf);
+    int billCount   = getInt(buf);
+    int ballCount   = getInt(buf);
+    int vistaCount  = getInt(buf);
+    
+    int indexCount = getInt(buf);
     
     if (version < VERSION_1_6) {
-      offsetCount = geomCount * 3;
+      offsetCount = getLength(geomCount, 3);
+    }
+    
+    // Every element takes at least four bytes, so this rejects
+    // corrupt counts before anything is allocated for them.
+    
+    int[] counts = {
+      dictEntryCount,
+      mtrlCount, vertCount, edgeCount,   sideCount, texcCount, offsetCount,
+      geomCount, lumpCount, nodeCount,   pathCount, bodyCount, itemCount,
+      goalCount, teleCount, switchCount, billCount, ballCount, vistaCount,
+      indexCount
+    };
+    
+    for (int count: counts) {
+      if ((count < 0) || (count > buf.remaining() / 4)) {
+        throw new InvalidDataException();
+      }
     }
     
     // Meta.
     
-    solBase.meta = readMeta(in, dictByteCount, dictEntryCount);
+    solBase.meta = readMeta(buf, dictByteCount, dictEntryCount);
     
     // Create arrays.
     
-    solBase.indices = new int[indexCount];
-    
     solBase.mtrls   = new Material  [mtrlCount];
     solBase.verts   = new Vertex    [vertCount];
     solBase.edges   = new Edge      [edgeCount];
@@ -493,155 +715,123 @@ public final class SolidReadTool {
     solBase.itemBases   = new ItemBase  [itemCount];
     solBase.ballBases   = new BallBase  [ballCount];
     
-    MoverBaseCreator moverBaseCreator = new MoverBaseCreator();
-    
     // Materials.
     
     for (int idx = 0; idx < mtrlCount; idx++) {
-      solBase.mtrls[idx] = readMaterial(in, version);
+      solBase.mtrls[idx] = readMaterial(buf, version);
     }
     
-    // Vertices.
+    // Each remaining section is decoded from one bulk transfer.
     
-    for (int idx = 0; idx < vertCount; idx++) {
-      solBase.verts[idx] = readVertex(in);
-    }
-    
-    // Edges.
-    
-    for (int idx = 0; idx < edgeCount; idx++) {
-      solBase.edges[idx] = readEdge(in);
-    }
-    
-    // Sides.
-    
-    for (int idx = 0; idx < sideCount; idx++) {
-      solBase.sides[idx] = readSide(in);
-    }
-    
-    // Texcs.
-    
-    for (int idx = 0; idx < texcCount; idx++) {
-      solBase.texcs[idx] = readTexc(in);
-    }
-    
-    // Offsets.
+    readVertices(solBase, buf);
+    readEdges   (solBase, buf);
+    readSides   (solBase, buf);
+    readTexcs   (solBase, buf);
     
     if (version >= VERSION_1_6) {
-      for (int idx = 0; idx < offsetCount; idx++) {
-        solBase.offsets[idx] = readOffset(in);
-      }
+      readOffsets(solBase, buf);
     }
     
-    // Geoms.
-    
-    int[] currOffsetCount = new int[1];
-    
-    for (int idx = 0; idx < geomCount; idx++) {
-      solBase.geoms[idx] = readGeom(solBase, currOffsetCount, in, version);
-    }
-    
-    // Lumps.
-    
-    for (int idx = 0; idx < lumpCount; idx++) {
-      solBase.lumps[idx] = readLump(in);
-    }
-    
-    // Nodes.
-    
-    for (int idx = 0; idx < nodeCount; idx++) {
-      solBase.nodes[idx] = readNode(in);
-    }
+    readGeoms(solBase, buf, version);
+    readLumps(solBase, buf);
+    readNodes(solBase, buf);
     
     // Path bases.
     
     for (int idx = 0; idx < pathCount; idx++) {
-      solBase.pathBases[idx] = readPathBase(in, version);
+      solBase.pathBases[idx] = readPathBase(buf, version);
     }
     
-    // Bodies.
+    readBodies     (solBase, buf, version);
+    readItemBases  (solBase, buf);
+    readGoals      (solBase, buf);
+    readTeleporters(solBase, buf);
+    readSwitchBases(solBase, buf);
+    readBillboards (solBase, buf);
+    readBallBases  (solBase, buf);
+    readVistas     (solBase, buf);
     
-    for (int idx = 0; idx < bodyCount; idx++) {
-      solBase.bodies[idx] = readBody(in, version, moverBaseCreator);
-    }
-    
-    // Mover bases.
-    
-    solBase.moverBases = moverBaseCreator.create();
-    
-    // Item bases.
-    
-    for (int idx = 0; idx < itemCount; idx++) {
-      solBase.itemBases[idx] = readItemBase(in);
-    }
-    
-    // Goals.
+    // Indices.
     
-    for (int idx = 0; idx < goalCount; idx++) {
-      solBase.goals[idx] = readGoal(in);
-    }
+    solBase.indices = getInts(buf, indexCount);
     
-    // Teleporters.
+    // Add lit flag to old materials.
     
-    for (int idx = 0; idx < teleCount; idx++) {
-      solBase.teles[idx] = readTeleporter(in);
+    if (version <= VERSION_1_6) {
+      for (Material mtrl: solBase.mtrls) {
+        mtrl.flags |= Material.LIT;
+      }
+      for (Billboard bill: solBase.bills) {
+        int mtrlIdx = checkIndex(bill.mtrlIdx, solBase.mtrls.length);
+        
+        solBase.mtrls[mtrlIdx].flags &= ~Material.LIT;
+      }
     }
     
-    // Switch bases.
-    
-    for (int idx = 0; idx < switchCount; idx++) {
-      solBase.switchBases[idx] = readSwitchBase(in);
-    }
+    // Packed collision geometry. Validate the lump ranges first, as
+    // the packed arrays are sized from them.
     
-    // Billboards.
+    long packedCount = 0;
     
-    for (int idx = 0; idx < billCount; idx++) {
-      solBase.bills[idx] = readBillboard(in);
+    for (Lump lump: solBase.lumps) {
+      checkRange(lump.vert0Idx, lump.vertCount, solBase.indices.length);
+      checkRange(lump.edge0Idx, lump.edgeCount, solBase.indices.length);
+      checkRange(lump.side0Idx, lump.sideCount, solBase.indices.length);
+      
+      packedCount += (long) lump.vertCount + lump.edgeCount + lump.sideCount;
     }
     
-    // Ball bases.
-    
-    for (int idx = 0; idx < ballCount; idx++) {
-      solBase.ballBases[idx] = readBallBase(in);
+    if (packedCount > Integer.MAX_VALUE / 6) {
+      throw new InvalidDataException();
     }
     
-    // Vistas.
-    
-    for (int idx = 0; idx < vistaCount; idx++) {
-      solBase.vistas[idx] = readVista(in);
+    try {
+      solBase.pack = new SolidPack(solBase);
+    } catch (IndexOutOfBoundsException | NegativeArraySizeException ex) {
+      throw new InvalidDataException();
     }
     
-    // Indices.
-    
-    for (int idx = 0; idx < indexCount; idx++) {
-      solBase.indices[idx] = readInt(in);
-    }
+    return solBase;
+  }
+  
+  /**
+   * Reads a solid base from the remaining bytes of {@code buf},
+   * whose position is advanced past it. The byte order of
+   * {@code buf} does not matter.
+   */
+  public static SolidBase readSolidBase(ByteBuffer buf) throws IOException {
+    ByteBuffer in = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
     
-    // Add lit flag to old materials.
+    SolidBase solBase = decodeSolidBase(in);
     
-    if (version <= VERSION_1_6) {
-      for (Material mtrl: solBase.mtrls) {
-        mtrl.flags |= Material.LIT;
-      }
-      for (Billboard bill: solBase.bills) {
-        solBase.mtrls[bill.mtrlIdx].flags &= ~Material.LIT;
-      }
-    }
+    buf.position(in.position());
     
     return solBase;
   }
   
+  /**
+   * Reads the remaining stream into memory and decodes it in bulk.
+   */
+  public static SolidBase readSolidBase(InputStream in) throws IOException {
+    return readSolidBase(read(in));
+  }
+  
+  /**
+   * Maps the file into memory, unless it is small, and decodes it
+   * in bulk.
+   */
   public static SolidBase readSolidBase(java.nio.file.Path file)
       throws IOException {
-    try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
-      return readSolidBase(in);
-    }
+    return readSolidBase(read(file));
   }
   
+  /**
+   * Reads from the file behind {@code src} like
+   * {@link #readSolidBase(java.nio.file.Path)} if there is one,
+   * otherwise reads the whole stream into the heap first.
+   */
   public static SolidBase readSolidBase(Source src) throws IOException {
-    try (InputStream in = new BufferedInputStream(src.newInputStream())) {
-      return readSolidBase(in);
-    }
+    return readSolidBase(read(src));
   }
   
   public static Solid readSolid(InputStream in) throws IOException {
@@ -0,0 +1,91 @@
+/*
+ * CacheStats.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.core.util;
+
+/**
+ * Snapshot of the counters of a size-bounded cache.
+ */
+public final class CacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final int  entryCount;
+  private final int  residentSize;
+  private final int  capacity;
+  
+  public CacheStats(
+      long hits,
+      long misses,
+      long evictions,
+      int  entryCount,
+      int  residentSize,
+      int  capacity) {
+    this.hits         = hits;
+    this.misses       = misses;
+    this.evictions    = evictions;
+    this.entryCount   = entryCount;
+    this.residentSize = residentSize;
+    this.capacity     = capacity;
+  }
+  
+  public long getHits() {
+    return hits;
+  }
+  
+  public long getMisses() {
+    return misses;
+  }
+  
+  public long getEvictions() {
+    return evictions;
+  }
+  
+  public float getHitRate() {
+    long total = hits + misses;
+    
+    return (total == 0) ? 0.0f : (float) hits / total;
+  }
+  
+  public int getEntryCount() {
+    return entryCount;
+  }
+  
+  /**
+   * Returns the total size of the cached data in bytes. Some caches
+   * can only estimate it.
+   */
+  public int getResidentSize() {
+    return residentSize;
+  }
+  
+  public int getCapacity() {
+    return capacity;
+  }
+  
+  @Override
+  public String toString() {
+    return String.format(
+      "hits=%d misses=%d evictions=%d entries=%d resident=%d/%d",
+      hits,
+      misses,
+      evictions,
+      entryCount,
+      residentSize,
+      capacity);
+  }
+}
@@ -34,6 +34,7 @@ public final class BaseFuncs {
   private static Path scoreDir;
   private static Path replayDir;
   private static Path screenshotDir;
+  private static Path cacheDir;
   
   private static Prefs prefs;
   
@@ -44,6 +45,7 @@ public final class BaseFuncs {
     scoreDir      = createUserSubdirectory("Scores");
     replayDir     = createUserSubdirectory("Replays");
     screenshotDir = createUserSubdirectory("Screenshots");
+    cacheDir      = createUserSubdirectory("Cache");
     
     prefs = loadPrefs();
   }
@@ -136,6 +138,10 @@ public final class BaseFuncs {
     return screenshotDir;
   }
   
+  public static Path getCacheDirectory() {
+    return cacheDir;
+  }
+  
   public static boolean getBooleanPref(Pref pref) {
     return prefs.getBoolean(pref);
   }
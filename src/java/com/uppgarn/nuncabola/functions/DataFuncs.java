@@ -18,6 +18,7 @@
 package com.uppgarn.nuncabola.functions;
 
 import com.uppgarn.nuncabola.core.folder.*;
+import com.uppgarn.nuncabola.core.image.*;
 
 import static com.uppgarn.nuncabola.functions.BaseFuncs.*;
 
@@ -27,17 +28,24 @@ import java.nio.file.*;
 import java.util.*;
 
 public final class DataFuncs {
-  private static Folder dataFolder;
+  private static Folder       dataFolder;
+  private static TextureCache texCache;
   
   public static void initialize() {
     dataFolder = new RootFolder(
-      Arrays.asList(new Path[] {getUserDataDirectory(), getDataDirectory()}));
+      Arrays.asList(new Path[] {getUserDataDirectory(), getDataDirectory()}),
+      getCacheDirectory());
+    texCache = new TextureCache(getCacheDirectory().resolve("Textures"));
   }
   
   public static Folder getDataFolder() {
     return dataFolder;
   }
   
+  public static TextureCache getTextureCache() {
+    return texCache;
+  }
+  
   public static Set<String> getPaths(
       String     parentPath,
       boolean    directory,
@@ -57,6 +65,7 @@ public final class DataFuncs {
     dataFolder.close();
     
     dataFolder = null;
+    texCache   = null;
   }
   
   private DataFuncs() {
@@ -17,6 +17,7 @@
 
 package com.uppgarn.nuncabola.functions;
 
+import com.uppgarn.nuncabola.core.audio.*;
 import com.uppgarn.nuncabola.core.game.*;
 import com.uppgarn.nuncabola.core.level.*;
 import com.uppgarn.nuncabola.core.renderers.*;
@@ -41,6 +42,9 @@ public final class GameFuncs {
     
     solBase = loadSolidBase(path);
     
+    Audio.prefetchSounds(PlayGameServer.getSoundPaths(solBase));
+    RendererHome.prefetchImages(solBase);
+    
     // Level.
     
     level = LevelParser.parse(solBase.meta, path);
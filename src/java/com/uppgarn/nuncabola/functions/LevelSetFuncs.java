@@ -55,21 +55,20 @@ public final class LevelSetFuncs {
     setScore = loadSetScore();
   }
   
-  private static Level loadLevel(String path) {
-    try {
-      Meta meta = SolidReadTool.readSolidMeta(DataFuncs.getSource(path));
-      
-      return LevelParser.parse(meta, path);
-    } catch (IOException ex) {
-      return null;
-    }
-  }
-  
   private static List<Level> createLevels() {
+    List<String> paths = set.getLevelPaths();
+    List<Meta>   metas = MetaFuncs.loadSolidMetas(paths);
+    
     List<Level> levels = new ArrayList<>(set.getLevelCount());
     
-    for (String path: set.getLevelPaths()) {
-      levels.add(loadLevel(path));
+    for (int idx = 0; idx < paths.size(); idx++) {
+      Meta meta = metas.get(idx);
+      
+      if (meta != null) {
+        levels.add(LevelParser.parse(meta, paths.get(idx)));
+      } else {
+        levels.add(null);
+      }
     }
     
     return levels;
@@ -54,27 +54,15 @@ public final class LevelSetListFuncs {
     });
   }
   
-  private static LevelSet loadSet(String path) {
-    try {
-      LevelSet set = LevelSetReadTool.readLevelSet(DataFuncs.getSource(path));
-      
-      if (set.getID().equals("misc") && !getBooleanPref(Pref.CHEAT)) {
-        return null;
-      }
-      
-      return set;
-    } catch (IOException ex) {
-      return null;
-    }
+  private static boolean isVisible(LevelSet set) {
+    return !set.getID().equals("misc") || getBooleanPref(Pref.CHEAT);
   }
   
   private static List<LevelSet> loadSets(Collection<String> paths) {
     List<LevelSet> sets = new ArrayList<>(paths.size());
     
-    for (String path: paths) {
-      LevelSet set = loadSet(path);
-      
-      if (set != null) {
+    for (LevelSet set: MetaFuncs.loadLevelSets(new ArrayList<>(paths))) {
+      if ((set != null) && isVisible(set)) {
         sets.add(set);
       }
     }
@@ -0,0 +1,262 @@
+/*
+ * MetaFuncs.java
+ *
+ * Copyright (c) 2003-2022 Nuncabola authors
+ * See authors.txt for details.
+ *
+ * Nuncabola is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ */
+
+package com.uppgarn.nuncabola.functions;
+
+import com.uppgarn.nuncabola.core.level.*;
+import com.uppgarn.nuncabola.core.solid.*;
+
+import static com.uppgarn.nuncabola.core.binary.BinaryReadTool.*;
+import static com.uppgarn.nuncabola.core.binary.BinaryWriteTool.*;
+import static com.uppgarn.nuncabola.functions.BaseFuncs.*;
+
+import com.uppgarn.codelibf.io.*;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Loads level-set files and SOL metadata on a pool of worker threads,
+ * consulting a persistent index of the results of previous runs.
+ */
+public final class MetaFuncs {
+  private static final String INDEX_FILE_NAME = "meta-index.dat";
+  
+  private static MetaIndex       index;
+  private static ExecutorService executor;
+  
+  public static void initialize() {
+    index    = loadIndex();
+    executor = createExecutor();
+  }
+  
+  private static Path getIndexFile() {
+    return getUserDirectory().resolve(INDEX_FILE_NAME);
+  }
+  
+  private static MetaIndex loadIndex() {
+    try {
+      return MetaIndexReadTool.readMetaIndex(getIndexFile());
+    } catch (IOException ex) {
+      return new MetaIndex();
+    }
+  }
+  
+  private static void saveIndex() {
+    if (!index.isDirty()) {
+      return;
+    }
+    
+    try {
+      MetaIndexWriteTool.writeMetaIndex(getIndexFile(), index);
+      
+      index.setClean();
+    } catch (IOException ex) {
+    }
+  }
+  
+  private static ExecutorService createExecutor() {
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    
+    return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Meta");
+        thread.setDaemon(true);
+        
+        return thread;
+      }
+    });
+  }
+  
+  private static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>(tasks.size());
+    
+    try {
+      for (Future<T> future: executor.invokeAll(tasks)) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException ex) {
+          // Unexpected failure of a single task.
+          
+          results.add(null);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    
+    // Tasks that did not complete yield no result.
+    
+    while (results.size() < tasks.size()) {
+      results.add(null);
+    }
+    
+    saveIndex();
+    
+    return results;
+  }
+  
+  private static byte[] readBytes(Source src) throws IOException {
+    try (InputStream in = src.newInputStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[]                buf = new byte[8192];
+      
+      for (int len; (len = in.read(buf)) != -1;) {
+        out.write(buf, 0, len);
+      }
+      
+      return out.toByteArray();
+    }
+  }
+  
+  private static byte[] encodeMeta(Meta meta) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    
+    writeInt(out, meta.size());
+    
+    for (Map.Entry<String, String> entry: meta.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+    
+    return out.toByteArray();
+  }
+  
+  private static Meta decodeMeta(byte[] data) throws IOException {
+    InputStream in = new ByteArrayInputStream(data);
+    
+    int count = readInt(in);
+    
+    if ((count < 0) || (count > data.length)) {
+      throw new IOException();
+    }
+    
+    Meta meta = new Meta(count);
+    
+    for (int idx = 0; idx < count; idx++) {
+      String key   = readString(in);
+      String value = readString(in);
+      
+      meta.put(key, value);
+    }
+    
+    return meta;
+  }
+  
+  private static Meta loadSolidMeta(String path) {
+    Source          src   = DataFuncs.getSource(path);
+    MetaIndex.Stamp stamp = MetaIndex.getStamp(src);
+    
+    if (stamp != null) {
+      byte[] data = index.get(path, stamp);
+      
+      if (data != null) {
+        try {
+          return decodeMeta(data);
+        } catch (IOException ex) {
+          // Fall back to the SOL file.
+        }
+      }
+    }
+    
+    try {
+      Meta meta = SolidReadTool.readSolidMeta(src);
+      
+      if (stamp != null) {
+        index.put(path, stamp, encodeMeta(meta));
+      }
+      
+      return meta;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+  
+  private static LevelSet loadLevelSet(String path) {
+    Source          src   = DataFuncs.getSource(path);
+    MetaIndex.Stamp stamp = MetaIndex.getStamp(src);
+    
+    byte[] data = (stamp != null) ? index.get(path, stamp) : null;
+    
+    try {
+      if (data == null) {
+        data = readBytes(src);
+        
+        if (stamp != null) {
+          index.put(path, stamp, data);
+        }
+      }
+      
+      return LevelSetReadTool.readLevelSet(new ByteArrayInputStream(data));
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+  
+  /**
+   * Returns the metadata of the given SOL files, with null elements
+   * for unreadable files.
+   */
+  public static List<Meta> loadSolidMetas(List<String> paths) {
+    List<Callable<Meta>> tasks = new ArrayList<>(paths.size());
+    
+    for (String path: paths) {
+      tasks.add(new Callable<Meta>() {
+        @Override
+        public Meta call() {
+          return loadSolidMeta(path);
+        }
+      });
+    }
+    
+    return invokeAll(tasks);
+  }
+  
+  /**
+   * Returns the given level sets, with null elements for unreadable
+   * files.
+   */
+  public static List<LevelSet> loadLevelSets(List<String> paths) {
+    List<Callable<LevelSet>> tasks = new ArrayList<>(paths.size());
+    
+    for (String path: paths) {
+      tasks.add(new Callable<LevelSet>() {
+        @Override
+        public LevelSet call() {
+          return loadLevelSet(path);
+        }
+      });
+    }
+    
+    return invokeAll(tasks);
+  }
+  
+  public static void deinitialize() {
+    executor.shutdownNow();
+    
+    saveIndex();
+    
+    executor = null;
+    index    = null;
+  }
+  
+  private MetaFuncs() {
+  }
+}
@@ -26,6 +26,8 @@ import com.uppgarn.nuncabola.preferences.*;
 
 import static com.uppgarn.nuncabola.functions.BaseFuncs.*;
 
+import java.util.*;
+
 public final class PlayFuncs {
   private static PlaySeries series;
   
@@ -86,9 +88,13 @@ public final class PlayFuncs {
     
     // Replay recorder.
     
+    ReplayFormat replayFormat = ReplayFormat.get(
+      getIntPref(Pref.REPLAY_FORMAT));
+    
     replayRecorder = new ReplayRecorder(
       ReplayFileFuncs.getGameReplayFile(),
-      series);
+      series,
+      (replayFormat == null) ? ReplayFormat.STANDARD : replayFormat);
     
     // Input.
     
@@ -134,10 +140,18 @@ public final class PlayFuncs {
   }
   
   private static void processCommands() {
-    for (Command cmd: gameServer.getCommands()) {
+    List<Command> cmds = gameServer.getCommands();
+    
+    // Index the list to avoid creating an iterator on every update.
+    
+    for (int idx = 0; idx < cmds.size(); idx++) {
+      Command cmd = cmds.get(idx);
+      
       gameClient    .execute(cmd);
       replayRecorder.record (cmd);
     }
+    
+    replayRecorder.recordKeyframe(currGame, gameClient);
   }
   
   public static PlaySeries getSeries() {
@@ -168,8 +182,19 @@ public final class PlayFuncs {
     series.update(GameFuncs.getGame());
   }
   
-  public static void stopRecording() {
+  private static void closeReplayRecorder() {
     replayRecorder.close();
+    
+    // A replay missing updates would end short of the outcome in its
+    // header, so it is discarded rather than offered for saving.
+    
+    if (replayRecorder.getDroppedUpdateCount() > 0) {
+      ReplayFileFuncs.deleteGameReplay();
+    }
+  }
+  
+  public static void stopRecording() {
+    closeReplayRecorder();
   }
   
   public static String getDefaultReplayName() {
@@ -190,7 +215,7 @@ public final class PlayFuncs {
   }
   
   public static void restartLevel() {
-    replayRecorder.close();
+    closeReplayRecorder();
     
     series.restartLevel();
     
@@ -202,7 +227,7 @@ public final class PlayFuncs {
   }
   
   public static void retryLevel() {
-    replayRecorder.close();
+    closeReplayRecorder();
     
     series.retryLevel();
     
@@ -214,7 +239,7 @@ public final class PlayFuncs {
   }
   
   public static void playNextLevel() throws FuncsException {
-    replayRecorder.close();
+    closeReplayRecorder();
     
     series.playNextLevel();
     
@@ -226,13 +251,13 @@ public final class PlayFuncs {
   }
   
   public static void finish() {
-    replayRecorder.close();
+    closeReplayRecorder();
     
     series.finish();
   }
   
   public static void deinitialize() {
-    replayRecorder.close();
+    closeReplayRecorder();
     
     series         = null;
     currGame       = null;
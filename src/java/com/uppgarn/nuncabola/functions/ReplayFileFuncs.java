@@ -107,6 +107,13 @@ public final class ReplayFileFuncs {
     }
   }
   
+  public static void deleteGameReplay() {
+    try {
+      Files.deleteIfExists(getGameReplayFile());
+    } catch (IOException ex) {
+    }
+  }
+  
   public static void changeGameReplayPlayer(String player) {
     ReplayFileTool.changePlayer(getGameReplayFile(), player);
   }
@@ -40,6 +40,7 @@ public final class ReplayFuncs {
   private static Game             prevGame;
   private static float            accum;
   private static Speed            speed;
+  private static boolean          seeking;
   
   public static void initialize(Source src) throws FuncsException {
     initialize(src, true);
@@ -122,7 +123,7 @@ public final class ReplayFuncs {
       new GameClientListener() {
         @Override
         public void soundRequested(String path, float amp) {
-          if (soundEnabled) {
+          if (soundEnabled && !seeking) {
             Audio.playSound(path, amp);
           }
         }
@@ -147,12 +148,16 @@ public final class ReplayFuncs {
     // Speed.
     
     speed = Speed.NORMAL;
+    
+    seeking = false;
   }
   
   private static void processCommands() {
     for (Command cmd: gameServer.getCommands()) {
       gameClient.execute(cmd);
     }
+    
+    gameServer.indexState(currGame, gameClient);
   }
   
   public static Path getFile() {
@@ -195,6 +200,41 @@ public final class ReplayFuncs {
     series.update(GameFuncs.getGame());
   }
   
+  /**
+   * Returns the index of the current update.
+   */
+  public static int getUpdateIndex() {
+    return gameServer.getUpdateIndex();
+  }
+  
+  /**
+   * Jumps to the given update without playing sounds.
+   */
+  public static void seek(int update) {
+    seeking = true;
+    
+    gameServer.seek(Math.max(update, 0), currGame, gameClient);
+    
+    seeking = false;
+    
+    prevGame.copyFrom(currGame);
+    
+    accum = 0.0f;
+    
+    GameFuncs.getGame().copyFrom(currGame);
+    
+    series.update(GameFuncs.getGame());
+  }
+  
+  /**
+   * Jumps by the given number of seconds, forward or backward.
+   */
+  public static void skip(float time) {
+    int updates = Math.round(time * gameServer.getRate().getUPS());
+    
+    seek(gameServer.getUpdateIndex() + updates);
+  }
+  
   public static void repeat() {
     gameServer.close();
     
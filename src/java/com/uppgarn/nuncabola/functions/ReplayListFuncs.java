@@ -30,16 +30,59 @@ import java.util.*;
 public final class ReplayListFuncs {
   private static final Random RANDOM = new Random();
   
+  private static final String LIBRARY_FILE_NAME = "replay-index.dat";
+  
+  private static ReplayLibrary        lib;
+  private static ReplayLibraryScanner scanner;
+  
+  private static List<Path>   allFiles;
+  private static ReplayOrder  order;
+  private static ReplayFilter filter;
+  private static long         revision;
+  private static boolean      complete;
+  
   private static List<Path> files;
   
   private static ReplayInfo[] infos;
   private static boolean   [] checked;
   
   public static void initialize() {
-    files = createFiles();
+    lib      = loadLibrary();
+    allFiles = createFiles();
+    order    = ReplayOrder.NAME;
+    filter   = null;
     
-    infos   = new ReplayInfo[files.size()];
-    checked = new boolean   [files.size()];
+    updateFiles();
+    
+    scanner = new ReplayLibraryScanner(
+      lib,
+      getReplayDirectory(),
+      ReplayFileFuncs.EXTENSION,
+      getLibraryFile());
+    scanner.start();
+  }
+  
+  private static Path getLibraryFile() {
+    return getReplayDirectory().resolve(LIBRARY_FILE_NAME);
+  }
+  
+  private static ReplayLibrary loadLibrary() {
+    try {
+      return ReplayLibraryReadTool.readReplayLibrary(getLibraryFile());
+    } catch (IOException ex) {
+      return new ReplayLibrary();
+    }
+  }
+  
+  private static void saveLibrary() {
+    if (lib.isDirty()) {
+      lib.setClean();
+      
+      try {
+        ReplayLibraryWriteTool.writeReplayLibrary(getLibraryFile(), lib);
+      } catch (IOException ex) {
+      }
+    }
   }
   
   private static List<Path> createFiles() {
@@ -67,6 +110,111 @@ public final class ReplayListFuncs {
     return files;
   }
   
+  /**
+   * Orders and filters the list by the headers in the library.
+   * Replays the library does not know yet are never read here,
+   * but left in file-name order at the end of the list until the
+   * scanner has indexed them.
+   */
+  private static void updateFiles() {
+    revision = lib.getRevision();
+    
+    if ((order == ReplayOrder.NAME) && (filter == null)) {
+      files    = allFiles;
+      complete = true;
+    } else {
+      final Map<Path, ReplayInfo> fileInfos = new HashMap<>();
+      
+      List<Path> indexedFiles = new ArrayList<>();
+      List<Path> pendingFiles = new ArrayList<>();
+      
+      for (Path file: allFiles) {
+        ReplayLibrary.Entry entry = lib.get(file.getFileName().toString());
+        
+        if (entry == null) {
+          pendingFiles.add(file);
+          
+          continue;
+        }
+        
+        ReplayInfo info = entry.getInfo();
+        
+        if ((filter == null) || ((info != null) && filter.accepts(info))) {
+          indexedFiles.add(file);
+          fileInfos   .put(file, info);
+        }
+      }
+      
+      if (order != ReplayOrder.NAME) {
+        indexedFiles.sort(new Comparator<Path>() {
+          @Override
+          public int compare(Path o1, Path o2) {
+            ReplayInfo info1 = fileInfos.get(o1);
+            ReplayInfo info2 = fileInfos.get(o2);
+            
+            // Invalid replays go last.
+            
+            if ((info1 == null) || (info2 == null)) {
+              return Boolean.compare(info1 == null, info2 == null);
+            }
+            
+            return order.compare(info1, info2);
+          }
+        });
+      }
+      
+      indexedFiles.addAll(pendingFiles);
+      
+      files    = indexedFiles;
+      complete = pendingFiles.isEmpty();
+    }
+    
+    infos   = new ReplayInfo[files.size()];
+    checked = new boolean   [files.size()];
+  }
+  
+  /**
+   * Orders and filters the list again if it contains replays
+   * that were not indexed yet and the library has changed since.
+   * Returns whether the list was updated.
+   */
+  public static boolean update() {
+    if (complete || (lib.getRevision() == revision)) {
+      return false;
+    }
+    
+    updateFiles();
+    
+    return true;
+  }
+  
+  public static ReplayOrder getOrder() {
+    return order;
+  }
+  
+  /**
+   * Sets the order of the replay list. Ties are broken by file name.
+   */
+  public static void setOrder(ReplayOrder order) {
+    ReplayListFuncs.order = order;
+    
+    updateFiles();
+  }
+  
+  public static ReplayFilter getFilter() {
+    return filter;
+  }
+  
+  /**
+   * Restricts the replay list to valid replays accepted by
+   * {@code filter}, or lifts the restriction if it is null.
+   */
+  public static void setFilter(ReplayFilter filter) {
+    ReplayListFuncs.filter = filter;
+    
+    updateFiles();
+  }
+  
   public static int getReplayCount() {
     return files.size();
   }
@@ -95,14 +243,15 @@ public final class ReplayListFuncs {
     return -1;
   }
   
+  public static int getIndex(Path file) {
+    return files.indexOf(file);
+  }
+  
   public static ReplayInfo getInfo(int idx) {
     if (!checked[idx]) {
-      try {
-        infos[idx] = ReplayInfoReadTool.readReplayInfo(files.get(idx));
-      } catch (IOException ex) {
-        infos[idx] = null;
-      }
+      ReplayLibrary.Entry entry = lib.refresh(files.get(idx));
       
+      infos  [idx] = (entry == null) ? null : entry.getInfo();
       checked[idx] = true;
     }
     
@@ -134,6 +283,16 @@ public final class ReplayListFuncs {
   }
   
   public static void deinitialize() {
+    scanner.terminate();
+    
+    saveLibrary();
+    
+    scanner  = null;
+    lib      = null;
+    allFiles = null;
+    order    = null;
+    filter   = null;
+    
     files   = null;
     infos   = null;
     checked = null;
@@ -76,6 +76,7 @@ public enum Pref {
   MULTISAMPLE             (0),
   PLAYER                  (""),
   REFLECTION              (true),
+  REPLAY_FORMAT           (9),
   REPLAY_NAME_PATTERN     ("%s-%l"),
   RESPONSE_CONTROLLER     (50),
   RESPONSE_KEYBOARD       (50),
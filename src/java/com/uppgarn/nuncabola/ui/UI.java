@@ -24,6 +24,7 @@ import com.uppgarn.nuncabola.core.graphics.*;
 import com.uppgarn.nuncabola.core.gui.*;
 import com.uppgarn.nuncabola.core.progress.*;
 import com.uppgarn.nuncabola.core.renderers.*;
+import com.uppgarn.nuncabola.core.util.*;
 import com.uppgarn.nuncabola.functions.*;
 import com.uppgarn.nuncabola.general.*;
 import com.uppgarn.nuncabola.preferences.*;
@@ -333,11 +334,13 @@ public final class UI {
   
   private static void initializeDataFuncs() {
     DataFuncs.initialize();
+    MetaFuncs.initialize();
   }
   
   private static void initializeRendererHome() {
     RendererHome.initialize(
       DataFuncs.getDataFolder(),
+      DataFuncs.getTextureCache(),
       getBooleanPref(Pref.BACKGROUND),
       getBooleanPref(Pref.SHADOW),
       getIntPref    (Pref.FOV),
@@ -345,7 +348,10 @@ public final class UI {
   }
   
   private static void initializeGUIHome() {
-    GUIHome.initialize(DataFuncs.getDataFolder(), getStringPref(Pref.THEME));
+    GUIHome.initialize(
+      DataFuncs.getDataFolder(),
+      DataFuncs.getTextureCache(),
+      getStringPref(Pref.THEME));
   }
   
   private static void initializeAudio() {
@@ -900,6 +906,7 @@ public final class UI {
   }
   
   private static void deinitializeDataFuncs() {
+    MetaFuncs.deinitialize();
     DataFuncs.deinitialize();
   }
   
@@ -929,7 +936,31 @@ public final class UI {
     hud = null;
   }
   
+  private static void outputCacheStats() {
+    // Output statistics if configured.
+    
+    if (getBooleanPref(Pref.STATS)) {
+      CacheStats soundStats = Audio.getSoundCacheStats();
+      
+      if (soundStats != null) {
+        System.out.println("sounds: " + soundStats);
+      }
+      
+      System.out.println("music underruns: " + Audio.getMusicUnderrunCount());
+      
+      if (Display.isCreated()) {
+        for (Font font: Font.values()) {
+          System.out.println(
+            "text " + font.name().toLowerCase() + ": "
+              + GUIHome.getTextCacheStats(font));
+        }
+      }
+    }
+  }
+  
   public static void deinitialize() {
+    outputCacheStats();
+    
     if (Display.isCreated()) {
       deinitializeHUD();
       deinitializeFPSCounter();
@@ -29,6 +29,8 @@ import static com.uppgarn.nuncabola.functions.BaseFuncs.*;
 import org.lwjgl.input.*;
 
 public abstract class ReplayActionScreen extends GUIScreen {
+  private static final float SKIP_TIME = 10.0f;
+  
   private HUD hud;
   
   @Override
@@ -71,6 +73,10 @@ public abstract class ReplayActionScreen extends GUIScreen {
       changeSpeed(+1);
     } else if (isKey(code, ch, Pref.KEY_BACKWARD)) {
       changeSpeed(-1);
+    } else if (code == Keyboard.KEY_NEXT) {
+      ReplayFuncs.skip(+SKIP_TIME);
+    } else if (code == Keyboard.KEY_PRIOR) {
+      ReplayFuncs.skip(-SKIP_TIME);
     } else if (isKey(code, ch, Pref.KEY_PAUSE)
         || (code == Keyboard.KEY_RETURN)) {
       goToReplayPauseScreen();
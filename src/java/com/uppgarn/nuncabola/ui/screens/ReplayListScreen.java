@@ -22,9 +22,13 @@ import com.uppgarn.nuncabola.core.game.*;
 import com.uppgarn.nuncabola.core.gui.*;
 import com.uppgarn.nuncabola.core.replay.*;
 import com.uppgarn.nuncabola.functions.*;
+import com.uppgarn.nuncabola.preferences.*;
 import com.uppgarn.nuncabola.ui.*;
 import com.uppgarn.nuncabola.ui.components.*;
 
+import static com.uppgarn.nuncabola.functions.BaseFuncs.*;
+
+import java.nio.file.*;
 import java.time.*;
 import java.time.format.*;
 import java.util.*;
@@ -40,6 +44,9 @@ public final class ReplayListScreen extends MenuScreen {
   
   private static final Map<Status, String> STATUS_STRS = createStatusStrings();
   
+  private static final Map<ReplayOrder, String> ORDER_STRS =
+    createOrderStrings();
+  
   public static final ReplayListScreen INSTANCE = new ReplayListScreen();
   
   private static Map<Status, String> createStatusStrings() {
@@ -53,6 +60,22 @@ public final class ReplayListScreen extends MenuScreen {
     return strs;
   }
   
+  private static Map<ReplayOrder, String> createOrderStrings() {
+    Map<ReplayOrder, String> strs = new EnumMap<>(ReplayOrder.class);
+    
+    strs.put(ReplayOrder.NAME,   "Name");
+    strs.put(ReplayOrder.PLAYER, "Player");
+    strs.put(ReplayOrder.LEVEL,  "Level");
+    strs.put(ReplayOrder.STATUS, "Status");
+    strs.put(ReplayOrder.TIME,   "Time");
+    strs.put(ReplayOrder.DATE,   "Date");
+    
+    return strs;
+  }
+  
+  private ReplayOrder order;
+  private Show        show;
+  
   private int first;
   private int selected;
   
@@ -61,7 +84,11 @@ public final class ReplayListScreen extends MenuScreen {
   private StringBuilder patternStrBld;
   private long          patternLastTime;
   
+  private float updateTime;
+  
   private Navigation  nav;
+  private Button      orderBtn;
+  private Button      showBtn;
   private Widget[]    btns;
   private TextLabel   nameLbl;
   private TextLabel   playerLbl;
@@ -71,6 +98,8 @@ public final class ReplayListScreen extends MenuScreen {
   private TextLabel   statusLbl;
   
   private ReplayListScreen() {
+    order    = ReplayOrder.NAME;
+    show     = Show.ALL;
     first    = 0;
     selected = 0;
   }
@@ -79,6 +108,8 @@ public final class ReplayListScreen extends MenuScreen {
   public void enter(Screen from) {
     if (from != this) {
       ReplayListFuncs.initialize();
+      ReplayListFuncs.setOrder (order);
+      ReplayListFuncs.setFilter(show.getFilter());
       
       total    = ReplayListFuncs.getReplayCount();
       first    = (Math.min(first, Math.max(0, total - 1)) / PAGE_SIZE)
@@ -87,6 +118,8 @@ public final class ReplayListScreen extends MenuScreen {
       
       patternStrBld   = new StringBuilder();
       patternLastTime = 0;
+      
+      updateTime = 0;
     }
     
     super.enter(from);
@@ -223,6 +256,39 @@ public final class ReplayListScreen extends MenuScreen {
     }
   }
   
+  private void createOrderBox(GUI gui, Container parent) {
+    Container c0 = gui.hStack(parent);
+    
+    {
+      TextLabel lbl0 = gui.textLabel(c0);
+      lbl0.setText ("Sort by");
+      lbl0.setColor(Color.WHITE);
+      
+      String[] orderBtnStrs = ORDER_STRS.values().toArray(
+        new String[ORDER_STRS.size()]);
+      
+      orderBtn = gui.button(c0, Font.SMALL, orderBtnStrs);
+      orderBtn.setText (ORDER_STRS.get(order));
+      orderBtn.setToken(Action.ORDER);
+      
+      gui.space(c0, true);
+      
+      TextLabel lbl1 = gui.textLabel(c0);
+      lbl1.setText ("Show");
+      lbl1.setColor(Color.WHITE);
+      
+      String[] showBtnStrs = new String[Show.values().length];
+      
+      for (Show myShow: Show.values()) {
+        showBtnStrs[myShow.ordinal()] = myShow.getText();
+      }
+      
+      showBtn = gui.button(c0, Font.SMALL, showBtnStrs);
+      showBtn.setText (show.getText());
+      showBtn.setToken(Action.SHOW);
+    }
+  }
+  
   @Override
   protected void configureGUI(GUI gui) {
     if (total == 0) {
@@ -239,6 +305,14 @@ public final class ReplayListScreen extends MenuScreen {
         btn.setToken(Action.BACK);
         
         gui.setFocusWidget(btn);
+        
+        if (show != Show.ALL) {
+          // Allow the filter to be lifted again.
+          
+          gui.space(c0);
+          
+          createOrderBox(gui, c0);
+        }
       }
       
       return;
@@ -294,6 +368,10 @@ public final class ReplayListScreen extends MenuScreen {
       gui.space(c0);
       
       createReplayInfoBox(gui, c0);
+      
+      gui.space(c0);
+      
+      createOrderBox(gui, c0);
     }
     
     updateReplayInfoBox();
@@ -360,6 +438,29 @@ public final class ReplayListScreen extends MenuScreen {
         
         break;
       }
+      case ORDER: {
+        order = ReplayOrder.values()[
+          (order.ordinal() + 1) % ReplayOrder.values().length];
+        
+        ReplayListFuncs.setOrder(order);
+        
+        reset();
+        
+        getGUI().setFocusWidget(orderBtn);
+        
+        break;
+      }
+      case SHOW: {
+        show = Show.values()[(show.ordinal() + 1) % Show.values().length];
+        
+        ReplayListFuncs.setFilter(show.getFilter());
+        
+        reset();
+        
+        getGUI().setFocusWidget(showBtn);
+        
+        break;
+      }
       case REPLAY: {
         int idx = (Integer) token1;
         
@@ -387,6 +488,47 @@ public final class ReplayListScreen extends MenuScreen {
     }
   }
   
+  private void reset() {
+    total    = ReplayListFuncs.getReplayCount();
+    first    = 0;
+    selected = 0;
+    
+    UI.gotoScreen(this);
+  }
+  
+  /**
+   * Picks up replays the scanner has indexed since the list
+   * was last ordered, keeping the selection and focus.
+   */
+  private void update() {
+    Path selectedFile = (total == 0) ? null
+      : ReplayListFuncs.getFile(selected);
+    
+    if (!ReplayListFuncs.update()) {
+      return;
+    }
+    
+    Object focusToken = getGUI().getFocusWidget().getToken0();
+    
+    total = ReplayListFuncs.getReplayCount();
+    
+    int idx = (selectedFile == null) ? -1
+      : ReplayListFuncs.getIndex(selectedFile);
+    
+    selected = (idx == -1) ? Math.min(selected, Math.max(0, total - 1)) : idx;
+    first    = (selected / PAGE_SIZE) * PAGE_SIZE;
+    
+    UI.gotoScreen(this);
+    
+    if (focusToken == Action.ORDER) {
+      getGUI().setFocusWidget(orderBtn);
+    } else if (focusToken == Action.SHOW) {
+      getGUI().setFocusWidget(showBtn);
+    } else if ((focusToken == Action.REPLAY) && (total > 0)) {
+      getGUI().setFocusWidget(btns[selected - first]);
+    }
+  }
+  
   @Override
   public void paint(float t) {
     GameFuncs.draw(t);
@@ -394,6 +536,19 @@ public final class ReplayListScreen extends MenuScreen {
     super.paint(t);
   }
   
+  @Override
+  public void timer(float dt) {
+    updateTime += dt;
+    
+    if (updateTime >= 1) { // 1s
+      updateTime = 0;
+      
+      update();
+    }
+    
+    super.timer(dt);
+  }
+  
   @Override
   public void textEntered(char ch) {
     if (total == 0) {
@@ -447,6 +602,8 @@ public final class ReplayListScreen extends MenuScreen {
     }
     
     nav       = null;
+    orderBtn  = null;
+    showBtn   = null;
     btns      = null;
     nameLbl   = null;
     playerLbl = null;
@@ -460,7 +617,65 @@ public final class ReplayListScreen extends MenuScreen {
     BACK,
     NAVIGATE,
     NAVIGATE_INDEX,
+    ORDER,
+    SHOW,
     REPLAY,
     DISABLED
   }
+  
+  private enum Show {
+    ALL("All") {
+      @Override
+      public ReplayFilter getFilter() {
+        return null;
+      }
+    },
+    SUCCESS("Success") {
+      @Override
+      public ReplayFilter getFilter() {
+        return new ReplayFilter() {
+          @Override
+          public boolean accepts(ReplayInfo info) {
+            return info.getStatus() == Status.GOAL;
+          }
+        };
+      }
+    },
+    FAILURE("Failure") {
+      @Override
+      public ReplayFilter getFilter() {
+        return new ReplayFilter() {
+          @Override
+          public boolean accepts(ReplayInfo info) {
+            return info.getStatus() != Status.GOAL;
+          }
+        };
+      }
+    },
+    MINE("Mine") {
+      @Override
+      public ReplayFilter getFilter() {
+        final String player = getStringPref(Pref.PLAYER);
+        
+        return new ReplayFilter() {
+          @Override
+          public boolean accepts(ReplayInfo info) {
+            return info.getPlayer().equals(player);
+          }
+        };
+      }
+    };
+    
+    private final String text;
+    
+    Show(String text) {
+      this.text = text;
+    }
+    
+    public String getText() {
+      return text;
+    }
+    
+    public abstract ReplayFilter getFilter();
+  }
 }